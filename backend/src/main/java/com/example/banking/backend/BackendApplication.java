@@ -3,11 +3,13 @@ package com.example.banking.backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.TimeZone;
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableScheduling
 public class BackendApplication {
 
     public static void main(String[] args) throws Exception {
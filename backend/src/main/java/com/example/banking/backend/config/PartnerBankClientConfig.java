@@ -0,0 +1,52 @@
+package com.example.banking.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP settings for partner bank clients. {@code defaults} apply to every bank, entries under
+ * {@code banks} (keyed by bank code) override them for a single partner.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "banking.partner-banks")
+public class PartnerBankClientConfig {
+
+    private Settings defaults = new Settings();
+
+    private Map<String, Settings> banks = new HashMap<>();
+
+    public Settings settingsFor(String bankCode) {
+        Settings override = banks.get(bankCode);
+        if (override == null) {
+            return defaults;
+        }
+        Settings merged = new Settings();
+        merged.setConnectTimeoutMs(override.getConnectTimeoutMs() != null ? override.getConnectTimeoutMs() : defaults.getConnectTimeoutMs());
+        merged.setReadTimeoutMs(override.getReadTimeoutMs() != null ? override.getReadTimeoutMs() : defaults.getReadTimeoutMs());
+        merged.setMaxConcurrentCalls(override.getMaxConcurrentCalls() != null ? override.getMaxConcurrentCalls() : defaults.getMaxConcurrentCalls());
+        merged.setBulkheadWaitMs(override.getBulkheadWaitMs() != null ? override.getBulkheadWaitMs() : defaults.getBulkheadWaitMs());
+        merged.setFailureThreshold(override.getFailureThreshold() != null ? override.getFailureThreshold() : defaults.getFailureThreshold());
+        merged.setOpenDurationMs(override.getOpenDurationMs() != null ? override.getOpenDurationMs() : defaults.getOpenDurationMs());
+        return merged;
+    }
+
+    @Getter
+    @Setter
+    public static class Settings {
+        private Integer connectTimeoutMs = 2000;
+        private Integer readTimeoutMs = 5000;
+        /** Calls in flight to one bank; also bounds the connections its pool keeps open */
+        private Integer maxConcurrentCalls = 8;
+        private Integer bulkheadWaitMs = 200;
+        /** Consecutive failures that open the circuit */
+        private Integer failureThreshold = 5;
+        private Integer openDurationMs = 30000;
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.banking.backend.config;
 
 import com.example.banking.backend.security.jwt.JwtUtils;
+import com.example.banking.backend.security.service.UserDetailsCache;
 import com.example.banking.backend.security.service.UserDetailsImpl;
-import com.example.banking.backend.security.service.UserDetailsServiceImpl;
+import com.example.banking.backend.security.token.AccessTokenDenylist;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
@@ -24,7 +26,8 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 public class WebSocketAuthenticationConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtUtils jwtUtils;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final AccessTokenDenylist accessTokenDenylist;
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
@@ -43,11 +46,12 @@ public class WebSocketAuthenticationConfig implements WebSocketMessageBrokerConf
                             token = authorizationHeader.substring(7);
                             System.out.println("Validating token...");
 
-                            if (jwtUtils.validateJwtToken(token)) {
-                                String username = jwtUtils.getUsernameFromJwtToken(token);
+                            Claims claims = jwtUtils.parseClaims(token);
+                            if (claims != null && !accessTokenDenylist.isRevoked(claims.getId())) {
+                                String username = claims.getSubject();
                                 System.out.println("Token valid for user: " + username);
 
-                                UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(username);
+                                UserDetailsImpl userDetails = userDetailsCache.loadUserByUsername(username);
                                 System.out.println("User details loaded: " + userDetails.getId());
 
                                 UsernamePasswordAuthenticationToken authentication =
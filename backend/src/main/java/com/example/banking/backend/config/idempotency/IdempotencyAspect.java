@@ -0,0 +1,186 @@
+package com.example.banking.backend.config.idempotency;
+
+import com.example.banking.backend.exception.BadRequestException;
+import com.example.banking.backend.exception.IdempotencyConflictException;
+import com.example.banking.backend.model.IdempotencyRecord;
+import com.example.banking.backend.security.jwt.CustomContextHolder;
+import com.example.banking.backend.service.RedisService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handles the {@code Idempotency-Key} header on {@link Idempotent} endpoints. The first request claims the
+ * key in Redis with SETNX and stores its response once it completes; repeats are answered from Redis.
+ * A repeat that arrives while the first one is still running waits for it instead of moving money twice.
+ * If the first request throws, the key is released so the client can retry.
+ * <p>
+ * The claim is renewed every third of {@code banking.idempotency.in-flight-ttl-seconds} while the request
+ * runs, so a long batch keeps its key; the TTL only ends a claim whose instance died mid-request.
+ */
+@Slf4j
+@Aspect
+@Component
+public class IdempotencyAspect {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final Duration completedTtl;
+    private final Duration inFlightTtl;
+    private final long waitTimeoutMillis;
+    private final ScheduledExecutorService heartbeats =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("idempotency-heartbeat-"));
+
+    public IdempotencyAspect(RedisService redisService,
+                             ObjectMapper objectMapper,
+                             @Value("${banking.idempotency.ttl-hours:24}") long completedTtlHours,
+                             @Value("${banking.idempotency.in-flight-ttl-seconds:60}") long inFlightTtlSeconds,
+                             @Value("${banking.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        this.redisService = redisService;
+        this.objectMapper = objectMapper;
+        this.completedTtl = Duration.ofHours(completedTtlHours);
+        this.inFlightTtl = Duration.ofSeconds(inFlightTtlSeconds);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    @Around("@annotation(com.example.banking.backend.config.idempotency.Idempotent)")
+    public Object handle(ProceedingJoinPoint joinPoint) throws Throwable {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        String idempotencyKey = request.getHeader(HEADER);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return joinPoint.proceed();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        // Keys are only unique per caller and endpoint
+        String key = CustomContextHolder.getCurrentUserId() + ":" + request.getRequestURI() + ":" + idempotencyKey;
+        String requestHash = hash(objectMapper.writeValueAsBytes(joinPoint.getArgs()));
+
+        if (redisService.claimIdempotencyKey(key, requestHash, inFlightTtl)) {
+            return proceedAndRecord(joinPoint, key, requestHash);
+        }
+        return replay(awaitCompletion(key, requestHash));
+    }
+
+    private Object proceedAndRecord(ProceedingJoinPoint joinPoint, String key, String requestHash) throws Throwable {
+        Object result;
+        ClaimHeartbeat heartbeat = new ClaimHeartbeat(key);
+        long periodMillis = Math.max(1, inFlightTtl.toMillis() / 3);
+        heartbeat.future = heartbeats.scheduleAtFixedRate(heartbeat, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            heartbeat.stop();
+            redisService.deleteIdempotencyRecord(key);
+            throw e;
+        }
+        heartbeat.stop();
+
+        if (result instanceof ResponseEntity<?> response) {
+            IdempotencyRecord record = new IdempotencyRecord(IdempotencyRecord.COMPLETED, requestHash,
+                    response.getStatusCode().value(), objectMapper.writeValueAsString(response.getBody()));
+            redisService.saveIdempotencyRecord(key, record, completedTtl);
+        } else {
+            log.warn("@Idempotent method returned {}, response is not recorded", result == null ? null : result.getClass());
+            redisService.deleteIdempotencyRecord(key);
+        }
+        return result;
+    }
+
+    private IdempotencyRecord awaitCompletion(String key, String requestHash) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+        while (true) {
+            Optional<IdempotencyRecord> record = redisService.getIdempotencyRecord(key);
+            if (record.isEmpty()) {
+                // The first request failed and released the key
+                throw new IdempotencyConflictException("The original request with this " + HEADER + " failed, please retry");
+            }
+            if (!requestHash.equals(record.get().getRequestHash())) {
+                throw new BadRequestException(HEADER + " was already used with a different request");
+            }
+            if (IdempotencyRecord.COMPLETED.equals(record.get().getState())) {
+                return record.get();
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IdempotencyConflictException("A request with this " + HEADER + " is still in progress");
+            }
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    private ResponseEntity<Object> replay(IdempotencyRecord record) throws Exception {
+        Object body = record.getBody() == null ? null : objectMapper.readTree(record.getBody());
+        return ResponseEntity.status(record.getStatus())
+                .header(REPLAYED_HEADER, "true")
+                .body(body);
+    }
+
+    private static String hash(byte[] payload) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+
+    /**
+     * Keeps a claim alive. Once {@link #stop()} returns no renewal is in progress or will start, so the
+     * completed record written next keeps its own TTL.
+     */
+    private final class ClaimHeartbeat implements Runnable {
+
+        private final String key;
+        private ScheduledFuture<?> future;
+        private boolean stopped;
+
+        private ClaimHeartbeat(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (stopped) {
+                return;
+            }
+            try {
+                redisService.extendIdempotencyClaim(key, inFlightTtl);
+            } catch (RuntimeException e) {
+                log.warn("Could not renew the claim on idempotency key {}", key, e);
+            }
+        }
+
+        private synchronized void stop() {
+            stopped = true;
+            future.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.banking.backend.config.idempotency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method whose response is replayed when the same caller sends the same
+ * {@code Idempotency-Key} header again. The method must return a {@code ResponseEntity}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
@@ -52,9 +52,10 @@ public class AccountController {
             @RequestBody GetAccountTransactionsRequest request,
             @Parameter(description = "Limit per page") @RequestParam(required = false, defaultValue = "10") Integer limit,
             @Parameter(description = "Page number") @RequestParam(required = false, defaultValue = "1") Integer pn,
-            @Parameter(description = "Transaction type") @RequestParam(required = false) TransactionType type
+            @Parameter(description = "Transaction type") @RequestParam(required = false) TransactionType type,
+            @Parameter(description = "Cursor returned by the previous page, takes precedence over page number") @RequestParam(required = false) String cursor
     ) {
-        ApiResponse<GetAccountTransactionsResponse> apiResponse = accountService.getAccountTransactions(request.getAccountNumber(), limit, pn, type);
+        ApiResponse<GetAccountTransactionsResponse> apiResponse = accountService.getAccountTransactions(request.getAccountNumber(), limit, pn, type, cursor);
         return ResponseEntity.ok(apiResponse);
     }
 
@@ -76,8 +77,9 @@ public class AccountController {
     public ResponseEntity<ApiResponse<GetAccountTransactionsResponse>> getCustomerTransaction(
             @Parameter(description = "Limit per page") @RequestParam(required = false, defaultValue = "10") Integer limit,
             @Parameter(description = "Page number") @RequestParam(required = false, defaultValue = "1") Integer pn,
-            @Parameter(description = "Transaction type") @RequestParam(required = false) TransactionType type) {
-        ApiResponse<GetAccountTransactionsResponse> apiResponse = accountService.getCustomerTransactions(limit, pn, type);
+            @Parameter(description = "Transaction type") @RequestParam(required = false) TransactionType type,
+            @Parameter(description = "Cursor returned by the previous page, takes precedence over page number") @RequestParam(required = false) String cursor) {
+        ApiResponse<GetAccountTransactionsResponse> apiResponse = accountService.getCustomerTransactions(limit, pn, type, cursor);
         return ResponseEntity.ok(apiResponse);
     }
 
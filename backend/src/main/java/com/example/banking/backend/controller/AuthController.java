@@ -17,8 +17,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.UUID;
-
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/auth")
@@ -58,8 +56,10 @@ public class AuthController {
             , summary = "[PROTECTED] Log out"
             , description = "Users log out of the system")
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<LogoutResponse>> logout(@Parameter(description = "Account's refresh token") @RequestParam String refreshToken) {
-        LogoutResponse response = authService.logout(UUID.fromString(refreshToken));
+    public ResponseEntity<ApiResponse<LogoutResponse>> logout(@Parameter(description = "Account's refresh token") @RequestParam String refreshToken,
+                                                              @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        LogoutResponse response = authService.logout(refreshToken, accessToken);
         ApiResponse<LogoutResponse> apiResponse = ApiResponse.<LogoutResponse>builder()
                 .message("Log out successfully!")
                 .status(HttpStatus.OK.value())
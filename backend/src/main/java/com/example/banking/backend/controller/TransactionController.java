@@ -1,26 +1,37 @@
 package com.example.banking.backend.controller;
 
+import com.example.banking.backend.config.idempotency.Idempotent;
 import com.example.banking.backend.dto.ApiResponse;
+import com.example.banking.backend.dto.request.transaction.BatchTransferRequest;
 import com.example.banking.backend.dto.request.transaction.InternalDeposit;
 import com.example.banking.backend.dto.request.transaction.TransferExternalRequest;
 import com.example.banking.backend.dto.request.transaction.TransferRequest;
 import com.example.banking.backend.dto.response.transaction.*;
+import com.example.banking.backend.model.type.ExportFormatType;
+import com.example.banking.backend.model.type.OutboxResolutionType;
+import com.example.banking.backend.model.type.StatsIntervalType;
 import com.example.banking.backend.service.TransactionService;
+import com.example.banking.backend.service.export.TransactionExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.UUID;
 
 @SecurityRequirement(name = "bearerAuth")
 @RequiredArgsConstructor
@@ -30,11 +41,13 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
 
     @Operation(tags = "💱 Transaction"
             , summary = "[CUSTOMER] Make an internal transaction"
             , description = "Customers transfer money to an internal account")
     @PreAuthorize("hasRole('CUSTOMER')")
+    @Idempotent
     @PostMapping("/internal")
     public ResponseEntity<ApiResponse<TransferResult>> internalTransfer(
             @Valid @RequestBody TransferRequest request) {
@@ -46,17 +59,41 @@ public class TransactionController {
                 .build());
     }
 
+    @Operation(tags = "💱 Transaction"
+            , summary = "[CUSTOMER] Make a batch of internal transactions"
+            , description = "Customers transfer money to many internal accounts with one OTP, e.g. a payroll")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    @Idempotent
+    @PostMapping("/internal/batch")
+    public ResponseEntity<ApiResponse<BatchTransferResult>> batchInternalTransfer(
+            @Valid @RequestBody BatchTransferRequest request) {
+        BatchTransferResult result = transactionService.batchInternalTransfer(request);
+        return ResponseEntity.ok(ApiResponse.<BatchTransferResult>builder()
+                .status(HttpStatus.OK.value())
+                .message("Batch transfer completed")
+                .data(result)
+                .build());
+    }
+
     @Operation(tags = "💱 Transaction"
             , summary = "[CUSTOMER] Make an external transaction"
-            , description = "Customers transfer money to an external account")
+            , description = "Customers transfer money to an external account. The transfer is delivered to the partner bank in the background")
     @PreAuthorize("hasRole('CUSTOMER')")
+    @Idempotent
     @PostMapping("/external")
     public ResponseEntity<ApiResponse<TransferResult>> externalTransfer(
             @Valid @RequestBody TransferExternalRequest request) throws Exception {
         TransferResult result = transactionService.externalTransfer(request);
-        return ResponseEntity.ok(ApiResponse.<TransferResult>builder()
-                .status(HttpStatus.OK.value())
-                .message("External transfer completed successfully")
+        if (!result.getSuccess()) {
+            return ResponseEntity.ok(ApiResponse.<TransferResult>builder()
+                    .status(HttpStatus.OK.value())
+                    .message("External transfer was not accepted")
+                    .data(result)
+                    .build());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.<TransferResult>builder()
+                .status(HttpStatus.ACCEPTED.value())
+                .message("External transfer accepted, you will be notified when it completes")
                 .data(result)
                 .build());
     }
@@ -92,6 +129,58 @@ public class TransactionController {
                 .build());
     }
 
+    @Operation(tags = "💱 Transaction"
+            , summary = "[ADMIN] Browse a bank's transactions in a period of time with a cursor"
+            , description = "Admin get a bank's transactions from start date to end date, newest first. Pass next_cursor back to get the following slice")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/bank-transactions/slice")
+    public ResponseEntity<ApiResponse<BankTransactionSliceDto>> getBankTransactionSlice(
+            @Parameter(description = "Get transactions from this date, YYYY-MM-DD") @RequestParam(required = false) String startDate,
+            @Parameter(description = "Get transactions to this date, YYYY-MM-DD") @RequestParam(required = false) String endDate,
+            @Parameter(description = "Limit per slice") @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "Cursor returned by the previous slice") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Either our bank or other bank") @RequestParam(required = false) String bankCode,
+            @Parameter(description = "Add an approximate total to the first slice") @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
+
+        if (startDate == null || startDate.trim().isEmpty()) {
+            startDate = now.minusDays(10).format(DateTimeFormatter.ISO_LOCAL_DATE);
+        }
+
+        if (endDate == null || endDate.trim().isEmpty()) {
+            endDate = now.format(DateTimeFormatter.ISO_LOCAL_DATE);
+        }
+        BankTransactionSliceDto transactions = transactionService.getBankTransactionSlice(
+                startDate, endDate, limit, cursor, bankCode, includeTotal);
+
+        return ResponseEntity.ok(ApiResponse.<BankTransactionSliceDto>builder()
+                .status(HttpStatus.OK.value())
+                .message("Bank transactions retrieved successfully")
+                .data(transactions)
+                .build());
+    }
+
+    @Operation(tags = "💱 Transaction"
+            , summary = "[ADMIN] Export a bank's transactions in a period of time"
+            , description = "Admin streams every interbank transaction from start date to end date as CSV or NDJSON, for reconciliation with partner banks")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/bank-transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportBankTransactions(
+            @Parameter(description = "Export transactions from this date, YYYY-MM-DD") @RequestParam String startDate,
+            @Parameter(description = "Export transactions to this date, YYYY-MM-DD") @RequestParam String endDate,
+            @Parameter(description = "Only transactions with this partner bank") @RequestParam(required = false) String bankCode,
+            @Parameter(description = "CSV or NDJSON") @RequestParam(defaultValue = "CSV") ExportFormatType format
+    ) {
+        StreamingResponseBody body = transactionExportService.exportBankTransactions(startDate, endDate, bankCode, format);
+        String fileName = "transactions-" + (bankCode != null ? bankCode + "-" : "") + startDate + "-" + endDate
+                + "." + format.getFileExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
     @Operation(tags = "💱 Transaction"
             , summary = "[ADMIN] Get a banks' transaction statistics in a period of time"
             , description = "Admin get a banks' transaction statistics from start date to end date")
@@ -100,7 +189,8 @@ public class TransactionController {
     public ResponseEntity<ApiResponse<BankTransactionStatsDto>> getBankTransactionStats(
             @Parameter(description = "Get transactions statistics from this date") @RequestParam(required = false) String startDate,
             @Parameter(description = "Get transactions statistics to this date") @RequestParam(required = false) String endDate,
-            @Parameter(description = "Either our bank or other bank") @RequestParam(required = false) String bankCode
+            @Parameter(description = "Either our bank or other bank") @RequestParam(required = false) String bankCode,
+            @Parameter(description = "Also return a time series bucketed by HOUR or DAY") @RequestParam(required = false) StatsIntervalType groupBy
 
     ) {
         LocalDateTime now = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"));
@@ -112,7 +202,7 @@ public class TransactionController {
         if (endDate == null || endDate.trim().isEmpty()) {
             endDate = now.format(DateTimeFormatter.ISO_LOCAL_DATE); // Hôm nay
         }
-        BankTransactionStatsDto stats = transactionService.getBankTransactionStats(startDate, endDate, bankCode);
+        BankTransactionStatsDto stats = transactionService.getBankTransactionStats(startDate, endDate, bankCode, groupBy);
         return ResponseEntity.ok(ApiResponse.<BankTransactionStatsDto>builder()
                 .status(HttpStatus.OK.value())
                 .message("Bank transaction statistics retrieved successfully")
@@ -124,6 +214,7 @@ public class TransactionController {
             , summary = "[EMPLOYEE] Recharge money to an internal account"
             , description = "Employees recharge an amount of money to an internal account")
     @PreAuthorize("hasRole('EMPLOYEE')")
+    @Idempotent
     @PostMapping("/internal/deposit")
     public ResponseEntity<ApiResponse<InternalDepositResult>> internalDeposit(
             @Valid @RequestBody InternalDeposit request) {
@@ -134,4 +225,33 @@ public class TransactionController {
                 .data(result)
                 .build());
     }
-}
\ No newline at end of file
+
+    @Operation(tags = "💱 Transaction"
+            , summary = "[ADMIN] Get unconfirmed interbank transfers"
+            , description = "Admin get the interbank transfers whose delivery could not be confirmed, with the sender's money on hold")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/external/unresolved")
+    public ResponseEntity<ApiResponse<List<UnresolvedTransferDto>>> getUnresolvedInterbankTransfers() {
+        List<UnresolvedTransferDto> transfers = transactionService.getUnresolvedInterbankTransfers();
+        return ResponseEntity.ok(ApiResponse.<List<UnresolvedTransferDto>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Unresolved interbank transfers retrieved successfully")
+                .data(transfers)
+                .build());
+    }
+
+    @Operation(tags = "💱 Transaction"
+            , summary = "[ADMIN] Resolve an unconfirmed interbank transfer"
+            , description = "Admin settle an unconfirmed interbank transfer after checking with the partner bank: COMPLETED if it credited the receiver, FAILED to refund the sender, RETRY to deliver it again")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/external/unresolved/{transactionId}")
+    public ResponseEntity<ApiResponse<Void>> resolveInterbankTransfer(
+            @Parameter(description = "Transaction id of the unconfirmed transfer") @PathVariable UUID transactionId,
+            @Parameter(description = "What the partner bank reported") @RequestParam OutboxResolutionType resolution) {
+        transactionService.resolveInterbankTransfer(transactionId, resolution);
+        return ResponseEntity.ok(ApiResponse.<Void>builder()
+                .status(HttpStatus.OK.value())
+                .message("Interbank transfer resolved")
+                .build());
+    }
+}
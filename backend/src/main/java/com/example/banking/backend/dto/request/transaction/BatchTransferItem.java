@@ -0,0 +1,32 @@
+package com.example.banking.backend.dto.request.transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Data
+@Schema(description = "One beneficiary of a batch transfer")
+public class BatchTransferItem {
+    @NotNull(message = "Receiver's account number can not be null")
+    @NotEmpty(message = "Receiver's account number can not be empty")
+    @Schema(description = "Receiver's account number",
+            example = "5873176036289475",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    String accountNumberReceiver;
+
+    @NotNull(message = "Transferred amount of money can not be null")
+    @Schema(description = "Transferred amount of money",
+            example = "10000000",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    Double amount;
+
+    @Schema(description = "Message for this beneficiary, the batch message is used when empty",
+            example = "Luong thang 6",
+            requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+    String message;
+}
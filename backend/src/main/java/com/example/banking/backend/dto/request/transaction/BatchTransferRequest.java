@@ -0,0 +1,49 @@
+package com.example.banking.backend.dto.request.transaction;
+
+import com.example.banking.backend.model.type.FeeType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Data
+@Schema(description = "Request to transfer money to many internal accounts at once, e.g. a payroll")
+public class BatchTransferRequest {
+    @Valid
+    @NotNull(message = "Batch items can not be null")
+    @NotEmpty(message = "Batch items can not be empty")
+    @Size(max = 10000, message = "A batch can contain at most 10000 items")
+    @Schema(description = "Beneficiaries of the batch",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    List<BatchTransferItem> items;
+
+    @NotNull(message = "Batch's message can not be null")
+    @NotEmpty(message = "Batch's message can not be empty")
+    @Schema(description = "Default message for every item",
+            example = "Luong thang 6",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    String message;
+
+    @NotNull(message = "Transaction's fee type can not be null")
+    @Schema(description = "Transaction's fee type shows who will be charged for these transactions",
+            example = "SENDER",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    FeeType feeType;
+
+    @NotNull(message = "OTP can not be null")
+    @NotEmpty(message = "OTP can not be empty")
+    @Schema(description = "6-digit OTP securing the whole batch",
+            example = "123456",
+            minLength = 6,
+            maxLength = 6,
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    String otp;
+}
@@ -22,9 +22,13 @@ public class GetAccountTransactionsResponse {
     @Schema(description = "Received transactions")
     private Set<TransactionInfoDto> transactionsAsReceiver;
 
-    @Schema(description = "Total number of transactions after applying filters", example = "24")
+    @Schema(description = "Total number of transactions after applying filters, -1 when a cursor is supplied", example = "24")
     private int totalTransactions;
 
-    @Schema(description = "Total number of pages based on the page size", example = "5")
+    @Schema(description = "Total number of pages based on the page size, -1 when a cursor is supplied", example = "5")
     private int totalPages;
+
+    @Schema(description = "Opaque cursor to fetch the next page, null when there are no more transactions",
+            example = "MjAyNS0wNi0yNFQwMzoxNTozMC4xMjM0NTZafDNmYTg1ZjY0LTU3MTctNDU2Mi1iM2ZjLTJjOTYzZjY2YWZhNg")
+    private String nextCursor;
 }
@@ -1,12 +1,14 @@
 package com.example.banking.backend.dto.response.account;
 
-import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.Transaction;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Set;
+
 @Data
 @AllArgsConstructor
 @Schema(description = "Paginated result of an account's transactions with metadata")
@@ -14,12 +16,18 @@ import lombok.Setter;
 @Setter
 public class PaginatedAccountTransactionDto {
 
-    @Schema(description = "The account information including paginated transactions")
-    private Account account;
+    @Schema(description = "Transactions of this page sent by the account, newest first")
+    private Set<Transaction> transactionsAsSender;
+
+    @Schema(description = "Transactions of this page received by the account, newest first")
+    private Set<Transaction> transactionsAsReceiver;
 
     @Schema(description = "Total number of transactions after applying filters", example = "24")
     private int totalTransactions;
 
     @Schema(description = "Total number of pages based on the page size", example = "5")
     private int totalPages;
-}
\ No newline at end of file
+
+    @Schema(description = "Cursor of the next page, null when this is the last page")
+    private String nextCursor;
+}
@@ -9,9 +9,13 @@ import lombok.*;
 @NoArgsConstructor
 @Builder
 @Data
-@Schema(description = "Return new access token")
+@Schema(description = "Return new access token and the refresh token that replaces the one sent")
 public class RefreshTokenResponse {
     @Schema(description = "New access token",
             example = "new-access-token")
     private String accessToken;
+
+    @Schema(description = "Refresh token to send next time, it replaces the one sent",
+            example = "new-refresh-token")
+    private String refreshToken;
 }
@@ -0,0 +1,32 @@
+package com.example.banking.backend.dto.response.transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "BankTransactionSlice",
+        description = "One slice of a bank's transactions, newest first, continued with next_cursor")
+public class BankTransactionSliceDto {
+    List<TransactionDto> listTransaction;
+
+    @Schema(description = "Requested slice size", example = "10")
+    int per_page;
+
+    @Schema(description = "Transactions in this slice", example = "10")
+    int current_per_page;
+
+    @Schema(description = "Opaque cursor of the next slice, null on the last one")
+    String next_cursor;
+
+    @Schema(description = "Approximate number of transactions in the whole range, only on the first slice when requested",
+            example = "125000")
+    Long approximate_total;
+}
@@ -1,12 +1,15 @@
 package com.example.banking.backend.dto.response.transaction;
 
+import com.example.banking.backend.model.type.StatsIntervalType;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 @Setter
 @Getter
 @Schema(name = "BankStatistics",
@@ -31,5 +34,22 @@ public class BankTransactionStatsDto {
             " that is statistic our bank with that bank ")
     private String bankCode ;
 
+    @Schema(description = "Totals per transaction type")
+    private List<StatsBucketDto> byType;
 
-}
\ No newline at end of file
+    @Schema(description = "Totals per transaction status")
+    private List<StatsBucketDto> byStatus;
+
+    @Schema(description = "Totals per direction, INCOMING or OUTGOING")
+    private List<StatsBucketDto> byDirection;
+
+    @Schema(description = "Totals per partner bank code")
+    private List<StatsBucketDto> byBank;
+
+    @Schema(description = "Bucket size of the series, null when no series was requested", example = "DAY")
+    private StatsIntervalType groupBy;
+
+    @Schema(description = "Totals per hour or day, oldest first, empty buckets are omitted")
+    private List<StatsSeriesPointDto> series;
+
+}
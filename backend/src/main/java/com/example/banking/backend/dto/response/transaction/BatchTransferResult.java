@@ -0,0 +1,31 @@
+package com.example.banking.backend.dto.response.transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Getter
+@Setter
+@Schema(description = "Return result of a batch transfer")
+public class BatchTransferResult {
+    @Schema(description = "Number of items in the batch", example = "5000")
+    private int totalItems;
+
+    @Schema(description = "Number of items transferred", example = "4998")
+    private int succeededItems;
+
+    @Schema(description = "Number of items rejected", example = "2")
+    private int failedItems;
+
+    @Schema(description = "Amount debited from the source account, fees included", example = "49980000000")
+    private double totalDebited;
+
+    @Schema(description = "Result of each item, in the same order as the request")
+    private List<TransferResult> results;
+}
@@ -0,0 +1,23 @@
+package com.example.banking.backend.dto.response.transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+@Data
+@AllArgsConstructor
+@Getter
+@Setter
+@Schema(name = "StatisticsBucket", description = "Transaction count and amount of one group")
+public class StatsBucketDto {
+    @Schema(description = "Transaction type, status or bank code of the group", example = "INTERBANK_TRANSFER")
+    private String key;
+
+    @Schema(description = "Transactions in the group", example = "120")
+    private Long totalTransactions;
+
+    @Schema(description = "Amount of money transferred in the group", example = "35000000")
+    private Double totalAmount;
+}
@@ -0,0 +1,25 @@
+package com.example.banking.backend.dto.response.transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@Getter
+@Setter
+@Schema(name = "StatisticsSeriesPoint", description = "Transaction count and amount of one hour or day")
+public class StatsSeriesPointDto {
+    @Schema(description = "Start of the hour or day, Vietnam time")
+    private LocalDateTime bucketStart;
+
+    @Schema(description = "Transactions in the bucket", example = "42")
+    private Long totalTransactions;
+
+    @Schema(description = "Amount of money transferred in the bucket", example = "12500000")
+    private Double totalAmount;
+}
@@ -0,0 +1,41 @@
+package com.example.banking.backend.dto.response.transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@Getter
+@Setter
+@Schema(description = "Interbank transfer whose delivery is unconfirmed, with the sender's money on hold")
+public class UnresolvedTransferDto {
+    @Schema(description = "Transaction id, also the Idempotency-Key sent to the partner bank")
+    private UUID transactionId;
+
+    @Schema(description = "Sender's account number", example = "1234567890")
+    private String fromAccountNumber;
+
+    @Schema(description = "Partner bank code", example = "ABC")
+    private String toBankCode;
+
+    @Schema(description = "Receiver's account number at the partner bank", example = "0987654321")
+    private String toAccountNumber;
+
+    @Schema(description = "Amount held on the sender, fee excluded", example = "1000000")
+    private double amount;
+
+    @Schema(description = "Delivery attempts made", example = "8")
+    private int attempts;
+
+    @Schema(description = "Error of the last attempt")
+    private String lastError;
+
+    @Schema(description = "When the transfer was parked")
+    private Instant parkedAt;
+}
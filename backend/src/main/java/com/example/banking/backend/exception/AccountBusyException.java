@@ -0,0 +1,7 @@
+package com.example.banking.backend.exception;
+
+public class AccountBusyException extends RuntimeException {
+    public AccountBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.banking.backend.exception;
+
+public class PartnerBankUnavailableException extends RuntimeException {
+    public PartnerBankUnavailableException(String message) {
+        super(message);
+    }
+}
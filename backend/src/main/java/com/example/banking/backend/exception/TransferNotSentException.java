@@ -0,0 +1,11 @@
+package com.example.banking.backend.exception;
+
+/**
+ * An interbank transfer that failed before its request left this application, so the partner cannot have
+ * received it.
+ */
+public class TransferNotSentException extends RuntimeException {
+    public TransferNotSentException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
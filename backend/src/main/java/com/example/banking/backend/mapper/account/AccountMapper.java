@@ -2,6 +2,7 @@ package com.example.banking.backend.mapper.account;
 
 import com.example.banking.backend.dto.response.account.GetAccountResponse;
 import com.example.banking.backend.dto.response.account.GetAccountTransactionsResponse;
+import com.example.banking.backend.dto.response.account.PaginatedAccountTransactionDto;
 import com.example.banking.backend.dto.response.transaction.TransactionInfoDto;
 import com.example.banking.backend.model.Account;
 import com.example.banking.backend.model.Bank;
@@ -33,4 +34,6 @@ public interface AccountMapper {
     @Mapping(source = "totalTransactions", target = "totalTransactions")
     @Mapping(source = "totalPages", target = "totalPages")
     GetAccountTransactionsResponse accountToGetAccountTransactionsResponse(Account account, Integer totalTransactions, Integer totalPages);
+
+    GetAccountTransactionsResponse paginatedToGetAccountTransactionsResponse(PaginatedAccountTransactionDto paginatedDto);
 }
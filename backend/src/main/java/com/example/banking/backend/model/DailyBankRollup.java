@@ -0,0 +1,39 @@
+package com.example.banking.backend.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+/**
+ * Interbank transactions counted per Vietnam calendar day of their {@code updated_at}, partner bank,
+ * direction, type and status. Kept up to date in the same database transaction as the transaction rows
+ * it counts, and rebuilt for closed days by the nightly reconciliation.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "daily_bank_rollup")
+public class DailyBankRollup {
+
+    @EmbeddedId
+    private DailyBankRollupId id;
+
+    @NotNull
+    @ColumnDefault("0")
+    @Column(name = "total_transactions", nullable = false)
+    private Long totalTransactions;
+
+    @NotNull
+    @ColumnDefault("0")
+    @Column(name = "total_amount", nullable = false)
+    private Double totalAmount;
+
+    @NotNull
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
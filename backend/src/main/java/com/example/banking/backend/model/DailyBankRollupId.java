@@ -0,0 +1,45 @@
+package com.example.banking.backend.model;
+
+import com.example.banking.backend.model.type.TransactionStatusType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.model.type.TransferDirectionType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Getter
+@Setter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class DailyBankRollupId implements Serializable {
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "bank_id", nullable = false)
+    private UUID bankId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "direction", nullable = false, length = 10)
+    private TransferDirectionType direction;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false, length = 50)
+    private TransactionType transactionType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private TransactionStatusType status;
+}
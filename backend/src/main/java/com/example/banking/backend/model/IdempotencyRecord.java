@@ -0,0 +1,20 @@
+package com.example.banking.backend.model;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class IdempotencyRecord implements Serializable {
+    public static final String IN_FLIGHT = "IN_FLIGHT";
+    public static final String COMPLETED = "COMPLETED";
+
+    private String state;
+    private String requestHash;
+    private Integer status;
+    private String body;
+}
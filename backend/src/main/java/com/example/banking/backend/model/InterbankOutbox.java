@@ -0,0 +1,77 @@
+package com.example.banking.backend.model;
+
+import com.example.banking.backend.model.type.OutboxStatusType;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Interbank transfer waiting to be delivered to the partner bank. Written in the same transaction as the
+ * debit of the sender, so a committed debit always has a delivery attempt behind it.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "interbank_outbox", indexes = {
+        @Index(name = "idx_interbank_outbox_due", columnList = "status, next_attempt_at")
+})
+public class InterbankOutbox {
+
+    @Id
+    @GeneratedValue
+    @ColumnDefault("gen_random_uuid()")
+    @Column(name = "outbox_id", nullable = false, updatable = false)
+    private UUID id;
+
+    @NotNull
+    @Column(name = "transaction_id", nullable = false, unique = true)
+    private UUID transactionId;
+
+    @NotNull
+    @Column(name = "bank_id", nullable = false)
+    private UUID bankId;
+
+    @NotNull
+    @ColumnDefault("'PENDING'")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private OutboxStatusType status;
+
+    @NotNull
+    @ColumnDefault("0")
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @NotNull
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "locked_until")
+    private Instant lockedUntil;
+
+    @Column(name = "last_error", length = Integer.MAX_VALUE)
+    private String lastError;
+
+    /**
+     * Whether an earlier attempt may have reached the partner, in which case the sender cannot simply be refunded.
+     */
+    @NotNull
+    @ColumnDefault("false")
+    @Column(name = "delivery_uncertain", nullable = false)
+    private Boolean deliveryUncertain;
+
+    @NotNull
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @NotNull
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
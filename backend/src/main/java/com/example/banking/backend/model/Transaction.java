@@ -17,7 +17,13 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_from_account_history", columnList = "from_account_id, created_at DESC, transaction_id DESC"),
+        @Index(name = "idx_transactions_to_account_history", columnList = "to_account_id, created_at DESC, transaction_id DESC"),
+        @Index(name = "idx_transactions_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_transactions_from_bank_updated", columnList = "from_bank_id, updated_at DESC, transaction_id DESC"),
+        @Index(name = "idx_transactions_to_bank_updated", columnList = "to_bank_id, updated_at DESC, transaction_id DESC")
+})
 @DynamicInsert
 public class Transaction {
     @Id
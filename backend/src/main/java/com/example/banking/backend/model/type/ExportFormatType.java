@@ -0,0 +1,17 @@
+package com.example.banking.backend.model.type;
+
+import lombok.Getter;
+
+@Getter
+public enum ExportFormatType {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormatType(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.banking.backend.model.type;
+
+import lombok.Getter;
+
+@Getter
+public enum LedgerBookType {
+    CUSTOMER("CUSTOMER"),
+    FEE_INCOME("FEE_INCOME"),
+    INTERBANK_CLEARING("INTERBANK_CLEARING"),
+    CASH("CASH"),
+    OPENING_BALANCE("OPENING_BALANCE"),
+    BATCH_CLEARING("BATCH_CLEARING");
+
+    private final String value;
+
+    LedgerBookType(String value) {
+        this.value = value;
+    }
+
+    public static LedgerBookType fromValue(String value) {
+        for (LedgerBookType type : LedgerBookType.values()) {
+            if (type.value.equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value: " + value);
+    }
+}
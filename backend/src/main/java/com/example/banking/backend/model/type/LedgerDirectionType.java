@@ -0,0 +1,24 @@
+package com.example.banking.backend.model.type;
+
+import lombok.Getter;
+
+@Getter
+public enum LedgerDirectionType {
+    DEBIT("DEBIT"),
+    CREDIT("CREDIT");
+
+    private final String value;
+
+    LedgerDirectionType(String value) {
+        this.value = value;
+    }
+
+    public static LedgerDirectionType fromValue(String value) {
+        for (LedgerDirectionType type : LedgerDirectionType.values()) {
+            if (type.value.equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value: " + value);
+    }
+}
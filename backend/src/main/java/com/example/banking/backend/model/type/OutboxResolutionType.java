@@ -0,0 +1,28 @@
+package com.example.banking.backend.model.type;
+
+import lombok.Getter;
+
+/**
+ * What reconciliation found out about an interbank transfer parked as {@code UNRESOLVED}.
+ */
+@Getter
+public enum OutboxResolutionType {
+    COMPLETED("COMPLETED"),
+    FAILED("FAILED"),
+    RETRY("RETRY");
+
+    private final String value;
+
+    OutboxResolutionType(String value) {
+        this.value = value;
+    }
+
+    public static OutboxResolutionType fromValue(String value) {
+        for (OutboxResolutionType type : OutboxResolutionType.values()) {
+            if (type.value.equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value: " + value);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.banking.backend.model.type;
+
+import lombok.Getter;
+
+@Getter
+public enum OutboxStatusType {
+    PENDING("PENDING"),
+    IN_PROGRESS("IN_PROGRESS"),
+    SENT("SENT"),
+    FAILED("FAILED"),
+    UNRESOLVED("UNRESOLVED");
+
+    private final String value;
+
+    OutboxStatusType(String value) {
+        this.value = value;
+    }
+
+    public static OutboxStatusType fromValue(String value) {
+        for (OutboxStatusType type : OutboxStatusType.values()) {
+            if (type.value.equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value: " + value);
+    }
+}
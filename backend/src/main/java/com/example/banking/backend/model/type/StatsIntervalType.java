@@ -0,0 +1,27 @@
+package com.example.banking.backend.model.type;
+
+import lombok.Getter;
+
+@Getter
+public enum StatsIntervalType {
+    HOUR("hour"),
+    DAY("day");
+
+    /**
+     * Field name understood by PostgreSQL's {@code date_trunc}.
+     */
+    private final String value;
+
+    StatsIntervalType(String value) {
+        this.value = value;
+    }
+
+    public static StatsIntervalType fromValue(String value) {
+        for (StatsIntervalType type : StatsIntervalType.values()) {
+            if (type.value.equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value: " + value);
+    }
+}
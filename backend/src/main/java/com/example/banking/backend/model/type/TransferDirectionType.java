@@ -0,0 +1,24 @@
+package com.example.banking.backend.model.type;
+
+import lombok.Getter;
+
+@Getter
+public enum TransferDirectionType {
+    INCOMING("INCOMING"),
+    OUTGOING("OUTGOING");
+
+    private final String value;
+
+    TransferDirectionType(String value) {
+        this.value = value;
+    }
+
+    public static TransferDirectionType fromValue(String value) {
+        for (TransferDirectionType type : TransferDirectionType.values()) {
+            if (type.value.equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value: " + value);
+    }
+}
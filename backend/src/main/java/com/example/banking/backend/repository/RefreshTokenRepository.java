@@ -2,7 +2,11 @@ package com.example.banking.backend.repository;
 
 import com.example.banking.backend.model.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.Optional;
@@ -11,4 +15,19 @@ import java.util.UUID;
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
     Optional<RefreshToken> findByIdAndExpiresAtAfter(UUID id, Instant date);
+
+    /**
+     * Deletes up to {@code limit} expired tokens, so a purge never holds many row locks at once.
+     *
+     * @return number of tokens deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM refresh_tokens
+            WHERE refresh_token_id IN (SELECT refresh_token_id FROM refresh_tokens
+                                       WHERE expires_at <= :now
+                                       LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteExpired(@Param("now") Instant now, @Param("limit") int limit);
 }
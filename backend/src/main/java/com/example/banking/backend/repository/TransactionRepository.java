@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -23,45 +24,53 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
 
     List<Transaction> findByCreatedAtBetween(Instant startDate, Instant endDate);
 
+    /**
+     * Locks the row until the surrounding transaction ends, so its status can be checked and changed without
+     * racing another writer. {@code createdAt} keeps the lookup to one partition.
+     */
+    @Query(value = """
+            SELECT * FROM transactions
+            WHERE transaction_id = :id AND created_at = :createdAt
+            FOR UPDATE
+            """, nativeQuery = true)
+    Optional<Transaction> findForUpdate(@Param("id") UUID id, @Param("createdAt") Instant createdAt);
+
+    /**
+     * Batch transfer lines created before {@code before} and still PENDING: their batch stopped between
+     * debiting the source and crediting them. Interbank transfers wait in the outbox and are not matched.
+     */
+    @Query(value = """
+            SELECT * FROM transactions
+            WHERE status = 'PENDING' AND transaction_type = 'INTERNAL_TRANSFER' AND created_at < :before
+            ORDER BY created_at
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Transaction> findStalledBatchLines(@Param("before") Instant before, @Param("limit") int limit);
+
     @Query("SELECT t FROM Transaction t WHERE t.fromAccount.accountId = :fromAccountId")
     Page<Transaction> findByFromAccountId(UUID fromAccountId, Pageable pageable);
 
+    // createdFrom comes from SettlementWindow; bounding created_at keeps the scan to the partitions of the range
     @Query("""
             SELECT t FROM Transaction t
             WHERE t.updatedAt BETWEEN :startDate AND :endDate
+            AND t.createdAt BETWEEN :createdFrom AND :endDate
             AND (t.fromBank.id IS NOT NULL OR t.toBank.id IS NOT NULL)
             """)
-    Page<Transaction> findByUpdatedAtBetween(Instant startDate, Instant endDate, Pageable pageable);
-
-    @Query("""
-            SELECT t FROM Transaction t
-            WHERE t.updatedAt BETWEEN :startDate AND :endDate
-            AND (t.fromBank.id IS NOT NULL OR t.toBank.id IS NOT NULL)
-            """)
-    List<Transaction> findByUpdatedAtBetween(Instant startDate, Instant endDate);
-
-    @Query("""
-    SELECT t FROM Transaction t
-    LEFT JOIN t.fromBank fb
-    LEFT JOIN t.toBank tb
-    WHERE t.updatedAt BETWEEN :startDate AND :endDate
-      AND (fb.bankCode = :bankCode OR tb.bankCode = :bankCode)
-""")
-    List<Transaction> findByBankCodeAndUpdatedAtBetween(
-            @Param("startDate") Instant startDate,
-            @Param("endDate") Instant endDate,
-            @Param("bankCode") String bankCode);
+    Page<Transaction> findByUpdatedAtBetween(Instant startDate, Instant endDate, Instant createdFrom, Pageable pageable);
 
         @Query("""
         SELECT t FROM Transaction t
         LEFT JOIN t.fromBank fb
         LEFT JOIN t.toBank tb
         WHERE t.updatedAt BETWEEN :start AND :end
+          AND t.createdAt BETWEEN :createdFrom AND :end
           AND (fb.bankCode = :bankCode OR tb.bankCode = :bankCode)
     """)
     Page<Transaction> findByUpdatedAtBetweenAndBankCode(
             @Param("start") Instant start,
             @Param("end") Instant end,
+            @Param("createdFrom") Instant createdFrom,
             @Param("bankCode") String bankCode,
             Pageable pageable);
 
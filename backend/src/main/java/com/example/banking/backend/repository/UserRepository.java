@@ -3,6 +3,7 @@ package com.example.banking.backend.repository;
 import com.example.banking.backend.model.User;
 import com.example.banking.backend.model.type.UserRoleType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,6 +14,10 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
 
+    // The refresh token is fetched too, Hibernate would otherwise read it in a second query
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.account LEFT JOIN FETCH u.refreshToken WHERE u.id = :id")
+    Optional<User> findWithAccountById(UUID id);
+
     Optional<User> findByEmail(String email);
 
     Boolean existsByUsername(String username);
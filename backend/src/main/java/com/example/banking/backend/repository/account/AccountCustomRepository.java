@@ -1,8 +1,8 @@
 package com.example.banking.backend.repository.account;
 
 import com.example.banking.backend.dto.response.account.PaginatedAccountTransactionDto;
-import com.example.banking.backend.model.Account;
 import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.util.KeysetCursor;
 import org.springframework.stereotype.Repository;
 
 import java.util.UUID;
@@ -10,4 +10,10 @@ import java.util.UUID;
 @Repository
 public interface AccountCustomRepository {
     PaginatedAccountTransactionDto getPaginatedTransactions(UUID accountId, int page, int size, TransactionType type);
+
+    /**
+     * Keyset page of the account's history, newest first. Pass a null cursor for the first page,
+     * which is also the only page that counts the matching rows.
+     */
+    PaginatedAccountTransactionDto getTransactionHistory(UUID accountId, KeysetCursor cursor, int size, TransactionType type);
 }
@@ -2,69 +2,202 @@ package com.example.banking.backend.repository.account;
 
 import com.example.banking.backend.dto.response.account.PaginatedAccountTransactionDto;
 import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.Bank;
 import com.example.banking.backend.model.Transaction;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.TransactionStatusType;
 import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.archive.ArchivedTransaction;
+import com.example.banking.backend.repository.archive.TransactionArchiveStore;
+import com.example.banking.backend.util.KeysetCursor;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+@RequiredArgsConstructor
 public class AccountCustomRepositoryImpl implements AccountCustomRepository {
     @PersistenceContext
     private EntityManager entityManager;
 
+    private final TransactionArchiveStore archiveStore;
+
     @Override
     public PaginatedAccountTransactionDto getPaginatedTransactions(UUID accountId, int page, int size, TransactionType type) {
-        Account account = entityManager.createQuery("""
-                SELECT a FROM Account a
-                LEFT JOIN FETCH a.transactionsAsSender
-                LEFT JOIN FETCH a.transactionsAsReceiver
-                WHERE a.accountId = :accountId
-            """, Account.class)
+        int offset = (page - 1) * size;
+        List<Transaction> rows = fetchHistory(accountId, null, type, offset, size + 1);
+        int databaseTransactions = countTransactions(accountId, type);
+        if (rows.size() <= size) {
+            // Every archived transaction is older than the ones left in the database
+            int skip = Math.max(0, offset - databaseTransactions);
+            rows = withArchived(rows, accountId, type, null, skip, size + 1);
+        }
+
+        int totalTransactions = databaseTransactions + archiveStore.countAccountTransactions(accountId, type);
+        int totalPages = (int) Math.ceil((double) totalTransactions / size);
+
+        return toPage(accountId, rows, size, totalTransactions, totalPages);
+    }
+
+    @Override
+    public PaginatedAccountTransactionDto getTransactionHistory(UUID accountId, KeysetCursor cursor, int size, TransactionType type) {
+        List<Transaction> rows = fetchHistory(accountId, cursor, type, 0, size + 1);
+        if (rows.size() <= size) {
+            KeysetCursor before = rows.isEmpty() ? cursor : cursorOf(rows.get(rows.size() - 1));
+            rows = withArchived(rows, accountId, type, before, 0, size + 1);
+        }
+
+        // Counting walks every row of the account, so it is only paid once when the client opens the history
+        int totalTransactions = -1;
+        int totalPages = -1;
+        if (cursor == null) {
+            totalTransactions = countTransactions(accountId, type) + archiveStore.countAccountTransactions(accountId, type);
+            totalPages = (int) Math.ceil((double) totalTransactions / size);
+        }
+
+        return toPage(accountId, rows, size, totalTransactions, totalPages);
+    }
+
+    /**
+     * Each branch of the UNION walks one account column in (created_at, transaction_id) order and stops
+     * after {@code offset + limit} rows, so the cost depends on the page size, not on the account's history.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Transaction> fetchHistory(UUID accountId, KeysetCursor cursor, TransactionType type, int offset, int limit) {
+        String sql = "SELECT h.* FROM ("
+                + historyBranch("from_account_id", cursor, type)
+                + " UNION "
+                + historyBranch("to_account_id", cursor, type)
+                + ") h ORDER BY h.created_at DESC, h.transaction_id DESC LIMIT :limit OFFSET :offset";
+
+        Query query = entityManager.createNativeQuery(sql, Transaction.class)
                 .setParameter("accountId", accountId)
-                .getSingleResult();
+                .setParameter("branchLimit", offset + limit)
+                .setParameter("limit", limit)
+                .setParameter("offset", offset);
+        if (type != null) {
+            query.setParameter("type", type.name());
+        }
+        if (cursor != null) {
+            query.setParameter("cursorCreatedAt", cursor.getTimestamp());
+            query.setParameter("cursorId", cursor.getId());
+        }
+        return query.getResultList();
+    }
 
-        // Combine both sender and receiver transactions, applying type filter if needed
-        List<Transaction> allTransactions = new ArrayList<>();
+    private String historyBranch(String accountColumn, KeysetCursor cursor, TransactionType type) {
+        StringBuilder sql = new StringBuilder("(SELECT t.* FROM transactions t WHERE t.")
+                .append(accountColumn).append(" = :accountId");
+        if (type != null) {
+            sql.append(" AND t.transaction_type = :type");
+        }
+        if (cursor != null) {
+            sql.append(" AND (t.created_at, t.transaction_id) < (:cursorCreatedAt, :cursorId)");
+        }
+        sql.append(" ORDER BY t.created_at DESC, t.transaction_id DESC LIMIT :branchLimit)");
+        return sql.toString();
+    }
 
-        if (account.getTransactionsAsSender() != null) {
-            allTransactions.addAll(account.getTransactionsAsSender().stream()
-                    .filter(tx -> type == null || tx.getTransactionType() == type)
-                    .toList());
+    private int countTransactions(UUID accountId, TransactionType type) {
+        String sql = "SELECT COUNT(*) FROM transactions t"
+                + " WHERE (t.from_account_id = :accountId OR t.to_account_id = :accountId)"
+                + (type != null ? " AND t.transaction_type = :type" : "");
+
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("accountId", accountId);
+        if (type != null) {
+            query.setParameter("type", type.name());
         }
+        return ((Number) query.getSingleResult()).intValue();
+    }
 
-        if (account.getTransactionsAsReceiver() != null) {
-            allTransactions.addAll(account.getTransactionsAsReceiver().stream()
-                    .filter(tx -> type == null || tx.getTransactionType() == type)
-                    .toList());
+    /**
+     * Fills {@code rows}, which ran out of database rows, up to {@code limit} with archived transactions
+     * that come after {@code before}, skipping the first {@code skip} of them.
+     */
+    private List<Transaction> withArchived(List<Transaction> rows, UUID accountId, TransactionType type,
+                                           KeysetCursor before, int skip, int limit) {
+        List<ArchivedTransaction> archived = archiveStore.findAccountHistory(accountId, type, before,
+                skip + limit - rows.size());
+        if (archived.size() <= skip) {
+            return rows;
         }
+        List<Transaction> combined = new ArrayList<>(rows);
+        for (ArchivedTransaction transaction : archived.subList(skip, archived.size())) {
+            combined.add(toTransaction(transaction));
+        }
+        return combined;
+    }
 
-        // Sort all combined transactions by createdAt descending
-        allTransactions.sort(Comparator.comparing(Transaction::getCreatedAt).reversed());
+    /**
+     * Detached entity for the response mapping, banks and accounts only carry their id.
+     */
+    private static Transaction toTransaction(ArchivedTransaction archived) {
+        Transaction transaction = new Transaction();
+        transaction.setId(archived.getId());
+        transaction.setTransactionType(TransactionType.valueOf(archived.getTransactionType()));
+        transaction.setFromBank(bank(archived.getFromBankId()));
+        transaction.setFromAccount(account(archived.getFromAccountId()));
+        transaction.setFromAccountNumber(archived.getFromAccountNumber());
+        transaction.setToBank(bank(archived.getToBankId()));
+        transaction.setToAccount(account(archived.getToAccountId()));
+        transaction.setToAccountNumber(archived.getToAccountNumber());
+        transaction.setAmount(archived.getAmount());
+        transaction.setFee(archived.getFee());
+        transaction.setFeeType(FeeType.valueOf(archived.getFeeType()));
+        transaction.setStatus(TransactionStatusType.valueOf(archived.getStatus()));
+        transaction.setMessage(archived.getMessage());
+        transaction.setCreatedAt(archived.getCreatedAt());
+        transaction.setUpdatedAt(archived.getUpdatedAt());
+        return transaction;
+    }
 
-        int totalTransactions = allTransactions.size();
-        int totalPages = (int) Math.ceil((double) totalTransactions / size);
+    private static Bank bank(UUID bankId) {
+        if (bankId == null) {
+            return null;
+        }
+        Bank bank = new Bank();
+        bank.setId(bankId);
+        return bank;
+    }
+
+    private static Account account(UUID accountId) {
+        if (accountId == null) {
+            return null;
+        }
+        Account account = new Account();
+        account.setAccountId(accountId);
+        return account;
+    }
 
-        // Pagination
-        page--; // zero-based index
-        int start = Math.min(page * size, totalTransactions);
-        int end = Math.min(start + size, totalTransactions);
-        List<Transaction> paginatedList = allTransactions.subList(start, end);
+    private static KeysetCursor cursorOf(Transaction transaction) {
+        return new KeysetCursor(transaction.getCreatedAt(), transaction.getId());
+    }
 
-        // Separate back into sender and receiver sets for Account entity
-        Set<Transaction> paginatedSenderTxs = paginatedList.stream()
-                .filter(tx -> account.getTransactionsAsSender().contains(tx))
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+    private PaginatedAccountTransactionDto toPage(UUID accountId, List<Transaction> rows, int size,
+                                                  int totalTransactions, int totalPages) {
+        List<Transaction> pageRows = rows.size() > size ? rows.subList(0, size) : rows;
 
-        Set<Transaction> paginatedReceiverTxs = paginatedList.stream()
-                .filter(tx -> account.getTransactionsAsReceiver().contains(tx))
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+        String nextCursor = null;
+        if (rows.size() > size) {
+            Transaction last = pageRows.get(pageRows.size() - 1);
+            nextCursor = cursorOf(last).encode();
+        }
 
-        account.setTransactionsAsSender(paginatedSenderTxs);
-        account.setTransactionsAsReceiver(paginatedReceiverTxs);
+        // Separate into sender and receiver sets, both keep the newest-first order
+        Set<Transaction> senderTxs = new LinkedHashSet<>();
+        Set<Transaction> receiverTxs = new LinkedHashSet<>();
+        for (Transaction tx : pageRows) {
+            if (tx.getFromAccount() != null && accountId.equals(tx.getFromAccount().getAccountId())) {
+                senderTxs.add(tx);
+            } else {
+                receiverTxs.add(tx);
+            }
+        }
 
-        return new PaginatedAccountTransactionDto(account, totalTransactions, totalPages);
+        return new PaginatedAccountTransactionDto(senderTxs, receiverTxs, totalTransactions, totalPages, nextCursor);
     }
 
 }
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,6 +17,8 @@ public interface AccountRepository extends JpaRepository<Account, UUID>, Account
 
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
     Optional<Account> findByUserUsername(String username);
 
     Optional<Account> findByUserEmail(String email);
@@ -0,0 +1,64 @@
+package com.example.banking.backend.repository.archive;
+
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.partition.TransactionPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.util.UUID;
+
+/**
+ * Number of archived transactions per account, type and month, so account histories can be counted
+ * without reading the segments. A transaction counts once for each account it touches.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ArchivedAccountCountRepository {
+
+    private static final String DELETE_MONTH_SQL = "DELETE FROM archived_account_counts WHERE month = :month";
+
+    private static final String RECORD_SQL = """
+            INSERT INTO archived_account_counts (account_id, transaction_type, month, transactions)
+            SELECT account_id, transaction_type, :month, COUNT(*)
+            FROM (SELECT t.from_account_id AS account_id, t.transaction_type
+                  FROM %1$s t
+                  WHERE t.from_account_id IS NOT NULL
+                  UNION ALL
+                  SELECT t.to_account_id, t.transaction_type
+                  FROM %1$s t
+                  WHERE t.to_account_id IS NOT NULL AND t.to_account_id IS DISTINCT FROM t.from_account_id) touched
+            GROUP BY account_id, transaction_type
+            """;
+
+    private static final String COUNT_SQL = """
+            SELECT COALESCE(SUM(transactions), 0)
+            FROM archived_account_counts
+            WHERE account_id = :accountId
+            """;
+
+    private static final String COUNT_BY_TYPE_SQL = COUNT_SQL + " AND transaction_type = :type";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Counts the rows of the table of {@code month}, replacing earlier counts of that month. Must be called
+     * inside the transaction that drops the table, so the counts exist exactly when the month is archived.
+     */
+    public void record(YearMonth month) {
+        MapSqlParameterSource params = new MapSqlParameterSource("month", month.atDay(1));
+        jdbcTemplate.update(DELETE_MONTH_SQL, params);
+        jdbcTemplate.update(RECORD_SQL.formatted(TransactionPartitionRepository.partitionName(month)), params);
+    }
+
+    public long count(UUID accountId, TransactionType type) {
+        MapSqlParameterSource params = new MapSqlParameterSource("accountId", accountId);
+        if (type != null) {
+            params.addValue("type", type.name());
+        }
+        Long count = jdbcTemplate.queryForObject(type != null ? COUNT_BY_TYPE_SQL : COUNT_SQL, params, Long.class);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.banking.backend.repository.archive;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One row of {@code transactions} as kept in an archive segment. Enum columns stay strings so a segment
+ * written today can still be read after a constant is renamed.
+ */
+@Getter
+@AllArgsConstructor
+public class ArchivedTransaction {
+
+    private final UUID id;
+
+    private final String transactionType;
+
+    private final UUID fromBankId;
+
+    private final UUID fromAccountId;
+
+    private final String fromAccountNumber;
+
+    private final UUID toBankId;
+
+    private final UUID toAccountId;
+
+    private final String toAccountNumber;
+
+    private final double amount;
+
+    private final double fee;
+
+    private final String feeType;
+
+    private final String status;
+
+    private final String message;
+
+    private final Instant createdAt;
+
+    private final Instant updatedAt;
+}
@@ -0,0 +1,46 @@
+package com.example.banking.backend.repository.archive;
+
+/**
+ * Columns of an archive segment, in the order they are laid out in the file. Adding, removing or
+ * reordering columns requires a new {@link TransactionSegment#VERSION}.
+ */
+enum SegmentColumn {
+
+    TRANSACTION_ID(Kind.UUID),
+    TRANSACTION_TYPE(Kind.STRING),
+    FROM_BANK_ID(Kind.UUID),
+    FROM_ACCOUNT_ID(Kind.UUID),
+    FROM_ACCOUNT_NUMBER(Kind.STRING),
+    TO_BANK_ID(Kind.UUID),
+    TO_ACCOUNT_ID(Kind.UUID),
+    TO_ACCOUNT_NUMBER(Kind.STRING),
+    AMOUNT(Kind.DOUBLE),
+    FEE(Kind.DOUBLE),
+    FEE_TYPE(Kind.STRING),
+    STATUS(Kind.STRING),
+    MESSAGE(Kind.STRING),
+    // Microseconds since the epoch, each row stored as the difference to the previous one. Rows are
+    // written in created_at order, so the differences are small and compress well.
+    CREATED_AT(Kind.TIMESTAMP),
+    // Microseconds after created_at of the same row
+    UPDATED_AT(Kind.TIMESTAMP);
+
+    enum Kind {
+        // A presence byte followed by the two halves of the UUID, 17 bytes per row
+        UUID,
+        // A length, -1 for null, followed by the UTF-8 bytes
+        STRING,
+        DOUBLE,
+        TIMESTAMP
+    }
+
+    private final Kind kind;
+
+    SegmentColumn(Kind kind) {
+        this.kind = kind;
+    }
+
+    Kind kind() {
+        return kind;
+    }
+}
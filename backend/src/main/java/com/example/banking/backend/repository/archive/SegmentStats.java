@@ -0,0 +1,29 @@
+package com.example.banking.backend.repository.archive;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Header of an archive segment. Readers compare the ranges with their filter to skip a segment without
+ * inflating any column.
+ */
+@Getter
+@AllArgsConstructor
+public class SegmentStats {
+
+    private final int rowCount;
+
+    private final Instant minCreatedAt;
+
+    private final Instant maxCreatedAt;
+
+    private final Instant minUpdatedAt;
+
+    private final Instant maxUpdatedAt;
+
+    private final double minAmount;
+
+    private final double maxAmount;
+}
@@ -0,0 +1,319 @@
+package com.example.banking.backend.repository.archive;
+
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.partition.TransactionPartitionRepository;
+import com.example.banking.backend.util.KeysetCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Archive segments of {@code transactions}, one file per month of created_at, named
+ * {@code transactions-YYYY-MM.seg} under {@code banking.archive.directory}. Every instance that serves
+ * account histories or exports has to see the same directory. Without a directory nothing is archived and
+ * every read finds no segment.
+ * <p>
+ * A month is only read from its segment while it has no partition attached to {@code transactions}. The
+ * archiver writes the segment before it drops the partition, so a month is always served from exactly one
+ * place, even when the archiver stops halfway.
+ */
+@Slf4j
+@Repository
+public class TransactionArchiveStore {
+
+    private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("'transactions-'yyyy-MM'.seg'");
+    private static final Pattern FILE_PATTERN = Pattern.compile("transactions-(\\d{4})-(\\d{2})\\.seg");
+
+    // Same order as the account history: created_at, then transaction_id as PostgreSQL compares uuids
+    private static final Comparator<ArchivedTransaction> NEWEST_FIRST = Comparator
+            .comparing(ArchivedTransaction::getCreatedAt)
+            .thenComparing(ArchivedTransaction::getId, TransactionArchiveStore::compareIds)
+            .reversed();
+    private static final Comparator<ArchivedTransaction> BY_UPDATED_AT = Comparator
+            .comparing(ArchivedTransaction::getUpdatedAt)
+            .thenComparing(ArchivedTransaction::getId, TransactionArchiveStore::compareIds);
+
+    private final Path directory;
+    private final TransactionPartitionRepository partitionRepository;
+    private final ArchivedAccountCountRepository accountCountRepository;
+
+    public TransactionArchiveStore(@Value("${banking.archive.directory:}") String directory,
+                                   TransactionPartitionRepository partitionRepository,
+                                   ArchivedAccountCountRepository accountCountRepository) {
+        this.directory = directory.isBlank() ? null : Paths.get(directory);
+        this.partitionRepository = partitionRepository;
+        this.accountCountRepository = accountCountRepository;
+    }
+
+    public boolean isConfigured() {
+        return directory != null;
+    }
+
+    /**
+     * Months with a segment on disk, oldest first.
+     */
+    public NavigableSet<YearMonth> findArchivedMonths() {
+        NavigableSet<YearMonth> months = new TreeSet<>();
+        if (directory == null) {
+            return months;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "transactions-*.seg")) {
+            for (Path file : files) {
+                Matcher matcher = FILE_PATTERN.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return months;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return months;
+    }
+
+    /**
+     * Writes the segment of {@code month}, replacing any previous one. The file is written and synced under
+     * a temporary name and then renamed, so readers never see a partial segment.
+     */
+    public void write(YearMonth month, TransactionSegmentWriter writer) throws IOException {
+        if (directory == null) {
+            throw new IllegalStateException("banking.archive.directory is not configured");
+        }
+        Files.createDirectories(directory);
+        Path target = segmentPath(month);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            writer.writeTo(out);
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public SegmentStats readStats(YearMonth month) {
+        return open(month).getStats();
+    }
+
+    /**
+     * Archived transactions of the account, newest first, that come after {@code before} in the order of
+     * the account history. Segments are read newest month first and the scan stops as soon as
+     * {@code limit} rows are found, since an older month cannot hold a newer row.
+     */
+    public List<ArchivedTransaction> findAccountHistory(UUID accountId, TransactionType type, KeysetCursor before, int limit) {
+        List<ArchivedTransaction> rows = new ArrayList<>();
+        for (YearMonth month : readableMonths().descendingSet()) {
+            if (rows.size() >= limit) {
+                break;
+            }
+            TransactionSegment segment = open(month);
+            if (before != null && segment.getStats().getMinCreatedAt().isAfter(before.getTimestamp())) {
+                continue;
+            }
+            List<ArchivedTransaction> matches = new ArrayList<>();
+            forEachAccountRow(segment, accountId, type, row -> {
+                ArchivedTransaction transaction = segment.row(row);
+                if (before == null || isBefore(transaction, before)) {
+                    matches.add(transaction);
+                }
+            });
+            matches.sort(NEWEST_FIRST);
+            rows.addAll(matches);
+        }
+        return rows.size() > limit ? rows.subList(0, limit) : rows;
+    }
+
+    /**
+     * Read from the counts the archiver stores with each month, the segments are not opened.
+     */
+    public int countAccountTransactions(UUID accountId, TransactionType type) {
+        return Math.toIntExact(accountCountRepository.count(accountId, type));
+    }
+
+    /**
+     * Archived interbank transactions updated in {@code [from, to)}, ordered by updated_at like the
+     * reconciliation export, optionally limited to the partner bank {@code bankId}. Segments whose
+     * updated_at range misses the window are skipped without inflating a column.
+     * <p>
+     * Rows are merged from the segments as the iterator advances. A segment is only read once the merge
+     * reaches its first updated_at and is let go when it runs out, so at most the few months whose
+     * settlement overlaps are held in memory at a time.
+     */
+    public Iterator<ArchivedTransaction> findInterbankUpdatedBetween(Instant from, Instant to, UUID bankId) {
+        List<TransactionSegment> segments = new ArrayList<>();
+        for (YearMonth month : readableMonths()) {
+            TransactionSegment segment = open(month);
+            SegmentStats stats = segment.getStats();
+            if (stats.getRowCount() > 0 && !stats.getMaxUpdatedAt().isBefore(from) && stats.getMinUpdatedAt().isBefore(to)) {
+                segments.add(segment);
+            }
+        }
+        segments.sort(Comparator.comparing(segment -> segment.getStats().getMinUpdatedAt()));
+        return new UpdatedAtMerge(segments, TransactionSegmentWriter.toMicros(from),
+                TransactionSegmentWriter.toMicros(to), bankId);
+    }
+
+    public static int compareIds(UUID left, UUID right) {
+        int compared = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+        return compared != 0 ? compared
+                : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
+    }
+
+    private void forEachAccountRow(TransactionSegment segment, UUID accountId, TransactionType type,
+                                   IntConsumer action) {
+        TransactionSegment.UuidColumn fromAccount = segment.uuids(SegmentColumn.FROM_ACCOUNT_ID);
+        TransactionSegment.UuidColumn toAccount = segment.uuids(SegmentColumn.TO_ACCOUNT_ID);
+        String[] types = type != null ? segment.strings(SegmentColumn.TRANSACTION_TYPE) : null;
+        for (int row = 0; row < segment.getRowCount(); row++) {
+            if ((fromAccount.matches(row, accountId) || toAccount.matches(row, accountId))
+                    && (types == null || type.name().equals(types[row]))) {
+                action.accept(row);
+            }
+        }
+    }
+
+    /**
+     * Interbank rows of one segment in the update window, in (updated_at, id) order. Only the row numbers
+     * are sorted, a row is read when the merge gets to it.
+     */
+    private static class SegmentCursor {
+
+        private final TransactionSegment segment;
+        private final int[] rows;
+        private int position;
+        private ArchivedTransaction current;
+
+        SegmentCursor(TransactionSegment segment, long fromMicros, long toMicros, UUID bankId) {
+            this.segment = segment;
+            long[] updatedAt = segment.updatedAt();
+            TransactionSegment.UuidColumn ids = segment.uuids(SegmentColumn.TRANSACTION_ID);
+            TransactionSegment.UuidColumn fromBank = segment.uuids(SegmentColumn.FROM_BANK_ID);
+            TransactionSegment.UuidColumn toBank = segment.uuids(SegmentColumn.TO_BANK_ID);
+            this.rows = IntStream.range(0, segment.getRowCount())
+                    .filter(row -> updatedAt[row] >= fromMicros && updatedAt[row] < toMicros)
+                    .filter(row -> bankId == null
+                            ? fromBank.isPresent(row) || toBank.isPresent(row)
+                            : fromBank.isPresent(row) ? fromBank.matches(row, bankId) : toBank.matches(row, bankId))
+                    .boxed()
+                    .sorted(Comparator.<Integer>comparingLong(row -> updatedAt[row])
+                            .thenComparing(ids::get, TransactionArchiveStore::compareIds))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            advance();
+        }
+
+        boolean advance() {
+            current = position < rows.length ? segment.row(rows[position++]) : null;
+            return current != null;
+        }
+    }
+
+    private static class UpdatedAtMerge implements Iterator<ArchivedTransaction> {
+
+        private final Deque<TransactionSegment> waiting;
+        private final PriorityQueue<SegmentCursor> open =
+                new PriorityQueue<>(Comparator.comparing(cursor -> cursor.current, BY_UPDATED_AT));
+        private final long fromMicros;
+        private final long toMicros;
+        private final UUID bankId;
+
+        UpdatedAtMerge(List<TransactionSegment> segments, long fromMicros, long toMicros, UUID bankId) {
+            this.waiting = new ArrayDeque<>(segments);
+            this.fromMicros = fromMicros;
+            this.toMicros = toMicros;
+            this.bankId = bankId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            openDue();
+            return !open.isEmpty();
+        }
+
+        @Override
+        public ArchivedTransaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SegmentCursor cursor = open.poll();
+            ArchivedTransaction row = cursor.current;
+            if (cursor.advance()) {
+                open.add(cursor);
+            }
+            return row;
+        }
+
+        /**
+         * Opens every waiting segment that may hold a row ordered before the current head of the merge.
+         */
+        private void openDue() {
+            while (!waiting.isEmpty() && (open.isEmpty()
+                    || !waiting.peek().getStats().getMinUpdatedAt().isAfter(open.peek().current.getUpdatedAt()))) {
+                SegmentCursor cursor = new SegmentCursor(waiting.poll(), fromMicros, toMicros, bankId);
+                if (cursor.current != null) {
+                    open.add(cursor);
+                }
+            }
+        }
+    }
+
+    private static boolean isBefore(ArchivedTransaction transaction, KeysetCursor cursor) {
+        int compared = transaction.getCreatedAt().compareTo(cursor.getTimestamp());
+        return compared < 0 || compared == 0 && compareIds(transaction.getId(), cursor.getId()) < 0;
+    }
+
+    /**
+     * Archived months without an attached partition. The catalog is only asked when segments exist.
+     */
+    private NavigableSet<YearMonth> readableMonths() {
+        NavigableSet<YearMonth> months = findArchivedMonths();
+        if (!months.isEmpty()) {
+            months.removeAll(partitionRepository.findAttachedMonths());
+        }
+        return months;
+    }
+
+    private Path segmentPath(YearMonth month) {
+        return directory.resolve(FILE_FORMAT.format(month));
+    }
+
+    private TransactionSegment open(YearMonth month) {
+        try {
+            return TransactionSegment.open(segmentPath(month));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.banking.backend.repository.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only view of an archive segment written by {@link TransactionSegmentWriter}. The file is memory
+ * mapped, so opening it only parses the header; a column is inflated straight from the mapping the first
+ * time it is asked for and kept for the life of this object. Filters therefore only pay for the columns
+ * they test, and the remaining columns are inflated once a row matches.
+ * <p>
+ * Instances are not thread-safe and are meant to be used for a single read.
+ */
+public class TransactionSegment {
+
+    static final int MAGIC = 0x54585347; // "TXSG"
+    static final short VERSION = 1;
+
+    private static final SegmentColumn[] COLUMNS = SegmentColumn.values();
+    private static final int FIXED_HEADER_LENGTH = 4 + 2 + 4 + 6 * 8 + 2;
+    private static final int DIRECTORY_ENTRY_LENGTH = 8 + 4 + 4;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final SegmentStats stats;
+    private final long[] offsets = new long[COLUMNS.length];
+    private final int[] compressedLengths = new int[COLUMNS.length];
+    private final int[] rawLengths = new int[COLUMNS.length];
+    private final Object[] decoded = new Object[COLUMNS.length];
+
+    private TransactionSegment(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a transaction archive segment: " + path);
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Unsupported archive segment version " + buffer.getShort(4) + ": " + path);
+        }
+        int rowCount = buffer.getInt(6);
+        this.stats = new SegmentStats(rowCount,
+                toInstant(buffer.getLong(10)), toInstant(buffer.getLong(18)),
+                toInstant(buffer.getLong(26)), toInstant(buffer.getLong(34)),
+                buffer.getDouble(42), buffer.getDouble(50));
+        if (buffer.getShort(58) != COLUMNS.length) {
+            throw new IOException("Unexpected column count in archive segment: " + path);
+        }
+        for (int i = 0; i < COLUMNS.length; i++) {
+            int entry = FIXED_HEADER_LENGTH + i * DIRECTORY_ENTRY_LENGTH;
+            offsets[i] = buffer.getLong(entry);
+            compressedLengths[i] = buffer.getInt(entry + 8);
+            rawLengths[i] = buffer.getInt(entry + 12);
+        }
+    }
+
+    /**
+     * Maps the segment at {@code path}. The mapping outlives the channel and is released when the segment
+     * is garbage collected. Segments are limited to 2 GB, the size of a single mapping.
+     */
+    public static TransactionSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new TransactionSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static int headerLength(int columnCount) {
+        return FIXED_HEADER_LENGTH + columnCount * DIRECTORY_ENTRY_LENGTH;
+    }
+
+    public SegmentStats getStats() {
+        return stats;
+    }
+
+    public int getRowCount() {
+        return stats.getRowCount();
+    }
+
+    public ArchivedTransaction row(int row) {
+        return new ArchivedTransaction(
+                uuids(SegmentColumn.TRANSACTION_ID).get(row),
+                strings(SegmentColumn.TRANSACTION_TYPE)[row],
+                uuids(SegmentColumn.FROM_BANK_ID).get(row),
+                uuids(SegmentColumn.FROM_ACCOUNT_ID).get(row),
+                strings(SegmentColumn.FROM_ACCOUNT_NUMBER)[row],
+                uuids(SegmentColumn.TO_BANK_ID).get(row),
+                uuids(SegmentColumn.TO_ACCOUNT_ID).get(row),
+                strings(SegmentColumn.TO_ACCOUNT_NUMBER)[row],
+                doubles(SegmentColumn.AMOUNT)[row],
+                doubles(SegmentColumn.FEE)[row],
+                strings(SegmentColumn.FEE_TYPE)[row],
+                strings(SegmentColumn.STATUS)[row],
+                strings(SegmentColumn.MESSAGE)[row],
+                toInstant(createdAt()[row]),
+                toInstant(updatedAt()[row]));
+    }
+
+    UuidColumn uuids(SegmentColumn column) {
+        return decode(column, SegmentColumn.Kind.UUID, raw -> {
+            int rows = getRowCount();
+            UuidColumn values = new UuidColumn(rows);
+            for (int i = 0; i < rows; i++) {
+                values.present[i] = raw.get() != 0;
+                values.mostSignificant[i] = raw.getLong();
+                values.leastSignificant[i] = raw.getLong();
+            }
+            return values;
+        });
+    }
+
+    String[] strings(SegmentColumn column) {
+        return decode(column, SegmentColumn.Kind.STRING, raw -> {
+            String[] values = new String[getRowCount()];
+            for (int i = 0; i < values.length; i++) {
+                int length = raw.getInt();
+                if (length >= 0) {
+                    values[i] = new String(raw.array(), raw.position(), length, StandardCharsets.UTF_8);
+                    raw.position(raw.position() + length);
+                }
+            }
+            return values;
+        });
+    }
+
+    double[] doubles(SegmentColumn column) {
+        return decode(column, SegmentColumn.Kind.DOUBLE, raw -> {
+            double[] values = new double[getRowCount()];
+            raw.asDoubleBuffer().get(values);
+            return values;
+        });
+    }
+
+    /**
+     * created_at of every row in microseconds since the epoch.
+     */
+    long[] createdAt() {
+        return decode(SegmentColumn.CREATED_AT, SegmentColumn.Kind.TIMESTAMP, raw -> {
+            long[] values = new long[getRowCount()];
+            long previous = 0;
+            for (int i = 0; i < values.length; i++) {
+                previous += raw.getLong();
+                values[i] = previous;
+            }
+            return values;
+        });
+    }
+
+    /**
+     * updated_at of every row in microseconds since the epoch.
+     */
+    long[] updatedAt() {
+        long[] createdAt = createdAt();
+        return decode(SegmentColumn.UPDATED_AT, SegmentColumn.Kind.TIMESTAMP, raw -> {
+            long[] values = new long[getRowCount()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = createdAt[i] + raw.getLong();
+            }
+            return values;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T decode(SegmentColumn column, SegmentColumn.Kind kind, Function<ByteBuffer, T> decoder) {
+        if (column.kind() != kind) {
+            throw new IllegalArgumentException(column + " is not a " + kind + " column");
+        }
+        int index = column.ordinal();
+        if (decoded[index] == null) {
+            decoded[index] = decoder.apply(inflate(index));
+        }
+        return (T) decoded[index];
+    }
+
+    private ByteBuffer inflate(int index) {
+        ByteBuffer input = buffer.slice((int) offsets[index], compressedLengths[index]);
+        byte[] raw = new byte[rawLengths[index]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, raw.length - read);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                read += inflated;
+            }
+            if (read != raw.length) {
+                throw new IOException("Column " + COLUMNS[index] + " is truncated in archive segment: " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Column " + COLUMNS[index]
+                    + " is corrupt in archive segment: " + path, e));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    private static Instant toInstant(long micros) {
+        return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+
+    static final class UuidColumn {
+
+        private final boolean[] present;
+        private final long[] mostSignificant;
+        private final long[] leastSignificant;
+
+        private UuidColumn(int rows) {
+            this.present = new boolean[rows];
+            this.mostSignificant = new long[rows];
+            this.leastSignificant = new long[rows];
+        }
+
+        boolean matches(int row, UUID value) {
+            return present[row]
+                    && mostSignificant[row] == value.getMostSignificantBits()
+                    && leastSignificant[row] == value.getLeastSignificantBits();
+        }
+
+        boolean isPresent(int row) {
+            return present[row];
+        }
+
+        UUID get(int row) {
+            return present[row] ? new UUID(mostSignificant[row], leastSignificant[row]) : null;
+        }
+    }
+}
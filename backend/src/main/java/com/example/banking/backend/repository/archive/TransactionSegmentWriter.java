@@ -0,0 +1,146 @@
+package com.example.banking.backend.repository.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Builds an archive segment row by row. Every column is deflated into its own buffer as rows come in, so
+ * only the compressed month is held in memory. Rows must be appended in created_at order.
+ */
+public class TransactionSegmentWriter {
+
+    private static final SegmentColumn[] COLUMNS = SegmentColumn.values();
+
+    private final ByteArrayOutputStream[] compressed = new ByteArrayOutputStream[COLUMNS.length];
+    private final DataOutputStream[] columns = new DataOutputStream[COLUMNS.length];
+    private final Deflater[] deflaters = new Deflater[COLUMNS.length];
+
+    private int rowCount;
+    private long previousCreatedAt;
+    private long minCreatedAt = Long.MAX_VALUE;
+    private long maxCreatedAt = Long.MIN_VALUE;
+    private long minUpdatedAt = Long.MAX_VALUE;
+    private long maxUpdatedAt = Long.MIN_VALUE;
+    private double minAmount = Double.POSITIVE_INFINITY;
+    private double maxAmount = Double.NEGATIVE_INFINITY;
+
+    public TransactionSegmentWriter() {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            compressed[i] = new ByteArrayOutputStream();
+            deflaters[i] = new Deflater(Deflater.BEST_COMPRESSION);
+            columns[i] = new DataOutputStream(new DeflaterOutputStream(compressed[i], deflaters[i], 64 * 1024));
+        }
+    }
+
+    public void append(ArchivedTransaction row) {
+        long createdAt = toMicros(row.getCreatedAt());
+        long updatedAt = toMicros(row.getUpdatedAt());
+        if (rowCount > 0 && createdAt < previousCreatedAt) {
+            throw new IllegalArgumentException("Rows must be appended in created_at order");
+        }
+        try {
+            writeUuid(SegmentColumn.TRANSACTION_ID, row.getId());
+            writeString(SegmentColumn.TRANSACTION_TYPE, row.getTransactionType());
+            writeUuid(SegmentColumn.FROM_BANK_ID, row.getFromBankId());
+            writeUuid(SegmentColumn.FROM_ACCOUNT_ID, row.getFromAccountId());
+            writeString(SegmentColumn.FROM_ACCOUNT_NUMBER, row.getFromAccountNumber());
+            writeUuid(SegmentColumn.TO_BANK_ID, row.getToBankId());
+            writeUuid(SegmentColumn.TO_ACCOUNT_ID, row.getToAccountId());
+            writeString(SegmentColumn.TO_ACCOUNT_NUMBER, row.getToAccountNumber());
+            column(SegmentColumn.AMOUNT).writeDouble(row.getAmount());
+            column(SegmentColumn.FEE).writeDouble(row.getFee());
+            writeString(SegmentColumn.FEE_TYPE, row.getFeeType());
+            writeString(SegmentColumn.STATUS, row.getStatus());
+            writeString(SegmentColumn.MESSAGE, row.getMessage());
+            column(SegmentColumn.CREATED_AT).writeLong(createdAt - previousCreatedAt);
+            column(SegmentColumn.UPDATED_AT).writeLong(updatedAt - createdAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        rowCount++;
+        previousCreatedAt = createdAt;
+        minCreatedAt = Math.min(minCreatedAt, createdAt);
+        maxCreatedAt = Math.max(maxCreatedAt, createdAt);
+        minUpdatedAt = Math.min(minUpdatedAt, updatedAt);
+        maxUpdatedAt = Math.max(maxUpdatedAt, updatedAt);
+        minAmount = Math.min(minAmount, row.getAmount());
+        maxAmount = Math.max(maxAmount, row.getAmount());
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Finishes the columns and writes the segment: the header with the statistics and the column
+     * directory, then every compressed column. The writer cannot be used afterwards.
+     */
+    public void writeTo(OutputStream target) throws IOException {
+        int[] rawLengths = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            rawLengths[i] = columns[i].size();
+            columns[i].close();
+            deflaters[i].end();
+        }
+
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(TransactionSegment.MAGIC);
+        out.writeShort(TransactionSegment.VERSION);
+        out.writeInt(rowCount);
+        out.writeLong(rowCount > 0 ? minCreatedAt : 0);
+        out.writeLong(rowCount > 0 ? maxCreatedAt : 0);
+        out.writeLong(rowCount > 0 ? minUpdatedAt : 0);
+        out.writeLong(rowCount > 0 ? maxUpdatedAt : 0);
+        out.writeDouble(rowCount > 0 ? minAmount : 0);
+        out.writeDouble(rowCount > 0 ? maxAmount : 0);
+        out.writeShort(COLUMNS.length);
+
+        long offset = TransactionSegment.headerLength(COLUMNS.length);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            out.writeLong(offset);
+            out.writeInt(compressed[i].size());
+            out.writeInt(rawLengths[i]);
+            offset += compressed[i].size();
+        }
+        for (ByteArrayOutputStream column : compressed) {
+            column.writeTo(out);
+        }
+        out.flush();
+    }
+
+    private DataOutputStream column(SegmentColumn column) {
+        return columns[column.ordinal()];
+    }
+
+    private void writeUuid(SegmentColumn column, UUID value) throws IOException {
+        DataOutputStream out = column(column);
+        out.writeBoolean(value != null);
+        out.writeLong(value != null ? value.getMostSignificantBits() : 0);
+        out.writeLong(value != null ? value.getLeastSignificantBits() : 0);
+    }
+
+    private void writeString(SegmentColumn column, String value) throws IOException {
+        DataOutputStream out = column(column);
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static long toMicros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+}
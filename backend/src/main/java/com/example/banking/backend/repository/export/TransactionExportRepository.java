@@ -0,0 +1,177 @@
+package com.example.banking.backend.repository.export;
+
+import com.example.banking.backend.repository.archive.ArchivedTransaction;
+import com.example.banking.backend.repository.archive.TransactionArchiveStore;
+import com.example.banking.backend.repository.partition.SettlementWindow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads interbank transactions for reconciliation exports through a server-side cursor. The PostgreSQL
+ * driver only uses a cursor when auto-commit is off and a fetch size is set, so each export runs in its own
+ * read-only transaction and holds at most {@code banking.export.fetch-size} rows in memory. Archived months
+ * are read from their segments and merged into the stream in the same order.
+ */
+@Slf4j
+@Repository
+public class TransactionExportRepository {
+
+    private static final String EXPORT_SQL = """
+            SELECT t.transaction_id, t.created_at, t.updated_at, t.transaction_type, t.status,
+                   CASE WHEN t.from_bank_id IS NOT NULL THEN 'INCOMING' ELSE 'OUTGOING' END AS direction,
+                   b.bank_code, t.from_account_number, t.to_account_number, t.amount, t.fee, t.fee_type, t.message
+            FROM transactions t
+            LEFT JOIN banks b ON b.bank_id = COALESCE(t.from_bank_id, t.to_bank_id)
+            WHERE t.updated_at >= ? AND t.updated_at < ?
+              AND t.created_at >= ? AND t.created_at < ? AND %s
+            ORDER BY t.updated_at, t.transaction_id
+            """;
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SettlementWindow settlementWindow;
+    private final TransactionArchiveStore archiveStore;
+
+    public TransactionExportRepository(DataSource dataSource,
+                                       PlatformTransactionManager transactionManager,
+                                       SettlementWindow settlementWindow,
+                                       TransactionArchiveStore archiveStore,
+                                       @Value("${banking.export.fetch-size:1000}") int fetchSize) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.settlementWindow = settlementWindow;
+        this.archiveStore = archiveStore;
+    }
+
+    /**
+     * Hands every interbank transaction updated in {@code [from, to)} to {@code consumer}, oldest first,
+     * optionally limited to the partner bank {@code bankCode}.
+     *
+     * @return number of rows read
+     */
+    public long forEach(LocalDateTime from, LocalDateTime to, String bankCode, Consumer<TransactionExportRow> consumer) {
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(from), Timestamp.valueOf(to),
+                Timestamp.valueOf(settlementWindow.earliestCreatedAt(from)), Timestamp.valueOf(to)));
+        String condition = "(t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL)";
+        if (bankCode != null) {
+            condition = "b.bank_code = ?";
+            args.add(bankCode);
+        }
+        String sql = EXPORT_SQL.formatted(condition);
+
+        ArchivedRows archived = findArchived(from, to, bankCode);
+        long[] rows = {0};
+        readOnlyTransaction.executeWithoutResult(status -> cursorJdbcTemplate.query(sql, rs -> {
+            TransactionExportRow row = new TransactionExportRow(
+                    rs.getString("transaction_id"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    rs.getTimestamp("updated_at").toInstant(),
+                    rs.getString("transaction_type"),
+                    rs.getString("status"),
+                    rs.getString("direction"),
+                    rs.getString("bank_code"),
+                    rs.getString("from_account_number"),
+                    rs.getString("to_account_number"),
+                    rs.getDouble("amount"),
+                    rs.getDouble("fee"),
+                    rs.getString("fee_type"),
+                    rs.getString("message"));
+            rows[0] += archived.emitBefore(row, consumer);
+            consumer.accept(row);
+            rows[0]++;
+        }, args.toArray()));
+        rows[0] += archived.emitBefore(null, consumer);
+        return rows[0];
+    }
+
+    private ArchivedRows findArchived(LocalDateTime from, LocalDateTime to, String bankCode) {
+        Map<UUID, String> bankCodes = new HashMap<>();
+        UUID bankId = null;
+        for (Map<String, Object> bank : cursorJdbcTemplate.queryForList("SELECT bank_id, bank_code FROM banks")) {
+            bankCodes.put((UUID) bank.get("bank_id"), (String) bank.get("bank_code"));
+            if (bankCode != null && bankCode.equals(bank.get("bank_code"))) {
+                bankId = (UUID) bank.get("bank_id");
+            }
+        }
+        if (bankCode != null && bankId == null) {
+            return new ArchivedRows(Collections.emptyIterator(), bankCodes);
+        }
+        Iterator<ArchivedTransaction> rows = archiveStore.findInterbankUpdatedBetween(
+                Timestamp.valueOf(from).toInstant(), Timestamp.valueOf(to).toInstant(), bankId);
+        return new ArchivedRows(rows, bankCodes);
+    }
+
+    /**
+     * Archived rows of an export, handed out as the database rows pass them in (updated_at, id) order.
+     */
+    private static class ArchivedRows {
+
+        private final Iterator<ArchivedTransaction> rows;
+        private final Map<UUID, String> bankCodes;
+        private ArchivedTransaction next;
+
+        ArchivedRows(Iterator<ArchivedTransaction> rows, Map<UUID, String> bankCodes) {
+            this.rows = rows;
+            this.bankCodes = bankCodes;
+            this.next = rows.hasNext() ? rows.next() : null;
+        }
+
+        /**
+         * Hands every remaining archived row ordered before {@code row} to {@code consumer}, or all of them
+         * when {@code row} is null.
+         *
+         * @return number of rows handed out
+         */
+        int emitBefore(TransactionExportRow row, Consumer<TransactionExportRow> consumer) {
+            int emitted = 0;
+            while (next != null && (row == null || precedes(next, row))) {
+                consumer.accept(toExportRow(next));
+                next = rows.hasNext() ? rows.next() : null;
+                emitted++;
+            }
+            return emitted;
+        }
+
+        private static boolean precedes(ArchivedTransaction archived, TransactionExportRow row) {
+            int compared = archived.getUpdatedAt().compareTo(row.getUpdatedAt());
+            return compared < 0 || compared == 0
+                    && TransactionArchiveStore.compareIds(archived.getId(), UUID.fromString(row.getTransactionId())) < 0;
+        }
+
+        private TransactionExportRow toExportRow(ArchivedTransaction archived) {
+            boolean incoming = archived.getFromBankId() != null;
+            return new TransactionExportRow(
+                    archived.getId().toString(),
+                    archived.getCreatedAt(),
+                    archived.getUpdatedAt(),
+                    archived.getTransactionType(),
+                    archived.getStatus(),
+                    incoming ? "INCOMING" : "OUTGOING",
+                    bankCodes.get(incoming ? archived.getFromBankId() : archived.getToBankId()),
+                    archived.getFromAccountNumber(),
+                    archived.getToAccountNumber(),
+                    archived.getAmount(),
+                    archived.getFee(),
+                    archived.getFeeType(),
+                    archived.getMessage());
+        }
+    }
+}
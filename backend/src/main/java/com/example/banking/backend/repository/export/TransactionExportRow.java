@@ -0,0 +1,37 @@
+package com.example.banking.backend.repository.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class TransactionExportRow {
+
+    private final String transactionId;
+
+    private final Instant createdAt;
+
+    private final Instant updatedAt;
+
+    private final String transactionType;
+
+    private final String status;
+
+    private final String direction;
+
+    private final String bankCode;
+
+    private final String fromAccountNumber;
+
+    private final String toAccountNumber;
+
+    private final double amount;
+
+    private final double fee;
+
+    private final String feeType;
+
+    private final String message;
+}
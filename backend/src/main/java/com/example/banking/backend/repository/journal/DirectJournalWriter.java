@@ -0,0 +1,39 @@
+package com.example.banking.backend.repository.journal;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Commits every movement in its own transaction on the calling thread.
+ */
+@Repository
+@ConditionalOnProperty(name = "banking.journal.mode", havingValue = "direct")
+public class DirectJournalWriter implements JournalWriter {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public DirectJournalWriter(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(JournalWork<T> work) {
+        try {
+            return CompletableFuture.completedFuture(transactionTemplate.execute(status -> {
+                JournalBatch batch = new JournalBatch();
+                T result = work.apply(batch);
+                batch.flush(jdbcTemplate);
+                return result;
+            }));
+        } catch (RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
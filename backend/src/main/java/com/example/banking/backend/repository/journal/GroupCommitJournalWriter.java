@@ -0,0 +1,232 @@
+package com.example.banking.backend.repository.journal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for money movements. Callers queue their work and wait on a future; each writer thread
+ * takes the movements that arrive within {@code banking.journal.max-wait-ms} of the first one, up to
+ * {@code banking.journal.max-batch}, runs them one after the other in a single database transaction,
+ * writes their journal rows as one batch and commits once. A busy minute then costs one commit, and one
+ * WAL flush, per group instead of per transfer.
+ * <p>
+ * Callers keep their account locks until the future completes, so two movements in flight do not debit
+ * the same account. Groups can still wait on each other's row locks: for a receiver that is not locked, a
+ * shard shared with a writer of another instance, or an account row held by a fold. When a movement of a
+ * group fails the whole transaction is rolled back and every movement is retried in a transaction of its
+ * own, so a failure only reaches the caller that caused it. A group that fails in the commit itself is not
+ * retried: it may have been committed all the same, and running it again could move the money twice. Its
+ * callers get the error and the outcome is left to be checked.
+ * <p>
+ * A call made while a transaction is already active runs in that transaction instead: the caller's
+ * commit is the one that counts, and a caller holding a pooled connection while it waits for a writer
+ * could starve the pool. That includes calls under advisory account locks, which live in a transaction
+ * of their own; movements are only grouped with the in-memory lock manager.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "banking.journal.mode", havingValue = "group", matchIfMissing = true)
+public class GroupCommitJournalWriter implements JournalWriter {
+
+    private static final ThreadLocal<Integer> WRITER = new ThreadLocal<>();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Pending<?>> queue;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final ExecutorService writers;
+    private volatile boolean running = true;
+
+    public GroupCommitJournalWriter(NamedParameterJdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${banking.journal.writers:2}") int writerThreads,
+                                    @Value("${banking.journal.max-batch:64}") int maxBatch,
+                                    @Value("${banking.journal.max-wait-ms:2}") long maxWaitMillis,
+                                    @Value("${banking.journal.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+        this.writers = Executors.newFixedThreadPool(writerThreads, new CustomizableThreadFactory("journal-writer-"));
+        for (int i = 0; i < writerThreads; i++) {
+            int writer = i;
+            writers.execute(() -> drain(writer));
+        }
+    }
+
+    /**
+     * Number of the writer running on the current thread, from 0, or -1 when it is not a writer thread.
+     */
+    public static int currentWriter() {
+        Integer writer = WRITER.get();
+        return writer != null ? writer : -1;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(JournalWork<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return runAlone(work);
+        }
+        if (!running) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Journal writer is shut down"));
+        }
+        Pending<T> pending = new Pending<>(work);
+        try {
+            // Blocks while the writers are a full queue behind, which pushes back on the callers
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return pending.future;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writers.shutdown();
+        if (!writers.awaitTermination(10, TimeUnit.SECONDS)) {
+            writers.shutdownNow();
+        }
+        // Anything still queued never reached the database
+        Pending<?> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new RejectedExecutionException("Journal writer is shut down"));
+        }
+    }
+
+    private void drain(int writer) {
+        WRITER.set(writer);
+        List<Pending<?>> group = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                collect(group);
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                log.error("Journal writer failed to complete a group of {} movements", group.size(), e);
+                for (Pending<?> pending : group) {
+                    pending.future.completeExceptionally(e);
+                }
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void collect(List<Pending<?>> group) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (group.size() < maxBatch) {
+            Pending<?> next = queue.poll();
+            if (next == null) {
+                long left = deadline - System.nanoTime();
+                next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : null;
+                if (next == null) {
+                    return;
+                }
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<Pending<?>> group) {
+        boolean[] committing = {false};
+        List<Object> results;
+        try {
+            results = transactionTemplate.execute(status -> {
+                JournalBatch batch = new JournalBatch();
+                List<Object> applied = new ArrayList<>(group.size());
+                for (Pending<?> pending : group) {
+                    applied.add(pending.work.apply(batch));
+                }
+                batch.flush(jdbcTemplate);
+                committing[0] = true;
+                return applied;
+            });
+        } catch (RuntimeException e) {
+            if (committing[0]) {
+                log.error("Commit of a group of {} movements failed, whether it was applied is unknown",
+                        group.size(), e);
+            }
+            if (group.size() == 1 || committing[0]) {
+                for (Pending<?> pending : group) {
+                    pending.future.completeExceptionally(e);
+                }
+                return;
+            }
+            log.debug("Group of {} movements failed, retrying them one by one", group.size(), e);
+            for (Pending<?> pending : group) {
+                pending.completeWith(runAlone(pending.work));
+            }
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).complete(results.get(i));
+        }
+    }
+
+    private <T> CompletableFuture<T> runAlone(JournalWork<T> work) {
+        try {
+            return CompletableFuture.completedFuture(transactionTemplate.execute(status -> {
+                JournalBatch batch = new JournalBatch();
+                T result = work.apply(batch);
+                batch.flush(jdbcTemplate);
+                return result;
+            }));
+        } catch (RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static final class Pending<T> {
+
+        private final JournalWork<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Pending(JournalWork<T> work) {
+            this.work = work;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object result) {
+            future.complete((T) result);
+        }
+
+        private void completeWith(CompletableFuture<?> outcome) {
+            outcome.whenComplete((result, error) -> {
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    complete(result);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.banking.backend.repository.journal;
+
+import com.example.banking.backend.model.Bank;
+import com.example.banking.backend.model.Transaction;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Journal rows collected from the movements of one database transaction and written with a single JDBC
+ * batch just before it commits. {@code reWriteBatchedInserts} turns the batch into multi-row INSERTs.
+ */
+public class JournalBatch {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO transactions (transaction_id, transaction_type, from_bank_id, from_account_id,
+                                      from_account_number, to_bank_id, to_account_id, to_account_number, amount,
+                                      fee, fee_type, status, message, created_at, updated_at)
+            VALUES (:transactionId, :transactionType, :fromBankId, :fromAccountId, :fromAccountNumber, :toBankId,
+                    :toAccountId, :toAccountNumber, :amount, :fee, :feeType, :status, :message, :createdAt,
+                    :updatedAt)
+            """;
+
+    private final List<MapSqlParameterSource> rows = new ArrayList<>();
+
+    /**
+     * Queues the journal row of {@code transaction}, giving it an id first if it has none. The row is not
+     * visible to queries until the batch is flushed.
+     */
+    public void insert(Transaction transaction) {
+        if (transaction.getId() == null) {
+            transaction.setId(UUID.randomUUID());
+        }
+        rows.add(new MapSqlParameterSource()
+                .addValue("transactionId", transaction.getId())
+                .addValue("transactionType", transaction.getTransactionType().name())
+                .addValue("fromBankId", bankId(transaction.getFromBank()))
+                .addValue("fromAccountId", transaction.getFromAccount() != null
+                        ? transaction.getFromAccount().getAccountId() : null)
+                .addValue("fromAccountNumber", transaction.getFromAccountNumber())
+                .addValue("toBankId", bankId(transaction.getToBank()))
+                .addValue("toAccountId", transaction.getToAccount() != null
+                        ? transaction.getToAccount().getAccountId() : null)
+                .addValue("toAccountNumber", transaction.getToAccountNumber())
+                .addValue("amount", transaction.getAmount())
+                .addValue("fee", transaction.getFee())
+                .addValue("feeType", transaction.getFeeType().name())
+                .addValue("status", transaction.getStatus().name())
+                .addValue("message", transaction.getMessage())
+                .addValue("createdAt", Timestamp.from(transaction.getCreatedAt()))
+                .addValue("updatedAt", Timestamp.from(transaction.getUpdatedAt())));
+    }
+
+    void flush(NamedParameterJdbcTemplate jdbcTemplate) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows.toArray(MapSqlParameterSource[]::new));
+            rows.clear();
+        }
+    }
+
+    private static UUID bankId(Bank bank) {
+        return bank != null ? bank.getId() : null;
+    }
+}
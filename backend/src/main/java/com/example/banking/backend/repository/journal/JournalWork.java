@@ -0,0 +1,12 @@
+package com.example.banking.backend.repository.journal;
+
+/**
+ * A money movement handed to a {@link JournalWriter}. It runs on the writer's connection, possibly in the
+ * same database transaction as other movements, so it must not wait for anything outside the database
+ * and must be safe to run again: when its group fails before committing, it is retried on its own.
+ */
+@FunctionalInterface
+public interface JournalWork<T> {
+
+    T apply(JournalBatch batch);
+}
@@ -0,0 +1,32 @@
+package com.example.banking.backend.repository.journal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs money movements and commits them. {@code banking.journal.mode} picks how: {@code group} coalesces
+ * the movements that arrive within a few milliseconds into one database transaction, {@code direct}
+ * commits each one on its own. Either way a future only completes once its movement is committed, and
+ * a call made inside a transaction joins it instead.
+ */
+public interface JournalWriter {
+
+    <T> CompletableFuture<T> submit(JournalWork<T> work);
+
+    /**
+     * Submits {@code work} and waits until it is committed.
+     */
+    default <T> T write(JournalWork<T> work) {
+        try {
+            return submit(work).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.banking.backend.repository.ledger;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class LedgerDrift {
+
+    private final UUID accountId;
+
+    private final double storedBalance;
+
+    private final double ledgerBalance;
+}
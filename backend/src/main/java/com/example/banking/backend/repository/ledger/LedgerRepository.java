@@ -0,0 +1,234 @@
+package com.example.banking.backend.repository.ledger;
+
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.LedgerDirectionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes and reads {@code ledger_entries}. Every posting is balanced: the DEBIT legs of a transaction add
+ * up to its CREDIT legs. A customer's balance is its snapshot plus the entries written since, see
+ * {@code V4__ledger.sql} for how the snapshot horizon works.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO ledger_entries (transaction_id, account_id, book, direction, amount, created_at)
+            VALUES (:transactionId, :accountId, :book, :direction, :amount, :now)
+            """;
+
+    private static final String BALANCE_SQL = """
+            SELECT COALESCE(s.balance, 0) + COALESCE((
+                       SELECT SUM(CASE e.direction WHEN 'CREDIT' THEN e.amount ELSE -e.amount END)
+                       FROM ledger_entries e
+                       WHERE e.account_id = a.account_id
+                         AND e.writer_xid >= COALESCE(s.horizon_xid, CAST('0' AS xid8))), 0) AS balance
+            FROM (SELECT CAST(:accountId AS uuid) AS account_id) a
+            LEFT JOIN account_balance_snapshots s ON s.account_id = a.account_id
+            """;
+
+    private static final String LOCK_ACCOUNT_SQL = """
+            SELECT account_id FROM accounts WHERE account_id = :accountId FOR NO KEY UPDATE
+            """;
+
+    // Folds the entries written since the previous run into the snapshots of the accounts they touch. Runs
+    // must not overlap: the previous horizon is the highest one recorded, so each run starts where the last
+    // run that found entries stopped.
+    private static final String SNAPSHOT_SQL = """
+            WITH horizon AS (
+                SELECT pg_snapshot_xmin(pg_current_snapshot()) AS xid
+            ), previous AS (
+                SELECT COALESCE(MAX(horizon_xid), CAST('0' AS xid8)) AS xid FROM account_balance_snapshots
+            ), delta AS (
+                SELECT e.account_id, SUM(CASE e.direction WHEN 'CREDIT' THEN e.amount ELSE -e.amount END) AS amount
+                FROM ledger_entries e, horizon h, previous p
+                WHERE e.writer_xid >= p.xid AND e.writer_xid < h.xid AND e.account_id IS NOT NULL
+                GROUP BY e.account_id
+            )
+            INSERT INTO account_balance_snapshots (account_id, balance, horizon_xid, taken_at)
+            SELECT d.account_id, COALESCE(s.balance, 0) + d.amount, h.xid, :now
+            FROM delta d
+            CROSS JOIN horizon h
+            LEFT JOIN account_balance_snapshots s ON s.account_id = d.account_id
+            ON CONFLICT (account_id) DO UPDATE
+                SET balance = EXCLUDED.balance, horizon_xid = EXCLUDED.horizon_xid, taken_at = EXCLUDED.taken_at
+            """;
+
+    private static final String DRIFT_SQL = """
+            SELECT l.account_id, l.stored_balance, l.ledger_balance
+            FROM (SELECT a.account_id,
+                         a.balance + COALESCE((SELECT SUM(b.balance)
+                                               FROM account_balance_shards b
+                                               WHERE b.account_id = a.account_id), 0) AS stored_balance,
+                         COALESCE(s.balance, 0) + COALESCE((
+                             SELECT SUM(CASE e.direction WHEN 'CREDIT' THEN e.amount ELSE -e.amount END)
+                             FROM ledger_entries e
+                             WHERE e.account_id = a.account_id
+                               AND e.writer_xid >= COALESCE(s.horizon_xid, CAST('0' AS xid8))), 0) AS ledger_balance
+                  FROM accounts a
+                  LEFT JOIN account_balance_snapshots s ON s.account_id = a.account_id) l
+            WHERE abs(l.stored_balance - l.ledger_balance) > :tolerance
+            LIMIT :limit
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Current balance of a customer account as the ledger sees it: the snapshot plus its tail.
+     */
+    public double balanceOf(UUID accountId) {
+        Double balance = jdbcTemplate.queryForObject(BALANCE_SQL,
+                new MapSqlParameterSource("accountId", accountId), Double.class);
+        return balance != null ? balance : 0;
+    }
+
+    /**
+     * Locks the account row until the end of the transaction, so debits of the account run one after the
+     * other. Credits do not take the lock. Read the balance in a later statement: in READ COMMITTED only a
+     * new statement sees the entries of the transaction that held the lock before.
+     *
+     * @return false when the account does not exist
+     */
+    public boolean lockAccount(UUID accountId) {
+        return !jdbcTemplate.queryForList(LOCK_ACCOUNT_SQL,
+                new MapSqlParameterSource("accountId", accountId), UUID.class).isEmpty();
+    }
+
+    /**
+     * Posts a transfer between two customer accounts: the sender pays {@code amount + fee}, the receiver
+     * gets {@code amount} and the fee goes to FEE_INCOME.
+     */
+    public void postTransfer(UUID transactionId, UUID fromAccountId, UUID toAccountId, double amount, double fee,
+                             Timestamp now) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, transferLegs(transactionId, fromAccountId, toAccountId, amount, fee, now)
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Posts the first half of batch transfers from one sender: it pays {@code amount + fee} of every line,
+     * the fee goes to FEE_INCOME and the amount waits in BATCH_CLEARING until the receiver is credited.
+     */
+    public void postBatchHolds(List<UUID> transactionIds, UUID fromAccountId, List<Double> amounts,
+                               List<Double> fees, Timestamp now) {
+        List<MapSqlParameterSource> legs = new ArrayList<>();
+        for (int i = 0; i < transactionIds.size(); i++) {
+            double amount = amounts.get(i);
+            double fee = fees.get(i);
+            legs.add(leg(transactionIds.get(i), fromAccountId, LedgerBookType.CUSTOMER, LedgerDirectionType.DEBIT,
+                    amount + fee, now));
+            legs.add(leg(transactionIds.get(i), null, LedgerBookType.BATCH_CLEARING, LedgerDirectionType.CREDIT,
+                    amount, now));
+            if (fee > 0) {
+                legs.add(leg(transactionIds.get(i), null, LedgerBookType.FEE_INCOME, LedgerDirectionType.CREDIT,
+                        fee, now));
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, legs.toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Moves the amount of each batch line from BATCH_CLEARING to its receiver.
+     */
+    public void postBatchCredits(List<UUID> transactionIds, List<UUID> toAccountIds, List<Double> amounts,
+                                 Timestamp now) {
+        List<MapSqlParameterSource> legs = new ArrayList<>();
+        for (int i = 0; i < transactionIds.size(); i++) {
+            legs.add(leg(transactionIds.get(i), null, LedgerBookType.BATCH_CLEARING, LedgerDirectionType.DEBIT,
+                    amounts.get(i), now));
+            legs.add(leg(transactionIds.get(i), toAccountIds.get(i), LedgerBookType.CUSTOMER,
+                    LedgerDirectionType.CREDIT, amounts.get(i), now));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, legs.toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Reverses {@link #postBatchHolds} for batch lines that could not be credited: the sender gets the amount
+     * back from BATCH_CLEARING and the fee from FEE_INCOME.
+     */
+    public void postBatchRefunds(List<UUID> transactionIds, List<UUID> fromAccountIds, List<Double> amounts,
+                                 List<Double> fees, Timestamp now) {
+        List<MapSqlParameterSource> legs = new ArrayList<>();
+        for (int i = 0; i < transactionIds.size(); i++) {
+            double amount = amounts.get(i);
+            double fee = fees.get(i);
+            legs.add(leg(transactionIds.get(i), null, LedgerBookType.BATCH_CLEARING, LedgerDirectionType.DEBIT,
+                    amount, now));
+            if (fee > 0) {
+                legs.add(leg(transactionIds.get(i), null, LedgerBookType.FEE_INCOME, LedgerDirectionType.DEBIT,
+                        fee, now));
+            }
+            legs.add(leg(transactionIds.get(i), fromAccountIds.get(i), LedgerBookType.CUSTOMER,
+                    LedgerDirectionType.CREDIT, amount + fee, now));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, legs.toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Posts money entering ({@code delta > 0}) or leaving the customer account from or to {@code contraBook}.
+     *
+     * @param transactionId null for adjustments that have no transaction of their own
+     */
+    public void postAdjustment(UUID transactionId, UUID accountId, double delta, LedgerBookType contraBook,
+                               Timestamp now) {
+        LedgerDirectionType customerSide = delta >= 0 ? LedgerDirectionType.CREDIT : LedgerDirectionType.DEBIT;
+        LedgerDirectionType contraSide = delta >= 0 ? LedgerDirectionType.DEBIT : LedgerDirectionType.CREDIT;
+        jdbcTemplate.batchUpdate(INSERT_SQL, new MapSqlParameterSource[]{
+                leg(transactionId, accountId, LedgerBookType.CUSTOMER, customerSide, Math.abs(delta), now),
+                leg(transactionId, null, contraBook, contraSide, Math.abs(delta), now)});
+    }
+
+    /**
+     * Folds new entries into the snapshots. Callers must make sure only one run is active at a time.
+     *
+     * @return number of accounts whose snapshot moved
+     */
+    public int snapshot(Timestamp now) {
+        return jdbcTemplate.update(SNAPSHOT_SQL, new MapSqlParameterSource("now", now));
+    }
+
+    /**
+     * Accounts whose stored balance, shards included, and ledger balance differ by more than
+     * {@code tolerance}. Both are read from the same statement snapshot, so the comparison holds while
+     * transfers run as long as every balance change posts its legs in the same transaction.
+     */
+    public List<LedgerDrift> findDrift(double tolerance, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tolerance", tolerance)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(DRIFT_SQL, params, (rs, rowNum) -> new LedgerDrift(
+                rs.getObject("account_id", UUID.class),
+                rs.getDouble("stored_balance"),
+                rs.getDouble("ledger_balance")));
+    }
+
+    private static List<MapSqlParameterSource> transferLegs(UUID transactionId, UUID fromAccountId, UUID toAccountId,
+                                                            double amount, double fee, Timestamp now) {
+        List<MapSqlParameterSource> legs = new ArrayList<>(3);
+        legs.add(leg(transactionId, fromAccountId, LedgerBookType.CUSTOMER, LedgerDirectionType.DEBIT, amount + fee, now));
+        legs.add(leg(transactionId, toAccountId, LedgerBookType.CUSTOMER, LedgerDirectionType.CREDIT, amount, now));
+        if (fee > 0) {
+            legs.add(leg(transactionId, null, LedgerBookType.FEE_INCOME, LedgerDirectionType.CREDIT, fee, now));
+        }
+        return legs;
+    }
+
+    private static MapSqlParameterSource leg(UUID transactionId, UUID accountId, LedgerBookType book,
+                                             LedgerDirectionType direction, double amount, Timestamp now) {
+        return new MapSqlParameterSource()
+                .addValue("transactionId", transactionId)
+                .addValue("accountId", accountId)
+                .addValue("book", book.name())
+                .addValue("direction", direction.name())
+                .addValue("amount", amount)
+                .addValue("now", now);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.banking.backend.repository.outbox;
+
+import com.example.banking.backend.model.InterbankOutbox;
+import com.example.banking.backend.model.type.OutboxStatusType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface InterbankOutboxRepository extends JpaRepository<InterbankOutbox, UUID> {
+
+    /**
+     * Rows that are due, plus rows whose claim expired because the replica holding them died. Rows locked by
+     * another replica's claim are skipped rather than waited on. Must be called inside a transaction.
+     */
+    @Query(value = """
+            SELECT * FROM interbank_outbox
+            WHERE (status = 'PENDING' AND next_attempt_at <= :now)
+               OR (status = 'IN_PROGRESS' AND locked_until < :now)
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<InterbankOutbox> findDueForUpdate(@Param("now") Instant now, @Param("limit") int limit);
+
+    Optional<InterbankOutbox> findByTransactionId(UUID transactionId);
+
+    List<InterbankOutbox> findByStatusOrderByUpdatedAt(OutboxStatusType status);
+}
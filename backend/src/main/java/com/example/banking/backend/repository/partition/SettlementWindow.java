@@ -0,0 +1,33 @@
+package com.example.banking.backend.repository.partition;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * How long after its creation a transaction may still be updated. {@code transactions} is partitioned by
+ * {@code created_at} while the bank reports filter on {@code updated_at}; only settling interbank transfers
+ * are updated after the insert, and the outbox gives up on them within the hour. A transaction updated at
+ * {@code t} was therefore created in {@code [t - window, t]}, and bounding {@code created_at} that way lets
+ * PostgreSQL skip the partitions of every other month.
+ */
+@Component
+public class SettlementWindow {
+
+    private final Duration window;
+
+    public SettlementWindow(@Value("${banking.partitioning.settlement-window-days:31}") int windowDays) {
+        this.window = Duration.ofDays(Math.max(1, windowDays));
+    }
+
+    public LocalDateTime earliestCreatedAt(LocalDateTime updatedFrom) {
+        return updatedFrom.minus(window);
+    }
+
+    public Instant earliestCreatedAt(Instant updatedFrom) {
+        return updatedFrom.minus(window);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.banking.backend.repository.partition;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL for the monthly partitions of {@code transactions}. A partition covers the calendar month of
+ * {@code created_at} (Vietnam wall time) and is named {@code transactions_yYYYYmMM}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionPartitionRepository {
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'transactions_y'yyyy'm'MM");
+    private static final Pattern NAME_PATTERN = Pattern.compile("transactions_y(\\d{4})m(\\d{2})");
+
+    private static final String ATTACHED_SQL = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = CAST('transactions' AS regclass)
+            """;
+
+    private static final String DETACHED_SQL = """
+            SELECT c.relname
+            FROM pg_class c
+            WHERE c.relkind = 'r' AND NOT c.relispartition
+              AND c.relnamespace = CAST(current_schema() AS regnamespace)
+              AND c.relname ~ '^transactions_y[0-9]{4}m[0-9]{2}$'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public static String partitionName(YearMonth month) {
+        return NAME_FORMAT.format(month);
+    }
+
+    /**
+     * Months with a partition attached to {@code transactions}, oldest first.
+     */
+    public Set<YearMonth> findAttachedMonths() {
+        return toMonths(jdbcTemplate.queryForList(ATTACHED_SQL, String.class));
+    }
+
+    /**
+     * Months whose partition has been detached but whose table is still in the schema, oldest first.
+     */
+    public Set<YearMonth> findDetachedMonths() {
+        return toMonths(jdbcTemplate.queryForList(DETACHED_SQL, String.class));
+    }
+
+    /**
+     * Creates the partition of {@code month} and attaches it. Rows of that month that already went to
+     * {@code transactions_default} are moved over first, otherwise the attach would fail. Building the table
+     * and attaching it only takes a SHARE UPDATE EXCLUSIVE lock on {@code transactions}, so inserts keep
+     * running. Must be called inside a transaction.
+     *
+     * @return number of rows moved out of the default partition
+     */
+    public int createPartition(YearMonth month) {
+        String name = partitionName(month);
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("INSERT INTO " + name
+                + " SELECT * FROM transactions_default WHERE created_at >= ? AND created_at < ?", from, to);
+        if (moved > 0) {
+            jdbcTemplate.update("DELETE FROM transactions_default WHERE created_at >= ? AND created_at < ?", from, to);
+        }
+        jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return moved;
+    }
+
+    /**
+     * Detaches the partition of {@code month}. The table keeps its rows and indexes under the same name but
+     * is no longer read through {@code transactions}. Must be called inside a transaction.
+     */
+    public void detachPartition(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partitionName(month));
+    }
+
+    /**
+     * Drops the table of {@code month}, whether it is still attached or was detached before. Must be called
+     * inside a transaction.
+     */
+    public void dropPartition(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(month));
+    }
+
+    public long countRows(YearMonth month) {
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partitionName(month), Long.class);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Streams the rows of the table of {@code month} in (created_at, transaction_id) order through a
+     * server-side cursor of {@code fetchSize} rows. Must be called inside a transaction, otherwise the driver
+     * reads the whole table into memory.
+     */
+    public void forEachRow(YearMonth month, int fetchSize, RowCallbackHandler handler) {
+        String sql = "SELECT * FROM " + partitionName(month) + " ORDER BY created_at, transaction_id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, handler);
+    }
+
+    private static Set<YearMonth> toMonths(List<String> names) {
+        Set<YearMonth> months = new TreeSet<>();
+        for (String name : names) {
+            Matcher matcher = NAME_PATTERN.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        return months;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.banking.backend.repository.stats;
+
+import com.example.banking.backend.model.Transaction;
+import com.example.banking.backend.model.type.TransactionStatusType;
+import com.example.banking.backend.model.type.TransferDirectionType;
+import com.example.banking.backend.repository.partition.SettlementWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Maintains {@code daily_bank_rollup}. The incremental methods must run inside the transaction that writes
+ * the counted {@link Transaction}, so the rollup commits or rolls back together with it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailyBankRollupRepository {
+
+    static final ZoneId ROLLUP_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO daily_bank_rollup (day, bank_id, direction, transaction_type, status,
+                                           total_transactions, total_amount, updated_at)
+            VALUES (:day, :bankId, :direction, :transactionType, :status, :transactions, :amount, :now)
+            ON CONFLICT (day, bank_id, direction, transaction_type, status) DO UPDATE
+            SET total_transactions = daily_bank_rollup.total_transactions + EXCLUDED.total_transactions,
+                total_amount = daily_bank_rollup.total_amount + EXCLUDED.total_amount,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String DELETE_DAYS_SQL = """
+            DELETE FROM daily_bank_rollup WHERE day >= :fromDay AND day < :toDay
+            """;
+
+    // updated_at holds Vietnam wall-clock time, so casting it to date gives the Vietnam calendar day
+    private static final String REBUILD_DAYS_SQL = """
+            INSERT INTO daily_bank_rollup (day, bank_id, direction, transaction_type, status,
+                                           total_transactions, total_amount, updated_at)
+            SELECT CAST(t.updated_at AS date),
+                   COALESCE(t.from_bank_id, t.to_bank_id),
+                   CASE WHEN t.from_bank_id IS NOT NULL THEN 'INCOMING' ELSE 'OUTGOING' END,
+                   t.transaction_type,
+                   t.status,
+                   COUNT(*),
+                   SUM(t.amount),
+                   :now
+            FROM transactions t
+            WHERE t.updated_at >= :fromTime AND t.updated_at < :toTime
+              AND t.created_at >= :createdFrom AND t.created_at < :toTime
+              AND (t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL)
+            GROUP BY 1, 2, 3, 4, 5
+            """;
+
+    private static final String FIRST_DAY_SQL = """
+            SELECT CAST(MIN(t.updated_at) AS date)
+            FROM transactions t
+            WHERE t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SettlementWindow settlementWindow;
+
+    /**
+     * Counts a newly written interbank transaction. Internal transactions are ignored.
+     */
+    public void record(Transaction transaction) {
+        if (isInterbank(transaction)) {
+            apply(transaction, transaction.getStatus(), transaction.getUpdatedAt(), 1);
+        }
+    }
+
+    /**
+     * Moves an interbank transaction from the bucket of its previous status and update time to its
+     * current one.
+     */
+    public void move(Transaction transaction, TransactionStatusType previousStatus, Instant previousUpdatedAt) {
+        if (!isInterbank(transaction)) {
+            return;
+        }
+        // Always lock the older bucket first so two moves can never wait on each other
+        apply(transaction, previousStatus, previousUpdatedAt, -1);
+        apply(transaction, transaction.getStatus(), transaction.getUpdatedAt(), 1);
+    }
+
+    /**
+     * Recomputes the rollup of the days in {@code [fromDay, toDay)} from {@code transactions}.
+     */
+    public int rebuild(LocalDate fromDay, LocalDate toDay) {
+        Instant now = Instant.now();
+        jdbcTemplate.update(DELETE_DAYS_SQL, new MapSqlParameterSource()
+                .addValue("fromDay", Date.valueOf(fromDay))
+                .addValue("toDay", Date.valueOf(toDay)));
+        return jdbcTemplate.update(REBUILD_DAYS_SQL, new MapSqlParameterSource()
+                .addValue("fromTime", Timestamp.valueOf(fromDay.atStartOfDay()))
+                .addValue("createdFrom", Timestamp.valueOf(settlementWindow.earliestCreatedAt(fromDay.atStartOfDay())))
+                .addValue("toTime", Timestamp.valueOf(toDay.atStartOfDay()))
+                .addValue("now", Timestamp.from(now)));
+    }
+
+    public boolean isEmpty() {
+        Boolean exists = jdbcTemplate.getJdbcTemplate()
+                .queryForObject("SELECT EXISTS (SELECT 1 FROM daily_bank_rollup)", Boolean.class);
+        return !Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * @return day of the oldest interbank transaction, null when there is none
+     */
+    public LocalDate firstTransactionDay() {
+        Date day = jdbcTemplate.getJdbcTemplate().queryForObject(FIRST_DAY_SQL, Date.class);
+        return day != null ? day.toLocalDate() : null;
+    }
+
+    private void apply(Transaction transaction, TransactionStatusType status, Instant updatedAt, int sign) {
+        UUID bankId = transaction.getFromBank() != null
+                ? transaction.getFromBank().getId()
+                : transaction.getToBank().getId();
+        TransferDirectionType direction = transaction.getFromBank() != null
+                ? TransferDirectionType.INCOMING
+                : TransferDirectionType.OUTGOING;
+
+        jdbcTemplate.update(UPSERT_SQL, new MapSqlParameterSource()
+                .addValue("day", Date.valueOf(LocalDate.ofInstant(updatedAt, ROLLUP_ZONE)))
+                .addValue("bankId", bankId)
+                .addValue("direction", direction.name())
+                .addValue("transactionType", transaction.getTransactionType().name())
+                .addValue("status", status.name())
+                .addValue("transactions", sign)
+                .addValue("amount", sign * transaction.getAmount())
+                .addValue("now", Timestamp.from(Instant.now())));
+    }
+
+    private static boolean isInterbank(Transaction transaction) {
+        return transaction.getFromBank() != null || transaction.getToBank() != null;
+    }
+}
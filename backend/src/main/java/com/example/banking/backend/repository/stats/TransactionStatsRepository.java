@@ -0,0 +1,205 @@
+package com.example.banking.backend.repository.stats;
+
+import com.example.banking.backend.dto.response.transaction.BankTransactionStatsDto;
+import com.example.banking.backend.dto.response.transaction.StatsBucketDto;
+import com.example.banking.backend.dto.response.transaction.StatsSeriesPointDto;
+import com.example.banking.backend.model.type.StatsIntervalType;
+import com.example.banking.backend.repository.partition.SettlementWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interbank transaction statistics computed by PostgreSQL. Days before today are read from
+ * {@code daily_bank_rollup}, today is aggregated from {@code transactions}, so a range costs a few
+ * rollup rows per day plus one day of transactions no matter how long it is.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionStatsRepository {
+
+    /**
+     * Rollup rows of the closed days followed by today's transactions, as rows of
+     * (day_start, transaction_type, status, direction, bank_id, transactions, amount).
+     */
+    private static final String FILTERED_CTE = """
+            WITH filtered AS (
+                SELECT CAST(r.day AS timestamp) AS day_start, r.transaction_type, r.status, r.direction, r.bank_id,
+                       r.total_transactions AS transactions, r.total_amount AS amount
+                FROM daily_bank_rollup r
+                WHERE r.day >= :rollupFrom AND r.day < :rollupTo%s
+                UNION ALL
+                SELECT date_trunc('day', t.updated_at), t.transaction_type, t.status,
+                       CASE WHEN t.from_bank_id IS NOT NULL THEN 'INCOMING' ELSE 'OUTGOING' END,
+                       COALESCE(t.from_bank_id, t.to_bank_id), 1, t.amount
+                FROM transactions t
+                WHERE t.updated_at >= :liveFrom AND t.updated_at < :liveTo
+                  AND t.created_at >= :liveCreatedFrom AND t.created_at < :liveTo AND %s
+            )
+            """;
+
+    /**
+     * One pass over the filtered rows feeds every grouping set: the grand total and the breakdowns by type,
+     * status, direction and partner bank. GROUPING() tells which set a row belongs to.
+     */
+    private static final String SUMMARY_SQL = FILTERED_CTE + """
+            SELECT f.transaction_type, f.status, f.direction, b.bank_code,
+                   GROUPING(f.transaction_type) AS type_rolled_up,
+                   GROUPING(f.status) AS status_rolled_up,
+                   GROUPING(f.direction) AS direction_rolled_up,
+                   GROUPING(b.bank_code) AS bank_rolled_up,
+                   COALESCE(SUM(f.transactions), 0) AS total_transactions,
+                   COALESCE(SUM(f.amount), 0) AS total_amount
+            FROM filtered f
+            LEFT JOIN banks b ON b.bank_id = f.bank_id
+            GROUP BY GROUPING SETS ((), (f.transaction_type), (f.status), (f.direction), (b.bank_code))
+            ORDER BY total_amount DESC
+            """;
+
+    private static final String COUNT_SQL = FILTERED_CTE + """
+            SELECT COALESCE(SUM(f.transactions), 0) FROM filtered f
+            """;
+
+    private static final String DAILY_SERIES_SQL = FILTERED_CTE + """
+            SELECT f.day_start AS bucket_start,
+                   SUM(f.transactions) AS total_transactions,
+                   SUM(f.amount) AS total_amount
+            FROM filtered f
+            GROUP BY 1
+            HAVING SUM(f.transactions) > 0
+            ORDER BY 1
+            """;
+
+    // The rollup has no hours, so hourly buckets always come from the transactions themselves
+    private static final String HOURLY_SERIES_SQL = """
+            SELECT date_trunc('hour', t.updated_at) AS bucket_start,
+                   COUNT(*) AS total_transactions,
+                   COALESCE(SUM(t.amount), 0) AS total_amount
+            FROM transactions t
+            WHERE t.updated_at >= :from AND t.updated_at < :to
+              AND t.created_at >= :createdFrom AND t.created_at < :to AND %s
+            GROUP BY 1
+            ORDER BY 1
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SettlementWindow settlementWindow;
+
+    /**
+     * Totals and breakdowns of the interbank transactions updated on the Vietnam calendar days
+     * {@code [fromDay, toDay]}, limited to transactions with {@code bankCode} when it is not null.
+     * Range and bank code are left for the caller to fill in.
+     */
+    public BankTransactionStatsDto summarize(LocalDate fromDay, LocalDate toDay, String bankCode) {
+        BankTransactionStatsDto stats = new BankTransactionStatsDto();
+        stats.setTotalTransactions(0L);
+        stats.setTotalAmount(0.0);
+        stats.setByType(new ArrayList<>());
+        stats.setByStatus(new ArrayList<>());
+        stats.setByDirection(new ArrayList<>());
+        stats.setByBank(new ArrayList<>());
+
+        jdbcTemplate.query(filtered(SUMMARY_SQL, bankCode), parameters(fromDay, toDay, bankCode), rs -> {
+            long count = rs.getLong("total_transactions");
+            double amount = rs.getDouble("total_amount");
+            if (count == 0 && rs.getInt("type_rolled_up") + rs.getInt("status_rolled_up")
+                    + rs.getInt("direction_rolled_up") + rs.getInt("bank_rolled_up") < 4) {
+                // Emptied rollup buckets, e.g. PENDING after every transfer of the day settled
+                return;
+            }
+            if (rs.getInt("type_rolled_up") == 0) {
+                stats.getByType().add(new StatsBucketDto(rs.getString("transaction_type"), count, amount));
+            } else if (rs.getInt("status_rolled_up") == 0) {
+                stats.getByStatus().add(new StatsBucketDto(rs.getString("status"), count, amount));
+            } else if (rs.getInt("direction_rolled_up") == 0) {
+                stats.getByDirection().add(new StatsBucketDto(rs.getString("direction"), count, amount));
+            } else if (rs.getInt("bank_rolled_up") == 0) {
+                stats.getByBank().add(new StatsBucketDto(rs.getString("bank_code"), count, amount));
+            } else {
+                stats.setTotalTransactions(count);
+                stats.setTotalAmount(amount);
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Number of interbank transactions in {@code [fromDay, toDay]}, as precise as the rollup of the closed days.
+     */
+    public long countTransactions(LocalDate fromDay, LocalDate toDay, String bankCode) {
+        Long count = jdbcTemplate.queryForObject(filtered(COUNT_SQL, bankCode), parameters(fromDay, toDay, bankCode),
+                Long.class);
+        return count != null ? count : 0;
+    }
+
+    public List<StatsSeriesPointDto> series(LocalDate fromDay, LocalDate toDay, String bankCode,
+                                            StatsIntervalType interval) {
+        if (interval == StatsIntervalType.DAY) {
+            return jdbcTemplate.query(filtered(DAILY_SERIES_SQL, bankCode), parameters(fromDay, toDay, bankCode),
+                    (rs, rowNum) -> toPoint(rs));
+        }
+        MapSqlParameterSource params = bankParameter(new MapSqlParameterSource(), bankCode)
+                .addValue("from", Timestamp.valueOf(fromDay.atStartOfDay()))
+                .addValue("createdFrom", Timestamp.valueOf(settlementWindow.earliestCreatedAt(fromDay.atStartOfDay())))
+                .addValue("to", Timestamp.valueOf(toDay.plusDays(1).atStartOfDay()));
+        return jdbcTemplate.query(HOURLY_SERIES_SQL.formatted(transactionCondition(bankCode)), params,
+                (rs, rowNum) -> toPoint(rs));
+    }
+
+    private static StatsSeriesPointDto toPoint(ResultSet rs) throws SQLException {
+        return new StatsSeriesPointDto(
+                rs.getTimestamp("bucket_start").toLocalDateTime(),
+                rs.getLong("total_transactions"),
+                rs.getDouble("total_amount"));
+    }
+
+    private static String filtered(String sql, String bankCode) {
+        String rollupCondition = bankCode == null
+                ? ""
+                : " AND r.bank_id IN (SELECT bank_id FROM banks WHERE bank_code = :bankCode)";
+        return sql.formatted(rollupCondition, transactionCondition(bankCode));
+    }
+
+    private static String transactionCondition(String bankCode) {
+        if (bankCode == null) {
+            return "(t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL)";
+        }
+        return "(t.from_bank_id IN (SELECT bank_id FROM banks WHERE bank_code = :bankCode)"
+                + " OR t.to_bank_id IN (SELECT bank_id FROM banks WHERE bank_code = :bankCode))";
+    }
+
+    /**
+     * Splits {@code [fromDay, toDay]} at today: earlier days come from the rollup, the rest from the
+     * transactions. One side is an empty range when the request lies entirely before or from today.
+     */
+    private MapSqlParameterSource parameters(LocalDate fromDay, LocalDate toDay, String bankCode) {
+        LocalDate today = LocalDate.now(DailyBankRollupRepository.ROLLUP_ZONE);
+        LocalDate end = toDay.plusDays(1);
+        LocalDate split = end.isBefore(today) ? end : today;
+        LocalDate liveFrom = fromDay.isAfter(split) ? fromDay : split;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("rollupFrom", Date.valueOf(fromDay))
+                .addValue("rollupTo", Date.valueOf(split))
+                .addValue("liveFrom", Timestamp.valueOf(liveFrom.atStartOfDay()))
+                .addValue("liveCreatedFrom", Timestamp.valueOf(settlementWindow.earliestCreatedAt(liveFrom.atStartOfDay())))
+                .addValue("liveTo", Timestamp.valueOf(end.atStartOfDay()));
+        return bankParameter(params, bankCode);
+    }
+
+    private static MapSqlParameterSource bankParameter(MapSqlParameterSource params, String bankCode) {
+        if (bankCode != null) {
+            params.addValue("bankCode", bankCode);
+        }
+        return params;
+    }
+}
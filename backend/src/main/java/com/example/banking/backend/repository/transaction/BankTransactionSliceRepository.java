@@ -0,0 +1,106 @@
+package com.example.banking.backend.repository.transaction;
+
+import com.example.banking.backend.dto.response.transaction.TransactionDto;
+import com.example.banking.backend.repository.partition.SettlementWindow;
+import com.example.banking.backend.util.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keyset slices of interbank transactions ordered by (updated_at, transaction_id), newest first. Every
+ * slice starts with an index seek at the cursor, so slice 10 000 costs the same as slice 1 and no count
+ * is ever run.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BankTransactionSliceRepository {
+
+    // Uses the partial index over interbank transactions
+    private static final String ALL_BANKS_SQL = """
+            SELECT h.transaction_id, h.updated_at, h.amount, h.message, fb.bank_code AS from_bank_code,
+                   tb.bank_code AS to_bank_code
+            FROM (
+                SELECT t.transaction_id, t.updated_at, t.amount, t.message, t.from_bank_id, t.to_bank_id
+                FROM transactions t
+                WHERE (t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL)
+                  AND %s
+                ORDER BY t.updated_at DESC, t.transaction_id DESC
+                LIMIT :limit
+            ) h
+            LEFT JOIN banks fb ON fb.bank_id = h.from_bank_id
+            LEFT JOIN banks tb ON tb.bank_id = h.to_bank_id
+            ORDER BY h.updated_at DESC, h.transaction_id DESC
+            """;
+
+    /**
+     * The OR over both bank columns cannot walk one index in order, so each column gets its own branch on
+     * its (bank, updated_at, transaction_id) index and the two short lists are merged.
+     */
+    private static final String ONE_BANK_SQL = """
+            SELECT h.transaction_id, h.updated_at, h.amount, h.message, fb.bank_code AS from_bank_code,
+                   tb.bank_code AS to_bank_code
+            FROM (
+                (SELECT t.transaction_id, t.updated_at, t.amount, t.message, t.from_bank_id, t.to_bank_id
+                 FROM transactions t
+                 WHERE t.from_bank_id = (SELECT bank_id FROM banks WHERE bank_code = :bankCode)
+                   AND %1$s
+                 ORDER BY t.updated_at DESC, t.transaction_id DESC
+                 LIMIT :limit)
+                UNION ALL
+                (SELECT t.transaction_id, t.updated_at, t.amount, t.message, t.from_bank_id, t.to_bank_id
+                 FROM transactions t
+                 WHERE t.to_bank_id = (SELECT bank_id FROM banks WHERE bank_code = :bankCode)
+                   AND %1$s
+                 ORDER BY t.updated_at DESC, t.transaction_id DESC
+                 LIMIT :limit)
+            ) h
+            LEFT JOIN banks fb ON fb.bank_id = h.from_bank_id
+            LEFT JOIN banks tb ON tb.bank_id = h.to_bank_id
+            ORDER BY h.updated_at DESC, h.transaction_id DESC
+            LIMIT :limit
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SettlementWindow settlementWindow;
+
+    /**
+     * Up to {@code limit} transactions updated in {@code [from, to)} that come after {@code cursor}
+     * (or from the newest one when it is null).
+     */
+    public List<TransactionDto> findSlice(LocalDateTime from, LocalDateTime to, String bankCode,
+                                          KeysetCursor cursor, int limit) {
+        String condition = "t.updated_at >= :from AND t.updated_at < :to"
+                + " AND t.created_at >= :createdFrom AND t.created_at < :to";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to))
+                .addValue("createdFrom", Timestamp.valueOf(settlementWindow.earliestCreatedAt(from)))
+                .addValue("limit", limit);
+        if (cursor != null) {
+            condition += " AND (t.updated_at, t.transaction_id) < (:cursorUpdatedAt, :cursorId)";
+            params.addValue("cursorUpdatedAt", Timestamp.from(cursor.getTimestamp()))
+                    .addValue("cursorId", cursor.getId());
+        }
+        String sql;
+        if (bankCode == null) {
+            sql = ALL_BANKS_SQL.formatted(condition);
+        } else {
+            sql = ONE_BANK_SQL.formatted(condition);
+            params.addValue("bankCode", bankCode);
+        }
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new TransactionDto(
+                rs.getString("transaction_id"),
+                rs.getString("from_bank_code"),
+                rs.getString("to_bank_code"),
+                rs.getDouble("amount"),
+                rs.getTimestamp("updated_at").toInstant(),
+                rs.getString("message")));
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.banking.backend.repository.transfer;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.Transaction;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.TransactionStatusType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.journal.JournalBatch;
+import com.example.banking.backend.repository.ledger.LedgerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Keeps {@code accounts.balance} as the source of the balance and posts the ledger next to it. A transfer
+ * between internal accounts is a single statement: the debit only applies while
+ * {@code balance >= amount + fee}, the credit only applies if the debit did. Each leg reports back on its
+ * own, so a receiver without a balance row fails the transfer instead of passing for insufficient funds.
+ * The journal row of a transfer that went through is queued in the caller's {@link JournalBatch}.
+ * Row locks taken by the UPDATEs make concurrent debits on the same account queue up instead of
+ * overwriting each other's balance.
+ * <p>
+ * Credits to an account designated in {@link BalanceShardRepository} go to one of its shard rows, and
+ * anything that takes money out of such an account folds its shards into the account row first.
+ */
+@Repository
+@ConditionalOnProperty(name = "banking.ledger.mode", havingValue = "shadow", matchIfMissing = true)
+@RequiredArgsConstructor
+public class AccountBalanceTransferExecutor implements TransferExecutor {
+
+    private static final String TRANSFER_SQL = """
+            WITH debit AS (
+                UPDATE accounts
+                SET balance = balance - :totalAmount, updated_at = :now
+                WHERE account_id = :fromAccountId AND balance >= :totalAmount
+                RETURNING balance
+            ), credit AS (
+                UPDATE accounts
+                SET balance = balance + :amount, updated_at = :now
+                WHERE account_id = :toAccountId AND EXISTS (SELECT 1 FROM debit)
+                RETURNING balance
+            )
+            SELECT (SELECT balance FROM debit) AS from_balance, (SELECT balance FROM credit) AS to_balance
+            """;
+
+    // Same as TRANSFER_SQL with the credit on one shard of the receiver; to_balance still adds up the
+    // account row and every shard
+    private static final String TRANSFER_TO_SHARD_SQL = """
+            WITH debit AS (
+                UPDATE accounts
+                SET balance = balance - :totalAmount, updated_at = :now
+                WHERE account_id = :fromAccountId AND balance >= :totalAmount
+                RETURNING balance
+            ), credit AS (
+                UPDATE account_balance_shards
+                SET balance = balance + :amount, updated_at = :now
+                WHERE account_id = :toAccountId AND shard = :toShard AND EXISTS (SELECT 1 FROM debit)
+                RETURNING balance
+            ), other_shards AS (
+                SELECT a.balance + COALESCE((SELECT SUM(s.balance)
+                                             FROM account_balance_shards s
+                                             WHERE s.account_id = a.account_id AND s.shard <> :toShard), 0) AS balance
+                FROM accounts a
+                WHERE a.account_id = :toAccountId
+            )
+            SELECT (SELECT balance FROM debit) AS from_balance,
+                   (SELECT balance FROM credit) + (SELECT balance FROM other_shards) AS to_balance
+            """;
+
+    private static final String DEBIT_SQL = """
+            UPDATE accounts
+            SET balance = balance - :amount, updated_at = :now
+            WHERE account_id = :accountId AND balance >= :amount
+            RETURNING balance
+            """;
+
+    private static final String CREDIT_SQL = """
+            UPDATE accounts
+            SET balance = balance + :amount, updated_at = :now
+            WHERE account_id = :accountId
+            """;
+
+    // Locks the rows in id order, so two runs over the same batch lines cannot deadlock; a row another run
+    // settled while this one waited no longer matches and is skipped
+    static final String SETTLE_PENDING_SQL = """
+            WITH pending AS (
+                SELECT transaction_id
+                FROM transactions
+                WHERE transaction_id IN (:transactionIds) AND created_at = :createdAt AND status = 'PENDING'
+                ORDER BY transaction_id
+                FOR UPDATE
+            )
+            UPDATE transactions t
+            SET status = :status, updated_at = :now
+            FROM pending p
+            WHERE t.transaction_id = p.transaction_id AND t.created_at = :createdAt
+            RETURNING t.transaction_id, t.from_account_id, t.to_account_id, t.amount, t.fee
+            """;
+
+    private static final String ADJUST_BALANCE_SQL = """
+            UPDATE accounts
+            SET balance = balance + :delta, updated_at = :now
+            WHERE account_id = :accountId
+            RETURNING balance
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final LedgerRepository ledgerRepository;
+    private final BalanceShardRepository shardRepository;
+
+    @Override
+    public TransferOutcome transfer(JournalBatch journal, Account fromAccount, Account toAccount, double amount,
+                                    double fee, FeeType feeType, TransactionType transactionType, String message) {
+        Timestamp now = Timestamp.from(Instant.now());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("fromAccountId", fromAccount.getAccountId())
+                .addValue("toAccountId", toAccount.getAccountId())
+                .addValue("amount", amount)
+                .addValue("totalAmount", amount + fee)
+                .addValue("now", now);
+
+        foldIfSharded(fromAccount.getAccountId(), now);
+        String sql = TRANSFER_SQL;
+        if (shardRepository.isSharded(toAccount.getAccountId())) {
+            sql = TRANSFER_TO_SHARD_SQL;
+            params.addValue("toShard", shardRepository.creditShard());
+        }
+
+        // Always one row; a leg that matched nothing comes back as null
+        Map<String, Object> row = jdbcTemplate.queryForMap(sql, params);
+        Double fromBalance = (Double) row.get("from_balance");
+        Double toBalance = (Double) row.get("to_balance");
+        if (fromBalance == null) {
+            return null;
+        }
+        if (toBalance == null) {
+            // The debit has already been applied; failing rolls it back with the transaction
+            throw new IncorrectUpdateSemanticsDataAccessException(
+                    "No balance row to credit for account " + toAccount.getAccountId());
+        }
+        Transaction transaction = completedTransfer(fromAccount, toAccount, amount, fee, feeType, transactionType,
+                message, now);
+        journal.insert(transaction);
+        ledgerRepository.postTransfer(transaction.getId(), fromAccount.getAccountId(),
+                toAccount.getAccountId(), amount, fee, now);
+        return new TransferOutcome(transaction.getId(), fromBalance, toBalance);
+    }
+
+    @Override
+    public Double debit(UUID accountId, double amount, UUID transactionId, LedgerBookType contraBook) {
+        Timestamp now = Timestamp.from(Instant.now());
+        Double balance = debitBalance(accountId, amount, now);
+        if (balance != null) {
+            ledgerRepository.postAdjustment(transactionId, accountId, -amount, contraBook, now);
+        }
+        return balance;
+    }
+
+    /**
+     * Applies {@code delta} to the stored balance instead of writing back a value read earlier,
+     * so a stale {@link Account} instance cannot overwrite a concurrent change.
+     */
+    @Override
+    public Double adjustBalance(UUID accountId, double delta, UUID transactionId, LedgerBookType contraBook) {
+        Timestamp now = Timestamp.from(Instant.now());
+        if (shardRepository.isSharded(accountId)) {
+            return adjustShardedBalance(accountId, delta, transactionId, contraBook, now);
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountId", accountId)
+                .addValue("delta", delta)
+                .addValue("now", now);
+
+        List<Double> balances = jdbcTemplate.query(ADJUST_BALANCE_SQL, params, (rs, rowNum) -> rs.getDouble("balance"));
+        if (balances.isEmpty()) {
+            return null;
+        }
+        ledgerRepository.postAdjustment(transactionId, accountId, delta, contraBook, now);
+        return balances.get(0);
+    }
+
+    @Override
+    public HeldBatch holdBatch(JournalBatch journal, Account fromAccount, List<TransferLine> lines,
+                               FeeType feeType, TransactionType transactionType) {
+        Timestamp now = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        double totalAmount = lines.stream().mapToDouble(line -> line.getAmount() + line.getFee()).sum();
+        if (debitBalance(fromAccount.getAccountId(), totalAmount, now) == null) {
+            return null;
+        }
+
+        List<UUID> transactionIds = queuePendingLines(journal, fromAccount, lines, feeType, transactionType, now);
+        ledgerRepository.postBatchHolds(transactionIds, fromAccount.getAccountId(),
+                lines.stream().map(TransferLine::getAmount).toList(),
+                lines.stream().map(TransferLine::getFee).toList(), now);
+        return new HeldBatch(transactionIds, now.toInstant());
+    }
+
+    /**
+     * Credits to the same receiver are merged into one update.
+     */
+    @Override
+    public List<UUID> creditBatch(List<UUID> transactionIds, Instant createdAt) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<SettledLine> settled = settlePending(jdbcTemplate, transactionIds, createdAt,
+                TransactionStatusType.COMPLETED, now);
+        Map<UUID, Double> credits = new TreeMap<>();
+        for (SettledLine line : settled) {
+            credits.merge(line.getToAccountId(), line.getAmount(), Double::sum);
+        }
+        creditAll(credits, now);
+        List<UUID> settledIds = settled.stream().map(SettledLine::getTransactionId).toList();
+        ledgerRepository.postBatchCredits(settledIds,
+                settled.stream().map(SettledLine::getToAccountId).toList(),
+                settled.stream().map(SettledLine::getAmount).toList(), now);
+        return settledIds;
+    }
+
+    @Override
+    public List<UUID> refundBatch(List<UUID> transactionIds, Instant createdAt) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<SettledLine> settled = settlePending(jdbcTemplate, transactionIds, createdAt,
+                TransactionStatusType.FAILED, now);
+        Map<UUID, Double> refunds = new TreeMap<>();
+        for (SettledLine line : settled) {
+            refunds.merge(line.getFromAccountId(), line.getAmount() + line.getFee(), Double::sum);
+        }
+        creditAll(refunds, now);
+        List<UUID> settledIds = settled.stream().map(SettledLine::getTransactionId).toList();
+        ledgerRepository.postBatchRefunds(settledIds,
+                settled.stream().map(SettledLine::getFromAccountId).toList(),
+                settled.stream().map(SettledLine::getAmount).toList(),
+                settled.stream().map(SettledLine::getFee).toList(), now);
+        return settledIds;
+    }
+
+    @Override
+    public double currentBalance(Account account) {
+        if (!shardRepository.isSharded(account.getAccountId())) {
+            return account.getBalance();
+        }
+        Double balance = shardRepository.totalBalance(account.getAccountId());
+        return balance != null ? balance : account.getBalance();
+    }
+
+    /**
+     * Credits go to a shard. Debits fold the shards first and are then applied to the account row, which
+     * may leave it negative while the shards are not: the balance is the sum of both.
+     */
+    private Double adjustShardedBalance(UUID accountId, double delta, UUID transactionId,
+                                        LedgerBookType contraBook, Timestamp now) {
+        if (delta >= 0) {
+            if (!shardRepository.credit(accountId, delta, now)) {
+                throw new IncorrectUpdateSemanticsDataAccessException("No balance shard to credit for account " + accountId);
+            }
+        } else {
+            shardRepository.fold(accountId, now);
+            jdbcTemplate.query(ADJUST_BALANCE_SQL, new MapSqlParameterSource()
+                    .addValue("accountId", accountId)
+                    .addValue("delta", delta)
+                    .addValue("now", now), (rs, rowNum) -> rs.getDouble("balance"));
+        }
+        Double balance = shardRepository.totalBalance(accountId);
+        if (balance != null) {
+            ledgerRepository.postAdjustment(transactionId, accountId, delta, contraBook, now);
+        }
+        return balance;
+    }
+
+    /**
+     * Adds to each account of {@code amounts}, in key order, on a shard for sharded accounts.
+     *
+     * @throws IncorrectUpdateSemanticsDataAccessException when an account's row is gone; the caller's
+     *                                                     transaction must roll back what was applied before
+     */
+    private void creditAll(Map<UUID, Double> amounts, Timestamp now) {
+        Map<UUID, Double> credits = new TreeMap<>();
+        Map<UUID, Double> shardCredits = new TreeMap<>();
+        amounts.forEach((accountId, amount) ->
+                (shardRepository.isSharded(accountId) ? shardCredits : credits).put(accountId, amount));
+        requireCredited(shardCredits.keySet(), shardRepository.creditAll(shardCredits, now));
+        MapSqlParameterSource[] creditParams = credits.entrySet().stream()
+                .map(credit -> new MapSqlParameterSource()
+                        .addValue("accountId", credit.getKey())
+                        .addValue("amount", credit.getValue())
+                        .addValue("now", now))
+                .toArray(MapSqlParameterSource[]::new);
+        requireCredited(credits.keySet(), jdbcTemplate.batchUpdate(CREDIT_SQL, creditParams));
+    }
+
+    private static void requireCredited(Collection<UUID> accountIds, int[] updateCounts) {
+        Iterator<UUID> accountId = accountIds.iterator();
+        for (int count : updateCounts) {
+            UUID credited = accountId.next();
+            if (count == 0) {
+                throw new IncorrectUpdateSemanticsDataAccessException("No balance row to credit for account " + credited);
+            }
+        }
+    }
+
+    /**
+     * Queues a PENDING journal row per batch line, all created at {@code now}.
+     *
+     * @return the rows' ids in line order
+     */
+    static List<UUID> queuePendingLines(JournalBatch journal, Account fromAccount, List<TransferLine> lines,
+                                        FeeType feeType, TransactionType transactionType, Timestamp now) {
+        List<UUID> transactionIds = new ArrayList<>(lines.size());
+        for (TransferLine line : lines) {
+            Transaction transaction = completedTransfer(fromAccount, line.getToAccount(), line.getAmount(),
+                    line.getFee(), feeType, transactionType, line.getMessage(), now);
+            transaction.setStatus(TransactionStatusType.PENDING);
+            journal.insert(transaction);
+            transactionIds.add(transaction.getId());
+        }
+        return transactionIds;
+    }
+
+    /**
+     * Moves the PENDING rows among {@code transactionIds} to {@code status}.
+     *
+     * @return the rows that were still PENDING
+     */
+    static List<SettledLine> settlePending(NamedParameterJdbcTemplate jdbcTemplate, List<UUID> transactionIds,
+                                           Instant createdAt, TransactionStatusType status, Timestamp now) {
+        if (transactionIds.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("transactionIds", transactionIds)
+                .addValue("createdAt", Timestamp.from(createdAt))
+                .addValue("status", status.name())
+                .addValue("now", now);
+        return jdbcTemplate.query(SETTLE_PENDING_SQL, params, (rs, rowNum) -> new SettledLine(
+                rs.getObject("transaction_id", UUID.class),
+                rs.getObject("from_account_id", UUID.class),
+                rs.getObject("to_account_id", UUID.class),
+                rs.getDouble("amount"),
+                rs.getDouble("fee")));
+    }
+
+    /**
+     * Journal row of a transfer between two internal accounts, with its id already set so the ledger legs
+     * can refer to it before the row is written.
+     */
+    static Transaction completedTransfer(Account fromAccount, Account toAccount, double amount, double fee,
+                                         FeeType feeType, TransactionType transactionType, String message,
+                                         Timestamp now) {
+        Transaction transaction = new Transaction();
+        transaction.setId(UUID.randomUUID());
+        transaction.setTransactionType(transactionType);
+        transaction.setFromAccount(fromAccount);
+        transaction.setFromAccountNumber(fromAccount.getAccountNumber());
+        transaction.setToAccount(toAccount);
+        transaction.setToAccountNumber(toAccount.getAccountNumber());
+        transaction.setAmount(amount);
+        transaction.setFee(fee);
+        transaction.setFeeType(feeType);
+        transaction.setStatus(TransactionStatusType.COMPLETED);
+        transaction.setMessage(message);
+        transaction.setCreatedAt(now.toInstant());
+        transaction.setUpdatedAt(now.toInstant());
+        return transaction;
+    }
+
+    private void foldIfSharded(UUID accountId, Timestamp now) {
+        if (shardRepository.isSharded(accountId)) {
+            shardRepository.fold(accountId, now);
+        }
+    }
+
+    private Double debitBalance(UUID accountId, double amount, Timestamp now) {
+        foldIfSharded(accountId, now);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountId", accountId)
+                .addValue("amount", amount)
+                .addValue("now", now);
+
+        List<Double> balances = jdbcTemplate.query(DEBIT_SQL, params, (rs, rowNum) -> rs.getDouble("balance"));
+        return balances.isEmpty() ? null : balances.get(0);
+    }
+}
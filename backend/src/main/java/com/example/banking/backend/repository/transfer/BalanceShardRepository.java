@@ -0,0 +1,230 @@
+package com.example.banking.backend.repository.transfer;
+
+import com.example.banking.backend.repository.journal.GroupCommitJournalWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sub-balance rows of the accounts listed in {@code banking.balance-shards.accounts}. Credits to such an
+ * account add to one of {@code banking.balance-shards.count} shard rows instead of updating
+ * {@code accounts.balance}, so they only contend with the credits that picked the same shard.
+ * The account's balance is its row plus every shard; folding moves the shards into the row.
+ * <p>
+ * Each journal writer thread credits its own shard, the one numbered like the writer, and other threads
+ * pick one of the shards above the writers' at random. A group of movements holds its shard locks until it
+ * commits; were two writers to share shards, one group crediting A then B and another crediting B then A
+ * would deadlock. There must therefore be more shards than {@code banking.journal.writers}. Writers of
+ * different instances with the same number do share a shard; PostgreSQL breaks such a deadlock and the
+ * group it aborts is retried one movement at a time.
+ * <p>
+ * For the same reason a fold inside a transaction that goes on afterwards only takes the shards its
+ * thread may credit, and never waits for a shard: it locks the account row, then skips the shards that
+ * are locked. The other writers' shards are folded by {@link #foldAll}.
+ * <p>
+ * Accounts are designated by {@link #designate()} once the application is up. Until then, and for
+ * accounts taken off the list, credits go to the account row and the shards left over are folded by the
+ * maintainer.
+ */
+@Repository
+public class BalanceShardRepository {
+
+    private static final String DESIGNATE_SQL = """
+            INSERT INTO account_balance_shards (account_id, shard)
+            SELECT a.account_id, s.shard
+            FROM accounts a
+            CROSS JOIN generate_series(0, :shards - 1) AS s(shard)
+            WHERE a.account_number IN (:accountNumbers)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String SHARDED_ACCOUNTS_SQL = """
+            SELECT DISTINCT s.account_id
+            FROM account_balance_shards s
+            JOIN accounts a ON a.account_id = s.account_id
+            WHERE a.account_number IN (:accountNumbers)
+            """;
+
+    private static final String CREDIT_SQL = """
+            UPDATE account_balance_shards
+            SET balance = balance + :amount, updated_at = :now
+            WHERE account_id = :accountId AND shard = :shard
+            """;
+
+    private static final String LOCK_ACCOUNT_SQL = """
+            SELECT account_id
+            FROM accounts
+            WHERE account_id = :accountId
+            FOR NO KEY UPDATE
+            """;
+
+    // Takes the non-empty shards from :firstShard up, plus :ownShard, that nobody else has locked. Shards
+    // that are empty, locked by a credit in flight or by another fold are left to the next fold.
+    private static final String FOLD_SQL = """
+            WITH locked AS (
+                SELECT shard, balance
+                FROM account_balance_shards
+                WHERE account_id = :accountId AND balance <> 0 AND (shard >= :firstShard OR shard = :ownShard)
+                FOR UPDATE SKIP LOCKED
+            ), emptied AS (
+                UPDATE account_balance_shards s
+                SET balance = 0, updated_at = :now
+                FROM locked
+                WHERE s.account_id = :accountId AND s.shard = locked.shard
+            )
+            UPDATE accounts
+            SET balance = balance + (SELECT SUM(balance) FROM locked), updated_at = :now
+            WHERE account_id = :accountId AND EXISTS (SELECT 1 FROM locked)
+            """;
+
+    private static final String TOTAL_BALANCE_SQL = """
+            SELECT a.balance + COALESCE((SELECT SUM(s.balance)
+                                         FROM account_balance_shards s
+                                         WHERE s.account_id = a.account_id), 0)
+            FROM accounts a
+            WHERE a.account_id = :accountId
+            """;
+
+    private static final String UNFOLDED_ACCOUNTS_SQL = """
+            SELECT DISTINCT account_id
+            FROM account_balance_shards
+            WHERE balance <> 0
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final List<String> accountNumbers;
+    private final int shards;
+    private final int writers;
+    private volatile Set<UUID> shardedAccounts = Set.of();
+
+    public BalanceShardRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                  @Value("${banking.balance-shards.accounts:}") List<String> accountNumbers,
+                                  @Value("${banking.balance-shards.count:16}") int shards,
+                                  @Value("${banking.journal.writers:2}") int writers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountNumbers = accountNumbers.stream().map(String::trim).filter(number -> !number.isEmpty()).toList();
+        this.shards = shards;
+        this.writers = writers;
+        if (!this.accountNumbers.isEmpty() && shards <= writers) {
+            throw new IllegalArgumentException("banking.balance-shards.count (" + shards
+                    + ") must be greater than banking.journal.writers (" + writers + ")");
+        }
+    }
+
+    /**
+     * Creates the missing shard rows of the designated accounts and starts routing their credits to them.
+     *
+     * @return number of accounts designated
+     */
+    public int designate() {
+        if (accountNumbers.isEmpty() || shards <= 0) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountNumbers", accountNumbers)
+                .addValue("shards", shards);
+        jdbcTemplate.update(DESIGNATE_SQL, params);
+        shardedAccounts = Set.copyOf(jdbcTemplate.queryForList(SHARDED_ACCOUNTS_SQL, params, UUID.class));
+        return shardedAccounts.size();
+    }
+
+    public boolean isSharded(UUID accountId) {
+        return shardedAccounts.contains(accountId);
+    }
+
+    /**
+     * Adds {@code amount} to the {@link #creditShard()} of a sharded account.
+     *
+     * @return false when the account has no such shard row
+     */
+    public boolean credit(UUID accountId, double amount, Timestamp now) {
+        return jdbcTemplate.update(CREDIT_SQL, creditParams(accountId, amount, now)) > 0;
+    }
+
+    /**
+     * Same as {@link #credit} for several accounts, as one JDBC batch.
+     *
+     * @return rows updated per account, in the iteration order of {@code amounts}
+     */
+    public int[] creditAll(Map<UUID, Double> amounts, Timestamp now) {
+        MapSqlParameterSource[] params = amounts.entrySet().stream()
+                .map(credit -> creditParams(credit.getKey(), credit.getValue(), now))
+                .toArray(MapSqlParameterSource[]::new);
+        return jdbcTemplate.batchUpdate(CREDIT_SQL, params);
+    }
+
+    /**
+     * Shard the current thread credits: its own on a journal writer thread, otherwise a random one of the
+     * shards no writer owns.
+     */
+    public int creditShard() {
+        int writer = GroupCommitJournalWriter.currentWriter();
+        return writer >= 0 ? writer : ThreadLocalRandom.current().nextInt(writers, shards);
+    }
+
+    private MapSqlParameterSource creditParams(UUID accountId, double amount, Timestamp now) {
+        return new MapSqlParameterSource()
+                .addValue("accountId", accountId)
+                .addValue("amount", amount)
+                .addValue("shard", creditShard())
+                .addValue("now", now);
+    }
+
+    /**
+     * Moves the shards of an account the current thread may credit into {@code accounts.balance}, for a
+     * debit that then checks the account row alone. Money on the other writers' shards, or on shards
+     * locked at that moment, is left where it is until the next {@link #foldAll}: the debit may be refused
+     * for money that arrived a moment ago, but is never allowed for money the account does not have.
+     *
+     * @return whether anything was moved
+     */
+    public boolean fold(UUID accountId, Timestamp now) {
+        return fold(accountId, writers, GroupCommitJournalWriter.currentWriter(), now);
+    }
+
+    /**
+     * Moves every shard of an account that is not locked into {@code accounts.balance}. Only for a
+     * transaction that does nothing else, as it may take the shards of any writer.
+     *
+     * @return whether anything was moved
+     */
+    public boolean foldAll(UUID accountId, Timestamp now) {
+        return fold(accountId, 0, -1, now);
+    }
+
+    private boolean fold(UUID accountId, int firstShard, int ownShard, Timestamp now) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountId", accountId)
+                .addValue("firstShard", firstShard)
+                .addValue("ownShard", ownShard)
+                .addValue("now", now);
+        // The account row first: a fold waiting for it holds no shard a group could be waiting for
+        jdbcTemplate.queryForList(LOCK_ACCOUNT_SQL, params, UUID.class);
+        return jdbcTemplate.update(FOLD_SQL, params) > 0;
+    }
+
+    /**
+     * Account row plus shards, read in one statement so a concurrent fold is seen either entirely or not at
+     * all.
+     */
+    public Double totalBalance(UUID accountId) {
+        List<Double> balances = jdbcTemplate.queryForList(TOTAL_BALANCE_SQL,
+                new MapSqlParameterSource("accountId", accountId), Double.class);
+        return balances.isEmpty() ? null : balances.get(0);
+    }
+
+    /**
+     * Accounts with money waiting in a shard, designated or not.
+     */
+    public List<UUID> findUnfoldedAccounts() {
+        return jdbcTemplate.queryForList(UNFOLDED_ACCOUNTS_SQL, new MapSqlParameterSource(), UUID.class);
+    }
+}
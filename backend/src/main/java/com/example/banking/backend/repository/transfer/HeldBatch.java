@@ -0,0 +1,21 @@
+package com.example.banking.backend.repository.transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The PENDING journal rows of a batch whose source has been debited, in line order. {@code createdAt} is
+ * the partition key the rows are found again by.
+ */
+@Getter
+@AllArgsConstructor
+public class HeldBatch {
+
+    private final List<UUID> transactionIds;
+
+    private final Instant createdAt;
+}
@@ -0,0 +1,139 @@
+package com.example.banking.backend.repository.transfer;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.Transaction;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.TransactionStatusType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.journal.JournalBatch;
+import com.example.banking.backend.repository.ledger.LedgerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the balance in the ledger only, {@code accounts.balance} is no longer written. Credits are plain
+ * inserts and never wait for another transfer. A debit locks the account row, reads the snapshot plus tail
+ * and only posts its legs when the balance covers it. Must run inside a transaction, the row lock is held
+ * until commit.
+ * <p>
+ * The stored balances go stale in this mode; switching back to {@code shadow} requires rebuilding them
+ * from the ledger first.
+ */
+@Repository
+@ConditionalOnProperty(name = "banking.ledger.mode", havingValue = "authoritative")
+@RequiredArgsConstructor
+public class LedgerTransferExecutor implements TransferExecutor {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final LedgerRepository ledgerRepository;
+
+    @Override
+    public TransferOutcome transfer(JournalBatch journal, Account fromAccount, Account toAccount, double amount,
+                                    double fee, FeeType feeType, TransactionType transactionType, String message) {
+        Double fromBalance = lockAndCheck(fromAccount.getAccountId(), amount + fee);
+        if (fromBalance == null) {
+            return null;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        Transaction transaction = AccountBalanceTransferExecutor.completedTransfer(fromAccount, toAccount, amount,
+                fee, feeType, transactionType, message, now);
+        journal.insert(transaction);
+        ledgerRepository.postTransfer(transaction.getId(), fromAccount.getAccountId(), toAccount.getAccountId(),
+                amount, fee, now);
+
+        return new TransferOutcome(transaction.getId(), fromBalance - amount - fee,
+                ledgerRepository.balanceOf(toAccount.getAccountId()));
+    }
+
+    @Override
+    public Double debit(UUID accountId, double amount, UUID transactionId, LedgerBookType contraBook) {
+        Double balance = lockAndCheck(accountId, amount);
+        if (balance == null) {
+            return null;
+        }
+        ledgerRepository.postAdjustment(transactionId, accountId, -amount, contraBook, Timestamp.from(Instant.now()));
+        return balance - amount;
+    }
+
+    /**
+     * Negative deltas take the debit lock so they cannot interleave with a debit's balance check. A credit
+     * to an account that does not exist is not detected here.
+     */
+    @Override
+    public Double adjustBalance(UUID accountId, double delta, UUID transactionId, LedgerBookType contraBook) {
+        if (delta < 0 && !ledgerRepository.lockAccount(accountId)) {
+            return null;
+        }
+        ledgerRepository.postAdjustment(transactionId, accountId, delta, contraBook, Timestamp.from(Instant.now()));
+        return ledgerRepository.balanceOf(accountId);
+    }
+
+    @Override
+    public HeldBatch holdBatch(JournalBatch journal, Account fromAccount, List<TransferLine> lines,
+                               FeeType feeType, TransactionType transactionType) {
+        double totalAmount = lines.stream().mapToDouble(line -> line.getAmount() + line.getFee()).sum();
+        if (lockAndCheck(fromAccount.getAccountId(), totalAmount) == null) {
+            return null;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        List<UUID> transactionIds = AccountBalanceTransferExecutor.queuePendingLines(journal, fromAccount, lines,
+                feeType, transactionType, now);
+        ledgerRepository.postBatchHolds(transactionIds, fromAccount.getAccountId(),
+                lines.stream().map(TransferLine::getAmount).toList(),
+                lines.stream().map(TransferLine::getFee).toList(), now);
+        return new HeldBatch(transactionIds, now.toInstant());
+    }
+
+    @Override
+    public List<UUID> creditBatch(List<UUID> transactionIds, Instant createdAt) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<SettledLine> settled = AccountBalanceTransferExecutor.settlePending(jdbcTemplate, transactionIds,
+                createdAt, TransactionStatusType.COMPLETED, now);
+        List<UUID> settledIds = settled.stream().map(SettledLine::getTransactionId).toList();
+        ledgerRepository.postBatchCredits(settledIds,
+                settled.stream().map(SettledLine::getToAccountId).toList(),
+                settled.stream().map(SettledLine::getAmount).toList(), now);
+        return settledIds;
+    }
+
+    @Override
+    public List<UUID> refundBatch(List<UUID> transactionIds, Instant createdAt) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<SettledLine> settled = AccountBalanceTransferExecutor.settlePending(jdbcTemplate, transactionIds,
+                createdAt, TransactionStatusType.FAILED, now);
+        List<UUID> settledIds = settled.stream().map(SettledLine::getTransactionId).toList();
+        ledgerRepository.postBatchRefunds(settledIds,
+                settled.stream().map(SettledLine::getFromAccountId).toList(),
+                settled.stream().map(SettledLine::getAmount).toList(),
+                settled.stream().map(SettledLine::getFee).toList(), now);
+        return settledIds;
+    }
+
+    @Override
+    public double currentBalance(Account account) {
+        return ledgerRepository.balanceOf(account.getAccountId());
+    }
+
+    /**
+     * @return the balance before the debit, or null when the account does not exist or holds less than
+     * {@code amount}
+     */
+    private Double lockAndCheck(UUID accountId, double amount) {
+        if (!ledgerRepository.lockAccount(accountId)) {
+            return null;
+        }
+        double balance = ledgerRepository.balanceOf(accountId);
+        return balance >= amount ? balance : null;
+    }
+}
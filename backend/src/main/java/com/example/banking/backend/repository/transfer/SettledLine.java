@@ -0,0 +1,24 @@
+package com.example.banking.backend.repository.transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * A batch line moved out of PENDING by {@link AccountBalanceTransferExecutor#settlePending}.
+ */
+@Getter
+@AllArgsConstructor
+class SettledLine {
+
+    private final UUID transactionId;
+
+    private final UUID fromAccountId;
+
+    private final UUID toAccountId;
+
+    private final double amount;
+
+    private final double fee;
+}
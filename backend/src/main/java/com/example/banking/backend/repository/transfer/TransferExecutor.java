@@ -0,0 +1,83 @@
+package com.example.banking.backend.repository.transfer;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.journal.JournalBatch;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Every change to a customer's money goes through here and is posted to the ledger in the same database
+ * transaction. {@code banking.ledger.mode} picks where the balance lives: {@code shadow} keeps
+ * {@code accounts.balance} as the source and writes the ledger next to it, {@code authoritative} only
+ * writes the ledger.
+ */
+public interface TransferExecutor {
+
+    /**
+     * Moves {@code amount} between two internal accounts and queues the journal row in {@code journal}; the
+     * sender also pays {@code fee}. Must run inside a transaction: when the receiver has no balance row left
+     * the debit has already been applied, and only rolling back undoes it.
+     *
+     * @return the new balances, or null when the source account does not hold {@code amount + fee}
+     * @throws IncorrectUpdateSemanticsDataAccessException when there was no row to credit
+     */
+    TransferOutcome transfer(JournalBatch journal, Account fromAccount, Account toAccount, double amount, double fee,
+                             FeeType feeType, TransactionType transactionType, String message);
+
+    /**
+     * Takes {@code amount} from the account only if its balance covers it. The money goes to
+     * {@code contraBook}.
+     *
+     * @return the new balance, or null when the balance is too low or the account does not exist
+     */
+    Double debit(UUID accountId, double amount, UUID transactionId, LedgerBookType contraBook);
+
+    /**
+     * Applies {@code delta} to the balance without checking it, moving the money from or to
+     * {@code contraBook}.
+     *
+     * @param transactionId null for adjustments that have no transaction of their own
+     * @return the new balance, or null when the account does not exist
+     */
+    Double adjustBalance(UUID accountId, double delta, UUID transactionId, LedgerBookType contraBook);
+
+    /**
+     * First step of a batch: debits the source once for the whole batch and queues one PENDING journal row per
+     * line in {@code journal}. The lines' amounts wait in BATCH_CLEARING until {@link #creditBatch} or
+     * {@link #refundBatch} settles the rows.
+     *
+     * @return the ids of the journal rows in line order, or null when the source does not hold the batch total
+     */
+    HeldBatch holdBatch(JournalBatch journal, Account fromAccount, List<TransferLine> lines,
+                        FeeType feeType, TransactionType transactionType);
+
+    /**
+     * Credits the receivers of those rows among {@code transactionIds} that are still PENDING and marks them
+     * COMPLETED. Rows settled already are skipped, so running it twice credits nobody twice. Must run inside
+     * a transaction.
+     *
+     * @param createdAt creation time of the rows, see {@link HeldBatch#getCreatedAt()}
+     * @return ids of the rows credited
+     * @throws IncorrectUpdateSemanticsDataAccessException when a receiver has no balance row left
+     */
+    List<UUID> creditBatch(List<UUID> transactionIds, Instant createdAt);
+
+    /**
+     * Gives the amount and fee of those rows among {@code transactionIds} that are still PENDING back to their
+     * source and marks them FAILED. Must run inside a transaction.
+     *
+     * @return ids of the rows refunded
+     */
+    List<UUID> refundBatch(List<UUID> transactionIds, Instant createdAt);
+
+    /**
+     * Balance to show for {@code account}, loaded in the current request.
+     */
+    double currentBalance(Account account);
+}
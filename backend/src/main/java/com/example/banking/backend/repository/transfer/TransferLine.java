@@ -0,0 +1,18 @@
+package com.example.banking.backend.repository.transfer;
+
+import com.example.banking.backend.model.Account;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TransferLine {
+
+    private final Account toAccount;
+
+    private final double amount;
+
+    private final double fee;
+
+    private final String message;
+}
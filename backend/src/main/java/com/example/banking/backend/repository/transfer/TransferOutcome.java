@@ -0,0 +1,17 @@
+package com.example.banking.backend.repository.transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class TransferOutcome {
+
+    private final UUID transactionId;
+
+    private final double fromBalance;
+
+    private final double toBalance;
+}
@@ -1,13 +1,16 @@
 package com.example.banking.backend.security.jwt;
 
-import com.example.banking.backend.security.service.UserDetailsServiceImpl;
+import com.example.banking.backend.security.service.UserDetailsCache;
+import com.example.banking.backend.security.service.UserDetailsImpl;
+import com.example.banking.backend.security.token.AccessTokenDenylist;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,23 +20,43 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.UUID;
 
-@RequiredArgsConstructor
+/**
+ * Authenticates requests carrying a bearer token. With {@code security.jwt.authentication: stateless} the
+ * principal's identity is taken from the token's claims and its role and active flag from the user, so a
+ * user who is demoted or deactivated loses access with the cache instead of when the token expires. The
+ * {@code database} mode uses the whole user. Either way the user comes from {@link UserDetailsCache}.
+ * Tokens revoked through {@link AccessTokenDenylist} are ignored.
+ */
 @Component
 @Slf4j
 public class AuthTokenFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final AccessTokenDenylist accessTokenDenylist;
+    private final boolean stateless;
+
+    public AuthTokenFilter(JwtUtils jwtUtils,
+                           UserDetailsCache userDetailsCache,
+                           AccessTokenDenylist accessTokenDenylist,
+                           @Value("${security.jwt.authentication:stateless}") String authentication) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailsCache = userDetailsCache;
+        this.accessTokenDenylist = accessTokenDenylist;
+        this.stateless = "stateless".equals(authentication);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUsernameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.parseClaims(jwt) : null;
+            if (claims != null && accessTokenDenylist.isRevoked(claims.getId())) {
+                log.debug("Access token {} has been revoked", claims.getId());
+            } else if (claims != null) {
+                UserDetails userDetails = loadUser(claims);
                 if (!userDetails.isEnabled()) {
                     throw new RuntimeException("User is not active");
                 }
@@ -53,6 +76,14 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails loadUser(Claims claims) {
+        if (!stateless) {
+            return userDetailsCache.loadUserByUsername(claims.getSubject());
+        }
+        UUID userId = UUID.fromString(claims.get("id", String.class));
+        return UserDetailsImpl.fromClaims(claims, userDetailsCache.loadUserById(userId));
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -62,4 +93,4 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         return null;
     }
-}
\ No newline at end of file
+}
@@ -15,23 +15,32 @@ import java.sql.Date;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.UUID;
 
 @Component
 @Slf4j
 public class JwtUtils {
 
-    @Value("${security.jwt.secret}")
-    private String jwtSecret;
+    // Decoding the secret and building the parser are not free, and both are safe to share between threads
+    private final Key key;
+    private final JwtParser parser;
+
+    public JwtUtils(@Value("${security.jwt.secret}") String jwtSecret) {
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    }
 
     public String generateAccessToken(UserDetailsImpl userDetails) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .claim("id", userDetails.getId())
                 .claim("email", userDetails.getEmail())
                 .claim("isActive", userDetails.getIsActive())
+                .claim("role", userDetails.getRole())
                 .setIssuedAt(Date.valueOf(LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"))))
                 .setExpiration(Date.from(Instant.now().plusSeconds(AppConstants.JWT_EXPIRATION_SECONDS)))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -40,29 +49,31 @@ public class JwtUtils {
         return generateAccessToken(userDetails);
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-    }
-
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
     public String getUserIdFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().get("id", String.class);
+        return parser.parseClaimsJws(token).getBody().get("id", String.class);
     }
 
     public String getUserEmailFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().get("email", String.class);
+        return parser.parseClaimsJws(token).getBody().get("email", String.class);
     }
 
     public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
+
+    /**
+     * Verifies the signature and expiry of a signed token and returns its claims, so a request only parses
+     * its token once.
+     *
+     * @return the claims, or null when the token is not valid
+     */
+    public Claims parseClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (MalformedJwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -74,6 +85,6 @@ public class JwtUtils {
         } catch (Exception e) {
             log.error("Invalid JWT: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 }
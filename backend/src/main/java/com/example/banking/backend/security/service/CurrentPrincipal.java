@@ -0,0 +1,46 @@
+package com.example.banking.backend.security.service;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.User;
+import com.example.banking.backend.repository.UserRepository;
+import com.example.banking.backend.security.jwt.CustomContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The signed-in user of the current request and their account, read together on first use and kept until
+ * the request ends, so an endpoint that needs them in several places reads them once. Only usable on
+ * request threads: work handed to another thread has to take the user or account along.
+ */
+@Component
+@RequestScope
+public class CurrentPrincipal {
+
+    private final UserRepository userRepository;
+    private User user;
+    private boolean loaded;
+
+    public CurrentPrincipal(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public UUID getUserId() {
+        return CustomContextHolder.getCurrentUserId();
+    }
+
+    public Optional<User> findUser() {
+        if (!loaded) {
+            UUID userId = getUserId();
+            user = userId != null ? userRepository.findWithAccountById(userId).orElse(null) : null;
+            loaded = true;
+        }
+        return Optional.ofNullable(user);
+    }
+
+    public Optional<Account> findAccount() {
+        return findUser().map(User::getAccount);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.banking.backend.security.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Published after a user's credentials, role or status changed, or the user was removed, so the copies
+ * held by {@link UserDetailsCache} are dropped. {@code username} may be null when the caller only knows
+ * the id.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserChangedEvent {
+
+    private final UUID userId;
+    private final String username;
+}
@@ -0,0 +1,127 @@
+package com.example.banking.backend.security.service;
+
+import com.example.banking.backend.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Users loaded for request authentication, by username and by id, kept for
+ * {@code security.user-cache.ttl-seconds}. A {@link UserChangedEvent} drops the user once the change is
+ * committed, so a deactivated user is locked out right away on this instance and at most one TTL later on
+ * the others.
+ * <p>
+ * Sign-in does not go through the cache: {@link UserDetailsServiceImpl} always checks the password
+ * against the database.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> byUsername = new ConcurrentHashMap<>();
+    private final Map<UUID, String> usernames = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            @Value("${security.user-cache.ttl-seconds:30}") long ttlSeconds,
+                            @Value("${security.user-cache.max-entries:100000}") int maxEntries,
+                            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("banking.auth.user.cache")
+                .description("Authentication user lookups served from memory")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("banking.auth.user.cache")
+                .description("Authentication user lookups that read the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public UserDetailsImpl loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetailsImpl cached = lookup(username);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = evictions.get();
+        UserDetailsImpl user = userRepository.findByUsername(username)
+                .map(UserDetailsImpl::build)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        return remember(user, generation);
+    }
+
+    public UserDetailsImpl loadUserById(UUID userId) throws UsernameNotFoundException {
+        UserDetailsImpl cached = lookup(usernames.get(userId));
+        if (cached != null) {
+            return cached;
+        }
+        long generation = evictions.get();
+        UserDetailsImpl user = userRepository.findById(userId)
+                .map(UserDetailsImpl::build)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+        return remember(user, generation);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evictions.incrementAndGet();
+        String username = usernames.remove(event.getUserId());
+        if (username != null) {
+            byUsername.remove(username);
+        }
+        if (event.getUsername() != null) {
+            byUsername.remove(event.getUsername());
+        }
+    }
+
+    private UserDetailsImpl lookup(String username) {
+        Entry entry = username != null ? byUsername.get(username) : null;
+        if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+            hits.increment();
+            return entry.user;
+        }
+        misses.increment();
+        return null;
+    }
+
+    private UserDetailsImpl remember(UserDetailsImpl user, long generation) {
+        if (byUsername.size() >= maxEntries) {
+            // Cheaper than tracking recency; the entries come back one TTL at a time
+            byUsername.clear();
+            usernames.clear();
+        }
+        Entry entry = new Entry(user, System.nanoTime());
+        byUsername.put(user.getUsername(), entry);
+        usernames.put(user.getId(), user.getUsername());
+        if (evictions.get() != generation) {
+            // A change was committed while this copy was being read, it may be the old one
+            byUsername.remove(user.getUsername(), entry);
+        }
+        return user;
+    }
+
+    private static final class Entry {
+
+        private final UserDetailsImpl user;
+        private final long loadedAt;
+
+        private Entry(UserDetailsImpl user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.banking.backend.security.service;
 
 import com.example.banking.backend.model.User;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
@@ -48,6 +49,30 @@ public class UserDetailsImpl implements UserDetails {
                 authorities);
     }
 
+    /**
+     * Rebuilds the principal from the claims of an access token, without the password. The active flag and
+     * the authorities are those of {@code current}, the user as loaded now: the claims only hold the ones
+     * at sign-in.
+     */
+    public static UserDetailsImpl fromClaims(Claims claims, UserDetailsImpl current) {
+        return new UserDetailsImpl(
+                UUID.fromString(claims.get("id", String.class)),
+                claims.getSubject(),
+                claims.get("email", String.class),
+                null,
+                current.getIsActive(),
+                current.getAuthorities());
+    }
+
+    public String getRole() {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith("ROLE_"))
+                .map(authority -> authority.substring("ROLE_".length()))
+                .findFirst()
+                .orElse(null);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
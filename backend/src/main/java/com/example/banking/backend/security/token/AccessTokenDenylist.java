@@ -0,0 +1,181 @@
+package com.example.banking.backend.security.token;
+
+import com.example.banking.backend.util.BloomFilter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Access tokens revoked before they expire, by {@code jti}. The list itself is in Redis, one key per token
+ * expiring with the token. Each instance keeps a bloom filter of it, fed by a pub/sub message for every
+ * revocation and rebuilt from Redis every {@code security.revocation.rebuild-interval-ms}, which also
+ * drops the tokens that have expired since and covers messages missed while disconnected.
+ * <p>
+ * A token the filter has never seen is not revoked, which is the answer for almost every request and needs
+ * no round trip. Only a filter hit, a revoked token or a false positive, is checked against Redis. The
+ * filter is only trusted while the subscription is up and has been since the last rebuild: otherwise
+ * revocations made on other instances may be missing from it, and every token is checked against Redis
+ * until a rebuild after resubscribing, retried every {@code security.revocation.resubscribe-interval-ms}.
+ */
+@Slf4j
+@Component
+public class AccessTokenDenylist {
+
+    private static final String KEY_PREFIX = "revoked:access:";
+    private static final String CHANNEL = "revoked-access-tokens";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long expectedTokens;
+    private final double falsePositiveRate;
+    private volatile BloomFilter filter;
+    // Set while a rebuild scans Redis, so revocations published meanwhile reach the new filter too
+    private volatile BloomFilter rebuilding;
+    // Whether the filter holds every revocation: rebuilt while subscribed, and subscribed ever since
+    private volatile boolean complete;
+
+    public AccessTokenDenylist(StringRedisTemplate redisTemplate,
+                               RedisConnectionFactory connectionFactory,
+                               @Value("${security.revocation.expected-tokens:100000}") long expectedTokens,
+                               @Value("${security.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        // Not a bean: a container in the context would have to reach Redis for the application to start
+        this(redisTemplate, listenerContainer(connectionFactory), expectedTokens, falsePositiveRate);
+    }
+
+    AccessTokenDenylist(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                        long expectedTokens, double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedTokens, falsePositiveRate);
+        listenerContainer.addMessageListener(
+                (message, pattern) -> remember(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Revokes an access token until it expires.
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        Duration remaining = Duration.between(Instant.now(), expiresAt);
+        if (tokenId == null || remaining.isNegative() || remaining.isZero()) {
+            return;
+        }
+        redisTemplate.opsForValue().set(KEY_PREFIX + tokenId, "1", remaining);
+        remember(tokenId);
+        redisTemplate.convertAndSend(CHANNEL, tokenId);
+    }
+
+    /**
+     * Whether an access token was revoked. Tokens without an id predate revocation and are never revoked.
+     * When Redis cannot answer for a token the filter cannot clear, the token is treated as revoked.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        if (!listenerContainer.isListening()) {
+            // Revocations published from now on are missed, and stay missing after resubscribing until a rebuild
+            complete = false;
+        }
+        if (complete && !filter.mightContain(tokenId)) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + tokenId));
+        } catch (RuntimeException e) {
+            log.warn("Could not check whether access token {} is revoked, rejecting it", tokenId, e);
+            return true;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${security.revocation.rebuild-interval-ms:600000}",
+            fixedDelayString = "${security.revocation.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        boolean subscribed = subscribe();
+        BloomFilter next = new BloomFilter(expectedTokens, falsePositiveRate);
+        rebuilding = next;
+        int tokens = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                next.add(keys.next().substring(KEY_PREFIX.length()));
+                tokens++;
+            }
+            filter = next;
+            // Revocations published since subscribing reached the new filter through rebuilding
+            complete = subscribed && listenerContainer.isListening();
+            if (tokens > expectedTokens) {
+                log.warn("{} revoked access tokens exceed security.revocation.expected-tokens, "
+                        + "more requests will be checked against Redis", tokens);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the revoked access token filter, keeping the current one", e);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    /**
+     * Rebuilds the filter as soon as the subscription is back after failing or dropping, instead of checking
+     * every token against Redis until the next scheduled rebuild.
+     */
+    @Scheduled(initialDelayString = "${security.revocation.resubscribe-interval-ms:5000}",
+            fixedDelayString = "${security.revocation.resubscribe-interval-ms:5000}")
+    public void resubscribe() {
+        if (!complete || !listenerContainer.isListening()) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        listenerContainer.destroy();
+    }
+
+    private boolean subscribe() {
+        if (listenerContainer.isListening()) {
+            return true;
+        }
+        complete = false;
+        try {
+            listenerContainer.start();
+            return listenerContainer.isListening();
+        } catch (RuntimeException e) {
+            log.warn("Could not subscribe to access token revocations, checking every token against Redis", e);
+            listenerContainer.stop();
+            return false;
+        }
+    }
+
+    private static RedisMessageListenerContainer listenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        return listenerContainer;
+    }
+
+    private void remember(String tokenId) {
+        filter.add(tokenId);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.add(tokenId);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.banking.backend.security.token;
+
+import com.example.banking.backend.model.RefreshToken;
+import com.example.banking.backend.model.User;
+import com.example.banking.backend.repository.RefreshTokenRepository;
+import com.example.banking.backend.repository.UserRepository;
+import com.example.banking.backend.security.service.UserDetailsImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh tokens as rows of {@code refresh_tokens}, one per user. The token is the row id and stays the same
+ * until the user signs in again. Expired rows are deleted in batches every
+ * {@code security.refresh.purge-interval-ms}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "security.refresh.store", havingValue = "database", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final int refreshExpiration;
+    private final int purgeBatchSize;
+
+    public JpaRefreshTokenStore(RefreshTokenRepository refreshTokenRepository,
+                                UserRepository userRepository,
+                                @Value("${security.refresh.expiration}") int refreshExpiration,
+                                @Value("${security.refresh.purge-batch-size:1000}") int purgeBatchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.refreshExpiration = refreshExpiration;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @Override
+    public String issue(UserDetailsImpl userDetails) {
+        User user = userRepository.findById(userDetails.getId())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+
+        RefreshToken oldRefreshToken = user.getRefreshToken();
+        if (oldRefreshToken != null) {
+            refreshTokenRepository.delete(oldRefreshToken);
+            user.setRefreshToken(null);
+            userRepository.save(user);
+        }
+
+        RefreshToken newRefreshToken = new RefreshToken();
+        newRefreshToken.setUser(user);
+        newRefreshToken.setCreatedAt(Instant.now());
+        newRefreshToken.setExpiresAt(Instant.now().plusSeconds(refreshExpiration));
+        RefreshToken savedRefreshToken = refreshTokenRepository.save(newRefreshToken);
+        user.setRefreshToken(savedRefreshToken);
+        userRepository.save(user);
+        return savedRefreshToken.getId().toString();
+    }
+
+    @Override
+    public Optional<RefreshGrant> refresh(String refreshToken) {
+        return parse(refreshToken)
+                .flatMap(id -> refreshTokenRepository.findByIdAndExpiresAtAfter(id, Instant.now()))
+                .map(token -> new RefreshGrant(UserDetailsImpl.build(token.getUser()), refreshToken));
+    }
+
+    @Override
+    public boolean revoke(String refreshToken) {
+        Optional<RefreshToken> token = parse(refreshToken).flatMap(refreshTokenRepository::findById);
+        token.ifPresent(refreshTokenRepository::delete);
+        return token.isPresent();
+    }
+
+    @Scheduled(fixedDelayString = "${security.refresh.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpired(Instant.now(), purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+        if (purged > 0) {
+            log.info("Deleted {} expired refresh tokens", purged);
+        }
+    }
+
+    private static Optional<UUID> parse(String refreshToken) {
+        try {
+            return Optional.of(UUID.fromString(refreshToken));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.banking.backend.security.token;
+
+import com.example.banking.backend.model.User;
+import com.example.banking.backend.repository.UserRepository;
+import com.example.banking.backend.security.service.UserChangedEvent;
+import com.example.banking.backend.security.service.UserDetailsImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh tokens kept in Redis, so signing in and refreshing no longer write to the database. A session is
+ * a token family: one hash holding the claims of the user's access tokens and the family's current secret,
+ * expiring on its own {@code security.refresh.expiration} seconds after sign-in. The refresh token handed
+ * out is {@code <family id>.<secret>}.
+ * <p>
+ * Every refresh replaces the secret. The one it replaced is still accepted for
+ * {@code security.refresh.reuse-grace-seconds}, for a client that sent the same refresh twice, and gets the
+ * current secret back; any older secret means the token was copied, and the family is revoked.
+ * <p>
+ * The claims are rewritten when a {@link UserChangedEvent} is published, and the session is revoked when
+ * the user is deactivated or removed. Refresh tokens issued by the database store are not carried over.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "security.refresh.store", havingValue = "redis")
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+
+    private static final String FAMILY_KEY_PREFIX = "refresh:family:";
+    private static final String USER_KEY_PREFIX = "refresh:user:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROTATE_SCRIPT = RedisScript.of("""
+            local secrets = redis.call('HMGET', KEYS[1], 'current', 'previous', 'rotatedAt')
+            if not secrets[1] then
+                return {'missing'}
+            end
+            local successor
+            if secrets[1] == ARGV[1] then
+                successor = ARGV[2]
+                redis.call('HSET', KEYS[1], 'current', successor, 'previous', ARGV[1], 'rotatedAt', ARGV[3])
+            elseif secrets[2] == ARGV[1] and tonumber(ARGV[3]) - tonumber(secrets[3]) < tonumber(ARGV[4]) then
+                successor = secrets[1]
+            else
+                local user = redis.call('HGET', KEYS[1], 'userId')
+                redis.call('DEL', KEYS[1])
+                return {'reused', user}
+            end
+            local claims = redis.call('HMGET', KEYS[1], 'userId', 'username', 'email', 'role', 'active')
+            return {'ok', successor, claims[1], claims[2], claims[3], claims[4], claims[5]}
+            """, List.class);
+
+    private static final RedisScript<Long> REVOKE_SCRIPT = RedisScript.of("""
+            local secrets = redis.call('HMGET', KEYS[1], 'current', 'previous')
+            if secrets[1] == ARGV[1] or secrets[2] == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    // Leaves families that expired in the meantime alone, HSET would bring them back without a TTL
+    private static final RedisScript<Long> UPDATE_CLAIMS_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'username', ARGV[1], 'email', ARGV[2], 'role', ARGV[3], 'active', ARGV[4])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserRepository userRepository;
+    private final Duration expiration;
+    private final long reuseGraceMillis;
+    private final SecureRandom random = new SecureRandom();
+
+    public RedisRefreshTokenStore(StringRedisTemplate redisTemplate,
+                                  UserRepository userRepository,
+                                  @Value("${security.refresh.expiration}") int refreshExpiration,
+                                  @Value("${security.refresh.reuse-grace-seconds:10}") long reuseGraceSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.userRepository = userRepository;
+        this.expiration = Duration.ofSeconds(refreshExpiration);
+        this.reuseGraceMillis = Duration.ofSeconds(reuseGraceSeconds).toMillis();
+    }
+
+    @Override
+    public String issue(UserDetailsImpl user) {
+        String familyId = UUID.randomUUID().toString();
+        String secret = newSecret();
+        String familyKey = FAMILY_KEY_PREFIX + familyId;
+        redisTemplate.opsForHash().putAll(familyKey, Map.of(
+                "userId", user.getId().toString(),
+                "username", user.getUsername(),
+                "email", nullToEmpty(user.getEmail()),
+                "role", user.getRole(),
+                "active", String.valueOf(user.isEnabled()),
+                "current", secret));
+        redisTemplate.expire(familyKey, expiration);
+
+        String userKey = USER_KEY_PREFIX + user.getId();
+        String previousFamilyId = redisTemplate.opsForValue().getAndSet(userKey, familyId);
+        redisTemplate.expire(userKey, expiration);
+        if (previousFamilyId != null) {
+            redisTemplate.delete(FAMILY_KEY_PREFIX + previousFamilyId);
+        }
+        return familyId + "." + secret;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<RefreshGrant> refresh(String refreshToken) {
+        String[] parts = parse(refreshToken);
+        if (parts == null) {
+            return Optional.empty();
+        }
+        List<String> result = redisTemplate.execute(ROTATE_SCRIPT, List.of(FAMILY_KEY_PREFIX + parts[0]),
+                parts[1], newSecret(), String.valueOf(System.currentTimeMillis()), String.valueOf(reuseGraceMillis));
+        if (result == null || result.isEmpty() || "missing".equals(result.get(0))) {
+            return Optional.empty();
+        }
+        if ("reused".equals(result.get(0))) {
+            log.warn("Refresh token of user {} was used after it had been replaced, the session is revoked",
+                    result.size() > 1 ? result.get(1) : null);
+            return Optional.empty();
+        }
+        boolean active = Boolean.parseBoolean(result.get(6));
+        if (!active) {
+            return Optional.empty();
+        }
+        UserDetailsImpl user = new UserDetailsImpl(
+                UUID.fromString(result.get(2)),
+                result.get(3),
+                emptyToNull(result.get(4)),
+                null,
+                true,
+                List.of(new SimpleGrantedAuthority("ROLE_" + result.get(5))));
+        return Optional.of(new RefreshGrant(user, parts[0] + "." + result.get(1)));
+    }
+
+    @Override
+    public boolean revoke(String refreshToken) {
+        String[] parts = parse(refreshToken);
+        if (parts == null) {
+            return false;
+        }
+        Long deleted = redisTemplate.execute(REVOKE_SCRIPT, List.of(FAMILY_KEY_PREFIX + parts[0]), parts[1]);
+        return deleted != null && deleted > 0;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        String familyId = redisTemplate.opsForValue().get(USER_KEY_PREFIX + event.getUserId());
+        if (familyId == null) {
+            return;
+        }
+        String familyKey = FAMILY_KEY_PREFIX + familyId;
+        Optional<User> user = userRepository.findById(event.getUserId());
+        if (user.isEmpty() || !Boolean.TRUE.equals(user.get().getIsActive())) {
+            redisTemplate.delete(familyKey);
+            return;
+        }
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user.get());
+        redisTemplate.execute(UPDATE_CLAIMS_SCRIPT, List.of(familyKey),
+                userDetails.getUsername(), nullToEmpty(userDetails.getEmail()), userDetails.getRole(), "true");
+    }
+
+    private String newSecret() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Splits a refresh token into its family id and secret.
+     *
+     * @return null when the token does not have that shape
+     */
+    private static String[] parse(String refreshToken) {
+        if (refreshToken == null) {
+            return null;
+        }
+        int dot = refreshToken.indexOf('.');
+        if (dot < 0 || dot == refreshToken.length() - 1) {
+            return null;
+        }
+        String familyId = refreshToken.substring(0, dot);
+        try {
+            UUID.fromString(familyId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new String[]{familyId, refreshToken.substring(dot + 1)};
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
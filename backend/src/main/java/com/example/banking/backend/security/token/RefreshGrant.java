@@ -0,0 +1,13 @@
+package com.example.banking.backend.security.token;
+
+import com.example.banking.backend.security.service.UserDetailsImpl;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class RefreshGrant {
+
+    private final UserDetailsImpl user;
+    private final String refreshToken;
+}
@@ -0,0 +1,34 @@
+package com.example.banking.backend.security.token;
+
+import com.example.banking.backend.security.service.UserDetailsImpl;
+
+import java.util.Optional;
+
+/**
+ * Where refresh tokens live, picked with {@code security.refresh.store}. A user holds one session at a
+ * time: signing in again ends the previous one.
+ */
+public interface RefreshTokenStore {
+
+    /**
+     * Starts a session for a user who just signed in.
+     *
+     * @return the refresh token of the session
+     */
+    String issue(UserDetailsImpl user);
+
+    /**
+     * Checks a refresh token and returns the user to mint an access token for, with the refresh token the
+     * client has to present next time.
+     *
+     * @return empty when the token is unknown, expired or revoked
+     */
+    Optional<RefreshGrant> refresh(String refreshToken);
+
+    /**
+     * Ends the session of a refresh token.
+     *
+     * @return whether the token was known
+     */
+    boolean revoke(String refreshToken);
+}
@@ -19,12 +19,14 @@ public interface AccountService {
             String accountNumber,
             Integer size,
             Integer pagination,
-            TransactionType type);
+            TransactionType type,
+            String cursor);
 
     ApiResponse<GetAccountTransactionsResponse> getCustomerTransactions(
             Integer size,
             Integer pagination,
-            TransactionType type);
+            TransactionType type,
+            String cursor);
 
     ApiResponse<CreateCustomerAccountResponse> createCustomerAccount(CreateCustomerRequest request);
 
@@ -13,33 +13,36 @@ import com.example.banking.backend.exception.BadRequestException;
 import com.example.banking.backend.exception.ExistenceException;
 import com.example.banking.backend.exception.InvalidUserException;
 import com.example.banking.backend.exception.NotFoundException;
+import com.example.banking.backend.exception.PartnerBankUnavailableException;
 import com.example.banking.backend.mapper.account.AccountMapper;
 import com.example.banking.backend.mapper.user.UserMapper;
 import com.example.banking.backend.model.Account;
 import com.example.banking.backend.model.Bank;
 import com.example.banking.backend.model.User;
 import com.example.banking.backend.model.type.AccountType;
+import com.example.banking.backend.model.type.LedgerBookType;
 import com.example.banking.backend.model.type.TransactionType;
 import com.example.banking.backend.model.type.UserRoleType;
-import com.example.banking.backend.repository.BankRepository;
-import com.example.banking.backend.repository.UserRepository;
 import com.example.banking.backend.repository.account.AccountRepository;
-import com.example.banking.backend.security.jwt.CustomContextHolder;
-import com.example.banking.backend.util.CryptoUtils;
+import com.example.banking.backend.repository.transfer.TransferExecutor;
+import com.example.banking.backend.security.service.CurrentPrincipal;
+import com.example.banking.backend.service.lock.AccountLockManager;
+import com.example.banking.backend.service.partner.PartnerBank;
+import com.example.banking.backend.service.partner.PartnerBankClientRegistry;
+import com.example.banking.backend.service.partner.PartnerBankRegistry;
+import com.example.banking.backend.util.KeysetCursor;
 import com.example.banking.backend.util.SignatureUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
@@ -51,12 +54,14 @@ public class AccountServiceImpl implements AccountService {
     private final AccountRepository accountRepository;
     private final UserService userService;
     private final BankCodeConfig bankCodeConfig;
-    private final UserRepository userRepository;
-    private final RestTemplate restTemplate;
-    private final BankRepository bankRepository;
+    private final PartnerBankClientRegistry partnerBankClientRegistry;
+    private final PartnerBankRegistry partnerBankRegistry;
+    private final TransferExecutor transferExecutor;
+    private final AccountLockManager accountLockManager;
+    private final CurrentPrincipal currentPrincipal;
 
     private Account getAccountCurrentUser() {
-        return accountRepository.findByUserId(CustomContextHolder.getCurrentUserId())
+        return currentPrincipal.findAccount()
                 .orElseThrow(() -> new InvalidUserException("Please switch account."));
     }
 
@@ -84,7 +89,7 @@ public class AccountServiceImpl implements AccountService {
     }
 
     private User getCurrentUser() {
-        return userRepository.findById(Objects.requireNonNull(CustomContextHolder.getCurrentUserId()))
+        return currentPrincipal.findUser()
                 .orElseThrow(() -> new NotFoundException("NOT FOUND CURRENT USER"));
     }
 
@@ -93,6 +98,7 @@ public class AccountServiceImpl implements AccountService {
         Account account = accountRepository.findByUserId(userId).orElseThrow(() -> new NotFoundException("Account not found"));
 
         GetAccountResponse accountResponse = AccountMapper.INSTANCE.accountToGetAccountResponse(account);
+        accountResponse.setBalance(transferExecutor.currentBalance(account));
 
         return ApiResponse.<GetAccountResponse>builder()
                 .data(accountResponse)
@@ -102,25 +108,12 @@ public class AccountServiceImpl implements AccountService {
     }
 
     @Override
-    public ApiResponse<GetAccountTransactionsResponse> getAccountTransactions(String accountNumber, Integer size, Integer pagination, TransactionType type) {
+    public ApiResponse<GetAccountTransactionsResponse> getAccountTransactions(String accountNumber, Integer size, Integer pagination, TransactionType type, String cursor) {
         Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new NotFoundException("Account not found!"));
 
-        PaginatedAccountTransactionDto paginatedDto = accountRepository.getPaginatedTransactions(
-                account.getAccountId(),
-                pagination,
-                size,
-                type
-        );
-
-        if (paginatedDto == null) {
-            throw new NotFoundException("Account not found!");
-        }
+        PaginatedAccountTransactionDto paginatedDto = fetchTransactions(account.getAccountId(), size, pagination, type, cursor);
 
-        GetAccountTransactionsResponse accountTransactionsResponse = AccountMapper.INSTANCE.accountToGetAccountTransactionsResponse(
-                paginatedDto.getAccount(),
-                paginatedDto.getTotalTransactions(),
-                paginatedDto.getTotalPages()
-        );
+        GetAccountTransactionsResponse accountTransactionsResponse = AccountMapper.INSTANCE.paginatedToGetAccountTransactionsResponse(paginatedDto);
 
         return ApiResponse.<GetAccountTransactionsResponse>builder()
                 .data(accountTransactionsResponse)
@@ -130,27 +123,15 @@ public class AccountServiceImpl implements AccountService {
     }
 
     @Override
-    public ApiResponse<GetAccountTransactionsResponse> getCustomerTransactions(Integer size, Integer pagination, TransactionType type) {
+    public ApiResponse<GetAccountTransactionsResponse> getCustomerTransactions(Integer size, Integer pagination, TransactionType type, String cursor) {
         if (size <= 0 || pagination <= 0) {
             throw new IllegalArgumentException("Limit must be positive and page must be 1 or greater");
         }
 
-        PaginatedAccountTransactionDto paginatedDto = accountRepository.getPaginatedTransactions(
-                getAccountCurrentUser().getAccountId(),
-                pagination,
-                size,
-                type
-        );
-
-        if (paginatedDto == null) {
-            throw new NotFoundException("Account not found!");
-        }
+        PaginatedAccountTransactionDto paginatedDto = fetchTransactions(
+                getAccountCurrentUser().getAccountId(), size, pagination, type, cursor);
 
-        GetAccountTransactionsResponse accountTransactionsResponse = AccountMapper.INSTANCE.accountToGetAccountTransactionsResponse(
-                paginatedDto.getAccount(),
-                paginatedDto.getTotalTransactions(),
-                paginatedDto.getTotalPages()
-        );
+        GetAccountTransactionsResponse accountTransactionsResponse = AccountMapper.INSTANCE.paginatedToGetAccountTransactionsResponse(paginatedDto);
 
         return ApiResponse.<GetAccountTransactionsResponse>builder()
                 .data(accountTransactionsResponse)
@@ -159,6 +140,16 @@ public class AccountServiceImpl implements AccountService {
                 .build();
     }
 
+    private PaginatedAccountTransactionDto fetchTransactions(UUID accountId, Integer size, Integer pagination,
+                                                             TransactionType type, String cursor) {
+        KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+        // Page numbers are still honoured for older clients, any cursor or first page goes through the keyset path
+        if (keysetCursor == null && pagination > 1) {
+            return accountRepository.getPaginatedTransactions(accountId, pagination, size, type);
+        }
+        return accountRepository.getTransactionHistory(accountId, keysetCursor, size, type);
+    }
+
 
     @Override
     public ApiResponse<CreateCustomerAccountResponse> createCustomerAccount(CreateCustomerRequest request) {
@@ -210,11 +201,8 @@ public class AccountServiceImpl implements AccountService {
     public void rechargeAccount(String accountNumber, Long rechargeAmount) {
         Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new NotFoundException("Account not found!"));
 
-
-        account.setBalance(account.getBalance() + rechargeAmount);
-
-        accountRepository.save(account);
-
+        accountLockManager.runWithLock(account.getAccountNumber(),
+                () -> transferExecutor.adjustBalance(account.getAccountId(), rechargeAmount, null, LedgerBookType.CASH));
     }
 
     @Override
@@ -222,11 +210,8 @@ public class AccountServiceImpl implements AccountService {
         Account account = accountRepository.findByUserId(userId).orElseThrow(
                 () -> new NotFoundException("Account not found!"));
 
-        account.setBalance(account.getBalance() - amount);
-
-        accountRepository.save(account);
-
-        return account.getBalance();
+        return accountLockManager.callWithLock(account.getAccountNumber(),
+                () -> transferExecutor.adjustBalance(account.getAccountId(), -amount, null, LedgerBookType.CASH));
     }
 
     @Override
@@ -245,11 +230,12 @@ public class AccountServiceImpl implements AccountService {
         } else {
             // External
 
-            Account sourceAccount = accountRepository.findByUserId(getCurrentUser().getId())
+            Account sourceAccount = currentPrincipal.findAccount()
                     .orElseThrow(() -> new NotFoundException("Source account not found"));
 
-            Bank destinationBank = bankRepository.findByBankCode(request.getBankCode())
+            PartnerBank destinationPartner = partnerBankRegistry.find(request.getBankCode())
                     .orElseThrow(() -> new NotFoundException("Destination bank not found"));
+            Bank destinationBank = destinationPartner.getBank();
 
             String destinationApiUrl = destinationBank.getApiEndpoint();
             if (destinationApiUrl == null || destinationApiUrl.trim().isEmpty()) {
@@ -264,16 +250,15 @@ public class AccountServiceImpl implements AccountService {
                 ObjectMapper objectMapper = new ObjectMapper();
                 String requestBody = objectMapper.writeValueAsString(interbankRequest);
                 String hashInput = requestBody + timestamp + "FIN" + destinationBank.getSecretKey();
-                String hmac = CryptoUtils.generateHMAC(hashInput, destinationBank.getSecretKey());
+                String hmac = destinationPartner.hmac(hashInput);
                 HttpHeaders headers = new HttpHeaders();
                 headers.setContentType(MediaType.APPLICATION_JSON);
                 headers.set("Bank-Code", "FIN");
                 headers.set("X-Timestamp", timestamp);
                 headers.set("X-Request-Hash", hmac);
                 HttpEntity<AccountExternalRequest> httpEntity = new HttpEntity<>(interbankRequest, headers);
-                ResponseEntity<Map> response = restTemplate.exchange(
-                        destinationApiUrl + "/api/linked-banks/account-info",
-                        HttpMethod.POST,
+                ResponseEntity<Map> response = partnerBankClientRegistry.clientFor(destinationBank).post(
+                        "/api/linked-banks/account-info",
                         httpEntity,
                         Map.class
                 );
@@ -290,6 +275,8 @@ public class AccountServiceImpl implements AccountService {
                     throw new BadRequestException(
                             "External account info failed: HTTP " + response.getStatusCode());
                 }
+            } catch (PartnerBankUnavailableException e) {
+                throw e;
             } catch (Exception e) {
                 throw new BadRequestException("Error processing external account info request: " + e.getMessage());
             }
@@ -319,12 +306,13 @@ public class AccountServiceImpl implements AccountService {
         if (request == null || request.getAccountNumber() == null || request.getAccountNumber().trim().isEmpty()) {
             throw new BadRequestException("Invalid request parameters");
         }
-        Bank sourceBank = bankRepository.findByBankCode(sourceBankCode)
+        PartnerBank sourcePartner = partnerBankRegistry.find(sourceBankCode)
                 .orElseThrow(() -> new IllegalArgumentException("Your bank is not linked to FIN"));
+        Bank sourceBank = sourcePartner.getBank();
         ObjectMapper objectMapper = new ObjectMapper();
         String requestBody = objectMapper.writeValueAsString(request);
         String expectedHashInput = requestBody + timestamp + sourceBankCode + sourceBank.getSecretKey();
-        String expectedHmac = CryptoUtils.generateHMAC(expectedHashInput, sourceBank.getSecretKey());
+        String expectedHmac = sourcePartner.hmac(expectedHashInput);
         if (!SignatureUtil.isTimestampWithin5Minutes(timestamp)) throw new BadRequestException("Expired ,do it again");
         if (!expectedHmac.equals(receivedHmac)) {
             throw new BadRequestException("HMAC verification failed - packet integrity compromised");
@@ -8,15 +8,17 @@ import com.example.banking.backend.dto.response.auth.LoginResponse;
 import com.example.banking.backend.dto.response.auth.LogoutResponse;
 import com.example.banking.backend.dto.response.auth.RefreshTokenResponse;
 
-import java.util.UUID;
-
 public interface AuthService {
 
     LoginResponse login(LoginRequest request);
 
     RefreshTokenResponse refresh(RefreshTokenRequest request);
 
-    LogoutResponse logout(UUID refreshToken);
+    /**
+     * Ends the session of the refresh token and revokes the access token the request was signed with, when
+     * there is one.
+     */
+    LogoutResponse logout(String refreshToken, String accessToken);
 
     void forgotPassword(ForgotPasswordRequest request);
 
@@ -8,39 +8,37 @@ import com.example.banking.backend.dto.response.auth.LoginResponse;
 import com.example.banking.backend.dto.response.auth.LogoutResponse;
 import com.example.banking.backend.dto.response.auth.RefreshTokenResponse;
 import com.example.banking.backend.exception.*;
-import com.example.banking.backend.model.RefreshToken;
 import com.example.banking.backend.model.User;
 import com.example.banking.backend.model.type.OtpType;
-import com.example.banking.backend.repository.RefreshTokenRepository;
 import com.example.banking.backend.repository.UserRepository;
 import com.example.banking.backend.security.jwt.JwtUtils;
+import com.example.banking.backend.security.service.UserChangedEvent;
 import com.example.banking.backend.security.service.UserDetailsImpl;
+import com.example.banking.backend.security.token.AccessTokenDenylist;
+import com.example.banking.backend.security.token.RefreshGrant;
+import com.example.banking.backend.security.token.RefreshTokenStore;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.util.UUID;
-
 @Service
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
 
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
+    private final AccessTokenDenylist accessTokenDenylist;
     private final JwtUtils jwtUtils;
     private final CaptchaService captchaService;
     private final OtpService otpService;
     private final PasswordEncoder passwordEncoder;
-
-    @Value("${security.refresh.expiration}")
-    private int refreshExpiration;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public LoginResponse login(LoginRequest request) {
@@ -52,46 +50,31 @@ public class AuthServiceImpl implements AuthService {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
         );
-        String accessToken = jwtUtils.generateAccessToken((UserDetailsImpl) authentication.getPrincipal());
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + request.getUsername()));
-
-        RefreshToken oldRefreshToken = user.getRefreshToken();
-        if (oldRefreshToken != null) {
-            refreshTokenRepository.delete(oldRefreshToken);
-            user.setRefreshToken(null);
-            userRepository.save(user);
-        }
-
-        RefreshToken newRefreshToken = new RefreshToken();
-        newRefreshToken.setUser(user);
-        newRefreshToken.setCreatedAt(Instant.now());
-        newRefreshToken.setExpiresAt(Instant.now().plusSeconds(refreshExpiration));
-        RefreshToken savedRefreshToken = refreshTokenRepository.save(newRefreshToken);
-        user.setRefreshToken(savedRefreshToken);
-        userRepository.save(user);
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        String accessToken = jwtUtils.generateAccessToken(userDetails);
+        String refreshToken = refreshTokenStore.issue(userDetails);
 
         return LoginResponse.builder()
                 .accessToken(accessToken)
-                .refreshToken(savedRefreshToken.getId().toString())
+                .refreshToken(refreshToken)
                 .build();
     }
 
     @Override
     public RefreshTokenResponse refresh(RefreshTokenRequest request) {
-        RefreshToken refreshTokenEntity = refreshTokenRepository
-                .findByIdAndExpiresAtAfter(UUID.fromString(request.getRefreshToken()), Instant.now())
+        RefreshGrant grant = refreshTokenStore.refresh(request.getRefreshToken())
                 .orElseThrow(() -> new InvalidTokenException("Invalid or expired refresh token"));
-        String newAccessToken = jwtUtils.generateAccessToken(refreshTokenEntity.getUser());
-        return new RefreshTokenResponse(newAccessToken);
+        String newAccessToken = jwtUtils.generateAccessToken(grant.getUser());
+        return new RefreshTokenResponse(newAccessToken, grant.getRefreshToken());
     }
 
     @Override
-    public LogoutResponse logout(UUID refreshToken) {
-        RefreshToken refreshTokenEntity = refreshTokenRepository.findById(refreshToken).orElse(null);
-        if (refreshTokenEntity != null) {
-            refreshTokenRepository.delete(refreshTokenEntity);
-        } else {
+    public LogoutResponse logout(String refreshToken, String accessToken) {
+        Claims claims = accessToken != null ? jwtUtils.parseClaims(accessToken) : null;
+        if (claims != null) {
+            accessTokenDenylist.revoke(claims.getId(), claims.getExpiration().toInstant());
+        }
+        if (!refreshTokenStore.revoke(refreshToken)) {
             throw new ExistenceException("Refresh token not existed!");
         }
         return new LogoutResponse("Logout successfully!");
@@ -122,6 +105,7 @@ public class AuthServiceImpl implements AuthService {
         }
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
     }
 
 }
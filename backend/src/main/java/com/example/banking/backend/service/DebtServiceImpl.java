@@ -21,9 +21,8 @@ import com.example.banking.backend.model.type.DebtStatusType;
 import com.example.banking.backend.model.type.FeeType;
 import com.example.banking.backend.model.type.OtpType;
 import com.example.banking.backend.repository.DebtReminderRepository;
-import com.example.banking.backend.repository.UserRepository;
 import com.example.banking.backend.repository.account.AccountRepository;
-import com.example.banking.backend.security.jwt.CustomContextHolder;
+import com.example.banking.backend.security.service.CurrentPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -40,12 +39,12 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DebtServiceImpl implements DebtService {
     private final DebtReminderRepository debtReminderRepository;
-    private final UserRepository userRepository;
     private final DebtReminderMapper debtReminderMapper;
     private final TransactionService transactionService;
     private final OtpService otpService;
     private final NotificationService notificationService;
     private final AccountRepository accountRepository;
+    private final CurrentPrincipal currentPrincipal;
 
 
     @Override
@@ -152,7 +151,7 @@ public class DebtServiceImpl implements DebtService {
     }
 
     private User getCurrentUser() {
-        return userRepository.findById(CustomContextHolder.getCurrentUserId())
+        return currentPrincipal.findUser()
                 .orElseThrow(() -> new RuntimeException("Current user not found"));
     }
 
@@ -5,8 +5,8 @@ import com.example.banking.backend.dto.response.notification.NotificationRespons
 import com.example.banking.backend.model.Notification;
 import com.example.banking.backend.model.User;
 import com.example.banking.backend.repository.NotificationRepository;
-import com.example.banking.backend.repository.UserRepository;
 import com.example.banking.backend.security.jwt.CustomContextHolder;
+import com.example.banking.backend.security.service.CurrentPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -23,8 +23,8 @@ import java.util.UUID;
 public class NotificationServiceImpl implements NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final CurrentPrincipal currentPrincipal;
 
     @Override
     public Notification addNotification(AddNotificationRequest request) {
@@ -162,7 +162,7 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     private User getCurrentUser() {
-        return userRepository.findById(CustomContextHolder.getCurrentUserId())
+        return currentPrincipal.findUser()
                 .orElseThrow(() -> new RuntimeException("Current user not found"));
     }
 
@@ -13,9 +13,8 @@ import com.example.banking.backend.model.Recipient;
 import com.example.banking.backend.model.User;
 import com.example.banking.backend.repository.BankRepository;
 import com.example.banking.backend.repository.RecipientRepository;
-import com.example.banking.backend.repository.UserRepository;
 import com.example.banking.backend.repository.account.AccountRepository;
-import com.example.banking.backend.security.jwt.CustomContextHolder;
+import com.example.banking.backend.security.service.CurrentPrincipal;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -35,11 +34,11 @@ public class RecipientServiceImpl implements RecipientService {
     RecipientRepository recipientRepository;
     BankRepository bankRepository;
     AccountRepository accountRepository;
-    UserRepository userRepository;
     AccountService accountService;
+    CurrentPrincipal currentPrincipal;
 
     User getCurrentUser() {
-        return userRepository.findById(CustomContextHolder.getCurrentUserId())
+        return currentPrincipal.findUser()
                 .orElseThrow(() -> new BadRequestException("NOT FOUND CURRENT USER"));
     }
 
@@ -147,7 +146,7 @@ public class RecipientServiceImpl implements RecipientService {
     }
 
     Account getAccountCurrentUser() {
-        return accountRepository.findByUserId(CustomContextHolder.getCurrentUserId())
+        return currentPrincipal.findAccount()
                 .orElseThrow(() -> new RuntimeException("Please sign in first "));
     }
 
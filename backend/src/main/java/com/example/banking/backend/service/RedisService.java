@@ -1,8 +1,10 @@
 package com.example.banking.backend.service;
 
+import com.example.banking.backend.model.IdempotencyRecord;
 import com.example.banking.backend.model.OtpPayload;
 import com.example.banking.backend.model.type.OtpType;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +14,24 @@ public interface RedisService {
     Optional<OtpPayload> getOtp(UUID userId, OtpType purpose);
 
     void deleteOtp(UUID userId, OtpType purpose);
+
+    /**
+     * Stores an in-flight record for the key unless one already exists.
+     *
+     * @return true when this call claimed the key
+     */
+    boolean claimIdempotencyKey(String key, String requestHash, Duration ttl);
+
+    /**
+     * Resets the expiry of a claimed key.
+     *
+     * @return false when the key no longer exists
+     */
+    boolean extendIdempotencyClaim(String key, Duration ttl);
+
+    Optional<IdempotencyRecord> getIdempotencyRecord(String key);
+
+    void saveIdempotencyRecord(String key, IdempotencyRecord record, Duration ttl);
+
+    void deleteIdempotencyRecord(String key);
 }
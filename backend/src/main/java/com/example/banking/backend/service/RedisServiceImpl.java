@@ -1,5 +1,6 @@
 package com.example.banking.backend.service;
 
+import com.example.banking.backend.model.IdempotencyRecord;
 import com.example.banking.backend.model.OtpPayload;
 import com.example.banking.backend.model.type.OtpType;
 import com.example.banking.backend.util.AppConstants;
@@ -25,6 +26,10 @@ public class RedisServiceImpl implements RedisService {
         return "otp:" + userId.toString() + ":" + purpose.getValue();
     }
 
+    private String buildIdempotencyKey(String key) {
+        return "idempotency:" + key;
+    }
+
     @Override
     public void saveOtp(UUID userId, String email, String otp, OtpType purpose) {
         ZoneId zoneHCM = ZoneId.of("Asia/Ho_Chi_Minh");
@@ -57,4 +62,33 @@ public class RedisServiceImpl implements RedisService {
         String key = buildOtpKey(userId, purpose);
         redisTemplate.delete(key);
     }
+
+    @Override
+    public boolean claimIdempotencyKey(String key, String requestHash, Duration ttl) {
+        IdempotencyRecord record = new IdempotencyRecord(IdempotencyRecord.IN_FLIGHT, requestHash, null, null);
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(buildIdempotencyKey(key), record, ttl));
+    }
+
+    @Override
+    public boolean extendIdempotencyClaim(String key, Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.expire(buildIdempotencyKey(key), ttl));
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> getIdempotencyRecord(String key) {
+        Object obj = redisTemplate.opsForValue().get(buildIdempotencyKey(key));
+        if (obj == null) return Optional.empty();
+
+        return Optional.of(objectMapper.convertValue(obj, IdempotencyRecord.class));
+    }
+
+    @Override
+    public void saveIdempotencyRecord(String key, IdempotencyRecord record, Duration ttl) {
+        redisTemplate.opsForValue().set(buildIdempotencyKey(key), record, ttl);
+    }
+
+    @Override
+    public void deleteIdempotencyRecord(String key) {
+        redisTemplate.delete(buildIdempotencyKey(key));
+    }
 }
@@ -1,28 +1,60 @@
 package com.example.banking.backend.service;
 
+import com.example.banking.backend.dto.request.transaction.BatchTransferRequest;
 import com.example.banking.backend.dto.request.transaction.InterbankTransferRequest;
 import com.example.banking.backend.dto.request.transaction.InternalDeposit;
 import com.example.banking.backend.dto.request.transaction.TransferExternalRequest;
 import com.example.banking.backend.dto.request.transaction.TransferRequest;
 import com.example.banking.backend.dto.response.transaction.*;
+import com.example.banking.backend.model.type.OutboxResolutionType;
+import com.example.banking.backend.service.outbox.InterbankOutboxDispatcher;
+import com.example.banking.backend.model.type.StatsIntervalType;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public interface TransactionService {
 
     TransferResult internalTransfer(TransferRequest request ,  Boolean needToCheckOtp);
 
+    /**
+     * Transfers to many internal accounts under a single OTP. The source is debited once for the total of the
+     * valid items; invalid items are reported in the result and do not fail the batch. The receivers are
+     * credited in chunks after the debit, and a receiver that cannot be credited gets its amount returned to
+     * the source and is reported as failed.
+     */
+    BatchTransferResult batchInternalTransfer(BatchTransferRequest request);
+
     TransferResult externalTransfer(TransferExternalRequest request) throws Exception;
 
     BankTransactionDto getBankTransactions(String startDate, String endDate, int limit, int page, String bankCode);
 
-    BankTransactionStatsDto getBankTransactionStats(String startDate, String endDate, String bankCode);
+    /**
+     * Cursor-based alternative to {@link #getBankTransactions}, newest first and without a count query.
+     * Pass a null cursor for the first slice; only that slice carries the approximate total, and only when
+     * {@code includeTotal} is set.
+     */
+    BankTransactionSliceDto getBankTransactionSlice(String startDate, String endDate, int limit, String cursor,
+                                                    String bankCode, boolean includeTotal);
+
+    BankTransactionStatsDto getBankTransactionStats(String startDate, String endDate, String bankCode, StatsIntervalType groupBy);
 
     DepositResult externalDeposit(InterbankTransferRequest request, String sourceBankCode,
                                   String timestamp, String receivedHmac, String signature) throws Exception;
 
     InternalDepositResult internalDeposit(InternalDeposit internalDeposit);
+
+    /**
+     * Interbank transfers whose delivery stayed unconfirmed after the last attempt, oldest first.
+     */
+    List<UnresolvedTransferDto> getUnresolvedInterbankTransfers();
+
+    /**
+     * Settles an unconfirmed interbank transfer with what the partner bank reported, see
+     * {@link InterbankOutboxDispatcher#resolve}.
+     */
+    void resolveInterbankTransfer(UUID transactionId, OutboxResolutionType resolution);
 }
@@ -1,5 +1,7 @@
 package com.example.banking.backend.service;
 
+import com.example.banking.backend.dto.request.transaction.BatchTransferItem;
+import com.example.banking.backend.dto.request.transaction.BatchTransferRequest;
 import com.example.banking.backend.dto.request.transaction.InterbankTransferRequest;
 import com.example.banking.backend.dto.request.transaction.InternalDeposit;
 import com.example.banking.backend.dto.request.transaction.TransferExternalRequest;
@@ -8,18 +10,37 @@ import com.example.banking.backend.dto.response.transaction.*;
 import com.example.banking.backend.exception.BadRequestException;
 import com.example.banking.backend.model.Account;
 import com.example.banking.backend.model.Bank;
+import com.example.banking.backend.model.InterbankOutbox;
 import com.example.banking.backend.model.Transaction;
 import com.example.banking.backend.model.User;
 import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.LedgerBookType;
 import com.example.banking.backend.model.type.OtpType;
+import com.example.banking.backend.model.type.OutboxResolutionType;
+import com.example.banking.backend.model.type.OutboxStatusType;
+import com.example.banking.backend.model.type.StatsIntervalType;
 import com.example.banking.backend.model.type.TransactionStatusType;
 import com.example.banking.backend.model.type.TransactionType;
-import com.example.banking.backend.repository.BankRepository;
 import com.example.banking.backend.repository.TransactionRepository;
-import com.example.banking.backend.repository.UserRepository;
 import com.example.banking.backend.repository.account.AccountRepository;
+import com.example.banking.backend.repository.journal.JournalWriter;
+import com.example.banking.backend.repository.outbox.InterbankOutboxRepository;
+import com.example.banking.backend.repository.partition.SettlementWindow;
+import com.example.banking.backend.repository.stats.DailyBankRollupRepository;
+import com.example.banking.backend.repository.transaction.BankTransactionSliceRepository;
+import com.example.banking.backend.repository.stats.TransactionStatsRepository;
+import com.example.banking.backend.repository.transfer.BalanceShardRepository;
+import com.example.banking.backend.repository.transfer.TransferExecutor;
+import com.example.banking.backend.repository.transfer.TransferLine;
+import com.example.banking.backend.repository.transfer.TransferOutcome;
 import com.example.banking.backend.security.jwt.CustomContextHolder;
-import com.example.banking.backend.util.CryptoUtils;
+import com.example.banking.backend.security.service.CurrentPrincipal;
+import com.example.banking.backend.service.batch.BatchTransferProcessor;
+import com.example.banking.backend.service.lock.AccountLockManager;
+import com.example.banking.backend.service.outbox.InterbankOutboxDispatcher;
+import com.example.banking.backend.service.partner.PartnerBank;
+import com.example.banking.backend.service.partner.PartnerBankRegistry;
+import com.example.banking.backend.util.KeysetCursor;
 import com.example.banking.backend.util.SignatureUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
@@ -27,34 +48,49 @@ import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
-import java.security.PublicKey;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
 
+    // Keeps an hourly series under ~750 points
+    private static final Duration MAX_HOURLY_STATS_RANGE = Duration.ofDays(31);
+    private static final int MAX_SLICE_SIZE = 500;
+
     private TransactionRepository transactionRepository;
     private AccountRepository accountRepository;
-    private BankRepository bankRepository;
-    private UserRepository userRepository;
-    private final RestTemplate restTemplate;
+    private InterbankOutboxRepository interbankOutboxRepository;
     OtpService otpService;
+    private TransferExecutor transferExecutor;
+    private AccountLockManager accountLockManager;
+    private PartnerBankRegistry partnerBankRegistry;
+    private TransactionStatsRepository transactionStatsRepository;
+    private DailyBankRollupRepository dailyBankRollupRepository;
+    private BankTransactionSliceRepository bankTransactionSliceRepository;
+    private SettlementWindow settlementWindow;
+    private BalanceShardRepository balanceShardRepository;
+    private JournalWriter journalWriter;
+    private CurrentPrincipal currentPrincipal;
+    private InterbankOutboxDispatcher interbankOutboxDispatcher;
+    private BatchTransferProcessor batchTransferProcessor;
 
 
     private Transaction createPendingTransaction(Account sourceAccount, Bank destinationBank,
@@ -76,166 +112,72 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
 
-    public TransferResult externalTransfer(TransferExternalRequest request) throws Exception {
-        try {
-            if (request == null || request.getAmount() <= 0) {
-                return new TransferResult(false, null, 0.0, 0.0, null, "Invalid request");
-            }
-
-            Account sourceAccount = accountRepository.findByUserId(getCurrentUser().getId())
-                    .orElseThrow(() -> new IllegalArgumentException("Source account not found"));
-
-            if (sourceAccount.getBalance() < request.getAmount()) {
-                return new TransferResult(false, null, request.getAmount(), 0.0, null, "Insufficient balance");
-            }
-
-            double fee = calculateFee(request.getAmount(), FeeType.SENDER);
-            double totalAmount = request.getAmount() + fee;
-
-            if (sourceAccount.getBalance() < totalAmount) {
-                return new TransferResult(false, null, request.getAmount(), fee, null, "Insufficient balance after fee");
-            }
-            if (request.getOtp() != null && !request.getOtp().isEmpty()) {
-                if (!otpService.validateOtp(
-                        getCurrentUser().getId(),
-                        OtpType.TRANSFER,
-                        request.getOtp())) throw new BadRequestException("Invalid OTP");
-            } else {
-                throw new BadRequestException("OTP is required for internal transfer");
-            }
-
-            Bank destinationBank = bankRepository.findByBankCode(request.getBankCode())
-                    .orElseThrow(() -> new IllegalArgumentException("Destination bank not found"));
-            Account accountCurrentUser = getAccountCurrentUser();
-
-            try {
-                Transaction transaction = new Transaction();
-                transaction.setTransactionType(TransactionType.INTERBANK_TRANSFER);
-                transaction.setFromAccount(accountCurrentUser);
-                transaction.setFromAccountNumber(accountCurrentUser.getAccountNumber());
-                transaction.setToAccountNumber(request.getReceiverAccountNumber());
-                transaction.setToAccount(null);
-                transaction.setAmount(request.getAmount());
-                transaction.setFee(fee);
-                transaction.setToBank(destinationBank);
-                transaction.setFeeType(FeeType.fromValue(request.getFeeType()));
-                transaction.setStatus(TransactionStatusType.PENDING);
-                transaction.setMessage(request.getContent());
-                Instant now = Instant.now();
-                transaction.setCreatedAt(now);
-                transaction.setUpdatedAt(now);
-                Transaction savedTransaction = transactionRepository.save(transaction);
-
-                String destinationApiUrl = destinationBank.getApiEndpoint();
-                if (destinationApiUrl == null || destinationApiUrl.trim().isEmpty()) {
-                    transactionRepository.delete(savedTransaction);
-                    throw new BadRequestException("Destination bank API endpoint is not configured");
-                }
-
-                try {
-                    InterbankTransferRequest interbankRequest = new InterbankTransferRequest(
-                            sourceAccount.getAccountNumber(),
-                            request.getReceiverAccountNumber(),
-                            request.getAmount(),
-                            request.getContent() != null ? request.getContent() : ""
-                    );
-                    String myBankCode = "FIN";
-                    String timestamp = String.valueOf(Instant.now().toEpochMilli());
-                    String requestBodyToSign = interbankRequest.toString();
-                    String hashInput = requestBodyToSign + timestamp + myBankCode + destinationBank.getSecretKey();
-                    String hmac = CryptoUtils.generateHMAC(hashInput, destinationBank.getSecretKey());
-                    String signature = SignatureUtil.signData(interbankRequest);
-
-                    // Setup headers
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.APPLICATION_JSON);
-                    headers.set("Bank-Code", myBankCode);
-                    headers.set("X-Timestamp", timestamp);
-                    headers.set("X-Request-Hash", hmac);
-                    headers.set("X-Signature", signature);
-
-                    // Tạo HTTP entity
-                    HttpEntity<InterbankTransferRequest> httpEntity = new HttpEntity<>(interbankRequest, headers);
-
-                    // Gửi request đến ngân hàng đích
-                    ResponseEntity<Map> response = restTemplate.exchange(
-                            destinationApiUrl + "/api/linked-banks/transfers",
-                            HttpMethod.POST,
-                            httpEntity,
-                            Map.class
-                    );
-
-                    // Xử lý response
-                    if (response.getStatusCode() == HttpStatus.OK) {
-                        accountCurrentUser.setBalance(accountCurrentUser.getBalance() - totalAmount);
-                        accountRepository.save(accountCurrentUser);
-                        savedTransaction.setStatus(TransactionStatusType.COMPLETED);
-                        transactionRepository.save(savedTransaction);
-
-                        return new TransferResult(
-                                true,
-                                savedTransaction.getId().toString(),
-                                request.getAmount(),
-                                fee,
-                                request.getContent() != null ? request.getContent() : "",
-                                null
-                        );
-                    } else {
-                        // HTTP error
-                        transactionRepository.delete(savedTransaction);
-                        return new TransferResult(false, null, request.getAmount(), fee, null,
-                                "External transfer failed: HTTP " + response.getStatusCode());
-                    }
-
-                } catch (HttpClientErrorException e) {
-                    transactionRepository.delete(savedTransaction);
-                    return new TransferResult(false, null, request.getAmount(), fee, null,
-                            "External transfer failed: HTTP Client Error - " + e.getMessage());
-
-                } catch (HttpServerErrorException e) {
-                    transactionRepository.delete(savedTransaction);
-                    return new TransferResult(false, null, request.getAmount(), fee, null,
-                            "External transfer failed: HTTP Server Error - " + e.getMessage());
-
-                } catch (ResourceAccessException e) {
-                    transactionRepository.delete(savedTransaction);
-                    return new TransferResult(false, null, request.getAmount(), fee, null,
-                            "External transfer failed: Connection Error - " + e.getMessage());
-
-                } catch (Exception e) {
-                    transactionRepository.delete(savedTransaction);
-                    return new TransferResult(false, null, request.getAmount(), fee, null,
-                            "External transfer failed: " + e.getMessage());
-                }
-
-            } catch (org.springframework.dao.InvalidDataAccessApiUsageException e) {
-                if (e.getCause() instanceof org.hibernate.TransientPropertyValueException) {
-                    throw new BadRequestException("Database constraint error: Invalid entity reference");
-                }
-                throw new BadRequestException("Database access error: " + e.getMessage());
-
-            } catch (org.springframework.dao.DataIntegrityViolationException e) {
-                throw new BadRequestException("Database constraint violation: " + e.getMessage());
-
-            } catch (org.springframework.transaction.TransactionSystemException e) {
-                Throwable rootCause = e.getRootCause();
-                if (rootCause != null) {
-                }
-                throw new BadRequestException("Transaction commit failed: " + e.getMessage());
+    /**
+     * Holds the amount and fee on the sender and queues the transfer in the outbox, all in one local
+     * transaction. Delivery to the partner bank happens in {@link InterbankOutboxDispatcher}, which
+     * settles the transaction and notifies the sender later.
+     */
+    @Override
+    @Transactional
+    public TransferResult externalTransfer(TransferExternalRequest request) {
+        if (request == null || request.getAmount() == null || request.getAmount() <= 0) {
+            return new TransferResult(false, null, 0.0, 0.0, null, "Invalid request");
+        }
+        if (request.getOtp() != null && !request.getOtp().isEmpty()) {
+            if (!otpService.validateOtp(
+                    CustomContextHolder.getCurrentUserId(),
+                    OtpType.TRANSFER,
+                    request.getOtp())) throw new BadRequestException("Invalid OTP");
+        } else {
+            throw new BadRequestException("OTP is required for internal transfer");
+        }
 
-            } catch (Exception e) {
-                throw new BadRequestException("Transaction creation failed: " + e.getMessage());
-            }
+        Account sourceAccount = getAccountCurrentUser();
+        Bank destinationBank = partnerBankRegistry.find(request.getBankCode())
+                .map(PartnerBank::getBank)
+                .orElseThrow(() -> new BadRequestException("Destination bank not found"));
+        if (destinationBank.getApiEndpoint() == null || destinationBank.getApiEndpoint().trim().isEmpty()) {
+            throw new BadRequestException("Destination bank API endpoint is not configured");
+        }
 
-        } catch (IllegalArgumentException e) {
-            return new TransferResult(false, null, 0.0, 0.0, null, e.getMessage());
+        double fee = calculateFee(request.getAmount(), FeeType.SENDER);
+        double totalAmount = request.getAmount() + fee;
 
-        } catch (BadRequestException e) {
-            throw e;
+        // Saved first so the hold is posted against it; a failed hold rolls the row back
+        Instant now = Instant.now();
+        Transaction transaction = createPendingTransaction(sourceAccount, destinationBank, request, fee);
+        transaction.setCreatedAt(now);
+        transaction.setUpdatedAt(now);
+        Transaction savedTransaction = transactionRepository.save(transaction);
 
-        } catch (Exception e) {
-            throw new Exception("External transfer failed: " + e.getMessage(), e);
+        Double balance = accountLockManager.callWithLock(sourceAccount.getAccountNumber(),
+                () -> transferExecutor.debit(sourceAccount.getAccountId(), totalAmount, savedTransaction.getId(),
+                        LedgerBookType.INTERBANK_CLEARING));
+        if (balance == null) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return new TransferResult(false, null, request.getAmount(), fee, null, "Insufficient balance");
         }
+        dailyBankRollupRepository.record(savedTransaction);
+
+        InterbankOutbox outbox = new InterbankOutbox();
+        outbox.setTransactionId(savedTransaction.getId());
+        outbox.setBankId(destinationBank.getId());
+        outbox.setStatus(OutboxStatusType.PENDING);
+        outbox.setAttempts(0);
+        outbox.setDeliveryUncertain(false);
+        outbox.setNextAttemptAt(now);
+        outbox.setCreatedAt(now);
+        outbox.setUpdatedAt(now);
+        interbankOutboxRepository.save(outbox);
+
+        return new TransferResult(
+                true,
+                savedTransaction.getId().toString(),
+                request.getAmount(),
+                fee,
+                request.getContent() != null ? request.getContent() : "",
+                null
+        );
     }
 
     @Override
@@ -246,8 +188,9 @@ public class TransactionServiceImpl implements TransactionService {
             throw new BadRequestException("Invalid request parameters");
         }
         if (!SignatureUtil.isTimestampWithin5Minutes(timestamp)) throw new BadRequestException("Expired ,do it again");
-        Bank sourceBank = bankRepository.findByBankCode(sourceBankCode)
+        PartnerBank sourcePartner = partnerBankRegistry.find(sourceBankCode)
                 .orElseThrow(() -> new IllegalArgumentException("Source bank not found: " + sourceBankCode));
+        Bank sourceBank = sourcePartner.getBank();
         Account destinationAccount = accountRepository.findByAccountNumber(request.getReceiverAccountNumber())
                 .orElse(null);
 
@@ -260,15 +203,14 @@ public class TransactionServiceImpl implements TransactionService {
         ObjectMapper objectMapper = new ObjectMapper();
         String requestBody = objectMapper.writeValueAsString(request);
         String expectedHashInput = requestBody + timestamp + sourceBankCode + sourceBank.getSecretKey();
-        String expectedHmac = CryptoUtils.generateHMAC(expectedHashInput, sourceBank.getSecretKey());
+        String expectedHmac = sourcePartner.hmac(expectedHashInput);
 
         if (!expectedHmac.equals(receivedHmac)) {
             throw new BadRequestException("HMAC verification failed - packet integrity compromised");
         }
 
         // Verify signature
-        PublicKey sourcePublicKey = CryptoUtils.loadPublicKey(sourceBank.getPublicKey());
-        if (sourcePublicKey == null || !CryptoUtils.verifySignature(requestBody, signature, sourcePublicKey)) {
+        if (!sourcePartner.verifySignature(requestBody, signature)) {
             throw new BadRequestException("Digital signature verification failed");
         }
         Transaction transaction = new Transaction();
@@ -288,11 +230,13 @@ public class TransactionServiceImpl implements TransactionService {
         Instant now = Instant.now();
         transaction.setCreatedAt(now);
         transaction.setUpdatedAt(now);
-        Transaction savedTransaction = transactionRepository.save(transaction);
-        double oldBalance = destinationAccount.getBalance();
-        double newBalance = oldBalance + request.getAmount();
-        destinationAccount.setBalance(newBalance);
-        accountRepository.save(destinationAccount);
+        runCredit(destinationAccount, () -> journalWriter.write(batch -> {
+            batch.insert(transaction);
+            transferExecutor.adjustBalance(destinationAccount.getAccountId(), request.getAmount(),
+                    transaction.getId(), LedgerBookType.INTERBANK_CLEARING);
+            dailyBankRollupRepository.record(transaction);
+            return null;
+        }));
 
         return new DepositResult(
                 "Transfer completed successfully"
@@ -322,27 +266,45 @@ public class TransactionServiceImpl implements TransactionService {
         Instant now = Instant.now();
         transaction.setCreatedAt(now);
         transaction.setUpdatedAt(now);
-        // Save transaction
-        var savedTransaction = transactionRepository.save(transaction);
-
+        runCredit(toAccount, () -> journalWriter.write(batch -> {
+            batch.insert(transaction);
+            transferExecutor.adjustBalance(toAccount.getAccountId(), internalDeposit.getAmount(),
+                    transaction.getId(), LedgerBookType.CASH);
+            return null;
+        }));
 
-        toAccount.setBalance(toAccount.getBalance() + internalDeposit.getAmount());
-        accountRepository.save(toAccount);
+        return new InternalDepositResult(true);
+    }
 
-        // Update transaction status to COMPLETED
-        savedTransaction.setUpdatedAt(Instant.now());
-        savedTransaction = transactionRepository.save(savedTransaction);
 
-        return new InternalDepositResult(true);
+    /**
+     * Account numbers to lock for a movement from {@code debited} to {@code credited}. A sharded receiver is
+     * left out: its credit only updates a random shard row, which the database already serializes. It is
+     * kept when the sender is sharded as well, so two sharded accounts paying each other cannot fold and
+     * credit each other's shards in opposite orders.
+     */
+    private List<String> lockedAccounts(Account debited, Account credited) {
+        if (balanceShardRepository.isSharded(credited.getAccountId())
+                && !balanceShardRepository.isSharded(debited.getAccountId())) {
+            return List.of(debited.getAccountNumber());
+        }
+        return List.of(debited.getAccountNumber(), credited.getAccountNumber());
     }
 
+    private void runCredit(Account account, Runnable credit) {
+        if (balanceShardRepository.isSharded(account.getAccountId())) {
+            credit.run();
+        } else {
+            accountLockManager.runWithLock(account.getAccountNumber(), credit);
+        }
+    }
 
     private double calculateFee(double amount, FeeType feeType) {
         return 0.0;
     }
 
     Account getAccountCurrentUser() {
-        return accountRepository.findByUserId(CustomContextHolder.getCurrentUserId())
+        return currentPrincipal.findAccount()
                 .orElseThrow(() -> new RuntimeException("Please sign in first "));
     }
 
@@ -352,12 +314,11 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     User getCurrentUser() {
-        return userRepository.findById(CustomContextHolder.getCurrentUserId())
+        return currentPrincipal.findUser()
                 .orElseThrow(() -> new BadRequestException("NOT FOUND CURRENT USER"));
     }
 
     @Override
-    @Transactional
     public TransferResult internalTransfer(TransferRequest request , Boolean needToCheckOtp) {
 
 
@@ -367,30 +328,14 @@ public class TransactionServiceImpl implements TransactionService {
         if (toAccount == null) {
             throw new BadRequestException("Receiver account not found");
         }
-
-        // Kiểm tra số dư
-        double fee = calculateFee(request.getAmount(), request.getFeeType());
-        double totalAmount = request.getAmount() + fee;
-
-        if (accountCurrentUser.getBalance() < totalAmount) {
-            throw new BadRequestException("Insufficient balance");
+        if (accountCurrentUser.getAccountId().equals(toAccount.getAccountId())) {
+            throw new BadRequestException("Cannot transfer to your own account");
+        }
+        if (request.getAmount() == null || request.getAmount() <= 0) {
+            throw new BadRequestException("Amount must be greater than 0");
         }
-        Transaction transaction = new Transaction();
-        transaction.setTransactionType(TransactionType.INTERNAL_TRANSFER);
-        transaction.setFromAccount(accountCurrentUser);
-        transaction.setFromAccountNumber(accountCurrentUser.getAccountNumber());
-        transaction.setToAccountNumber(request.getAccountNumberReceiver());
-        transaction.setToAccount(toAccount);
-        transaction.setAmount(request.getAmount());
-        transaction.setFee(fee);
-        transaction.setFeeType(request.getFeeType());
-        transaction.setStatus(TransactionStatusType.PENDING);
-        transaction.setMessage(request.getMessage());
 
-        // Set timestamps manually
-        Instant now = Instant.now();
-        transaction.setCreatedAt(now);
-        transaction.setUpdatedAt(now);
+        double fee = calculateFee(request.getAmount(), request.getFeeType());
 
         // Validate OTP if provided
         if (needToCheckOtp) {
@@ -403,24 +348,28 @@ public class TransactionServiceImpl implements TransactionService {
                 throw new BadRequestException("OTP is required for internal transfer");
             }
         }
-        // Save transaction
-        var savedTransaction = transactionRepository.save(transaction);
-
-        // Update account balances
-        accountCurrentUser.setBalance(accountCurrentUser.getBalance() - totalAmount);
-        accountRepository.save(accountCurrentUser);
-
-        toAccount.setBalance(toAccount.getBalance() + request.getAmount());
-        accountRepository.save(toAccount);
 
-        // Update transaction status to COMPLETED
-        savedTransaction.setStatus(TransactionStatusType.COMPLETED);
-        savedTransaction.setUpdatedAt(Instant.now());
-        savedTransaction = transactionRepository.save(savedTransaction);
+        // Balance check, debit and credit happen in one statement; the journal row joins the rows of the
+        // transfers that arrive at the same time, committed together. The locks are held until that commit.
+        TransferOutcome outcome = accountLockManager.callWithLocks(
+                lockedAccounts(accountCurrentUser, toAccount),
+                () -> journalWriter.write(batch -> transferExecutor.transfer(
+                        batch,
+                        accountCurrentUser,
+                        toAccount,
+                        request.getAmount(),
+                        fee,
+                        request.getFeeType(),
+                        TransactionType.INTERNAL_TRANSFER,
+                        request.getMessage())));
+
+        if (outcome == null) {
+            throw new BadRequestException("Insufficient balance");
+        }
 
         return new TransferResult(
                 true,
-                savedTransaction.getId().toString(),
+                outcome.getTransactionId().toString(),
                 request.getAmount(),
                 fee,
                 request.getMessage() != null ? request.getMessage() : "",
@@ -428,6 +377,73 @@ public class TransactionServiceImpl implements TransactionService {
         );
     }
 
+    @Override
+    public BatchTransferResult batchInternalTransfer(BatchTransferRequest request) {
+        Account sourceAccount = getAccountCurrentUser();
+
+        // One OTP covers the whole batch
+        if (!otpService.validateOtp(CustomContextHolder.getCurrentUserId(), OtpType.TRANSFER, request.getOtp())) {
+            throw new BadRequestException("Invalid OTP");
+        }
+
+        Set<String> receiverNumbers = request.getItems().stream()
+                .map(BatchTransferItem::getAccountNumberReceiver)
+                .collect(Collectors.toSet());
+        Map<String, Account> receivers = accountRepository.findByAccountNumberIn(receiverNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        List<BatchTransferItem> items = request.getItems();
+        TransferResult[] results = new TransferResult[items.size()];
+        List<TransferLine> lines = new ArrayList<>();
+        List<Integer> lineIndexes = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransferItem item = items.get(i);
+            Account toAccount = receivers.get(item.getAccountNumberReceiver());
+            if (toAccount == null) {
+                results[i] = new TransferResult(false, null, item.getAmount(), 0.0, null, "Receiver account not found");
+            } else if (toAccount.getAccountId().equals(sourceAccount.getAccountId())) {
+                results[i] = new TransferResult(false, null, item.getAmount(), 0.0, null, "Cannot transfer to your own account");
+            } else if (item.getAmount() == null || item.getAmount() <= 0) {
+                results[i] = new TransferResult(false, null, item.getAmount(), 0.0, null, "Amount must be greater than 0");
+            } else {
+                String message = item.getMessage() != null && !item.getMessage().isBlank()
+                        ? item.getMessage() : request.getMessage();
+                lines.add(new TransferLine(toAccount, item.getAmount(),
+                        calculateFee(item.getAmount(), request.getFeeType()), message));
+                lineIndexes.add(i);
+            }
+        }
+
+        double totalDebited = 0.0;
+        int succeeded = 0;
+        if (!lines.isEmpty()) {
+            // Not in a transaction: each step of the batch commits through the journal writer on its own
+            List<UUID> transactionIds = batchTransferProcessor.transfer(
+                    sourceAccount, lines, request.getFeeType(), TransactionType.INTERNAL_TRANSFER);
+
+            if (transactionIds == null) {
+                throw new BadRequestException("Insufficient balance for the whole batch");
+            }
+
+            for (int k = 0; k < lines.size(); k++) {
+                TransferLine line = lines.get(k);
+                UUID transactionId = transactionIds.get(k);
+                if (transactionId == null) {
+                    results[lineIndexes.get(k)] = new TransferResult(false, null, line.getAmount(), 0.0, null,
+                            "Receiver could not be credited, the amount has been returned to the source account");
+                    continue;
+                }
+                results[lineIndexes.get(k)] = new TransferResult(true, transactionId.toString(),
+                        line.getAmount(), line.getFee(), line.getMessage(), null);
+                totalDebited += line.getAmount() + line.getFee();
+                succeeded++;
+            }
+        }
+
+        return new BatchTransferResult(items.size(), succeeded, items.size() - succeeded,
+                totalDebited, List.of(results));
+    }
+
     @Override
     public BankTransactionDto getBankTransactions(String startDate, String endDate, int limit, int page, String bankCode) {
         if (limit <= 0 || page <= 0) {
@@ -448,10 +464,11 @@ public class TransactionServiceImpl implements TransactionService {
         Pageable pageable = PageRequest.of(pageNumber, limit);
         Instant startInstant = startDateTime.atZone(ZoneId.of("Asia/Ho_Chi_Minh")).toInstant();
         Instant endInstant = endDateTime.atZone(ZoneId.of("Asia/Ho_Chi_Minh")).toInstant();
+        Instant createdFrom = settlementWindow.earliestCreatedAt(startInstant);
         Page<Transaction> transactionPage = bankCode == null ?
-                transactionRepository.findByUpdatedAtBetween(startInstant, endInstant, pageable)
+                transactionRepository.findByUpdatedAtBetween(startInstant, endInstant, createdFrom, pageable)
                 : transactionRepository.findByUpdatedAtBetweenAndBankCode(
-                startInstant, endInstant, bankCode, pageable);
+                startInstant, endInstant, createdFrom, bankCode, pageable);
 
         List<TransactionDto> transactionDtos = transactionPage.getContent().stream()
                 .map(transaction -> new TransactionDto(
@@ -475,7 +492,44 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    public BankTransactionStatsDto getBankTransactionStats(String startDate, String endDate, String bankCode) {
+    public BankTransactionSliceDto getBankTransactionSlice(String startDate, String endDate, int limit, String cursor,
+                                                           String bankCode, boolean includeTotal) {
+        if (limit <= 0 || limit > MAX_SLICE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SLICE_SIZE);
+        }
+        LocalDate startDay;
+        LocalDate endDay;
+        try {
+            startDay = LocalDate.parse(startDate);
+            endDay = LocalDate.parse(endDate);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format. Use YYYY-MM-DD, e.g., 2025-06-02");
+        }
+        if (endDay.isBefore(startDay)) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+
+        // One extra row tells whether another slice follows
+        List<TransactionDto> rows = bankTransactionSliceRepository.findSlice(
+                startDay.atStartOfDay(), endDay.plusDays(1).atStartOfDay(), bankCode, keysetCursor, limit + 1);
+        List<TransactionDto> slice = rows.size() > limit ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            TransactionDto last = slice.get(slice.size() - 1);
+            nextCursor = new KeysetCursor(last.getTransactionDate(), UUID.fromString(last.getId())).encode();
+        }
+        Long approximateTotal = includeTotal && keysetCursor == null
+                ? transactionStatsRepository.countTransactions(startDay, endDay, bankCode)
+                : null;
+
+        return new BankTransactionSliceDto(new ArrayList<>(slice), limit, slice.size(), nextCursor, approximateTotal);
+    }
+
+    @Override
+    public BankTransactionStatsDto getBankTransactionStats(String startDate, String endDate, String bankCode,
+                                                          StatsIntervalType groupBy) {
 
 
         LocalDateTime startDateTime;
@@ -489,22 +543,45 @@ public class TransactionServiceImpl implements TransactionService {
         } catch (DateTimeParseException e) {
             throw new IllegalArgumentException("Invalid date format. Use YYYY-MM-DD, e.g., 2025-06-02");
         }
-        Instant startInstant = startDateTime.atZone(ZoneId.of("Asia/Ho_Chi_Minh")).toInstant();
-        Instant endInstant = endDateTime.atZone(ZoneId.of("Asia/Ho_Chi_Minh")).toInstant();
+        LocalDate startDay = startDateTime.toLocalDate();
+        LocalDate endDay = endDateTime.toLocalDate();
 
-        List<Transaction> transactions = bankCode == null ?
-                transactionRepository.findByUpdatedAtBetween(
-                        startInstant, endInstant) :
-                transactionRepository.findByBankCodeAndUpdatedAtBetween(
-                        startInstant, endInstant, bankCode);
-
-        long totalTransactions = transactions.size();
-        double totalAmount = transactions.stream()
-                .mapToDouble(Transaction::getAmount)
-                .sum();
+        if (groupBy == StatsIntervalType.HOUR
+                && Duration.between(startDateTime, endDateTime).compareTo(MAX_HOURLY_STATS_RANGE) > 0) {
+            throw new IllegalArgumentException("Hourly statistics are limited to " + MAX_HOURLY_STATS_RANGE.toDays() + " days");
+        }
 
-        return new BankTransactionStatsDto(totalTransactions, totalAmount, startDateTime, endDateTime, bankCode);
+        BankTransactionStatsDto stats = transactionStatsRepository.summarize(startDay, endDay, bankCode);
+        stats.setStartDate(startDateTime);
+        stats.setEndDate(endDateTime);
+        stats.setBankCode(bankCode);
+        if (groupBy != null) {
+            stats.setGroupBy(groupBy);
+            stats.setSeries(transactionStatsRepository.series(startDay, endDay, bankCode, groupBy));
+        }
+        return stats;
     }
 
+    @Override
+    public List<UnresolvedTransferDto> getUnresolvedInterbankTransfers() {
+        List<InterbankOutbox> parked = interbankOutboxDispatcher.findUnresolved();
+        Map<UUID, Transaction> transactions = transactionRepository.findAllById(
+                        parked.stream().map(InterbankOutbox::getTransactionId).toList())
+                .stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        return parked.stream()
+                .filter(entry -> transactions.containsKey(entry.getTransactionId()))
+                .map(entry -> {
+                    Transaction transaction = transactions.get(entry.getTransactionId());
+                    return new UnresolvedTransferDto(transaction.getId(), transaction.getFromAccountNumber(),
+                            transaction.getToBank().getBankCode(), transaction.getToAccountNumber(),
+                            transaction.getAmount(), entry.getAttempts(), entry.getLastError(), entry.getUpdatedAt());
+                })
+                .toList();
+    }
 
-}
\ No newline at end of file
+    @Override
+    public void resolveInterbankTransfer(UUID transactionId, OutboxResolutionType resolution) {
+        interbankOutboxDispatcher.resolve(transactionId, resolution);
+    }
+}
@@ -11,8 +11,10 @@ import com.example.banking.backend.mapper.user.UserMapper;
 import com.example.banking.backend.model.User;
 import com.example.banking.backend.model.type.UserRoleType;
 import com.example.banking.backend.repository.UserRepository;
-import com.example.banking.backend.security.jwt.CustomContextHolder;
+import com.example.banking.backend.security.service.CurrentPrincipal;
+import com.example.banking.backend.security.service.UserChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +31,8 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CurrentPrincipal currentPrincipal;
 
     private Instant getCurrentTime() {
         return ZonedDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).toInstant();
@@ -127,6 +131,7 @@ public class UserServiceImpl implements UserService {
         user.setUpdatedAt(getCurrentTime());
 
         User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
         return UserDto.builder()
                 .id(user.getId())
                 .dob(user.getDob())
@@ -149,10 +154,11 @@ public class UserServiceImpl implements UserService {
             throw new ExistenceException("User not found!");
         }
         userRepository.deleteById(userId);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, null));
     }
 
     User getCurrentUser() {
-        return userRepository.findById(CustomContextHolder.getCurrentUserId())
+        return currentPrincipal.findUser()
                 .orElseThrow(() -> new NotFoundException("NOT FOUND CURRENT USER"));
     }
 
@@ -166,5 +172,6 @@ public class UserServiceImpl implements UserService {
         String hashedPassword = passwordEncoder.encode(request.getNewPassword());
         user.setPassword(hashedPassword);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
     }
 }
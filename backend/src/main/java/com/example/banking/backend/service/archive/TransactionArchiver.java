@@ -0,0 +1,151 @@
+package com.example.banking.backend.service.archive;
+
+import com.example.banking.backend.repository.archive.ArchivedAccountCountRepository;
+import com.example.banking.backend.repository.archive.ArchivedTransaction;
+import com.example.banking.backend.repository.archive.SegmentStats;
+import com.example.banking.backend.repository.archive.TransactionArchiveStore;
+import com.example.banking.backend.repository.archive.TransactionSegmentWriter;
+import com.example.banking.backend.repository.partition.TransactionPartitionRepository;
+import com.example.banking.backend.service.partition.TransactionPartitionMaintainer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Moves months of transactions older than {@code banking.archive.after-months} out of PostgreSQL into
+ * archive segments. A month is copied from its partition table, the segment is checked against the table
+ * and only then is the table dropped, so a failure at any step leaves the month readable from the database.
+ * The whole move holds the partition maintenance lock. Off unless both the months and a shared
+ * {@code banking.archive.directory} are configured.
+ */
+@Slf4j
+@Component
+public class TransactionArchiver {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    private final TransactionPartitionRepository partitionRepository;
+    private final TransactionPartitionMaintainer partitionMaintainer;
+    private final TransactionArchiveStore archiveStore;
+    private final ArchivedAccountCountRepository accountCountRepository;
+    private final int afterMonths;
+    private final int fetchSize;
+
+    public TransactionArchiver(TransactionPartitionRepository partitionRepository,
+                               TransactionPartitionMaintainer partitionMaintainer,
+                               TransactionArchiveStore archiveStore,
+                               ArchivedAccountCountRepository accountCountRepository,
+                               @Value("${banking.archive.after-months:0}") int afterMonths,
+                               @Value("${banking.archive.fetch-size:1000}") int fetchSize) {
+        if (afterMonths > 0 && !archiveStore.isConfigured()) {
+            throw new IllegalStateException("banking.archive.after-months needs banking.archive.directory");
+        }
+        this.partitionRepository = partitionRepository;
+        this.partitionMaintainer = partitionMaintainer;
+        this.archiveStore = archiveStore;
+        this.accountCountRepository = accountCountRepository;
+        this.afterMonths = afterMonths;
+        this.fetchSize = fetchSize;
+    }
+
+    @Scheduled(cron = "${banking.archive.cron:0 0 2 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void archiveOldMonths() {
+        if (afterMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = YearMonth.now(ZONE).minusMonths(afterMonths);
+        Set<YearMonth> months = new TreeSet<>(partitionRepository.findAttachedMonths());
+        months.addAll(partitionRepository.findDetachedMonths());
+
+        for (YearMonth month : months) {
+            if (!month.isBefore(oldestKept) || !partitionMaintainer.isSettled(month)) {
+                continue;
+            }
+            try {
+                archive(month);
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to archive transactions of {}, the month stays in the database", month, e);
+            }
+        }
+    }
+
+    /**
+     * Writes the segment of {@code month} from its partition table, attached or detached, and drops the
+     * table once the segment holds every row. Skipped when another instance holds the maintenance lock.
+     *
+     * @throws IllegalArgumentException when transactions of {@code month} may still be settling
+     */
+    public void archive(YearMonth month) throws IOException {
+        if (!archiveStore.isConfigured()) {
+            throw new IllegalStateException("banking.archive.directory is not configured");
+        }
+        long[] archived = {0};
+        boolean dropped;
+        try {
+            dropped = partitionMaintainer.copyAndDrop(month, () -> archived[0] = copy(month));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (dropped) {
+            log.info("Archived {} transactions of {}", archived[0], month);
+        }
+    }
+
+    /**
+     * Runs in the transaction that drops the table, the rows and their count come from its snapshot.
+     */
+    private long copy(YearMonth month) {
+        TransactionSegmentWriter writer = new TransactionSegmentWriter();
+        partitionRepository.forEachRow(month, fetchSize, rs -> writer.append(toArchivedTransaction(rs)));
+        long expected = partitionRepository.countRows(month);
+        if (writer.getRowCount() != expected) {
+            throw new IllegalStateException("Read " + writer.getRowCount() + " of " + expected
+                    + " transactions of " + month);
+        }
+
+        try {
+            archiveStore.write(month, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        SegmentStats stats = archiveStore.readStats(month);
+        if (stats.getRowCount() != expected) {
+            throw new IllegalStateException("Segment of " + month + " holds " + stats.getRowCount()
+                    + " of " + expected + " transactions");
+        }
+
+        accountCountRepository.record(month);
+        return expected;
+    }
+
+    private static ArchivedTransaction toArchivedTransaction(ResultSet rs) throws SQLException {
+        return new ArchivedTransaction(
+                rs.getObject("transaction_id", UUID.class),
+                rs.getString("transaction_type"),
+                rs.getObject("from_bank_id", UUID.class),
+                rs.getObject("from_account_id", UUID.class),
+                rs.getString("from_account_number"),
+                rs.getObject("to_bank_id", UUID.class),
+                rs.getObject("to_account_id", UUID.class),
+                rs.getString("to_account_number"),
+                rs.getDouble("amount"),
+                rs.getDouble("fee"),
+                rs.getString("fee_type"),
+                rs.getString("status"),
+                rs.getString("message"),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getTimestamp("updated_at").toInstant());
+    }
+}
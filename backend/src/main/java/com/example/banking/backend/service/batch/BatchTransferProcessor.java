@@ -0,0 +1,169 @@
+package com.example.banking.backend.service.batch;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.Transaction;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.TransactionRepository;
+import com.example.banking.backend.repository.journal.JournalWriter;
+import com.example.banking.backend.repository.transfer.BalanceShardRepository;
+import com.example.banking.backend.repository.transfer.HeldBatch;
+import com.example.banking.backend.repository.transfer.TransferExecutor;
+import com.example.banking.backend.repository.transfer.TransferLine;
+import com.example.banking.backend.service.lock.AccountLockManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a batch transfer as a series of movements through the {@link JournalWriter}, none of which holds
+ * more than a chunk's worth of locks. The source is debited once for the batch total under its own lock,
+ * with a PENDING journal row per line. The receivers are then credited a chunk at a time, each chunk under
+ * the locks of its receivers and committed before the next one starts, so a batch takes its locks like a
+ * single transfer does and cannot deadlock with the transfers the journal writer commits meanwhile.
+ * <p>
+ * A chunk that fails is tried again line by line, and a line that still fails is refunded to the source.
+ * Lines a crash left PENDING are refunded by {@link #refundStalled()}.
+ */
+@Slf4j
+@Component
+public class BatchTransferProcessor {
+
+    private final TransferExecutor transferExecutor;
+    private final JournalWriter journalWriter;
+    private final AccountLockManager accountLockManager;
+    private final BalanceShardRepository balanceShardRepository;
+    private final TransactionRepository transactionRepository;
+    private final int chunkSize;
+    private final Duration stalledAfter;
+
+    public BatchTransferProcessor(TransferExecutor transferExecutor,
+                                  JournalWriter journalWriter,
+                                  AccountLockManager accountLockManager,
+                                  BalanceShardRepository balanceShardRepository,
+                                  TransactionRepository transactionRepository,
+                                  @Value("${banking.batch-transfer.chunk-size:100}") int chunkSize,
+                                  @Value("${banking.batch-transfer.stalled-after-seconds:300}") long stalledAfterSeconds) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("banking.batch-transfer.chunk-size must be positive");
+        }
+        this.transferExecutor = transferExecutor;
+        this.journalWriter = journalWriter;
+        this.accountLockManager = accountLockManager;
+        this.balanceShardRepository = balanceShardRepository;
+        this.transactionRepository = transactionRepository;
+        this.chunkSize = chunkSize;
+        this.stalledAfter = Duration.ofSeconds(stalledAfterSeconds);
+    }
+
+    /**
+     * Must not be called inside a transaction: the journal writer would run every step in it.
+     *
+     * @return for each line, the id of its journal row, or null when the line could not be credited and its
+     * amount went back to the source; null instead of a list when the source does not hold the batch total
+     */
+    public List<UUID> transfer(Account fromAccount, List<TransferLine> lines, FeeType feeType,
+                               TransactionType transactionType) {
+        HeldBatch held = accountLockManager.callWithLock(fromAccount.getAccountNumber(),
+                () -> journalWriter.write(batch -> transferExecutor.holdBatch(
+                        batch, fromAccount, lines, feeType, transactionType)));
+        if (held == null) {
+            return null;
+        }
+
+        List<UUID> transactionIds = held.getTransactionIds();
+        Set<UUID> credited = new HashSet<>();
+        for (int start = 0; start < lines.size(); start += chunkSize) {
+            int end = Math.min(start + chunkSize, lines.size());
+            credited.addAll(creditChunk(lines.subList(start, end), transactionIds.subList(start, end),
+                    held.getCreatedAt()));
+        }
+
+        List<UUID> notCredited = transactionIds.stream().filter(id -> !credited.contains(id)).toList();
+        if (!notCredited.isEmpty()) {
+            refund(fromAccount.getAccountNumber(), notCredited, held.getCreatedAt());
+        }
+        List<UUID> results = new ArrayList<>(transactionIds.size());
+        for (UUID transactionId : transactionIds) {
+            results.add(credited.contains(transactionId) ? transactionId : null);
+        }
+        return results;
+    }
+
+    /**
+     * Refunds the batch lines left PENDING for longer than a batch takes. Their batch stopped before
+     * crediting them, and the caller never learnt they went through.
+     */
+    @Scheduled(fixedDelayString = "${banking.batch-transfer.recovery-interval-ms:60000}")
+    public void refundStalled() {
+        List<Transaction> stalled = transactionRepository.findStalledBatchLines(Instant.now().minus(stalledAfter),
+                chunkSize * 10);
+        if (stalled.isEmpty()) {
+            return;
+        }
+        log.warn("Refunding {} batch transfer lines left pending", stalled.size());
+
+        Map<String, Map<Instant, List<UUID>>> batches = stalled.stream().collect(Collectors.groupingBy(
+                Transaction::getFromAccountNumber, LinkedHashMap::new, Collectors.groupingBy(
+                        Transaction::getCreatedAt, LinkedHashMap::new,
+                        Collectors.mapping(Transaction::getId, Collectors.toList()))));
+        batches.forEach((fromAccountNumber, byCreatedAt) -> byCreatedAt.forEach((createdAt, transactionIds) -> {
+            try {
+                refund(fromAccountNumber, transactionIds, createdAt);
+            } catch (RuntimeException e) {
+                log.error("Could not refund the pending batch lines of account {}", fromAccountNumber, e);
+            }
+        }));
+    }
+
+    /**
+     * @return the lines that were credited, by this call or before it
+     */
+    private List<UUID> creditChunk(List<TransferLine> lines, List<UUID> transactionIds, Instant createdAt) {
+        try {
+            return credit(lines, transactionIds, createdAt);
+        } catch (RuntimeException e) {
+            log.warn("Could not credit a chunk of {} batch lines, crediting them one by one", lines.size(), e);
+        }
+        List<UUID> credited = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                credited.addAll(credit(List.of(lines.get(i)), List.of(transactionIds.get(i)), createdAt));
+            } catch (RuntimeException e) {
+                log.warn("Could not credit batch line {}, it will be refunded", transactionIds.get(i), e);
+            }
+        }
+        return credited;
+    }
+
+    private List<UUID> credit(List<TransferLine> lines, List<UUID> transactionIds, Instant createdAt) {
+        // Locked like the receiver of a single transfer: a credit to a sharded account only touches a shard
+        List<String> lockedAccounts = lines.stream()
+                .map(TransferLine::getToAccount)
+                .filter(account -> !balanceShardRepository.isSharded(account.getAccountId()))
+                .map(Account::getAccountNumber)
+                .toList();
+        return accountLockManager.callWithLocks(lockedAccounts,
+                () -> journalWriter.write(batch -> transferExecutor.creditBatch(transactionIds, createdAt)));
+    }
+
+    private void refund(String fromAccountNumber, List<UUID> transactionIds, Instant createdAt) {
+        for (int start = 0; start < transactionIds.size(); start += chunkSize) {
+            List<UUID> chunk = transactionIds.subList(start, Math.min(start + chunkSize, transactionIds.size()));
+            accountLockManager.callWithLock(fromAccountNumber,
+                    () -> journalWriter.write(batch -> transferExecutor.refundBatch(chunk, createdAt)));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.banking.backend.service.export;
+
+import com.example.banking.backend.repository.export.TransactionExportRow;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * RFC 4180 CSV with a header line. Fields containing a delimiter, quote or line break are quoted.
+ */
+class CsvTransactionExportWriter implements TransactionExportWriter {
+
+    private static final String HEADER = "transaction_id,created_at,updated_at,transaction_type,status,direction,"
+            + "bank_code,from_account_number,to_account_number,amount,fee,fee_type,message\r\n";
+
+    private final Writer writer;
+
+    CsvTransactionExportWriter(Writer writer) throws IOException {
+        this.writer = writer;
+        writer.write(HEADER);
+    }
+
+    @Override
+    public void writeRow(TransactionExportRow row) throws IOException {
+        writer.write(row.getTransactionId());
+        writer.write(',');
+        writer.write(row.getCreatedAt().toString());
+        writer.write(',');
+        writer.write(row.getUpdatedAt().toString());
+        writer.write(',');
+        writeField(row.getTransactionType());
+        writer.write(',');
+        writeField(row.getStatus());
+        writer.write(',');
+        writeField(row.getDirection());
+        writer.write(',');
+        writeField(row.getBankCode());
+        writer.write(',');
+        writeField(row.getFromAccountNumber());
+        writer.write(',');
+        writeField(row.getToAccountNumber());
+        writer.write(',');
+        writer.write(Double.toString(row.getAmount()));
+        writer.write(',');
+        writer.write(Double.toString(row.getFee()));
+        writer.write(',');
+        writeField(row.getFeeType());
+        writer.write(',');
+        writeField(row.getMessage());
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
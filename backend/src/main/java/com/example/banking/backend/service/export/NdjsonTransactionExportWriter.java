@@ -0,0 +1,48 @@
+package com.example.banking.backend.service.export;
+
+import com.example.banking.backend.repository.export.TransactionExportRow;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * One JSON object per line, written with a streaming {@link JsonGenerator} instead of binding objects.
+ */
+class NdjsonTransactionExportWriter implements TransactionExportWriter {
+
+    private final JsonGenerator generator;
+
+    NdjsonTransactionExportWriter(Writer writer, JsonFactory jsonFactory) throws IOException {
+        this.generator = jsonFactory.createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Values are separated by the newline written after each row
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void writeRow(TransactionExportRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("transactionId", row.getTransactionId());
+        generator.writeStringField("createdAt", row.getCreatedAt().toString());
+        generator.writeStringField("updatedAt", row.getUpdatedAt().toString());
+        generator.writeStringField("transactionType", row.getTransactionType());
+        generator.writeStringField("status", row.getStatus());
+        generator.writeStringField("direction", row.getDirection());
+        generator.writeStringField("bankCode", row.getBankCode());
+        generator.writeStringField("fromAccountNumber", row.getFromAccountNumber());
+        generator.writeStringField("toAccountNumber", row.getToAccountNumber());
+        generator.writeNumberField("amount", row.getAmount());
+        generator.writeNumberField("fee", row.getFee());
+        generator.writeStringField("feeType", row.getFeeType());
+        generator.writeStringField("message", row.getMessage());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.flush();
+    }
+}
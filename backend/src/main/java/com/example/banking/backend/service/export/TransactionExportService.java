@@ -0,0 +1,93 @@
+package com.example.banking.backend.service.export;
+
+import com.example.banking.backend.exception.TooManyRequestsException;
+import com.example.banking.backend.model.type.ExportFormatType;
+import com.example.banking.backend.repository.export.TransactionExportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams interbank transactions for reconciliation with partner banks. Rows go from the database cursor
+ * straight to the response, so memory stays constant whatever the size of the range. Every running export
+ * holds a pooled connection until it finishes, hence the cap on concurrent exports.
+ */
+@Slf4j
+@Service
+public class TransactionExportService {
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final TransactionExportRepository exportRepository;
+    private final ObjectMapper objectMapper;
+    private final Semaphore runningExports;
+
+    public TransactionExportService(TransactionExportRepository exportRepository,
+                                    ObjectMapper objectMapper,
+                                    @Value("${banking.export.max-concurrent:2}") int maxConcurrentExports) {
+        this.exportRepository = exportRepository;
+        this.objectMapper = objectMapper;
+        this.runningExports = new Semaphore(Math.max(1, maxConcurrentExports));
+    }
+
+    /**
+     * Validates the request and reserves an export slot right away, so errors still turn into a normal
+     * API response; the rows are only read once the returned body is written.
+     *
+     * @param startDate first day, YYYY-MM-DD, Vietnam time
+     * @param endDate   last day, inclusive
+     */
+    public StreamingResponseBody exportBankTransactions(String startDate, String endDate, String bankCode,
+                                                        ExportFormatType format) {
+        LocalDate startDay;
+        LocalDate endDay;
+        try {
+            startDay = LocalDate.parse(startDate);
+            endDay = LocalDate.parse(endDate);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format. Use YYYY-MM-DD, e.g., 2025-06-02");
+        }
+        if (endDay.isBefore(startDay)) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        if (!runningExports.tryAcquire()) {
+            throw new TooManyRequestsException("Too many exports are running, please try again later");
+        }
+
+        return outputStream -> {
+            try {
+                Writer writer = new BufferedWriter(
+                        new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+                TransactionExportWriter exportWriter = format == ExportFormatType.NDJSON
+                        ? new NdjsonTransactionExportWriter(writer, objectMapper.getFactory())
+                        : new CsvTransactionExportWriter(writer);
+
+                long rows = exportRepository.forEach(startDay.atStartOfDay(), endDay.plusDays(1).atStartOfDay(),
+                        bankCode, row -> {
+                            try {
+                                exportWriter.writeRow(row);
+                            } catch (IOException e) {
+                                // Client went away, abort the query instead of reading the rest of the range
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                exportWriter.finish();
+                log.info("Exported {} interbank transactions from {} to {} for bank {}", rows, startDay, endDay, bankCode);
+            } finally {
+                runningExports.release();
+            }
+        };
+    }
+}
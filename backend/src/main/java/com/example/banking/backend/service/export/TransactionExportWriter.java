@@ -0,0 +1,18 @@
+package com.example.banking.backend.service.export;
+
+import com.example.banking.backend.repository.export.TransactionExportRow;
+
+import java.io.IOException;
+
+/**
+ * Serializes exported rows one at a time, nothing is kept after a row has been written.
+ */
+interface TransactionExportWriter {
+
+    void writeRow(TransactionExportRow row) throws IOException;
+
+    /**
+     * Flushes buffered output, the underlying stream stays open.
+     */
+    void finish() throws IOException;
+}
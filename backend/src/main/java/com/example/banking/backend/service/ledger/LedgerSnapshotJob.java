@@ -0,0 +1,71 @@
+package com.example.banking.backend.service.ledger;
+
+import com.example.banking.backend.repository.ledger.LedgerDrift;
+import com.example.banking.backend.repository.ledger.LedgerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Folds new ledger entries into the balance snapshots, so reading a balance only walks the entries of the
+ * last interval. Runs hold a cluster-wide advisory lock, a run that finds it taken is skipped. In shadow
+ * mode the stored balances are also compared with the ledger once a day.
+ */
+@Slf4j
+@Component
+public class LedgerSnapshotJob {
+
+    private static final long SNAPSHOT_LOCK_KEY = 0x6c6564676572L; // "ledger"
+    private static final double DRIFT_TOLERANCE = 0.005;
+    private static final int DRIFT_SAMPLE = 20;
+
+    private final LedgerRepository ledgerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean shadowMode;
+
+    public LedgerSnapshotJob(LedgerRepository ledgerRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${banking.ledger.mode:shadow}") String mode) {
+        this.ledgerRepository = ledgerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shadowMode = "shadow".equals(mode);
+    }
+
+    @Scheduled(fixedDelayString = "${banking.ledger.snapshot-interval-ms:60000}")
+    public void takeSnapshots() {
+        Integer accounts = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, SNAPSHOT_LOCK_KEY);
+            return Boolean.TRUE.equals(locked) ? ledgerRepository.snapshot(Timestamp.from(Instant.now())) : null;
+        });
+        if (accounts != null && accounts > 0) {
+            log.debug("Moved the balance snapshots of {} accounts", accounts);
+        }
+    }
+
+    @Scheduled(cron = "${banking.ledger.drift-check-cron:0 15 3 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void checkDrift() {
+        if (!shadowMode) {
+            return;
+        }
+        List<LedgerDrift> drifts = ledgerRepository.findDrift(DRIFT_TOLERANCE, DRIFT_SAMPLE);
+        for (LedgerDrift drift : drifts) {
+            log.warn("Account {} holds {} but its ledger adds up to {}",
+                    drift.getAccountId(), drift.getStoredBalance(), drift.getLedgerBalance());
+        }
+        if (drifts.isEmpty()) {
+            log.info("Stored balances match the ledger");
+        }
+    }
+}
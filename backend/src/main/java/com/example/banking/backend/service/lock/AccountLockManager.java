@@ -0,0 +1,31 @@
+package com.example.banking.backend.service.lock;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Serializes balance changes per account number. Locks are always taken in a canonical order,
+ * so two movements touching the same pair of accounts in opposite directions cannot deadlock.
+ * When called inside a transaction the locks are held until it completes, otherwise until the
+ * action returns.
+ */
+public interface AccountLockManager {
+
+    <T> T callWithLocks(Collection<String> accountNumbers, Supplier<T> action);
+
+    default <T> T callWithLock(String accountNumber, Supplier<T> action) {
+        return callWithLocks(List.of(accountNumber), action);
+    }
+
+    default void runWithLocks(Collection<String> accountNumbers, Runnable action) {
+        callWithLocks(accountNumbers, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    default void runWithLock(String accountNumber, Runnable action) {
+        runWithLocks(List.of(accountNumber), action);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.banking.backend.service.lock;
+
+import com.example.banking.backend.exception.AccountBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cluster-wide lock manager for deployments with several replicas. Each account number is hashed to a
+ * 64-bit key and locked with {@code pg_try_advisory_xact_lock} in ascending key order, so the locks are
+ * shared by every replica using the same database and are released by Postgres when the transaction ends.
+ * A failed try backs off exponentially until {@code banking.locking.wait-timeout-ms} runs out.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "banking.locking.mode", havingValue = "advisory")
+public class AdvisoryAccountLockManager implements AccountLockManager {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long waitTimeoutNanos;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+
+    public AdvisoryAccountLockManager(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${banking.locking.wait-timeout-ms:2000}") long waitTimeoutMillis,
+                                      @Value("${banking.locking.advisory.initial-backoff-ms:5}") long initialBackoffMillis,
+                                      @Value("${banking.locking.advisory.max-backoff-ms:100}") long maxBackoffMillis,
+                                      MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.waitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis);
+        this.initialBackoffMillis = Math.max(1, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+        this.waitTimer = Timer.builder("banking.account.lock.wait")
+                .description("Time spent waiting for account locks")
+                .tag("mode", "advisory")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("banking.account.lock.timeouts")
+                .description("Account lock acquisitions that gave up waiting")
+                .tag("mode", "advisory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T callWithLocks(Collection<String> accountNumbers, Supplier<T> action) {
+        long[] keys = accountNumbers.stream()
+                .filter(Objects::nonNull)
+                .mapToLong(AdvisoryAccountLockManager::lockKey)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        // Transaction-scoped advisory locks need a transaction to live in
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            acquire(keys, accountNumbers);
+            return action.get();
+        }
+        return transactionTemplate.execute(status -> {
+            acquire(keys, accountNumbers);
+            return action.get();
+        });
+    }
+
+    private void acquire(long[] keys, Collection<String> accountNumbers) {
+        long start = System.nanoTime();
+        long deadline = start + waitTimeoutNanos;
+        try {
+            for (long key : keys) {
+                long backoffMillis = initialBackoffMillis;
+                while (!tryLock(key)) {
+                    long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remainingMillis <= 0) {
+                        // Locks already taken stay with the transaction and go away when it rolls back
+                        timeoutCounter.increment();
+                        log.warn("Timed out waiting for advisory locks {}", accountNumbers);
+                        throw new AccountBusyException("Account is busy, please try again");
+                    }
+                    Thread.sleep(Math.min(backoffMillis, remainingMillis));
+                    backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountBusyException("Interrupted while waiting for account lock");
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean tryLock(long key) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, key));
+    }
+
+    /**
+     * 64-bit FNV-1a of the account number. Every replica must derive the same key, so
+     * {@link String#hashCode()} with its 32-bit range is not used here.
+     */
+    static long lockKey(String accountNumber) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : accountNumber.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.banking.backend.service.lock;
+
+import com.example.banking.backend.exception.AccountBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory lock manager backed by a fixed array of fair {@link ReentrantLock}s. An account number
+ * maps to one stripe, and stripes are acquired in ascending index order. Waiting is bounded by
+ * {@code banking.locking.wait-timeout-ms}; a caller that runs out of time gets {@link AccountBusyException}
+ * instead of queueing behind a hot account indefinitely. Only safe with a single replica.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "banking.locking.mode", havingValue = "local", matchIfMissing = true)
+public class StripedAccountLockManager implements AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final long waitTimeoutNanos;
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+
+    public StripedAccountLockManager(@Value("${banking.locking.stripes:1024}") int stripeCount,
+                                     @Value("${banking.locking.wait-timeout-ms:2000}") long waitTimeoutMillis,
+                                     MeterRegistry meterRegistry) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("banking.locking.stripes must be positive");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.waitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis);
+        this.waitTimer = Timer.builder("banking.account.lock.wait")
+                .description("Time spent waiting for account locks")
+                .tag("mode", "local")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("banking.account.lock.timeouts")
+                .description("Account lock acquisitions that gave up waiting")
+                .tag("mode", "local")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T callWithLocks(Collection<String> accountNumbers, Supplier<T> action) {
+        List<ReentrantLock> held = acquire(accountNumbers);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Releasing before commit would let the next writer read the balance this transaction is about to change
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(held);
+                }
+            });
+            return action.get();
+        }
+
+        try {
+            return action.get();
+        } finally {
+            release(held);
+        }
+    }
+
+    private List<ReentrantLock> acquire(Collection<String> accountNumbers) {
+        int[] indexes = accountNumbers.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        List<ReentrantLock> held = new ArrayList<>(indexes.length);
+        long start = System.nanoTime();
+        long deadline = start + waitTimeoutNanos;
+        try {
+            for (int index : indexes) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    release(held);
+                    timeoutCounter.increment();
+                    log.warn("Timed out waiting for account locks {}", accountNumbers);
+                    throw new AccountBusyException("Account is busy, please try again");
+                }
+                held.add(lock);
+            }
+        } catch (InterruptedException e) {
+            release(held);
+            Thread.currentThread().interrupt();
+            throw new AccountBusyException("Interrupted while waiting for account lock");
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return held;
+    }
+
+    private void release(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+        held.clear();
+    }
+
+    private int stripeIndex(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+}
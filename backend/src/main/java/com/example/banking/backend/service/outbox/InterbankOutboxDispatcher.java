@@ -0,0 +1,388 @@
+package com.example.banking.backend.service.outbox;
+
+import com.example.banking.backend.dto.request.notification.AddNotificationRequest;
+import com.example.banking.backend.dto.request.transaction.InterbankTransferRequest;
+import com.example.banking.backend.exception.NotFoundException;
+import com.example.banking.backend.exception.TransferNotSentException;
+import com.example.banking.backend.model.InterbankOutbox;
+import com.example.banking.backend.model.Transaction;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.OutboxResolutionType;
+import com.example.banking.backend.model.type.OutboxStatusType;
+import com.example.banking.backend.model.type.TransactionStatusType;
+import com.example.banking.backend.repository.TransactionRepository;
+import com.example.banking.backend.repository.outbox.InterbankOutboxRepository;
+import com.example.banking.backend.repository.stats.DailyBankRollupRepository;
+import com.example.banking.backend.repository.transfer.TransferExecutor;
+import com.example.banking.backend.service.NotificationService;
+import com.example.banking.backend.service.lock.AccountLockManager;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains {@code interbank_outbox} in the background. Each poll claims at most as many due rows as there are
+ * idle workers, and every partner bank gets its own permit pool so one slow bank cannot occupy all workers.
+ * Every attempt carries the transaction id as {@code Idempotency-Key}, so the partner can tell a resend from a
+ * new transfer. A rejection by the partner fails the transaction and refunds the sender. Other failures are
+ * retried with exponential backoff. When the last attempt fails too, the outcome depends on whether any
+ * attempt may have reached the partner: if every one failed before the request left, at an open circuit, a
+ * full bulkhead, a refused connection or while signing, the transaction fails and the sender is refunded.
+ * Once a timeout or a server error left it unknown whether the partner credited the money, the entry is
+ * parked as {@code UNRESOLVED} with the money still held, the sender is told, and an administrator settles
+ * it through {@link #resolve}.
+ */
+@Slf4j
+@Component
+public class InterbankOutboxDispatcher {
+
+    private final InterbankOutboxRepository outboxRepository;
+    private final TransactionRepository transactionRepository;
+    private final DailyBankRollupRepository dailyBankRollupRepository;
+    private final TransferExecutor transferExecutor;
+    private final AccountLockManager accountLockManager;
+    private final NotificationService notificationService;
+    private final InterbankTransferSender transferSender;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int workerThreads;
+    private final int perBankConcurrency;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final ExecutorService workers;
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private final Map<UUID, Semaphore> bankPermits = new ConcurrentHashMap<>();
+
+    public InterbankOutboxDispatcher(InterbankOutboxRepository outboxRepository,
+                                     TransactionRepository transactionRepository,
+                                     DailyBankRollupRepository dailyBankRollupRepository,
+                                     TransferExecutor transferExecutor,
+                                     AccountLockManager accountLockManager,
+                                     NotificationService notificationService,
+                                     InterbankTransferSender transferSender,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${banking.outbox.worker-threads:16}") int workerThreads,
+                                     @Value("${banking.outbox.per-bank-concurrency:4}") int perBankConcurrency,
+                                     @Value("${banking.outbox.max-attempts:8}") int maxAttempts,
+                                     @Value("${banking.outbox.lease-seconds:120}") long leaseSeconds,
+                                     @Value("${banking.outbox.initial-backoff-ms:2000}") long initialBackoffMillis,
+                                     @Value("${banking.outbox.max-backoff-ms:300000}") long maxBackoffMillis) {
+        this.outboxRepository = outboxRepository;
+        this.transactionRepository = transactionRepository;
+        this.dailyBankRollupRepository = dailyBankRollupRepository;
+        this.transferExecutor = transferExecutor;
+        this.accountLockManager = accountLockManager;
+        this.notificationService = notificationService;
+        this.transferSender = transferSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workerThreads = workerThreads;
+        this.perBankConcurrency = perBankConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.workers = Executors.newFixedThreadPool(workerThreads, new CustomizableThreadFactory("interbank-outbox-"));
+    }
+
+    @Scheduled(fixedDelayString = "${banking.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        int idleWorkers = workerThreads - busyWorkers.get();
+        if (idleWorkers <= 0) {
+            return;
+        }
+
+        List<InterbankOutbox> claimed = claim(idleWorkers);
+        for (InterbankOutbox entry : claimed) {
+            Semaphore permits = bankPermits.computeIfAbsent(entry.getBankId(), id -> new Semaphore(perBankConcurrency));
+            if (!permits.tryAcquire()) {
+                // The bank already has its share of workers, hand the row back for the next poll
+                unclaim(entry.getId());
+                continue;
+            }
+            busyWorkers.incrementAndGet();
+            workers.execute(() -> {
+                try {
+                    deliver(entry);
+                } catch (Exception e) {
+                    log.error("Unexpected error delivering outbox entry {}", entry.getId(), e);
+                } finally {
+                    busyWorkers.decrementAndGet();
+                    permits.release();
+                }
+            });
+        }
+    }
+
+    private List<InterbankOutbox> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<InterbankOutbox> due = outboxRepository.findDueForUpdate(now, limit);
+            for (InterbankOutbox entry : due) {
+                entry.setStatus(OutboxStatusType.IN_PROGRESS);
+                entry.setLockedUntil(now.plus(lease));
+                entry.setUpdatedAt(now);
+            }
+            return due;
+        });
+    }
+
+    private void unclaim(UUID outboxId) {
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(outboxId).ifPresent(entry -> {
+            entry.setStatus(OutboxStatusType.PENDING);
+            entry.setLockedUntil(null);
+            entry.setUpdatedAt(Instant.now());
+        }));
+    }
+
+    private void deliver(InterbankOutbox entry) {
+        Transaction transaction = transactionRepository.findById(entry.getTransactionId()).orElse(null);
+        if (transaction == null || transaction.getStatus() != TransactionStatusType.PENDING) {
+            // Already settled, e.g. by a replica whose lease expired while its call was still in flight
+            finish(entry.getId(), OutboxStatusType.SENT, null);
+            return;
+        }
+
+        InterbankTransferRequest interbankRequest = new InterbankTransferRequest(
+                transaction.getFromAccountNumber(),
+                transaction.getToAccountNumber(),
+                transaction.getAmount(),
+                transaction.getMessage() != null ? transaction.getMessage() : ""
+        );
+
+        try {
+            ResponseEntity<Map> response = transferSender.send(transaction.getToBank(), interbankRequest,
+                    transaction.getId());
+            if (response.getStatusCode().is2xxSuccessful()) {
+                complete(entry, transaction);
+            } else {
+                retryOrPark(entry, transaction, "HTTP " + response.getStatusCode(), true);
+            }
+        } catch (TransferNotSentException e) {
+            retryOrPark(entry, transaction, e.getMessage(), false);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS || e.getStatusCode() == HttpStatus.REQUEST_TIMEOUT) {
+                // The partner turned the request away without processing it
+                retryOrPark(entry, transaction, "HTTP Client Error - " + e.getMessage(), false);
+            } else {
+                // The partner rejected the transfer, sending it again will not change the answer
+                fail(entry, transaction, "HTTP Client Error - " + e.getMessage());
+            }
+        } catch (Exception e) {
+            // A timeout after the request went out or a server error does not tell whether the partner credited
+            // the money
+            retryOrPark(entry, transaction, e.getMessage(), true);
+        }
+    }
+
+    /**
+     * Transfers parked as {@code UNRESOLVED}, oldest first.
+     */
+    public List<InterbankOutbox> findUnresolved() {
+        return outboxRepository.findByStatusOrderByUpdatedAt(OutboxStatusType.UNRESOLVED);
+    }
+
+    /**
+     * Settles a transfer parked as {@code UNRESOLVED} once the partner bank has said what became of it:
+     * {@code COMPLETED} when it credited the receiver, {@code FAILED} when it did not, which refunds the sender,
+     * and {@code RETRY} to deliver it again under the same {@code Idempotency-Key}. A retried entry stays
+     * marked as possibly delivered, so it is parked again rather than refunded if it keeps failing.
+     */
+    public void resolve(UUID transactionId, OutboxResolutionType resolution) {
+        InterbankOutbox entry = outboxRepository.findByTransactionId(transactionId)
+                .filter(parked -> parked.getStatus() == OutboxStatusType.UNRESOLVED)
+                .orElseThrow(() -> new NotFoundException("No unresolved interbank transfer " + transactionId));
+        Transaction transaction = transactionRepository.findById(transactionId).orElseThrow();
+        log.info("Interbank transfer {} resolved as {}", transactionId, resolution);
+        switch (resolution) {
+            case COMPLETED -> complete(entry, transaction);
+            case FAILED -> fail(entry, transaction, "Not credited by the partner bank, resolved by reconciliation");
+            case RETRY -> transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(entry.getId())
+                    .filter(parked -> parked.getStatus() == OutboxStatusType.UNRESOLVED)
+                    .ifPresent(retry -> {
+                        retry.setStatus(OutboxStatusType.PENDING);
+                        retry.setAttempts(0);
+                        retry.setNextAttemptAt(Instant.now());
+                        retry.setUpdatedAt(Instant.now());
+                    }));
+        }
+    }
+
+    private void complete(InterbankOutbox entry, Transaction transaction) {
+        UUID senderId = transactionTemplate.execute(status -> {
+            Transaction settled = transactionRepository.findForUpdate(transaction.getId(), transaction.getCreatedAt())
+                    .orElseThrow();
+            if (alreadySettled(entry, settled)) {
+                return null;
+            }
+            TransactionStatusType previousStatus = settled.getStatus();
+            Instant previousUpdatedAt = settled.getUpdatedAt();
+            settled.setStatus(TransactionStatusType.COMPLETED);
+            settled.setUpdatedAt(Instant.now());
+            dailyBankRollupRepository.move(settled, previousStatus, previousUpdatedAt);
+            markFinished(entry.getId(), OutboxStatusType.SENT, null);
+            return settled.getFromAccount().getUser().getId();
+        });
+
+        if (senderId != null) {
+            notifySender(senderId, "Transfer completed", String.format(
+                    "Your transfer of %.2f VND to account %s at %s has been completed",
+                    transaction.getAmount(), transaction.getToAccountNumber(), transaction.getToBank().getBankName()));
+        }
+    }
+
+    private void fail(InterbankOutbox entry, Transaction transaction, String error) {
+        log.warn("Interbank transfer {} failed: {}", transaction.getId(), error);
+        UUID senderId = transactionTemplate.execute(status -> {
+            Transaction failed = transactionRepository.findForUpdate(transaction.getId(), transaction.getCreatedAt())
+                    .orElseThrow();
+            if (alreadySettled(entry, failed)) {
+                return null;
+            }
+            TransactionStatusType previousStatus = failed.getStatus();
+            Instant previousUpdatedAt = failed.getUpdatedAt();
+            failed.setStatus(TransactionStatusType.FAILED);
+            failed.setUpdatedAt(Instant.now());
+            dailyBankRollupRepository.move(failed, previousStatus, previousUpdatedAt);
+
+            // Give back the amount and fee held when the transfer was accepted
+            accountLockManager.runWithLock(failed.getFromAccountNumber(), () -> transferExecutor.adjustBalance(
+                    failed.getFromAccount().getAccountId(), failed.getAmount() + failed.getFee(),
+                    failed.getId(), LedgerBookType.INTERBANK_CLEARING));
+
+            markFinished(entry.getId(), OutboxStatusType.FAILED, error);
+            return failed.getFromAccount().getUser().getId();
+        });
+
+        if (senderId != null) {
+            notifySender(senderId, "Transfer failed", String.format(
+                    "Your transfer of %.2f VND to account %s at %s could not be completed, the money has been refunded",
+                    transaction.getAmount(), transaction.getToAccountNumber(), transaction.getToBank().getBankName()));
+        }
+    }
+
+    /**
+     * A dispatcher whose lease expired mid-call may deliver the same entry as this one. The transaction row
+     * is locked before this check, so whichever settles second leaves the status and the sender's balance
+     * alone and only closes its outbox entry.
+     */
+    private boolean alreadySettled(InterbankOutbox entry, Transaction locked) {
+        if (locked.getStatus() == TransactionStatusType.PENDING) {
+            return false;
+        }
+        log.info("Interbank transfer {} was already settled as {}", locked.getId(), locked.getStatus());
+        markFinished(entry.getId(), locked.getStatus() == TransactionStatusType.COMPLETED
+                ? OutboxStatusType.SENT : OutboxStatusType.FAILED, null);
+        return true;
+    }
+
+    /**
+     * @param mayHaveArrived whether this attempt may have reached the partner; an entry where none did is
+     *                       failed and refunded after the last attempt instead of parked
+     */
+    private void retryOrPark(InterbankOutbox entry, Transaction transaction, String error, boolean mayHaveArrived) {
+        int attempts = entry.getAttempts() + 1;
+        boolean deliveryUncertain = entry.getDeliveryUncertain() || mayHaveArrived;
+        if (attempts >= maxAttempts && !deliveryUncertain) {
+            fail(entry, transaction, "Not sent after " + attempts + " attempts: " + error);
+            return;
+        }
+        if (attempts >= maxAttempts) {
+            // The money stays held: refunding could pay the sender back for a transfer the partner accepted
+            log.error("Interbank transfer {} is still unconfirmed after {} attempts, leaving it for reconciliation: {}",
+                    transaction.getId(), attempts, error);
+            UUID senderId = transactionTemplate.execute(status -> {
+                outboxRepository.findById(entry.getId()).ifPresent(parked -> {
+                    parked.setStatus(OutboxStatusType.UNRESOLVED);
+                    parked.setAttempts(attempts);
+                    parked.setDeliveryUncertain(true);
+                    parked.setLockedUntil(null);
+                    parked.setLastError(error);
+                    parked.setUpdatedAt(Instant.now());
+                });
+                return transactionRepository.findById(transaction.getId())
+                        .map(parked -> parked.getFromAccount().getUser().getId())
+                        .orElse(null);
+            });
+            if (senderId != null) {
+                notifySender(senderId, "Transfer awaiting confirmation", String.format(
+                        "Your transfer of %.2f VND to account %s at %s has not been confirmed by the receiving bank yet. "
+                                + "The money stays on hold until it is, and you will be notified of the outcome",
+                        transaction.getAmount(), transaction.getToAccountNumber(), transaction.getToBank().getBankName()));
+            }
+            return;
+        }
+
+        long backoffMillis = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempts - 1, 20));
+        long jitterMillis = ThreadLocalRandom.current().nextLong(backoffMillis / 4 + 1);
+        Instant nextAttemptAt = Instant.now().plusMillis(backoffMillis + jitterMillis);
+        log.info("Interbank transfer {} attempt {} failed, retrying at {}: {}",
+                transaction.getId(), attempts, nextAttemptAt, error);
+
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(entry.getId()).ifPresent(retry -> {
+            retry.setStatus(OutboxStatusType.PENDING);
+            retry.setAttempts(attempts);
+            retry.setDeliveryUncertain(deliveryUncertain);
+            retry.setNextAttemptAt(nextAttemptAt);
+            retry.setLockedUntil(null);
+            retry.setLastError(error);
+            retry.setUpdatedAt(Instant.now());
+        }));
+    }
+
+    private void finish(UUID outboxId, OutboxStatusType status, String error) {
+        transactionTemplate.executeWithoutResult(tx -> markFinished(outboxId, status, error));
+    }
+
+    private void markFinished(UUID outboxId, OutboxStatusType status, String error) {
+        outboxRepository.findById(outboxId).ifPresent(entry -> {
+            entry.setStatus(status);
+            entry.setLockedUntil(null);
+            entry.setLastError(error);
+            entry.setUpdatedAt(Instant.now());
+        });
+    }
+
+    private void notifySender(UUID userId, String title, String content) {
+        try {
+            notificationService.addNotification(AddNotificationRequest.builder()
+                    .userId(userId)
+                    .title(title)
+                    .content(content)
+                    .build());
+        } catch (Exception e) {
+            log.warn("Could not notify user {} about an interbank transfer", userId, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.banking.backend.service.outbox;
+
+import com.example.banking.backend.config.idempotency.IdempotencyAspect;
+import com.example.banking.backend.dto.request.transaction.InterbankTransferRequest;
+import com.example.banking.backend.exception.PartnerBankUnavailableException;
+import com.example.banking.backend.exception.TransferNotSentException;
+import com.example.banking.backend.model.Bank;
+import com.example.banking.backend.service.partner.PartnerBankClient;
+import com.example.banking.backend.service.partner.PartnerBankClientRegistry;
+import com.example.banking.backend.service.partner.PartnerBankRegistry;
+import com.example.banking.backend.util.SigningKeyRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Signs and posts a transfer to a partner bank's {@code /api/linked-banks/transfers}. The transaction id goes
+ * out as {@code Idempotency-Key} on every attempt, so a resend after a timeout is not credited twice.
+ * A failure that happens before the request leaves, while signing, at the client's circuit breaker or
+ * bulkhead, or while connecting, is thrown as {@link TransferNotSentException}.
+ */
+@Component
+@RequiredArgsConstructor
+public class InterbankTransferSender {
+
+    private static final String MY_BANK_CODE = "FIN";
+
+    private final PartnerBankClientRegistry partnerBankClientRegistry;
+    private final SigningKeyRegistry signingKeyRegistry;
+    private final PartnerBankRegistry partnerBankRegistry;
+
+    public ResponseEntity<Map> send(Bank destinationBank, InterbankTransferRequest interbankRequest,
+                                    UUID transactionId) {
+        PartnerBankClient client;
+        HttpHeaders headers = new HttpHeaders();
+        try {
+            String timestamp = String.valueOf(Instant.now().toEpochMilli());
+            String requestBodyToSign = interbankRequest.toString();
+            String hashInput = requestBodyToSign + timestamp + MY_BANK_CODE + destinationBank.getSecretKey();
+            String hmac = partnerBankRegistry.forBank(destinationBank).hmac(hashInput);
+            String signature = signingKeyRegistry.sign(requestBodyToSign);
+
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Bank-Code", MY_BANK_CODE);
+            headers.set("X-Timestamp", timestamp);
+            headers.set("X-Request-Hash", hmac);
+            headers.set("X-Signature", signature);
+            headers.set(IdempotencyAspect.HEADER, transactionId.toString());
+            client = partnerBankClientRegistry.clientFor(destinationBank);
+        } catch (Exception e) {
+            throw new TransferNotSentException("Could not prepare the transfer: " + e.getMessage(), e);
+        }
+
+        try {
+            return client.post(
+                    "/api/linked-banks/transfers",
+                    new HttpEntity<>(interbankRequest, headers),
+                    Map.class
+            );
+        } catch (PartnerBankUnavailableException e) {
+            throw new TransferNotSentException(e.getMessage(), e);
+        } catch (ResourceAccessException e) {
+            if (neverConnected(e)) {
+                throw new TransferNotSentException("Could not connect to bank " + client.getBankCode()
+                        + ": " + e.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A refused or timed out connection, as opposed to a timeout while waiting for the answer.
+     */
+    private static boolean neverConnected(ResourceAccessException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.banking.backend.service.partition;
+
+import com.example.banking.backend.repository.partition.SettlementWindow;
+import com.example.banking.backend.repository.partition.TransactionPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the monthly partitions of {@code transactions} ahead of the clock, at startup and every night, so
+ * inserts never fall through to the default partition. When a retention is configured, months older than it
+ * are detached: their tables stay in the database for archiving but no longer weigh on queries or vacuum.
+ * Every change holds a cluster-wide advisory lock, so replicas do not race on the same DDL.
+ */
+@Slf4j
+@Component
+public class TransactionPartitionMaintainer {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final long MAINTENANCE_LOCK_KEY = 0x706172746974L; // "partit"
+    private static final int NOTHING_TO_DO = -1;
+
+    private final TransactionPartitionRepository partitionRepository;
+    private final SettlementWindow settlementWindow;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTransactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public TransactionPartitionMaintainer(TransactionPartitionRepository partitionRepository,
+                                          SettlementWindow settlementWindow,
+                                          JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${banking.partitioning.months-ahead:3}") int monthsAhead,
+                                          @Value("${banking.partitioning.retention-months:0}") int retentionMonths) {
+        this.partitionRepository = partitionRepository;
+        this.settlementWindow = settlementWindow;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.retentionMonths = Math.max(0, retentionMonths);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${banking.partitioning.maintain-cron:0 30 0 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZONE);
+        Set<YearMonth> attached = partitionRepository.findAttachedMonths();
+
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            if (!attached.contains(month)) {
+                createPartition(month);
+            }
+        }
+
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths);
+            for (YearMonth month : attached) {
+                if (month.isBefore(oldestKept) && isSettled(month)) {
+                    archive(month);
+                }
+            }
+        }
+    }
+
+    public void createPartition(YearMonth month) {
+        // Re-checked under the lock, another instance may have created it in the meantime
+        Integer moved = inMaintenanceLock(() -> partitionRepository.findAttachedMonths().contains(month)
+                ? NOTHING_TO_DO
+                : partitionRepository.createPartition(month));
+        if (moved == null) {
+            log.info("Partitions of transactions are being changed by another instance, skipping {}", month);
+            return;
+        }
+        if (moved == NOTHING_TO_DO) {
+            return;
+        }
+        log.info("Created partition {} ({} rows moved from the default partition)",
+                TransactionPartitionRepository.partitionName(month), moved);
+    }
+
+    /**
+     * Detaches the partition of {@code month} from {@code transactions}. Its rows leave the account
+     * histories and the bank listings; the daily rollup keeps their statistics.
+     *
+     * @throws IllegalArgumentException when transactions of {@code month} may still be settling
+     */
+    public void archive(YearMonth month) {
+        if (!isSettled(month)) {
+            throw new IllegalArgumentException("Transactions of " + month + " may still be settling");
+        }
+        Integer detached = inMaintenanceLock(() -> {
+            if (!partitionRepository.findAttachedMonths().contains(month)) {
+                return NOTHING_TO_DO;
+            }
+            partitionRepository.detachPartition(month);
+            return 0;
+        });
+        if (detached == null) {
+            log.info("Partitions of transactions are being changed by another instance, skipping {}", month);
+            return;
+        }
+        if (detached == NOTHING_TO_DO) {
+            return;
+        }
+        log.info("Detached partition {}", TransactionPartitionRepository.partitionName(month));
+    }
+
+    /**
+     * Runs {@code copy} and then drops the table of {@code month}, attached or detached, in one transaction
+     * that holds the maintenance lock from the first read to the drop, so no other instance can change or
+     * archive the month in between. The transaction is REPEATABLE READ: everything {@code copy} reads comes
+     * from one snapshot. An exception from {@code copy} keeps the table.
+     *
+     * @return whether the table is gone; false when another instance holds the maintenance lock
+     * @throws IllegalArgumentException when transactions of {@code month} may still be settling
+     */
+    public boolean copyAndDrop(YearMonth month, Runnable copy) {
+        if (!isSettled(month)) {
+            throw new IllegalArgumentException("Transactions of " + month + " may still be settling");
+        }
+        Integer dropped = inMaintenanceLock(snapshotTransactionTemplate, () -> {
+            copy.run();
+            partitionRepository.dropPartition(month);
+            return 0;
+        });
+        if (dropped == null) {
+            log.info("Partitions of transactions are being changed by another instance, skipping {}", month);
+            return false;
+        }
+        log.info("Dropped partition {}", TransactionPartitionRepository.partitionName(month));
+        return true;
+    }
+
+    public boolean isSettled(YearMonth month) {
+        LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+        return !settlementWindow.earliestCreatedAt(LocalDateTime.now(ZONE)).isBefore(monthEnd);
+    }
+
+    private Integer inMaintenanceLock(Supplier<Integer> change) {
+        return inMaintenanceLock(transactionTemplate, change);
+    }
+
+    private Integer inMaintenanceLock(TransactionTemplate transactionTemplate, Supplier<Integer> change) {
+        return transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_KEY);
+            return Boolean.TRUE.equals(locked) ? change.get() : null;
+        });
+    }
+}
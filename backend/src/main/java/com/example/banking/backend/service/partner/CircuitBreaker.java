@@ -0,0 +1,75 @@
+package com.example.banking.backend.service.partner;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures in a row the circuit opens and
+ * calls are refused for {@code openDurationMillis}; then a single probe is let through, and its outcome either
+ * closes the circuit or opens it again.
+ */
+@Slf4j
+class CircuitBreaker {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    CircuitBreaker(String name, int failureThreshold, long openDurationMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                log.info("Circuit for {} is half-open, sending a probe", name);
+                return true;
+            default:
+                // A probe is already in flight
+                return false;
+        }
+    }
+
+    synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit for {} closed", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("Circuit for {} opened after {} consecutive failures", name, consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Gives back a permit that was granted but not used for a call, so an unused probe does not keep the
+     * circuit half-open forever.
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = 0;
+        }
+    }
+}
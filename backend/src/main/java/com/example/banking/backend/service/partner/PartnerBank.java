@@ -0,0 +1,68 @@
+package com.example.banking.backend.service.partner;
+
+import com.example.banking.backend.model.Bank;
+import com.example.banking.backend.util.CryptoUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.util.Base64;
+
+/**
+ * A linked bank with its key material prepared once: the parsed RSA public key and an HMAC-SHA256
+ * {@link Mac} already initialised with the shared secret. The prototype is never used directly, every
+ * computation works on a clone so instances can be shared between threads.
+ */
+@Slf4j
+public class PartnerBank {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    @Getter
+    private final Bank bank;
+
+    private final PublicKey publicKey;
+    private final Mac macPrototype;
+
+    PartnerBank(Bank bank) throws GeneralSecurityException {
+        this.bank = bank;
+        this.publicKey = parsePublicKey(bank);
+        this.macPrototype = Mac.getInstance(HMAC_ALGORITHM);
+        this.macPrototype.init(new SecretKeySpec(bank.getSecretKey().getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+    }
+
+    /**
+     * Same result as {@link CryptoUtils#generateHMAC(String, String)} with this bank's secret key.
+     */
+    public String hmac(String data) throws GeneralSecurityException {
+        Mac mac;
+        try {
+            mac = (Mac) macPrototype.clone();
+        } catch (CloneNotSupportedException e) {
+            mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(bank.getSecretKey().getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+        }
+        return Base64.getEncoder().encodeToString(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return false when the signature does not match or the bank's public key could not be parsed
+     */
+    public boolean verifySignature(String data, String signature) throws Exception {
+        return publicKey != null && CryptoUtils.verifySignature(data, signature, publicKey);
+    }
+
+    private static PublicKey parsePublicKey(Bank bank) {
+        try {
+            return CryptoUtils.loadPublicKey(bank.getPublicKey());
+        } catch (Exception e) {
+            // Keep the bank usable for HMAC-only calls, signature checks will fail
+            log.warn("Could not parse the public key of bank {}", bank.getBankCode(), e);
+            return null;
+        }
+    }
+}
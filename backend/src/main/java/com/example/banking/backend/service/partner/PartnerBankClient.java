@@ -0,0 +1,84 @@
+package com.example.banking.backend.service.partner;
+
+import com.example.banking.backend.config.PartnerBankClientConfig;
+import com.example.banking.backend.exception.PartnerBankUnavailableException;
+import lombok.Getter;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client dedicated to one partner bank: its own keep-alive connection pool and timeouts, a bulkhead
+ * limiting the calls in flight, and a circuit breaker. A call that cannot get through either of the last two
+ * fails fast with {@link PartnerBankUnavailableException} instead of tying up the caller's thread.
+ */
+public class PartnerBankClient {
+
+    @Getter
+    private final String bankCode;
+
+    @Getter
+    private final String apiEndpoint;
+
+    private final RestTemplate restTemplate;
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitMillis;
+    private final CircuitBreaker circuitBreaker;
+
+    PartnerBankClient(String bankCode, String apiEndpoint, PartnerBankClientConfig.Settings settings) {
+        this.bankCode = bankCode;
+        this.apiEndpoint = apiEndpoint;
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMs()))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(settings.getReadTimeoutMs()));
+        this.restTemplate = new RestTemplate(requestFactory);
+
+        this.bulkhead = new Semaphore(settings.getMaxConcurrentCalls());
+        this.bulkheadWaitMillis = settings.getBulkheadWaitMs();
+        this.circuitBreaker = new CircuitBreaker(bankCode, settings.getFailureThreshold(), settings.getOpenDurationMs());
+    }
+
+    public <T> ResponseEntity<T> post(String path, HttpEntity<?> entity, Class<T> responseType) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new PartnerBankUnavailableException("Bank " + bankCode + " is unavailable, please try again later");
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            circuitBreaker.release();
+            throw new PartnerBankUnavailableException("Bank " + bankCode + " is busy, please try again later");
+        }
+
+        try {
+            ResponseEntity<T> response = restTemplate.exchange(apiEndpoint + path, HttpMethod.POST, entity, responseType);
+            circuitBreaker.onSuccess();
+            return response;
+        } catch (HttpClientErrorException e) {
+            // The partner answered, a rejected request says nothing about its health
+            circuitBreaker.onSuccess();
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
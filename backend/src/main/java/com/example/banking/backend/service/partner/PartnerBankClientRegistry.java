@@ -0,0 +1,34 @@
+package com.example.banking.backend.service.partner;
+
+import com.example.banking.backend.config.PartnerBankClientConfig;
+import com.example.banking.backend.model.Bank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link PartnerBankClient} per {@code Bank} row. A client is rebuilt when the bank's API endpoint
+ * changes, otherwise its pool, bulkhead and breaker state live as long as the application.
+ */
+@Component
+@RequiredArgsConstructor
+public class PartnerBankClientRegistry {
+
+    private final PartnerBankClientConfig partnerBankClientConfig;
+    private final Map<UUID, PartnerBankClient> clients = new ConcurrentHashMap<>();
+
+    public PartnerBankClient clientFor(Bank bank) {
+        PartnerBankClient client = clients.get(bank.getId());
+        if (client != null && client.getApiEndpoint().equals(bank.getApiEndpoint())) {
+            return client;
+        }
+        return clients.compute(bank.getId(), (id, existing) ->
+                existing != null && existing.getApiEndpoint().equals(bank.getApiEndpoint())
+                        ? existing
+                        : new PartnerBankClient(bank.getBankCode(), bank.getApiEndpoint(),
+                        partnerBankClientConfig.settingsFor(bank.getBankCode())));
+    }
+}
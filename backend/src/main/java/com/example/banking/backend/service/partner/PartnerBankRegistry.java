@@ -0,0 +1,79 @@
+package com.example.banking.backend.service.partner;
+
+import com.example.banking.backend.model.Bank;
+import com.example.banking.backend.repository.BankRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * In-memory view of the {@code banks} table keyed by bank code, so verifying a partner's request needs no
+ * query and no key parsing. The table is re-read on a fixed delay, starting when the scheduler starts; only
+ * banks whose row changed get their keys parsed again. Unknown codes are not looked up in the database, a
+ * newly linked bank becomes visible on the next refresh or after {@link #refresh()}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartnerBankRegistry {
+
+    private final BankRepository bankRepository;
+
+    private volatile Map<String, PartnerBank> partners;
+
+    public Optional<PartnerBank> find(String bankCode) {
+        if (bankCode == null) {
+            return Optional.empty();
+        }
+        Map<String, PartnerBank> current = partners;
+        if (current == null) {
+            current = refresh();
+        }
+        return Optional.ofNullable(current.get(bankCode));
+    }
+
+    /**
+     * Key material for {@code bank}, from the registry when its cached row is the same version.
+     */
+    public PartnerBank forBank(Bank bank) throws GeneralSecurityException {
+        Optional<PartnerBank> cached = find(bank.getBankCode());
+        if (cached.isPresent() && sameVersion(cached.get().getBank(), bank)) {
+            return cached.get();
+        }
+        return new PartnerBank(bank);
+    }
+
+    @Scheduled(fixedDelayString = "${banking.partner-registry.refresh-ms:60000}")
+    public synchronized Map<String, PartnerBank> refresh() {
+        Map<String, PartnerBank> previous = partners != null ? partners : Map.of();
+        Map<String, PartnerBank> loaded = new HashMap<>();
+        for (Bank bank : bankRepository.findAll()) {
+            PartnerBank existing = previous.get(bank.getBankCode());
+            if (existing != null && sameVersion(existing.getBank(), bank)) {
+                loaded.put(bank.getBankCode(), existing);
+                continue;
+            }
+            try {
+                loaded.put(bank.getBankCode(), new PartnerBank(bank));
+            } catch (GeneralSecurityException | RuntimeException e) {
+                log.error("Could not load key material of bank {}", bank.getBankCode(), e);
+            }
+        }
+        partners = Map.copyOf(loaded);
+        return partners;
+    }
+
+    private static boolean sameVersion(Bank cached, Bank bank) {
+        return Objects.equals(cached.getUpdatedAt(), bank.getUpdatedAt())
+                && Objects.equals(cached.getSecretKey(), bank.getSecretKey())
+                && Objects.equals(cached.getPublicKey(), bank.getPublicKey())
+                && Objects.equals(cached.getApiEndpoint(), bank.getApiEndpoint());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.banking.backend.service.shard;
+
+import com.example.banking.backend.repository.transfer.BalanceShardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Designates the sharded accounts at startup and folds their shards back into the account rows every few
+ * seconds, so the shards stay small and a debit rarely has much to fold. It is also the only fold that takes
+ * every shard, a debit leaves the other journal writers' shards alone. Each account is folded in its own
+ * short transaction; a fold does not wait for the credits in flight, it leaves their shards to the next
+ * run. Replicas may fold the same account at the same time, each moves the shards the other has not locked.
+ */
+@Slf4j
+@Component
+public class BalanceShardMaintainer {
+
+    private final BalanceShardRepository shardRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public BalanceShardMaintainer(BalanceShardRepository shardRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.shardRepository = shardRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void designate() {
+        int accounts = shardRepository.designate();
+        if (accounts > 0) {
+            log.info("Spreading the credits of {} accounts over balance shards", accounts);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${banking.balance-shards.fold-interval-ms:5000}")
+    public void fold() {
+        List<UUID> accountIds = shardRepository.findUnfoldedAccounts();
+        for (UUID accountId : accountIds) {
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> shardRepository.foldAll(accountId, Timestamp.from(Instant.now())));
+            } catch (RuntimeException e) {
+                log.warn("Could not fold the balance shards of account {}", accountId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.banking.backend.service.stats;
+
+import com.example.banking.backend.repository.stats.DailyBankRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Rebuilds {@code daily_bank_rollup} from {@code transactions} for closed days. Right after startup an empty
+ * rollup is backfilled from the first interbank transaction; every night the last few days are recomputed,
+ * which repairs drift from transactions changed outside the application or settled across midnight.
+ * Today's rows are left to the incremental updates. Each chunk holds a cluster-wide advisory lock, so only
+ * one replica rebuilds at a time.
+ */
+@Slf4j
+@Component
+public class DailyBankRollupReconciler {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final long RECONCILE_LOCK_KEY = 0x726f6c6c7570L; // "rollup"
+
+    private final DailyBankRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int reconcileDays;
+    private final int chunkDays;
+
+    public DailyBankRollupReconciler(DailyBankRollupRepository rollupRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${banking.rollup.reconcile-days:3}") int reconcileDays,
+                                     @Value("${banking.rollup.chunk-days:31}") int chunkDays) {
+        this.rollupRepository = rollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileDays = Math.max(1, reconcileDays);
+        this.chunkDays = Math.max(1, chunkDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!rollupRepository.isEmpty()) {
+            return;
+        }
+        LocalDate firstDay = rollupRepository.firstTransactionDay();
+        if (firstDay != null) {
+            log.info("Backfilling daily_bank_rollup from {}", firstDay);
+            rebuild(firstDay, LocalDate.now(ZONE));
+        }
+    }
+
+    @Scheduled(cron = "${banking.rollup.reconcile-cron:0 15 0 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void reconcile() {
+        LocalDate today = LocalDate.now(ZONE);
+        rebuild(today.minusDays(reconcileDays), today);
+    }
+
+    /**
+     * Rebuilds the days in {@code [fromDay, toDay)}, one transaction per chunk of days.
+     */
+    public void rebuild(LocalDate fromDay, LocalDate toDay) {
+        for (LocalDate chunkStart = fromDay; chunkStart.isBefore(toDay); chunkStart = chunkStart.plusDays(chunkDays)) {
+            LocalDate chunkEnd = chunkStart.plusDays(chunkDays).isBefore(toDay) ? chunkStart.plusDays(chunkDays) : toDay;
+            LocalDate start = chunkStart;
+            Integer rows = transactionTemplate.execute(status -> {
+                Boolean locked = jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RECONCILE_LOCK_KEY);
+                if (!Boolean.TRUE.equals(locked)) {
+                    return null;
+                }
+                return rollupRepository.rebuild(start, chunkEnd);
+            });
+            if (rows == null) {
+                log.info("daily_bank_rollup is being rebuilt by another instance, skipping");
+                return;
+            }
+            log.debug("Rebuilt daily_bank_rollup for [{}, {}): {} rows", start, chunkEnd, rows);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.banking.backend.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of strings that answers "maybe" or "definitely not", in a fixed number of bits. Sized for
+ * {@code expectedItems} at the given false-positive rate; past that the rate climbs. Items cannot be
+ * removed, so callers rebuild the filter to drop them. Safe to add to and query from several threads.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedItems, double falsePositiveRate) {
+        if (expectedItems <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("A bloom filter needs a positive size and a rate between 0 and 1");
+        }
+        long bits = (long) Math.ceil(-expectedItems * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedItems * Math.log(2)));
+    }
+
+    public void add(String item) {
+        long h1 = hash(item, 0x9E3779B97F4A7C15L);
+        long h2 = hash(item, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, added) -> current | added);
+            }
+        }
+    }
+
+    public boolean mightContain(String item) {
+        long h1 = hash(item, 0x9E3779B97F4A7C15L);
+        long h2 = hash(item, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the chars with a seeded basis, finished with the murmur3 mixer
+    private static long hash(String item, long seed) {
+        long h = seed;
+        for (int i = 0; i < item.length(); i++) {
+            h = (h ^ item.charAt(i)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85B53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
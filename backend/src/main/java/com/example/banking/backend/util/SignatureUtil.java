@@ -20,6 +20,10 @@ import java.util.Base64;
 @Component
 public class SignatureUtil {
 
+    /**
+     * Parses the key file on every call, prefer {@link SigningKeyRegistry#sign(String)}.
+     */
+    @Deprecated
     public static String signData(InterbankTransferRequest request) throws Exception {
 
         String requestBody = request.toString();
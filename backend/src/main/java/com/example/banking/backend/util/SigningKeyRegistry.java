@@ -0,0 +1,105 @@
+package com.example.banking.backend.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Holds our bank's private signing key, parsed once instead of on every outbound transfer. Each thread keeps
+ * its own initialised {@link Signature}, since instances are not thread-safe but are reusable after
+ * {@code sign()}. The key file is checked periodically and re-parsed when its modification time changes;
+ * threads pick up the new key on their next signature.
+ */
+@Slf4j
+@Component
+public class SigningKeyRegistry {
+
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+
+    private final Resource privateKeyResource;
+
+    private volatile PrivateKey privateKey;
+    private volatile long loadedLastModified;
+
+    private final ThreadLocal<ThreadSigner> signers = new ThreadLocal<>();
+
+    public SigningKeyRegistry(@Value("${banking.signing.private-key-location:classpath:keys/private_key_pkcs8.pem}")
+                              Resource privateKeyResource) throws IOException, GeneralSecurityException {
+        this.privateKeyResource = privateKeyResource;
+        this.loadedLastModified = lastModified();
+        this.privateKey = parsePrivateKey(privateKeyResource);
+    }
+
+    /**
+     * @return the Base64 SHA256withRSA signature of {@code data} encoded as UTF-8
+     */
+    public String sign(String data) throws GeneralSecurityException {
+        PrivateKey key = privateKey;
+        ThreadSigner signer = signers.get();
+        if (signer == null || signer.key != key) {
+            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            signature.initSign(key);
+            signer = new ThreadSigner(key, signature);
+            signers.set(signer);
+        }
+        signer.signature.update(data.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signer.signature.sign());
+    }
+
+    @Scheduled(fixedDelayString = "${banking.signing.reload-check-ms:30000}")
+    public void reloadIfChanged() {
+        long lastModified = lastModified();
+        if (lastModified == loadedLastModified) {
+            return;
+        }
+        try {
+            privateKey = parsePrivateKey(privateKeyResource);
+            loadedLastModified = lastModified;
+            log.info("Reloaded signing key from {}", privateKeyResource);
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            // Keep signing with the previous key rather than failing every transfer on a half-written file
+            log.error("Could not reload signing key from {}, keeping the current one", privateKeyResource, e);
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return privateKeyResource.lastModified();
+        } catch (IOException e) {
+            // Resources inside a jar have no usable modification time, they never change anyway
+            return 0L;
+        }
+    }
+
+    static PrivateKey parsePrivateKey(Resource resource) throws IOException, GeneralSecurityException {
+        String privateKeyPEM;
+        try (InputStream inputStream = resource.getInputStream()) {
+            privateKeyPEM = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        return KeyFactory.getInstance("RSA").generatePrivate(
+                new PKCS8EncodedKeySpec(
+                        Base64.getDecoder().decode(privateKeyPEM.replaceAll("-----[\\w ]+-----|\n|\r", ""))));
+    }
+
+    private static final class ThreadSigner {
+        private final PrivateKey key;
+        private final Signature signature;
+
+        private ThreadSigner(PrivateKey key, Signature signature) {
+            this.key = key;
+            this.signature = signature;
+        }
+    }
+}
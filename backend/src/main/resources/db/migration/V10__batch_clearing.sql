@@ -0,0 +1,13 @@
+-- A batch transfer debits its source once and credits the receivers a chunk at a time, each chunk in its own
+-- transaction. In between the money sits in the BATCH_CLEARING book and the lines' journal rows are PENDING.
+
+ALTER TABLE ledger_entries DROP CONSTRAINT ledger_entries_book_type_check;
+
+ALTER TABLE ledger_entries
+    ADD CONSTRAINT ledger_entries_book_type_check
+        CHECK (book IN ('CUSTOMER', 'FEE_INCOME', 'INTERBANK_CLEARING', 'CASH', 'OPENING_BALANCE', 'BATCH_CLEARING'));
+
+-- Batch lines a crash left PENDING, for the recovery job. Interbank transfers wait as PENDING in the outbox
+-- and are not in here.
+CREATE INDEX idx_transactions_pending_internal ON transactions USING btree (created_at)
+    WHERE status = 'PENDING' AND transaction_type = 'INTERNAL_TRANSFER';
@@ -0,0 +1,428 @@
+-- Schema as it stood before migrations were introduced. Databases created earlier by
+-- ddl-auto are baselined at this version and skip it.
+
+--
+-- Name: pgcrypto; Type: EXTENSION
+--
+
+CREATE EXTENSION IF NOT EXISTS pgcrypto;
+
+
+--
+-- Name: uuid-ossp; Type: EXTENSION
+--
+
+CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
+
+
+--
+-- Name: accounts; Type: TABLE
+--
+
+CREATE TABLE accounts (
+    account_id uuid DEFAULT gen_random_uuid() NOT NULL,
+    account_number character varying(255) NOT NULL,
+    balance double precision DEFAULT 0 NOT NULL,
+    user_id uuid NOT NULL,
+    account_type character varying(50) DEFAULT 'PAYMENT'::character varying NOT NULL,
+    is_active boolean DEFAULT true NOT NULL,
+    created_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT accounts_account_type_check CHECK (((account_type)::text = 'PAYMENT'::text))
+);
+
+
+--
+-- Name: banks; Type: TABLE
+--
+
+CREATE TABLE banks (
+    bank_id uuid DEFAULT gen_random_uuid() NOT NULL,
+    bank_code character varying(50) NOT NULL,
+    bank_name character varying(255) NOT NULL,
+    public_key text NOT NULL,
+    api_endpoint character varying(255) NOT NULL,
+    security_type character varying(10) NOT NULL,
+    secret_key character varying(255) NOT NULL,
+    is_active boolean DEFAULT true NOT NULL,
+    created_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT banks_security_type_check CHECK (((security_type)::text = ANY ((ARRAY['RSA'::character varying, 'PGP'::character varying, 'OTHER'::character varying])::text[])))
+);
+
+
+--
+-- Name: daily_bank_rollup; Type: TABLE
+--
+
+CREATE TABLE daily_bank_rollup (
+    day date NOT NULL,
+    bank_id uuid NOT NULL,
+    direction character varying(10) NOT NULL,
+    transaction_type character varying(50) NOT NULL,
+    status character varying(20) NOT NULL,
+    total_transactions bigint DEFAULT 0 NOT NULL,
+    total_amount double precision DEFAULT 0 NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT daily_bank_rollup_direction_check CHECK (((direction)::text = ANY ((ARRAY['INCOMING'::character varying, 'OUTGOING'::character varying])::text[])))
+);
+
+
+--
+-- Name: debt_reminders; Type: TABLE
+--
+
+CREATE TABLE debt_reminders (
+    debt_reminder_id uuid DEFAULT gen_random_uuid() NOT NULL,
+    creator_id uuid NOT NULL,
+    debtor_id uuid NOT NULL,
+    amount double precision NOT NULL,
+    message text,
+    status character varying(20) DEFAULT 'PENDING'::character varying NOT NULL,
+    created_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    cancelled_reason text,
+    transaction_id uuid,
+    CONSTRAINT debt_reminders_status_check CHECK (((status)::text = ANY ((ARRAY['PENDING'::character varying, 'PAID'::character varying, 'CANCELLED'::character varying])::text[])))
+);
+
+
+--
+-- Name: interbank_outbox; Type: TABLE
+--
+
+CREATE TABLE interbank_outbox (
+    outbox_id uuid DEFAULT gen_random_uuid() NOT NULL,
+    transaction_id uuid NOT NULL,
+    bank_id uuid NOT NULL,
+    status character varying(20) DEFAULT 'PENDING'::character varying NOT NULL,
+    attempts integer DEFAULT 0 NOT NULL,
+    next_attempt_at timestamp without time zone NOT NULL,
+    locked_until timestamp without time zone,
+    last_error text,
+    created_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT interbank_outbox_status_check CHECK (((status)::text = ANY ((ARRAY['PENDING'::character varying, 'IN_PROGRESS'::character varying, 'SENT'::character varying, 'FAILED'::character varying])::text[])))
+);
+
+
+--
+-- Name: notifications; Type: TABLE
+--
+
+CREATE TABLE notifications (
+    notification_id uuid NOT NULL,
+    user_id uuid NOT NULL,
+    title character varying(255) NOT NULL,
+    content text NOT NULL,
+    created_at timestamp without time zone NOT NULL,
+    read boolean DEFAULT false NOT NULL,
+    version integer DEFAULT 0 NOT NULL
+);
+
+
+--
+-- Name: recipients; Type: TABLE
+--
+
+CREATE TABLE recipients (
+    recipient_id uuid DEFAULT gen_random_uuid() NOT NULL,
+    user_id uuid NOT NULL,
+    recipient_account_number character varying(255) NOT NULL,
+    recipient_name character varying(255) NOT NULL,
+    bank_id uuid,
+    created_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    nick_name character varying(255)
+);
+
+
+--
+-- Name: refresh_tokens; Type: TABLE
+--
+
+CREATE TABLE refresh_tokens (
+    refresh_token_id uuid DEFAULT gen_random_uuid() NOT NULL,
+    user_id uuid NOT NULL,
+    created_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    expires_at timestamp without time zone NOT NULL
+);
+
+
+--
+-- Name: transactions; Type: TABLE
+--
+
+CREATE TABLE transactions (
+    transaction_id uuid DEFAULT gen_random_uuid() NOT NULL,
+    transaction_type character varying(50) NOT NULL,
+    from_bank_id uuid,
+    from_account_id uuid,
+    from_account_number character varying(255),
+    to_bank_id uuid,
+    to_account_id uuid,
+    to_account_number character varying(255),
+    amount double precision NOT NULL,
+    fee double precision DEFAULT 0 NOT NULL,
+    fee_type character varying(10) DEFAULT 'SENDER'::character varying NOT NULL,
+    status character varying(20) DEFAULT 'PENDING'::character varying NOT NULL,
+    message text,
+    created_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT transactions_fee_type_check CHECK (((fee_type)::text = ANY ((ARRAY['SENDER'::character varying, 'RECEIVER'::character varying])::text[]))),
+    CONSTRAINT transactions_status_check CHECK (((status)::text = ANY ((ARRAY['PENDING'::character varying, 'COMPLETED'::character varying, 'FAILED'::character varying, 'CANCELLED'::character varying])::text[]))),
+    CONSTRAINT transactions_transaction_type_check CHECK (((transaction_type)::text = ANY ((ARRAY['INTERNAL_TRANSFER'::character varying, 'INTERBANK_TRANSFER'::character varying, 'DEBT_PAYMENT'::character varying, 'DEPOSIT'::character varying])::text[])))
+);
+
+
+--
+-- Name: users; Type: TABLE
+--
+
+CREATE TABLE users (
+    user_id uuid DEFAULT gen_random_uuid() NOT NULL,
+    username character varying(255) NOT NULL,
+    password character varying(255) NOT NULL,
+    email character varying(255) NOT NULL,
+    phone character varying(255) NOT NULL,
+    full_name character varying(255) NOT NULL,
+    address text NOT NULL,
+    dob date NOT NULL,
+    role character varying(50) DEFAULT 'CUSTOMER'::character varying NOT NULL,
+    is_active boolean DEFAULT true NOT NULL,
+    created_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT users_role_check CHECK (((role)::text = ANY ((ARRAY['CUSTOMER'::character varying, 'ADMIN'::character varying, 'EMPLOYEE'::character varying])::text[])))
+);
+
+
+--
+-- Name: accounts accounts_account_number_key; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY accounts
+    ADD CONSTRAINT accounts_account_number_key UNIQUE (account_number);
+
+
+--
+-- Name: accounts accounts_pkey; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY accounts
+    ADD CONSTRAINT accounts_pkey PRIMARY KEY (account_id);
+
+
+--
+-- Name: banks banks_bank_code_key; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY banks
+    ADD CONSTRAINT banks_bank_code_key UNIQUE (bank_code);
+
+
+--
+-- Name: banks banks_pkey; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY banks
+    ADD CONSTRAINT banks_pkey PRIMARY KEY (bank_id);
+
+
+--
+-- Name: daily_bank_rollup daily_bank_rollup_pkey; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY daily_bank_rollup
+    ADD CONSTRAINT daily_bank_rollup_pkey PRIMARY KEY (day, bank_id, direction, transaction_type, status);
+
+
+--
+-- Name: debt_reminders debt_reminders_pkey; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY debt_reminders
+    ADD CONSTRAINT debt_reminders_pkey PRIMARY KEY (debt_reminder_id);
+
+
+--
+-- Name: interbank_outbox interbank_outbox_pkey; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY interbank_outbox
+    ADD CONSTRAINT interbank_outbox_pkey PRIMARY KEY (outbox_id);
+
+
+--
+-- Name: interbank_outbox interbank_outbox_transaction_id_key; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY interbank_outbox
+    ADD CONSTRAINT interbank_outbox_transaction_id_key UNIQUE (transaction_id);
+
+
+--
+-- Name: notifications notifications_pkey; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY notifications
+    ADD CONSTRAINT notifications_pkey PRIMARY KEY (notification_id);
+
+
+--
+-- Name: recipients recipients_pkey; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY recipients
+    ADD CONSTRAINT recipients_pkey PRIMARY KEY (recipient_id);
+
+
+--
+-- Name: refresh_tokens refresh_tokens_pk; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY refresh_tokens
+    ADD CONSTRAINT refresh_tokens_pk PRIMARY KEY (refresh_token_id);
+
+
+--
+-- Name: transactions transactions_pkey; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY transactions
+    ADD CONSTRAINT transactions_pkey PRIMARY KEY (transaction_id);
+
+
+--
+-- Name: users users_email_key; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY users
+    ADD CONSTRAINT users_email_key UNIQUE (email);
+
+
+--
+-- Name: users users_pkey; Type: CONSTRAINT
+--
+
+ALTER TABLE ONLY users
+    ADD CONSTRAINT users_pkey PRIMARY KEY (user_id);
+
+
+--
+-- Name: accounts fk_accounts_user; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY accounts
+    ADD CONSTRAINT fk_accounts_user FOREIGN KEY (user_id) REFERENCES users(user_id);
+
+
+--
+-- Name: debt_reminders fk_debt_reminders_creator; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY debt_reminders
+    ADD CONSTRAINT fk_debt_reminders_creator FOREIGN KEY (creator_id) REFERENCES users(user_id);
+
+
+--
+-- Name: debt_reminders fk_debt_reminders_debtor; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY debt_reminders
+    ADD CONSTRAINT fk_debt_reminders_debtor FOREIGN KEY (debtor_id) REFERENCES users(user_id);
+
+
+--
+-- Name: debt_reminders fk_debt_reminders_transaction; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY debt_reminders
+    ADD CONSTRAINT fk_debt_reminders_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(transaction_id);
+
+
+--
+-- Name: recipients fk_recipients_bank; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY recipients
+    ADD CONSTRAINT fk_recipients_bank FOREIGN KEY (bank_id) REFERENCES banks(bank_id);
+
+
+--
+-- Name: recipients fk_recipients_user; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY recipients
+    ADD CONSTRAINT fk_recipients_user FOREIGN KEY (user_id) REFERENCES users(user_id);
+
+
+--
+-- Name: transactions fk_transactions_from_account; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY transactions
+    ADD CONSTRAINT fk_transactions_from_account FOREIGN KEY (from_account_id) REFERENCES accounts(account_id);
+
+
+--
+-- Name: transactions fk_transactions_from_bank; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY transactions
+    ADD CONSTRAINT fk_transactions_from_bank FOREIGN KEY (from_bank_id) REFERENCES banks(bank_id);
+
+
+--
+-- Name: transactions fk_transactions_to_account; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY transactions
+    ADD CONSTRAINT fk_transactions_to_account FOREIGN KEY (to_account_id) REFERENCES accounts(account_id);
+
+
+--
+-- Name: transactions fk_transactions_to_bank; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY transactions
+    ADD CONSTRAINT fk_transactions_to_bank FOREIGN KEY (to_bank_id) REFERENCES banks(bank_id);
+
+
+--
+-- Name: interbank_outbox fk_interbank_outbox_transaction; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY interbank_outbox
+    ADD CONSTRAINT fk_interbank_outbox_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(transaction_id);
+
+
+--
+-- Name: interbank_outbox fk_interbank_outbox_bank; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY interbank_outbox
+    ADD CONSTRAINT fk_interbank_outbox_bank FOREIGN KEY (bank_id) REFERENCES banks(bank_id);
+
+
+--
+-- Name: daily_bank_rollup fk_daily_bank_rollup_bank; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY daily_bank_rollup
+    ADD CONSTRAINT fk_daily_bank_rollup_bank FOREIGN KEY (bank_id) REFERENCES banks(bank_id);
+
+
+--
+-- Name: notifications notifications_user_id_fkey; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY notifications
+    ADD CONSTRAINT notifications_user_id_fkey FOREIGN KEY (user_id) REFERENCES users(user_id);
+
+
+--
+-- Name: refresh_tokens refresh_tokens_users_user_id_fk; Type: FK CONSTRAINT
+--
+
+ALTER TABLE ONLY refresh_tokens
+    ADD CONSTRAINT refresh_tokens_users_user_id_fk FOREIGN KEY (user_id) REFERENCES users(user_id) ON UPDATE CASCADE ON DELETE CASCADE;
@@ -0,0 +1,103 @@
+-- Indexes for the predicates of every repository query. IF NOT EXISTS keeps the script safe on
+-- databases where ddl-auto already created some of them from @Index annotations.
+
+--
+-- users: login and registration checks, admin listing by role
+--
+
+CREATE INDEX IF NOT EXISTS idx_users_username ON users USING btree (username);
+
+CREATE INDEX IF NOT EXISTS idx_users_phone ON users USING btree (phone);
+
+CREATE INDEX IF NOT EXISTS idx_users_role ON users USING btree (role);
+
+
+--
+-- accounts: the current user's account
+--
+
+CREATE INDEX IF NOT EXISTS idx_accounts_user_id ON accounts USING btree (user_id);
+
+
+--
+-- banks: lookup by name
+--
+
+CREATE INDEX IF NOT EXISTS idx_banks_bank_name ON banks USING btree (bank_name);
+
+
+--
+-- transactions: account history, keyset by (created_at, transaction_id) on each side
+--
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_account_history ON transactions USING btree (from_account_id, created_at DESC, transaction_id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_account_history ON transactions USING btree (to_account_id, created_at DESC, transaction_id DESC);
+
+
+--
+-- transactions: partner bank listings, keyset by (updated_at, transaction_id) on each side
+--
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_bank_updated ON transactions USING btree (from_bank_id, updated_at DESC, transaction_id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_to_bank_updated ON transactions USING btree (to_bank_id, updated_at DESC, transaction_id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_from_bank_created ON transactions USING btree (from_bank_id, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_created_at ON transactions USING btree (created_at);
+
+
+--
+-- transactions: updated_at ranges. The plain index serves the listing filtered by bank code through
+-- joins; the partial one serves every interbank range scan (statistics, rollup rebuild, export, slices)
+-- and its included columns let the aggregations run as index-only scans. It replaces the first version
+-- of the partial index, which had no included columns.
+--
+
+CREATE INDEX IF NOT EXISTS idx_transactions_updated_at ON transactions USING btree (updated_at);
+
+DROP INDEX IF EXISTS idx_transactions_interbank_updated;
+
+CREATE INDEX idx_transactions_interbank_updated ON transactions USING btree (updated_at DESC, transaction_id DESC)
+    INCLUDE (from_bank_id, to_bank_id, transaction_type, status, amount)
+    WHERE ((from_bank_id IS NOT NULL) OR (to_bank_id IS NOT NULL));
+
+
+--
+-- notifications: newest first per user
+--
+
+CREATE INDEX IF NOT EXISTS idx_notifications_user_created ON notifications USING btree (user_id, created_at DESC);
+
+
+--
+-- debt_reminders: created and received reminders, optionally by status
+--
+
+CREATE INDEX IF NOT EXISTS idx_debt_reminders_creator_status ON debt_reminders USING btree (creator_id, status);
+
+CREATE INDEX IF NOT EXISTS idx_debt_reminders_debtor_status ON debt_reminders USING btree (debtor_id, status);
+
+
+--
+-- recipients: a user's saved recipients, lookup by account number and bank
+--
+
+CREATE INDEX IF NOT EXISTS idx_recipients_user_id ON recipients USING btree (user_id);
+
+CREATE INDEX IF NOT EXISTS idx_recipients_account_bank ON recipients USING btree (recipient_account_number, bank_id);
+
+
+--
+-- refresh_tokens: a user's tokens
+--
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id ON refresh_tokens USING btree (user_id);
+
+
+--
+-- interbank_outbox: due rows
+--
+
+CREATE INDEX IF NOT EXISTS idx_interbank_outbox_due ON interbank_outbox USING btree (status, next_attempt_at);
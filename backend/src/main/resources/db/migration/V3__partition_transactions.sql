@@ -0,0 +1,81 @@
+-- Rebuilds transactions as a table range-partitioned by month on created_at. created_at never changes, so
+-- a row stays in the partition it was inserted into. Reports on updated_at also bound created_at (a
+-- transaction is only updated while it settles), which lets the planner skip the months outside the range.
+--
+-- The primary key of a partitioned table has to contain the partition key, so it becomes
+-- (transaction_id, created_at) and no unique constraint on transaction_id alone is left for foreign keys
+-- to reference. debt_reminders and interbank_outbox lose their foreign keys to transactions; both rows are
+-- written in the same database transaction as the transaction they point to.
+--
+-- Partitions are named transactions_yYYYYmMM. This script creates one for every month that holds data and
+-- for the next three; TransactionPartitionMaintainer keeps creating them ahead of time. Rows outside every
+-- partition land in transactions_default instead of failing the insert.
+
+ALTER TABLE debt_reminders DROP CONSTRAINT IF EXISTS fk_debt_reminders_transaction;
+
+ALTER TABLE interbank_outbox DROP CONSTRAINT IF EXISTS fk_interbank_outbox_transaction;
+
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+
+CREATE TABLE transactions (LIKE transactions_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+
+DO $$
+DECLARE
+    month date;
+    last_month date := CAST(date_trunc('month', LOCALTIMESTAMP) + interval '3 months' AS date);
+BEGIN
+    SELECT CAST(date_trunc('month', COALESCE(MIN(created_at), LOCALTIMESTAMP)) AS date)
+    INTO month
+    FROM transactions_unpartitioned;
+
+    WHILE month <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       'transactions_' || to_char(month, '"y"YYYY"m"MM'),
+                       CAST(month AS timestamp),
+                       CAST(month + interval '1 month' AS timestamp));
+        month := CAST(month + interval '1 month' AS date);
+    END LOOP;
+END
+$$;
+
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+INSERT INTO transactions SELECT * FROM transactions_unpartitioned;
+
+DROP TABLE transactions_unpartitioned;
+
+ALTER TABLE transactions
+    ADD CONSTRAINT transactions_pkey PRIMARY KEY (transaction_id, created_at);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_transactions_from_account FOREIGN KEY (from_account_id) REFERENCES accounts(account_id);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_transactions_from_bank FOREIGN KEY (from_bank_id) REFERENCES banks(bank_id);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_transactions_to_account FOREIGN KEY (to_account_id) REFERENCES accounts(account_id);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_transactions_to_bank FOREIGN KEY (to_bank_id) REFERENCES banks(bank_id);
+
+-- Same indexes as before, now created on every partition
+
+CREATE INDEX idx_transactions_from_account_history ON transactions USING btree (from_account_id, created_at DESC, transaction_id DESC);
+
+CREATE INDEX idx_transactions_to_account_history ON transactions USING btree (to_account_id, created_at DESC, transaction_id DESC);
+
+CREATE INDEX idx_transactions_from_bank_updated ON transactions USING btree (from_bank_id, updated_at DESC, transaction_id DESC);
+
+CREATE INDEX idx_transactions_to_bank_updated ON transactions USING btree (to_bank_id, updated_at DESC, transaction_id DESC);
+
+CREATE INDEX idx_transactions_from_bank_created ON transactions USING btree (from_bank_id, created_at);
+
+CREATE INDEX idx_transactions_created_at ON transactions USING btree (created_at);
+
+CREATE INDEX idx_transactions_updated_at ON transactions USING btree (updated_at);
+
+CREATE INDEX idx_transactions_interbank_updated ON transactions USING btree (updated_at DESC, transaction_id DESC)
+    INCLUDE (from_bank_id, to_bank_id, transaction_type, status, amount)
+    WHERE ((from_bank_id IS NOT NULL) OR (to_bank_id IS NOT NULL));
@@ -0,0 +1,70 @@
+-- Double-entry ledger next to accounts.balance. Every money movement writes one leg per side: the customer
+-- accounts it touches and a system book (fees, interbank clearing, cash) for the side outside the bank, so
+-- the DEBIT and CREDIT legs of a transaction always add up to the same amount. Entries are never updated or
+-- deleted; corrections are new entries.
+--
+-- A customer's balance is the latest snapshot plus the entries written after it. writer_xid records the
+-- database transaction that wrote the entry. A snapshot folds in every entry whose transaction id lies
+-- below the oldest transaction still running when it was taken, so no entry that commits later can fall
+-- behind it. The tail of an account is the entries at or above that horizon.
+--
+-- The ledger starts from the stored balances: each account gets an opening entry against OPENING_BALANCE.
+
+CREATE TABLE ledger_entries (
+    entry_id bigint GENERATED ALWAYS AS IDENTITY,
+    transaction_id uuid,
+    account_id uuid,
+    book character varying(20) NOT NULL,
+    direction character varying(6) NOT NULL,
+    amount double precision NOT NULL,
+    writer_xid xid8 DEFAULT pg_current_xact_id() NOT NULL,
+    created_at timestamp without time zone DEFAULT LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT ledger_entries_pkey PRIMARY KEY (entry_id),
+    CONSTRAINT ledger_entries_book_check CHECK ((book = 'CUSTOMER') = (account_id IS NOT NULL)),
+    CONSTRAINT ledger_entries_book_type_check CHECK (book IN ('CUSTOMER', 'FEE_INCOME', 'INTERBANK_CLEARING', 'CASH', 'OPENING_BALANCE')),
+    CONSTRAINT ledger_entries_direction_check CHECK (direction IN ('DEBIT', 'CREDIT')),
+    CONSTRAINT ledger_entries_amount_check CHECK (amount >= 0)
+);
+
+-- account_id has no foreign key on purpose: checking it share-locks the account row, which would put every
+-- credit to a busy account back on that row.
+
+-- Tail of one account
+CREATE INDEX idx_ledger_entries_account_tail ON ledger_entries USING btree (account_id, writer_xid)
+    WHERE account_id IS NOT NULL;
+
+-- Entries a snapshot run has not folded in yet
+CREATE INDEX idx_ledger_entries_writer_xid ON ledger_entries USING btree (writer_xid);
+
+CREATE INDEX idx_ledger_entries_transaction ON ledger_entries USING btree (transaction_id);
+
+CREATE FUNCTION reject_ledger_entry_change() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    RAISE EXCEPTION 'ledger_entries is append-only';
+END
+$$;
+
+CREATE TRIGGER ledger_entries_append_only
+    BEFORE UPDATE OR DELETE OR TRUNCATE ON ledger_entries
+    FOR EACH STATEMENT EXECUTE FUNCTION reject_ledger_entry_change();
+
+CREATE TABLE account_balance_snapshots (
+    account_id uuid NOT NULL,
+    balance double precision NOT NULL,
+    horizon_xid xid8 NOT NULL,
+    taken_at timestamp without time zone NOT NULL,
+    CONSTRAINT account_balance_snapshots_pkey PRIMARY KEY (account_id),
+    CONSTRAINT fk_account_balance_snapshots_account FOREIGN KEY (account_id) REFERENCES accounts(account_id)
+);
+
+INSERT INTO ledger_entries (account_id, book, direction, amount)
+SELECT account_id, 'CUSTOMER', CASE WHEN balance >= 0 THEN 'CREDIT' ELSE 'DEBIT' END, abs(balance)
+FROM accounts
+WHERE balance <> 0;
+
+INSERT INTO ledger_entries (account_id, book, direction, amount)
+SELECT NULL, 'OPENING_BALANCE', CASE WHEN balance >= 0 THEN 'DEBIT' ELSE 'CREDIT' END, abs(balance)
+FROM accounts
+WHERE balance <> 0;
@@ -0,0 +1,18 @@
+-- Sub-balances for accounts that receive more credits than one row can take. A designated account keeps
+-- accounts.balance and gets a fixed set of shard rows next to it; credits add to a random shard, so
+-- concurrent credits no longer queue on the account row. Its balance is accounts.balance plus the sum of
+-- its shards. Debits, and BalanceShardMaintainer every few seconds, fold the shards back into the account
+-- row.
+--
+-- Every credit rewrites a shard row; the free space left in each page lets the new version stay on the
+-- same page without touching the primary key index.
+
+CREATE TABLE account_balance_shards (
+    account_id uuid NOT NULL,
+    shard smallint NOT NULL,
+    balance double precision DEFAULT 0 NOT NULL,
+    updated_at timestamp without time zone DEFAULT LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT account_balance_shards_pkey PRIMARY KEY (account_id, shard),
+    CONSTRAINT account_balance_shards_shard_check CHECK (shard >= 0),
+    CONSTRAINT fk_account_balance_shards_account FOREIGN KEY (account_id) REFERENCES accounts(account_id)
+) WITH (fillfactor = 50);
@@ -0,0 +1,4 @@
+-- Expired refresh tokens are deleted in batches by JpaRefreshTokenStore; the purge reads them by expiry
+-- instead of scanning every token.
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens USING btree (expires_at);
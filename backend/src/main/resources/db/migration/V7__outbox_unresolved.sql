@@ -0,0 +1,7 @@
+-- Deliveries whose outcome stayed unknown after the last attempt are parked as UNRESOLVED: the partner may
+-- have credited the money, so the sender is neither refunded nor charged until reconciliation decides.
+
+ALTER TABLE interbank_outbox DROP CONSTRAINT interbank_outbox_status_check;
+
+ALTER TABLE interbank_outbox
+    ADD CONSTRAINT interbank_outbox_status_check CHECK (((status)::text = ANY ((ARRAY['PENDING'::character varying, 'IN_PROGRESS'::character varying, 'SENT'::character varying, 'FAILED'::character varying, 'UNRESOLVED'::character varying])::text[])));
@@ -0,0 +1,11 @@
+-- Transactions per account and type of every month moved out to archive segments. Written in the same
+-- transaction that drops the month's table, so account histories can count archived transactions without
+-- opening the segments.
+
+CREATE TABLE archived_account_counts (
+    account_id uuid NOT NULL,
+    transaction_type character varying(50) NOT NULL,
+    month date NOT NULL,
+    transactions bigint NOT NULL,
+    CONSTRAINT archived_account_counts_pkey PRIMARY KEY (account_id, transaction_type, month)
+);
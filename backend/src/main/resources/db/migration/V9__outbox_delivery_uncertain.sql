@@ -0,0 +1,6 @@
+-- Set once an attempt may have reached the partner: a timeout after the request went out, or a server error.
+-- Only such entries are parked as UNRESOLVED when their attempts run out; the others were never delivered
+-- and are failed with a refund.
+
+ALTER TABLE interbank_outbox
+    ADD COLUMN delivery_uncertain boolean DEFAULT false NOT NULL;
@@ -0,0 +1,63 @@
+package com.example.banking.backend.benchmark;
+
+import com.example.banking.backend.dto.request.transaction.InterbankTransferRequest;
+import com.example.banking.backend.util.SignatureUtil;
+import com.example.banking.backend.util.SigningKeyRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing throughput of an outbound interbank transfer: parsing the key on every call (the old
+ * {@link SignatureUtil#signData}) against the cached key and per-thread {@code Signature} of
+ * {@link SigningKeyRegistry}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.example.banking.backend.benchmark.SigningBenchmark
+ * -Dexec.classpathScope=test}, or from the IDE through {@link #main}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningBenchmark {
+
+    private InterbankTransferRequest request;
+    private SigningKeyRegistry registry;
+
+    @Setup
+    public void setUp() throws Exception {
+        request = new InterbankTransferRequest("435384934750", "5873160242223846", 50000.0, "note");
+        registry = new SigningKeyRegistry(new ClassPathResource("keys/private_key_pkcs8.pem"));
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String parseKeyPerCall() throws Exception {
+        return SignatureUtil.signData(request);
+    }
+
+    @Benchmark
+    public String cachedKey() throws Exception {
+        return registry.sign(request.toString());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String cachedKeyFourThreads() throws Exception {
+        return registry.sign(request.toString());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SigningBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
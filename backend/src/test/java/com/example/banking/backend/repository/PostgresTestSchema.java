@@ -0,0 +1,69 @@
+package com.example.banking.backend.repository;
+
+import com.example.banking.backend.model.Account;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+/**
+ * A schema of the PostgreSQL named by {@code PLAN_TEST_JDBC_URL}, for tests that need the repositories' SQL
+ * to run for real. Enabled by the same variables as {@link QueryPlanRegressionTest}; each test class passes
+ * its own schema name, which is dropped and migrated again on every run.
+ */
+public final class PostgresTestSchema {
+
+    private PostgresTestSchema() {
+    }
+
+    public static HikariDataSource migrate(String schema) {
+        String url = System.getenv("PLAN_TEST_JDBC_URL");
+        String username = System.getenv("PLAN_TEST_DB_USERNAME");
+        String password = System.getenv("PLAN_TEST_DB_PASSWORD");
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(url, username, password)
+                .schemas(schema)
+                .locations("classpath:db/migration")
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        flyway.migrate();
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(20);
+        dataSource.setConnectionInitSql("SET search_path TO " + schema + ", public");
+        return dataSource;
+    }
+
+    /**
+     * Inserts a customer with an empty account. Fund it through a repository so the ledger sees the money.
+     */
+    public static Account createAccount(JdbcTemplate jdbcTemplate, String accountNumber) {
+        UUID userId = UUID.randomUUID();
+        jdbcTemplate.update("""
+                INSERT INTO users (user_id, username, password, email, phone, full_name, address, dob)
+                VALUES (?, ?, 'x', ?, '0900000000', 'Test User', 'Test Street', DATE '1990-01-01')
+                """, userId, "user" + accountNumber, accountNumber + "@example.com");
+        UUID accountId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO accounts (account_id, account_number, user_id) VALUES (?, ?, ?)",
+                accountId, accountNumber, userId);
+
+        Account account = new Account();
+        account.setAccountId(accountId);
+        account.setAccountNumber(accountNumber);
+        return account;
+    }
+
+    public static double storedBalance(JdbcTemplate jdbcTemplate, UUID accountId) {
+        return jdbcTemplate.queryForObject("""
+                SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_shards s
+                                             WHERE s.account_id = a.account_id), 0)
+                FROM accounts a WHERE a.account_id = ?
+                """, Double.class, accountId);
+    }
+}
@@ -0,0 +1,460 @@
+package com.example.banking.backend.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Runs EXPLAIN on the SQL behind each repository method and fails when a plan reads a large table
+ * sequentially, so a dropped index or a query the indexes no longer cover shows up before production.
+ * Date-range queries are also checked to read only the monthly partitions of their range.
+ * <p>
+ * Needs a PostgreSQL it may write to: set {@code PLAN_TEST_JDBC_URL}, {@code PLAN_TEST_DB_USERNAME} and
+ * {@code PLAN_TEST_DB_PASSWORD}. The migrations and the seed data go to a {@code plan_test} schema that is
+ * dropped and rebuilt on every run. The SQL mirrors what Hibernate generates for derived queries and what
+ * the JDBC repositories send, with literals in place of the parameters.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_JDBC_URL", matches = ".+")
+class QueryPlanRegressionTest {
+
+    private static final String SCHEMA = "plan_test";
+    // Tables up to this size are cheaper to scan than to probe through an index
+    private static final double SEQ_SCAN_ROW_LIMIT = 10_000;
+
+    private static final String USER = "md5('user42')::uuid";
+    private static final String ACCOUNT = "md5('account42')::uuid";
+    private static final String BANK = "md5('bank1')::uuid";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException, IOException {
+        String url = System.getenv("PLAN_TEST_JDBC_URL");
+        String username = System.getenv("PLAN_TEST_DB_USERNAME");
+        String password = System.getenv("PLAN_TEST_DB_PASSWORD");
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(url, username, password)
+                .schemas(SCHEMA)
+                .locations("classpath:db/migration")
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        flyway.migrate();
+
+        connection = DriverManager.getConnection(url, username, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET search_path TO " + SCHEMA + ", public");
+            statement.execute(readResource("/db/plan-test-seed.sql"));
+        }
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void planHasNoLargeSequentialScan(String method, String sql) throws SQLException, IOException {
+        JsonNode plan = explain(sql);
+        List<String> violations = new ArrayList<>();
+        collectLargeSequentialScans(plan, violations);
+        assertTrue(violations.isEmpty(), () -> method + " scans " + String.join(", ", violations)
+                + " sequentially:\n" + plan.toPrettyString());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("dateRangeQueries")
+    void dateRangeReadsOnlyItsMonths(String method, String sql, Set<String> partitions) throws SQLException, IOException {
+        JsonNode plan = explain(sql);
+        Set<String> scanned = new TreeSet<>();
+        collectTransactionPartitions(plan, scanned);
+        assertEquals(partitions, scanned, () -> method + " reads the wrong partitions:\n" + plan.toPrettyString());
+    }
+
+    private JsonNode explain(String sql) throws SQLException, IOException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN (FORMAT JSON) " + sql)) {
+            rs.next();
+            return objectMapper.readTree(rs.getString(1)).get(0).get("Plan");
+        }
+    }
+
+    private void collectTransactionPartitions(JsonNode node, Set<String> partitions) {
+        String relation = node.path("Relation Name").asText();
+        if (relation.startsWith("transactions_")) {
+            partitions.add(relation);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectTransactionPartitions(child, partitions);
+        }
+    }
+
+    private void collectLargeSequentialScans(JsonNode node, List<String> violations) throws SQLException {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            String relation = node.get("Relation Name").asText();
+            double rows = estimatedRows(relation);
+            if (rows > SEQ_SCAN_ROW_LIMIT) {
+                violations.add(relation + " (" + (long) rows + " rows)");
+            }
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectLargeSequentialScans(child, violations);
+        }
+    }
+
+    private double estimatedRows(String relation) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT c.reltuples FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+                WHERE n.nspname = ? AND c.relname = ?
+                """)) {
+            statement.setString(1, SCHEMA);
+            statement.setString(2, relation);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getDouble(1) : 0;
+            }
+        }
+    }
+
+    private static String readResource(String path) throws IOException {
+        try (InputStream in = QueryPlanRegressionTest.class.getResourceAsStream(path)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The date-range queries among {@link #repositoryQueries()} with the partitions they should read. Ranges
+     * on updated_at also read the month before, which holds transactions still settling at its start.
+     */
+    static Stream<Arguments> dateRangeQueries() {
+        Set<String> june = Set.of("transactions_y2026m06");
+        Set<String> juneAndMay = Set.of("transactions_y2026m05", "transactions_y2026m06");
+        Map<String, Set<String>> expected = Map.of(
+                "TransactionRepository.findByBankIdAndDateRange", june,
+                "TransactionRepository.findByCreatedAtBetween", june,
+                "TransactionRepository.findByUpdatedAtBetween", juneAndMay,
+                "TransactionRepository.findByUpdatedAtBetweenAndBankCode", juneAndMay,
+                "DailyBankRollupRepository.rebuild", juneAndMay,
+                "TransactionStatsRepository.series (HOUR)", juneAndMay,
+                "TransactionExportRepository.forEach", juneAndMay);
+        return repositoryQueries()
+                .map(Arguments::get)
+                .filter(args -> expected.containsKey((String) args[0]))
+                .map(args -> arguments(args[0], args[1], expected.get((String) args[0])));
+    }
+
+    static Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                arguments("UserRepository.findByUsername",
+                        "SELECT * FROM users u WHERE u.username = 'user42'"),
+                arguments("UserRepository.findWithAccountById",
+                        "SELECT * FROM users u LEFT JOIN accounts a ON a.user_id = u.user_id"
+                                + " LEFT JOIN refresh_tokens r ON r.user_id = u.user_id WHERE u.user_id = " + USER),
+                arguments("UserRepository.findByEmail",
+                        "SELECT * FROM users u WHERE u.email = 'user42@mail.test'"),
+                arguments("UserRepository.existsByUsername",
+                        "SELECT u.user_id FROM users u WHERE u.username = 'user42' FETCH FIRST 1 ROWS ONLY"),
+                arguments("UserRepository.existsByEmail",
+                        "SELECT u.user_id FROM users u WHERE u.email = 'user42@mail.test' FETCH FIRST 1 ROWS ONLY"),
+                // Staff roles are a small share of the users; listing every CUSTOMER reads the table anyway
+                arguments("UserRepository.findAllByRole",
+                        "SELECT * FROM users u WHERE u.role = 'EMPLOYEE'"),
+
+                arguments("AccountRepository.findByUserId",
+                        "SELECT * FROM accounts a WHERE a.user_id = " + USER),
+                arguments("AccountRepository.findByAccountNumber",
+                        "SELECT * FROM accounts a WHERE a.account_number = '000000000042'"),
+                arguments("AccountRepository.findByAccountNumberIn",
+                        "SELECT * FROM accounts a WHERE a.account_number IN ('000000000042', '000000000043')"),
+                arguments("AccountRepository.findByUserUsername",
+                        "SELECT a.* FROM accounts a JOIN users u ON u.user_id = a.user_id WHERE u.username = 'user42'"),
+                arguments("AccountRepository.findByUserEmail",
+                        "SELECT a.* FROM accounts a JOIN users u ON u.user_id = a.user_id WHERE u.email = 'user42@mail.test'"),
+                arguments("AccountRepository.findByUserPhone",
+                        "SELECT a.* FROM accounts a JOIN users u ON u.user_id = a.user_id WHERE u.phone = '0000000042'"),
+                arguments("AccountCustomRepository.getTransactionHistory", """
+                        SELECT h.* FROM (
+                            (SELECT t.* FROM transactions t WHERE t.from_account_id = %1$s
+                               AND t.transaction_type = 'INTERNAL_TRANSFER'
+                               AND (t.created_at, t.transaction_id) < (TIMESTAMP '2026-09-01', md5('cursor')::uuid)
+                             ORDER BY t.created_at DESC, t.transaction_id DESC LIMIT 11)
+                            UNION
+                            (SELECT t.* FROM transactions t WHERE t.to_account_id = %1$s
+                               AND t.transaction_type = 'INTERNAL_TRANSFER'
+                               AND (t.created_at, t.transaction_id) < (TIMESTAMP '2026-09-01', md5('cursor')::uuid)
+                             ORDER BY t.created_at DESC, t.transaction_id DESC LIMIT 11)
+                        ) h ORDER BY h.created_at DESC, h.transaction_id DESC LIMIT 11
+                        """.formatted(ACCOUNT)),
+                arguments("AccountCustomRepository.countTransactions",
+                        "SELECT COUNT(*) FROM transactions t WHERE (t.from_account_id = %1$s OR t.to_account_id = %1$s)"
+                                .formatted(ACCOUNT)),
+
+                arguments("BankRepository.findByBankName",
+                        "SELECT * FROM banks b WHERE b.bank_name = 'Bank 1'"),
+                arguments("BankRepository.findByBankCode",
+                        "SELECT * FROM banks b WHERE b.bank_code = 'B1'"),
+
+                arguments("DebtReminderRepository.findByCreator_IdOrDebtor_Id",
+                        "SELECT * FROM debt_reminders d WHERE d.creator_id = %1$s OR d.debtor_id = %1$s LIMIT 10"
+                                .formatted(USER)),
+                arguments("DebtReminderRepository.findByCreator_IdOrDebtor_Id (count)",
+                        "SELECT COUNT(*) FROM debt_reminders d WHERE d.creator_id = %1$s OR d.debtor_id = %1$s"
+                                .formatted(USER)),
+                arguments("DebtReminderRepository.findByStatusAndCreator_IdOrStatusAndDebtor_Id", """
+                        SELECT * FROM debt_reminders d
+                        WHERE (d.status = 'PENDING' AND d.creator_id = %1$s) OR (d.status = 'PENDING' AND d.debtor_id = %1$s)
+                        LIMIT 10
+                        """.formatted(USER)),
+                arguments("DebtReminderRepository.findByCreator_Id",
+                        "SELECT * FROM debt_reminders d WHERE d.creator_id = " + USER + " LIMIT 10"),
+                arguments("DebtReminderRepository.findByDebtor_Id",
+                        "SELECT * FROM debt_reminders d WHERE d.debtor_id = " + USER + " LIMIT 10"),
+                arguments("DebtReminderRepository.findByStatusAndCreator_Id",
+                        "SELECT * FROM debt_reminders d WHERE d.status = 'PAID' AND d.creator_id = " + USER + " LIMIT 10"),
+                arguments("DebtReminderRepository.findByStatusAndDebtor_Id",
+                        "SELECT * FROM debt_reminders d WHERE d.status = 'PAID' AND d.debtor_id = " + USER + " LIMIT 10"),
+
+                arguments("NotificationRepository.findAllByUserId",
+                        "SELECT * FROM notifications n WHERE n.user_id = " + USER + " ORDER BY n.created_at DESC LIMIT 10"),
+                arguments("NotificationRepository.findAllByUserId (count)",
+                        "SELECT COUNT(*) FROM notifications n WHERE n.user_id = " + USER),
+                arguments("NotificationRepository.markAllAsReadByUserId",
+                        "UPDATE notifications SET read = true WHERE user_id = " + USER),
+                arguments("NotificationRepository.markAsRead",
+                        "UPDATE notifications SET read = true WHERE notification_id = md5('notification42')::uuid AND user_id = "
+                                + USER),
+                arguments("NotificationRepository.existsByIdAndUserId",
+                        "SELECT COUNT(*) > 0 FROM notifications n WHERE n.notification_id = md5('notification42')::uuid"
+                                + " AND n.user_id = " + USER),
+
+                arguments("RecipientRepository.findByAccountNumberAndBankId",
+                        "SELECT * FROM recipients r WHERE r.recipient_account_number = '000000000042' AND r.bank_id = " + BANK),
+                arguments("RecipientRepository.findByAccountNumber",
+                        "SELECT * FROM recipients r WHERE r.recipient_account_number = '000000000042'"),
+                arguments("RecipientRepository.findByUserId",
+                        "SELECT * FROM recipients r WHERE r.user_id = " + USER + " LIMIT 10"),
+
+                arguments("RefreshTokenRepository.findByIdAndExpiresAtAfter",
+                        "SELECT * FROM refresh_tokens r WHERE r.refresh_token_id = md5('token42')::uuid"
+                                + " AND r.expires_at > TIMESTAMP '2026-06-01'"),
+                arguments("RefreshTokenRepository.deleteExpired", """
+                        DELETE FROM refresh_tokens
+                        WHERE refresh_token_id IN (SELECT refresh_token_id FROM refresh_tokens
+                                                   WHERE expires_at <= TIMESTAMP '2026-06-01' LIMIT 1000)
+                        """),
+
+                arguments("TransactionRepository.findByBankIdAndDateRange",
+                        "SELECT * FROM transactions t WHERE t.from_bank_id = " + BANK
+                                + " AND t.created_at BETWEEN TIMESTAMP '2026-06-01' AND TIMESTAMP '2026-06-08'"),
+                arguments("TransactionRepository.findByCreatedAtBetween",
+                        "SELECT * FROM transactions t WHERE t.created_at BETWEEN TIMESTAMP '2026-06-01' AND TIMESTAMP '2026-06-02'"),
+                arguments("TransactionRepository.findByFromAccountId",
+                        "SELECT * FROM transactions t WHERE t.from_account_id = " + ACCOUNT + " LIMIT 10"),
+                arguments("TransactionRepository.findByUpdatedAtBetween", """
+                        SELECT * FROM transactions t
+                        WHERE t.updated_at BETWEEN TIMESTAMP '2026-06-01' AND TIMESTAMP '2026-06-08'
+                          AND t.created_at BETWEEN TIMESTAMP '2026-05-01' AND TIMESTAMP '2026-06-08'
+                          AND (t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL)
+                        LIMIT 10
+                        """),
+                arguments("TransactionRepository.findByUpdatedAtBetweenAndBankCode", """
+                        SELECT t.* FROM transactions t
+                        LEFT JOIN banks fb ON fb.bank_id = t.from_bank_id
+                        LEFT JOIN banks tb ON tb.bank_id = t.to_bank_id
+                        WHERE t.updated_at BETWEEN TIMESTAMP '2026-06-01' AND TIMESTAMP '2026-06-08'
+                          AND t.created_at BETWEEN TIMESTAMP '2026-05-01' AND TIMESTAMP '2026-06-08'
+                          AND (fb.bank_code = 'B1' OR tb.bank_code = 'B1')
+                        LIMIT 10
+                        """),
+
+                arguments("InterbankOutboxRepository.findDueForUpdate", """
+                        SELECT * FROM interbank_outbox
+                        WHERE (status = 'PENDING' AND next_attempt_at <= TIMESTAMP '2026-06-01')
+                           OR (status = 'IN_PROGRESS' AND locked_until < TIMESTAMP '2026-06-01')
+                        ORDER BY next_attempt_at
+                        LIMIT 50
+                        FOR UPDATE SKIP LOCKED
+                        """),
+
+                arguments("TransferExecutor.transfer (debit)", """
+                        UPDATE accounts SET balance = balance - 100, updated_at = now()
+                        WHERE account_id = %s AND balance >= 100
+                        """.formatted(ACCOUNT)),
+
+                arguments("LedgerRepository.balanceOf", """
+                        SELECT COALESCE(s.balance, 0) + COALESCE((
+                                   SELECT SUM(CASE e.direction WHEN 'CREDIT' THEN e.amount ELSE -e.amount END)
+                                   FROM ledger_entries e
+                                   WHERE e.account_id = a.account_id
+                                     AND e.writer_xid >= COALESCE(s.horizon_xid, CAST('0' AS xid8))), 0) AS balance
+                        FROM (SELECT CAST(%s AS uuid) AS account_id) a
+                        LEFT JOIN account_balance_snapshots s ON s.account_id = a.account_id
+                        """.formatted(ACCOUNT)),
+                arguments("LedgerRepository.lockAccount",
+                        "SELECT account_id FROM accounts WHERE account_id = " + ACCOUNT + " FOR NO KEY UPDATE"),
+                arguments("LedgerRepository.snapshot", """
+                        WITH horizon AS (
+                            SELECT pg_snapshot_xmin(pg_current_snapshot()) AS xid
+                        ), previous AS (
+                            SELECT COALESCE(MAX(horizon_xid), CAST('0' AS xid8)) AS xid FROM account_balance_snapshots
+                        ), delta AS (
+                            SELECT e.account_id, SUM(CASE e.direction WHEN 'CREDIT' THEN e.amount ELSE -e.amount END) AS amount
+                            FROM ledger_entries e, horizon h, previous p
+                            WHERE e.writer_xid >= p.xid AND e.writer_xid < h.xid AND e.account_id IS NOT NULL
+                            GROUP BY e.account_id
+                        )
+                        INSERT INTO account_balance_snapshots (account_id, balance, horizon_xid, taken_at)
+                        SELECT d.account_id, COALESCE(s.balance, 0) + d.amount, h.xid, TIMESTAMP '2026-06-15 10:00'
+                        FROM delta d
+                        CROSS JOIN horizon h
+                        LEFT JOIN account_balance_snapshots s ON s.account_id = d.account_id
+                        ON CONFLICT (account_id) DO UPDATE
+                            SET balance = EXCLUDED.balance, horizon_xid = EXCLUDED.horizon_xid, taken_at = EXCLUDED.taken_at
+                        """),
+                // findDrift compares every account with its ledger on purpose and is left out
+
+                arguments("BalanceShardRepository.fold", """
+                        WITH locked AS (
+                            SELECT shard, balance
+                            FROM account_balance_shards
+                            WHERE account_id = %s AND balance <> 0
+                            ORDER BY shard
+                            FOR UPDATE
+                        ), emptied AS (
+                            UPDATE account_balance_shards s
+                            SET balance = 0, updated_at = TIMESTAMP '2026-06-15 10:00'
+                            FROM locked
+                            WHERE s.account_id = %s AND s.shard = locked.shard
+                        )
+                        UPDATE accounts
+                        SET balance = balance + (SELECT SUM(balance) FROM locked), updated_at = TIMESTAMP '2026-06-15 10:00'
+                        WHERE account_id = %s AND EXISTS (SELECT 1 FROM locked)
+                        """.formatted(ACCOUNT, ACCOUNT, ACCOUNT)),
+                arguments("BalanceShardRepository.totalBalance", """
+                        SELECT a.balance + COALESCE((SELECT SUM(s.balance)
+                                                     FROM account_balance_shards s
+                                                     WHERE s.account_id = a.account_id), 0)
+                        FROM accounts a
+                        WHERE a.account_id = %s
+                        """.formatted(ACCOUNT)),
+
+                arguments("DailyBankRollupRepository.rebuild", """
+                        SELECT CAST(t.updated_at AS date), COALESCE(t.from_bank_id, t.to_bank_id),
+                               CASE WHEN t.from_bank_id IS NOT NULL THEN 'INCOMING' ELSE 'OUTGOING' END,
+                               t.transaction_type, t.status, COUNT(*), SUM(t.amount)
+                        FROM transactions t
+                        WHERE t.updated_at >= TIMESTAMP '2026-06-01' AND t.updated_at < TIMESTAMP '2026-07-01'
+                          AND t.created_at >= TIMESTAMP '2026-05-01' AND t.created_at < TIMESTAMP '2026-07-01'
+                          AND (t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL)
+                        GROUP BY 1, 2, 3, 4, 5
+                        """),
+                arguments("DailyBankRollupRepository.firstTransactionDay", """
+                        SELECT CAST(MIN(t.updated_at) AS date) FROM transactions t
+                        WHERE t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL
+                        """),
+
+                arguments("TransactionStatsRepository.summarize", """
+                        WITH filtered AS (
+                            SELECT CAST(r.day AS timestamp) AS day_start, r.transaction_type, r.status, r.direction,
+                                   r.bank_id, r.total_transactions AS transactions, r.total_amount AS amount
+                            FROM daily_bank_rollup r
+                            WHERE r.day >= DATE '2026-06-01' AND r.day < DATE '2026-06-30'
+                              AND r.bank_id IN (SELECT bank_id FROM banks WHERE bank_code = 'B1')
+                            UNION ALL
+                            SELECT date_trunc('day', t.updated_at), t.transaction_type, t.status,
+                                   CASE WHEN t.from_bank_id IS NOT NULL THEN 'INCOMING' ELSE 'OUTGOING' END,
+                                   COALESCE(t.from_bank_id, t.to_bank_id), 1, t.amount
+                            FROM transactions t
+                            WHERE t.updated_at >= TIMESTAMP '2026-06-30' AND t.updated_at < TIMESTAMP '2026-07-01'
+                              AND t.created_at >= TIMESTAMP '2026-05-30' AND t.created_at < TIMESTAMP '2026-07-01'
+                              AND (t.from_bank_id IN (SELECT bank_id FROM banks WHERE bank_code = 'B1')
+                                   OR t.to_bank_id IN (SELECT bank_id FROM banks WHERE bank_code = 'B1'))
+                        )
+                        SELECT f.transaction_type, f.status, f.direction, b.bank_code,
+                               COALESCE(SUM(f.transactions), 0), COALESCE(SUM(f.amount), 0)
+                        FROM filtered f
+                        LEFT JOIN banks b ON b.bank_id = f.bank_id
+                        GROUP BY GROUPING SETS ((), (f.transaction_type), (f.status), (f.direction), (b.bank_code))
+                        """),
+                arguments("TransactionStatsRepository.series (HOUR)", """
+                        SELECT date_trunc('hour', t.updated_at), COUNT(*), COALESCE(SUM(t.amount), 0)
+                        FROM transactions t
+                        WHERE t.updated_at >= TIMESTAMP '2026-06-01' AND t.updated_at < TIMESTAMP '2026-06-08'
+                          AND t.created_at >= TIMESTAMP '2026-05-01' AND t.created_at < TIMESTAMP '2026-06-08'
+                          AND (t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL)
+                        GROUP BY 1 ORDER BY 1
+                        """),
+
+                arguments("TransactionExportRepository.forEach", """
+                        SELECT t.*, b.bank_code FROM transactions t
+                        LEFT JOIN banks b ON b.bank_id = COALESCE(t.from_bank_id, t.to_bank_id)
+                        WHERE t.updated_at >= TIMESTAMP '2026-06-01' AND t.updated_at < TIMESTAMP '2026-06-08'
+                          AND t.created_at >= TIMESTAMP '2026-05-01' AND t.created_at < TIMESTAMP '2026-06-08'
+                          AND (t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL)
+                        ORDER BY t.updated_at, t.transaction_id
+                        """),
+                arguments("TransactionExportRepository.forEach (bank)", """
+                        SELECT t.*, b.bank_code FROM transactions t
+                        LEFT JOIN banks b ON b.bank_id = COALESCE(t.from_bank_id, t.to_bank_id)
+                        WHERE t.updated_at >= TIMESTAMP '2026-06-01' AND t.updated_at < TIMESTAMP '2026-06-08'
+                          AND t.created_at >= TIMESTAMP '2026-05-01' AND t.created_at < TIMESTAMP '2026-06-08'
+                          AND b.bank_code = 'B1'
+                        ORDER BY t.updated_at, t.transaction_id
+                        """),
+
+                arguments("BankTransactionSliceRepository.findSlice", """
+                        SELECT t.transaction_id, t.updated_at, t.amount, t.from_bank_id, t.to_bank_id
+                        FROM transactions t
+                        WHERE (t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL)
+                          AND t.updated_at >= TIMESTAMP '2026-01-01' AND t.updated_at < TIMESTAMP '2027-01-01'
+                          AND t.created_at >= TIMESTAMP '2025-12-01' AND t.created_at < TIMESTAMP '2027-01-01'
+                          AND (t.updated_at, t.transaction_id) < (TIMESTAMP '2026-09-01', md5('cursor')::uuid)
+                        ORDER BY t.updated_at DESC, t.transaction_id DESC
+                        LIMIT 100
+                        """),
+                arguments("BankTransactionSliceRepository.findSlice (bank)", """
+                        (SELECT t.transaction_id, t.updated_at FROM transactions t
+                         WHERE t.from_bank_id = (SELECT bank_id FROM banks WHERE bank_code = 'B1')
+                           AND t.updated_at >= TIMESTAMP '2026-01-01' AND t.updated_at < TIMESTAMP '2027-01-01'
+                           AND t.created_at >= TIMESTAMP '2025-12-01' AND t.created_at < TIMESTAMP '2027-01-01'
+                         ORDER BY t.updated_at DESC, t.transaction_id DESC LIMIT 100)
+                        UNION ALL
+                        (SELECT t.transaction_id, t.updated_at FROM transactions t
+                         WHERE t.to_bank_id = (SELECT bank_id FROM banks WHERE bank_code = 'B1')
+                           AND t.updated_at >= TIMESTAMP '2026-01-01' AND t.updated_at < TIMESTAMP '2027-01-01'
+                           AND t.created_at >= TIMESTAMP '2025-12-01' AND t.created_at < TIMESTAMP '2027-01-01'
+                         ORDER BY t.updated_at DESC, t.transaction_id DESC LIMIT 100)
+                        """)
+        );
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.banking.backend.repository.journal;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.PostgresTestSchema;
+import com.example.banking.backend.repository.ledger.LedgerRepository;
+import com.example.banking.backend.repository.transfer.AccountBalanceTransferExecutor;
+import com.example.banking.backend.repository.transfer.BalanceShardRepository;
+import com.example.banking.backend.repository.transfer.TransferOutcome;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Commits groups of transfers against PostgreSQL, see {@link PostgresTestSchema}. Each test submits its
+ * movements back to back to a single writer that waits long enough to take them all in one group.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_JDBC_URL", matches = ".+")
+class GroupCommitJournalWriterTest {
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static NamedParameterJdbcTemplate namedJdbcTemplate;
+    private static AccountBalanceTransferExecutor executor;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = PostgresTestSchema.migrate("journal_test");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        executor = new AccountBalanceTransferExecutor(namedJdbcTemplate, new LedgerRepository(namedJdbcTemplate),
+                new BalanceShardRepository(namedJdbcTemplate, List.of(), 16, 2));
+    }
+
+    @AfterAll
+    static void close() {
+        dataSource.close();
+    }
+
+    @Test
+    void groupCommitsTransfersAndJournalRowsOnce() throws Exception {
+        Account sender = fundedAccount("1001", 1000);
+        List<Account> receivers = List.of(fundedAccount("1002", 0), fundedAccount("1003", 0),
+                fundedAccount("1004", 0));
+
+        List<CompletableFuture<TransferOutcome>> outcomes = new ArrayList<>();
+        GroupCommitJournalWriter journalWriter = journalWriter(new DataSourceTransactionManager(dataSource));
+        try {
+            for (Account receiver : receivers) {
+                outcomes.add(journalWriter.submit(batch -> executor.transfer(batch, sender, receiver, 100, 0,
+                        FeeType.SENDER, TransactionType.INTERNAL_TRANSFER, null)));
+            }
+            CompletableFuture.allOf(outcomes.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        } finally {
+            journalWriter.shutdown();
+        }
+
+        assertEquals(700, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        List<UUID> transactionIds = new ArrayList<>();
+        for (CompletableFuture<TransferOutcome> outcome : outcomes) {
+            transactionIds.add(outcome.get().getTransactionId());
+        }
+        assertEquals(3, journalRows(sender));
+        // One transaction wrote every journal row
+        assertEquals(1, namedJdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT xmin::text) FROM transactions WHERE transaction_id IN (:ids)",
+                new MapSqlParameterSource("ids", transactionIds),
+                Integer.class));
+    }
+
+    @Test
+    void failingMovementIsRetriedAloneAndTheOthersCommit() throws Exception {
+        Account sender = fundedAccount("2001", 1000);
+        Account receiver = fundedAccount("2002", 0);
+        Account gone = new Account();
+        gone.setAccountId(UUID.randomUUID());
+        gone.setAccountNumber("2003");
+
+        CompletableFuture<TransferOutcome> first;
+        CompletableFuture<TransferOutcome> failing;
+        CompletableFuture<TransferOutcome> last;
+        GroupCommitJournalWriter journalWriter = journalWriter(new DataSourceTransactionManager(dataSource));
+        try {
+            first = journalWriter.submit(batch -> executor.transfer(batch, sender, receiver, 100, 0,
+                    FeeType.SENDER, TransactionType.INTERNAL_TRANSFER, null));
+            failing = journalWriter.submit(batch -> executor.transfer(batch, sender, gone, 100, 0,
+                    FeeType.SENDER, TransactionType.INTERNAL_TRANSFER, null));
+            last = journalWriter.submit(batch -> executor.transfer(batch, sender, receiver, 50, 0,
+                    FeeType.SENDER, TransactionType.INTERNAL_TRANSFER, null));
+            assertNotNull(first.get(10, TimeUnit.SECONDS));
+            assertNotNull(last.get(10, TimeUnit.SECONDS));
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> failing.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IncorrectUpdateSemanticsDataAccessException.class, failure.getCause());
+        } finally {
+            journalWriter.shutdown();
+        }
+
+        assertEquals(850, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertEquals(150, PostgresTestSchema.storedBalance(jdbcTemplate, receiver.getAccountId()));
+        assertEquals(2, journalRows(sender));
+    }
+
+    @Test
+    void groupWhoseCommitFailsIsNotRunAgain() throws Exception {
+        Account sender = fundedAccount("3001", 1000);
+        Account receiver = fundedAccount("3002", 0);
+
+        // The commit goes through but its answer is lost, as when the connection drops right after COMMIT
+        AtomicBoolean lostAnswer = new AtomicBoolean(true);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource) {
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+                super.doCommit(status);
+                if (lostAnswer.getAndSet(false)) {
+                    throw new TransactionSystemException("Connection lost after COMMIT");
+                }
+            }
+        };
+        AtomicInteger applied = new AtomicInteger();
+        List<CompletableFuture<TransferOutcome>> outcomes = new ArrayList<>();
+        GroupCommitJournalWriter journalWriter = journalWriter(transactionManager);
+        try {
+            for (int i = 0; i < 3; i++) {
+                outcomes.add(journalWriter.submit(batch -> {
+                    applied.incrementAndGet();
+                    return executor.transfer(batch, sender, receiver, 100, 0, FeeType.SENDER,
+                            TransactionType.INTERNAL_TRANSFER, null);
+                }));
+            }
+            for (CompletableFuture<TransferOutcome> outcome : outcomes) {
+                ExecutionException failure = assertThrows(ExecutionException.class,
+                        () -> outcome.get(10, TimeUnit.SECONDS));
+                assertInstanceOf(TransactionSystemException.class, failure.getCause());
+            }
+        } finally {
+            journalWriter.shutdown();
+        }
+
+        assertEquals(3, applied.get());
+        assertEquals(700, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertEquals(300, PostgresTestSchema.storedBalance(jdbcTemplate, receiver.getAccountId()));
+        assertEquals(3, journalRows(sender));
+    }
+
+    private static GroupCommitJournalWriter journalWriter(DataSourceTransactionManager transactionManager) {
+        return new GroupCommitJournalWriter(namedJdbcTemplate, transactionManager, 1, 64, 500, 100);
+    }
+
+    private static Account fundedAccount(String accountNumber, double balance) {
+        Account account = PostgresTestSchema.createAccount(jdbcTemplate, accountNumber);
+        if (balance > 0) {
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status ->
+                    executor.adjustBalance(account.getAccountId(), balance, null, LedgerBookType.CASH));
+        }
+        return account;
+    }
+
+    private static int journalRows(Account sender) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE from_account_id = ?",
+                Integer.class, sender.getAccountId());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.banking.backend.repository.ledger;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.PostgresTestSchema;
+import com.example.banking.backend.repository.journal.DirectJournalWriter;
+import com.example.banking.backend.repository.journal.JournalWriter;
+import com.example.banking.backend.repository.transfer.AccountBalanceTransferExecutor;
+import com.example.banking.backend.repository.transfer.BalanceShardRepository;
+import com.example.banking.backend.repository.transfer.LedgerTransferExecutor;
+import com.example.banking.backend.repository.transfer.TransferExecutor;
+import com.example.banking.backend.repository.transfer.TransferOutcome;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Posts, snapshots and reconciles ledger entries against PostgreSQL, see {@link PostgresTestSchema}.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_JDBC_URL", matches = ".+")
+class LedgerRepositoryTest {
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static JournalWriter journalWriter;
+    private static LedgerRepository ledgerRepository;
+    private static AccountBalanceTransferExecutor shadowExecutor;
+    private static LedgerTransferExecutor ledgerExecutor;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = PostgresTestSchema.migrate("ledger_test");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        journalWriter = new DirectJournalWriter(namedJdbcTemplate, transactionManager);
+        ledgerRepository = new LedgerRepository(namedJdbcTemplate);
+        shadowExecutor = new AccountBalanceTransferExecutor(namedJdbcTemplate, ledgerRepository,
+                new BalanceShardRepository(namedJdbcTemplate, List.of(), 16, 2));
+        ledgerExecutor = new LedgerTransferExecutor(namedJdbcTemplate, ledgerRepository);
+    }
+
+    @AfterAll
+    static void close() {
+        dataSource.close();
+    }
+
+    @Test
+    void snapshotKeepsLedgerBalancesEqualToStoredOnes() {
+        Account sender = fundedAccount(shadowExecutor, "1001", 1000);
+        Account receiver = fundedAccount(shadowExecutor, "1002", 0);
+        transfer(shadowExecutor, sender, receiver, 300, 5);
+
+        assertEquals(695, ledgerRepository.balanceOf(sender.getAccountId()));
+        assertTrue(ledgerRepository.snapshot(Timestamp.from(Instant.now())) >= 2);
+        assertEquals(695, ledgerRepository.balanceOf(sender.getAccountId()));
+        assertEquals(300, ledgerRepository.balanceOf(receiver.getAccountId()));
+
+        // Entries after the snapshot are read from its tail
+        transfer(shadowExecutor, receiver, sender, 100, 0);
+        assertEquals(795, ledgerRepository.balanceOf(sender.getAccountId()));
+        assertEquals(200, ledgerRepository.balanceOf(receiver.getAccountId()));
+        assertEquals(795, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertTrue(ledgerRepository.findDrift(0.001, 10).stream()
+                .noneMatch(row -> row.getAccountId().equals(sender.getAccountId())
+                        || row.getAccountId().equals(receiver.getAccountId())));
+        assertEquals(0, unbalancedTransactions());
+    }
+
+    @Test
+    void driftReportsStoredBalanceChangedOutsideTheLedger() {
+        Account account = fundedAccount(shadowExecutor, "2001", 50);
+        jdbcTemplate.update("UPDATE accounts SET balance = balance + 5 WHERE account_id = ?", account.getAccountId());
+
+        // Accounts of the authoritative test drift too, their stored balances are not written
+        List<LedgerDrift> drift = ledgerRepository.findDrift(0.001, 10).stream()
+                .filter(row -> row.getAccountId().equals(account.getAccountId()))
+                .toList();
+
+        assertEquals(1, drift.size());
+        assertEquals(55, drift.get(0).getStoredBalance());
+        assertEquals(50, drift.get(0).getLedgerBalance());
+        jdbcTemplate.update("UPDATE accounts SET balance = balance - 5 WHERE account_id = ?", account.getAccountId());
+    }
+
+    @Test
+    void authoritativeTransferNeedsTheLedgerBalance() {
+        Account sender = fundedAccount(ledgerExecutor, "3001", 100);
+        Account receiver = fundedAccount(ledgerExecutor, "3002", 0);
+
+        assertNull(transfer(ledgerExecutor, sender, receiver, 100, 1));
+        TransferOutcome outcome = transfer(ledgerExecutor, sender, receiver, 60, 1);
+
+        assertNotNull(outcome);
+        assertEquals(39, outcome.getFromBalance());
+        assertEquals(60, outcome.getToBalance());
+        assertEquals(39, ledgerRepository.balanceOf(sender.getAccountId()));
+        assertEquals(0, unbalancedTransactions());
+    }
+
+    private static Account fundedAccount(TransferExecutor executor, String accountNumber, double balance) {
+        Account account = PostgresTestSchema.createAccount(jdbcTemplate, accountNumber);
+        if (balance > 0) {
+            transactionTemplate.executeWithoutResult(status ->
+                    executor.adjustBalance(account.getAccountId(), balance, null, LedgerBookType.CASH));
+        }
+        return account;
+    }
+
+    private static TransferOutcome transfer(TransferExecutor executor, Account from, Account to, double amount, double fee) {
+        return journalWriter.write(batch -> executor.transfer(batch, from, to, amount, fee, FeeType.SENDER,
+                TransactionType.INTERNAL_TRANSFER, null));
+    }
+
+    /**
+     * Transactions whose DEBIT legs do not add up to their CREDIT legs.
+     */
+    private static int unbalancedTransactions() {
+        return jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM (
+                    SELECT transaction_id
+                    FROM ledger_entries
+                    WHERE transaction_id IS NOT NULL
+                    GROUP BY transaction_id
+                    HAVING abs(SUM(CASE direction WHEN 'DEBIT' THEN amount ELSE -amount END)) > 0.001) unbalanced
+                """, Integer.class);
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.banking.backend.repository.transfer;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.PostgresTestSchema;
+import com.example.banking.backend.repository.journal.DirectJournalWriter;
+import com.example.banking.backend.repository.journal.JournalWriter;
+import com.example.banking.backend.repository.ledger.LedgerRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the conditional debit and credit statements against PostgreSQL, see {@link PostgresTestSchema}.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_JDBC_URL", matches = ".+")
+class AccountBalanceTransferExecutorTest {
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static JournalWriter journalWriter;
+    private static LedgerRepository ledgerRepository;
+    private static AccountBalanceTransferExecutor executor;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = PostgresTestSchema.migrate("transfer_test");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        journalWriter = new DirectJournalWriter(namedJdbcTemplate, transactionManager);
+        ledgerRepository = new LedgerRepository(namedJdbcTemplate);
+        executor = new AccountBalanceTransferExecutor(namedJdbcTemplate, ledgerRepository,
+                new BalanceShardRepository(namedJdbcTemplate, List.of(), 16, 2));
+    }
+
+    @AfterAll
+    static void close() {
+        dataSource.close();
+    }
+
+    @Test
+    void transferMovesTheMoneyAndWritesJournalAndLedger() {
+        Account sender = fundedAccount("1001", 500);
+        Account receiver = fundedAccount("1002", 0);
+
+        TransferOutcome outcome = journalWriter.write(batch -> executor.transfer(batch, sender, receiver,
+                200, 10, FeeType.SENDER, TransactionType.INTERNAL_TRANSFER, "rent"));
+
+        assertNotNull(outcome);
+        assertEquals(290, outcome.getFromBalance());
+        assertEquals(200, outcome.getToBalance());
+        assertEquals(290, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertEquals(200, PostgresTestSchema.storedBalance(jdbcTemplate, receiver.getAccountId()));
+        assertEquals(1, journalRows(outcome.getTransactionId()));
+        assertTrue(ledgerRepository.findDrift(0.001, 10).isEmpty());
+    }
+
+    @Test
+    void insufficientBalanceChangesNothing() {
+        Account sender = fundedAccount("2001", 100);
+        Account receiver = fundedAccount("2002", 0);
+
+        TransferOutcome outcome = journalWriter.write(batch -> executor.transfer(batch, sender, receiver,
+                100, 1, FeeType.SENDER, TransactionType.INTERNAL_TRANSFER, null));
+
+        assertNull(outcome);
+        assertEquals(100, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertEquals(0, PostgresTestSchema.storedBalance(jdbcTemplate, receiver.getAccountId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE from_account_id = ?", Integer.class, sender.getAccountId()));
+    }
+
+    @Test
+    void missingReceiverRollsTheDebitBack() {
+        Account sender = fundedAccount("3001", 100);
+        Account gone = new Account();
+        gone.setAccountId(UUID.randomUUID());
+        gone.setAccountNumber("3002");
+
+        assertThrows(IncorrectUpdateSemanticsDataAccessException.class, () -> journalWriter.write(
+                batch -> executor.transfer(batch, sender, gone, 50, 0, FeeType.SENDER, TransactionType.INTERNAL_TRANSFER, null)));
+
+        assertEquals(100, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+    }
+
+    @Test
+    void batchLinesAreCreditedOnce() {
+        Account sender = fundedAccount("4001", 100);
+        Account first = fundedAccount("4002", 0);
+        Account second = fundedAccount("4003", 0);
+
+        HeldBatch held = journalWriter.write(batch -> executor.holdBatch(batch, sender, List.of(
+                new TransferLine(first, 30, 1, null),
+                new TransferLine(second, 20, 1, null)), FeeType.SENDER, TransactionType.INTERNAL_TRANSFER));
+        assertEquals(48, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertEquals(0, PostgresTestSchema.storedBalance(jdbcTemplate, first.getAccountId()));
+
+        List<UUID> credited = journalWriter.write(batch ->
+                executor.creditBatch(held.getTransactionIds(), held.getCreatedAt()));
+        List<UUID> creditedAgain = journalWriter.write(batch ->
+                executor.creditBatch(held.getTransactionIds(), held.getCreatedAt()));
+        List<UUID> refunded = journalWriter.write(batch ->
+                executor.refundBatch(held.getTransactionIds(), held.getCreatedAt()));
+
+        assertEquals(Set.copyOf(held.getTransactionIds()), Set.copyOf(credited));
+        assertTrue(creditedAgain.isEmpty());
+        assertTrue(refunded.isEmpty());
+        assertEquals(48, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertEquals(30, PostgresTestSchema.storedBalance(jdbcTemplate, first.getAccountId()));
+        assertEquals(20, PostgresTestSchema.storedBalance(jdbcTemplate, second.getAccountId()));
+        assertEquals(List.of("COMPLETED", "COMPLETED"), statuses(sender));
+        assertTrue(ledgerRepository.findDrift(0.001, 10).isEmpty());
+    }
+
+    @Test
+    void batchLinesNotCreditedAreRefunded() {
+        Account sender = fundedAccount("5001", 100);
+        Account first = fundedAccount("5002", 0);
+        Account second = fundedAccount("5003", 0);
+
+        HeldBatch held = journalWriter.write(batch -> executor.holdBatch(batch, sender, List.of(
+                new TransferLine(first, 30, 0, null),
+                new TransferLine(second, 20, 2, null)), FeeType.SENDER, TransactionType.INTERNAL_TRANSFER));
+        UUID toFirst = held.getTransactionIds().get(0);
+        UUID toSecond = held.getTransactionIds().get(1);
+
+        journalWriter.write(batch -> executor.creditBatch(List.of(toFirst), held.getCreatedAt()));
+        List<UUID> refunded = journalWriter.write(batch ->
+                executor.refundBatch(held.getTransactionIds(), held.getCreatedAt()));
+        List<UUID> creditedAfterRefund = journalWriter.write(batch ->
+                executor.creditBatch(List.of(toSecond), held.getCreatedAt()));
+
+        assertEquals(List.of(toSecond), refunded);
+        assertTrue(creditedAfterRefund.isEmpty());
+        assertEquals(70, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertEquals(30, PostgresTestSchema.storedBalance(jdbcTemplate, first.getAccountId()));
+        assertEquals(0, PostgresTestSchema.storedBalance(jdbcTemplate, second.getAccountId()));
+        assertEquals(List.of("COMPLETED", "FAILED"), statuses(sender));
+        assertTrue(ledgerRepository.findDrift(0.001, 10).isEmpty());
+    }
+
+    @Test
+    void batchWithMissingReceiverHoldsNothing() {
+        Account sender = fundedAccount("7001", 100);
+        Account receiver = fundedAccount("7002", 0);
+        Account gone = new Account();
+        gone.setAccountId(UUID.randomUUID());
+        gone.setAccountNumber("7003");
+
+        assertThrows(DataIntegrityViolationException.class, () -> journalWriter.write(
+                batch -> executor.holdBatch(batch, sender, List.of(
+                        new TransferLine(receiver, 30, 0, null),
+                        new TransferLine(gone, 20, 0, null)), FeeType.SENDER, TransactionType.INTERNAL_TRANSFER)));
+
+        assertEquals(100, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertTrue(statuses(sender).isEmpty());
+    }
+
+    @Test
+    void batchBeyondTheBalanceHoldsNothing() {
+        Account sender = fundedAccount("6001", 40);
+        Account receiver = fundedAccount("6002", 0);
+
+        HeldBatch held = journalWriter.write(batch -> executor.holdBatch(batch, sender, List.of(
+                new TransferLine(receiver, 30, 0, null),
+                new TransferLine(receiver, 20, 0, null)), FeeType.SENDER, TransactionType.INTERNAL_TRANSFER));
+
+        assertNull(held);
+        assertEquals(40, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertTrue(statuses(sender).isEmpty());
+    }
+
+    private static Account fundedAccount(String accountNumber, double balance) {
+        Account account = PostgresTestSchema.createAccount(jdbcTemplate, accountNumber);
+        if (balance > 0) {
+            transactionTemplate.executeWithoutResult(status ->
+                    executor.adjustBalance(account.getAccountId(), balance, null, LedgerBookType.CASH));
+        }
+        return account;
+    }
+
+    private static List<String> statuses(Account sender) {
+        return jdbcTemplate.queryForList(
+                "SELECT status FROM transactions WHERE from_account_id = ? ORDER BY amount DESC",
+                String.class, sender.getAccountId());
+    }
+
+    private static int journalRows(UUID transactionId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE transaction_id = ?",
+                Integer.class, transactionId);
+    }
+}
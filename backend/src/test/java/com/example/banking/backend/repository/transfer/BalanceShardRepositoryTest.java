@@ -0,0 +1,214 @@
+package com.example.banking.backend.repository.transfer;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.repository.PostgresTestSchema;
+import com.example.banking.backend.repository.journal.GroupCommitJournalWriter;
+import com.example.banking.backend.repository.ledger.LedgerRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Credits and folds balance shards against PostgreSQL, see {@link PostgresTestSchema}.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_JDBC_URL", matches = ".+")
+class BalanceShardRepositoryTest {
+
+    private static final int SHARDS = 4;
+    private static final int WRITERS = 2;
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static DataSourceTransactionManager transactionManager;
+    private static TransactionTemplate transactionTemplate;
+    private static BalanceShardRepository shardRepository;
+    private static AccountBalanceTransferExecutor executor;
+    private static Account merchant;
+    private static Account otherMerchant;
+    private static Account folded;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = PostgresTestSchema.migrate("shard_test");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        merchant = PostgresTestSchema.createAccount(jdbcTemplate, "4001");
+        otherMerchant = PostgresTestSchema.createAccount(jdbcTemplate, "4002");
+        folded = PostgresTestSchema.createAccount(jdbcTemplate, "4003");
+        shardRepository = new BalanceShardRepository(namedJdbcTemplate, List.of("4001", "4002", "4003"),
+                SHARDS, WRITERS);
+        assertEquals(3, shardRepository.designate());
+        executor = new AccountBalanceTransferExecutor(namedJdbcTemplate, new LedgerRepository(namedJdbcTemplate),
+                shardRepository);
+    }
+
+    @AfterAll
+    static void close() {
+        dataSource.close();
+    }
+
+    @Test
+    void noShardsBeyondTheWritersIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> new BalanceShardRepository(
+                new NamedParameterJdbcTemplate(dataSource), List.of("4001"), WRITERS, WRITERS));
+    }
+
+    @Test
+    void groupedCreditsInAnyOrderNeverFailAGroup() throws Exception {
+        GroupCommitJournalWriter journalWriter = new GroupCommitJournalWriter(
+                new NamedParameterJdbcTemplate(dataSource), transactionManager, WRITERS, 16, 5, 1000);
+        AtomicInteger applied = new AtomicInteger();
+        AtomicBoolean folding = new AtomicBoolean(true);
+        ExecutorService callers = Executors.newFixedThreadPool(9);
+        List<CompletableFuture<?>> movements = new ArrayList<>();
+        try {
+            // The maintainer folds meanwhile, next to the folds of the debits below
+            Future<?> maintainer = callers.submit(() -> {
+                while (folding.get()) {
+                    for (Account account : List.of(merchant, otherMerchant)) {
+                        transactionTemplate.executeWithoutResult(status ->
+                                shardRepository.foldAll(account.getAccountId(), Timestamp.from(Instant.now())));
+                    }
+                }
+            });
+            List<Future<List<CompletableFuture<Double>>>> submitted = new ArrayList<>();
+            for (int caller = 0; caller < 8; caller++) {
+                submitted.add(callers.submit(() -> {
+                    List<CompletableFuture<Double>> futures = new ArrayList<>();
+                    for (int i = 0; i < 50; i++) {
+                        boolean merchantFirst = ThreadLocalRandom.current().nextBoolean();
+                        boolean debit = i % 10 == 9;
+                        futures.add(journalWriter.submit(batch -> {
+                            applied.incrementAndGet();
+                            Account first = merchantFirst ? merchant : otherMerchant;
+                            Account second = merchantFirst ? otherMerchant : merchant;
+                            executor.adjustBalance(first.getAccountId(), 2, null, LedgerBookType.CASH);
+                            executor.adjustBalance(second.getAccountId(), 2, null, LedgerBookType.CASH);
+                            // Only the one account is debited, as the lock of the debited account would
+                            // otherwise keep two debits out of the writers at the same time
+                            return debit ? executor.adjustBalance(merchant.getAccountId(), -1, null,
+                                    LedgerBookType.CASH) : null;
+                        }));
+                    }
+                    return futures;
+                }));
+            }
+            for (Future<List<CompletableFuture<Double>>> caller : submitted) {
+                movements.addAll(caller.get(30, TimeUnit.SECONDS));
+            }
+            CompletableFuture.allOf(movements.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            folding.set(false);
+            maintainer.get(30, TimeUnit.SECONDS);
+        } finally {
+            folding.set(false);
+            callers.shutdown();
+            journalWriter.shutdown();
+        }
+
+        // A group that failed, on a deadlock or anything else, would have been run a second time one by one
+        assertEquals(movements.size(), applied.get());
+        // 400 credits of 2 to each account and 40 debits of 1
+        double expected = 400 * 2 * 2 - 40;
+        assertEquals(expected, PostgresTestSchema.storedBalance(jdbcTemplate, merchant.getAccountId())
+                + PostgresTestSchema.storedBalance(jdbcTemplate, otherMerchant.getAccountId()), 0.001);
+    }
+
+    @Test
+    void foldMovesTheShardsIntoTheAccountRowAndSkipsLockedOnes() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            transactionTemplate.executeWithoutResult(status ->
+                    executor.adjustBalance(folded.getAccountId(), 5, null, LedgerBookType.CASH));
+        }
+        assertEquals(100, shardTotal(folded));
+        assertEquals(0, accountRow(folded));
+        // Threads that are not journal writers leave the writers' shards alone
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM account_balance_shards WHERE account_id = ? AND shard < ? AND balance <> 0",
+                Integer.class, folded.getAccountId(), WRITERS));
+
+        // A credit in flight on one shard: the fold goes past it instead of waiting
+        int busyShard = jdbcTemplate.queryForObject("""
+                SELECT MIN(shard) FROM account_balance_shards WHERE account_id = ? AND balance <> 0
+                """, Integer.class, folded.getAccountId());
+        double busyBalance = jdbcTemplate.queryForObject(
+                "SELECT balance FROM account_balance_shards WHERE account_id = ? AND shard = ?",
+                Double.class, folded.getAccountId(), busyShard);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch folding = new CountDownLatch(1);
+        ExecutorService creditor = Executors.newSingleThreadExecutor();
+        Future<?> credit = creditor.submit(() -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> {
+                    jdbcTemplate.update("""
+                            UPDATE account_balance_shards SET balance = balance + 1
+                            WHERE account_id = ? AND shard = ?
+                            """, folded.getAccountId(), busyShard);
+                    locked.countDown();
+                    try {
+                        folding.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        try {
+            locked.await();
+            assertTrue(foldAll(folded));
+            assertEquals(100 - busyBalance, accountRow(folded));
+            assertEquals(busyBalance, shardTotal(folded));
+        } finally {
+            folding.countDown();
+            credit.get();
+            creditor.shutdown();
+        }
+
+        assertTrue(foldAll(folded));
+        assertEquals(101, accountRow(folded));
+        assertEquals(0, shardTotal(folded));
+        assertFalse(foldAll(folded));
+        assertFalse(shardRepository.findUnfoldedAccounts().contains(folded.getAccountId()));
+    }
+
+    private static boolean foldAll(Account account) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                shardRepository.foldAll(account.getAccountId(), Timestamp.from(Instant.now()))));
+    }
+
+    private static double accountRow(Account account) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_id = ?", Double.class,
+                account.getAccountId());
+    }
+
+    private static double shardTotal(Account account) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM account_balance_shards WHERE account_id = ?",
+                Double.class, account.getAccountId());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.banking.backend.security.jwt;
+
+import com.example.banking.backend.model.User;
+import com.example.banking.backend.model.type.UserRoleType;
+import com.example.banking.backend.security.service.UserDetailsCache;
+import com.example.banking.backend.security.service.UserDetailsImpl;
+import com.example.banking.backend.security.token.AccessTokenDenylist;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a stateless principal carries the user's current role and status, not the ones in the token.
+ */
+class AuthTokenFilterTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final JwtUtils jwtUtils = new JwtUtils(SECRET);
+    private final UserDetailsCache userDetailsCache = mock(UserDetailsCache.class);
+    private final AccessTokenDenylist accessTokenDenylist = mock(AccessTokenDenylist.class);
+    private final AuthTokenFilter filter = new AuthTokenFilter(jwtUtils, userDetailsCache, accessTokenDenylist,
+            "stateless");
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void demotedUserLosesTheRoleOfTheToken() throws Exception {
+        User admin = user(UserRoleType.ADMIN, true);
+        String token = jwtUtils.generateAccessToken(admin);
+        when(userDetailsCache.loadUserById(admin.getId()))
+                .thenReturn(UserDetailsImpl.build(user(admin.getId(), UserRoleType.CUSTOMER, true)));
+        when(accessTokenDenylist.isRevoked(any())).thenReturn(false);
+
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals(List.of("ROLE_CUSTOMER"),
+                authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertEquals(admin.getUsername(), authentication.getName());
+    }
+
+    @Test
+    void deactivatedUserIsNotAuthenticated() throws Exception {
+        User customer = user(UserRoleType.CUSTOMER, true);
+        String token = jwtUtils.generateAccessToken(customer);
+        when(userDetailsCache.loadUserById(customer.getId()))
+                .thenReturn(UserDetailsImpl.build(user(customer.getId(), UserRoleType.CUSTOMER, false)));
+        when(accessTokenDenylist.isRevoked(any())).thenReturn(false);
+
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private static User user(UserRoleType role, boolean active) {
+        return user(UUID.randomUUID(), role, active);
+    }
+
+    private static User user(UUID id, UserRoleType role, boolean active) {
+        return User.builder().id(id).username("user" + id).email(id + "@example.com").password("hash")
+                .role(role).isActive(active).build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.banking.backend.security.service;
+
+import com.example.banking.backend.dto.request.auth.ChangePasswordRequest;
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.User;
+import com.example.banking.backend.repository.UserRepository;
+import com.example.banking.backend.service.UserServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotatedBeanDefinitionReader;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the user lookups one request makes when several services ask for the signed-in user.
+ */
+class CurrentPrincipalTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private GenericWebApplicationContext context;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        Account account = new Account();
+        account.setAccountId(UUID.randomUUID());
+        user = User.builder().id(USER_ID).username("user42").password("hash").isActive(true).account(account).build();
+        when(userRepository.findWithAccountById(USER_ID)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+
+        context = new GenericWebApplicationContext(new MockServletContext());
+        context.registerBean(UserRepository.class, () -> userRepository);
+        context.registerBean(PasswordEncoder.class, () -> passwordEncoder);
+        new AnnotatedBeanDefinitionReader(context).register(CurrentPrincipal.class, UserServiceImpl.class);
+        context.refresh();
+
+        UserDetailsImpl principal = new UserDetailsImpl(USER_ID, "user42", null, null, true, List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Test
+    void readsTheUserAndAccountOncePerRequest() {
+        CurrentPrincipal currentPrincipal = context.getBean(CurrentPrincipal.class);
+        UserServiceImpl userService = context.getBean(UserServiceImpl.class);
+
+        inRequest(() -> {
+            assertSame(user.getAccount(), currentPrincipal.findAccount().orElseThrow());
+            userService.changePassword(passwordChange());
+            assertSame(user, currentPrincipal.findUser().orElseThrow());
+            assertSame(user.getAccount(), currentPrincipal.findAccount().orElseThrow());
+        });
+        verify(userRepository, times(1)).findWithAccountById(USER_ID);
+
+        inRequest(() -> userService.changePassword(passwordChange()));
+        verify(userRepository, times(2)).findWithAccountById(USER_ID);
+        verify(userRepository, never()).findById(any());
+    }
+
+    private void inRequest(Runnable work) {
+        ServletRequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+        try {
+            work.run();
+        } finally {
+            attributes.requestCompleted();
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private static ChangePasswordRequest passwordChange() {
+        return new ChangePasswordRequest("old", "new");
+    }
+}
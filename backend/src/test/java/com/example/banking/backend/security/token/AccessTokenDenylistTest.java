@@ -0,0 +1,98 @@
+package com.example.banking.backend.security.token;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Revokes tokens in Redis as another instance would, without the pub/sub message reaching this one, and
+ * checks they are still rejected while the subscription is down.
+ */
+class AccessTokenDenylistTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+    private final AccessTokenDenylist denylist = new AccessTokenDenylist(redisTemplate, listenerContainer,
+            1_000, 0.01);
+
+    @Test
+    void tokenRevokedWhileUnsubscribedIsRejected() {
+        when(listenerContainer.isListening()).thenReturn(false);
+        noRevokedTokensAtRebuild();
+        denylist.rebuild();
+        String tokenId = revokedElsewhere();
+
+        assertTrue(denylist.isRevoked(tokenId));
+        assertFalse(denylist.isRevoked(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    void tokenRevokedAfterTheSubscriptionDroppedIsRejected() {
+        when(listenerContainer.isListening()).thenReturn(true);
+        noRevokedTokensAtRebuild();
+        denylist.rebuild();
+        when(listenerContainer.isListening()).thenReturn(false);
+        String tokenId = revokedElsewhere();
+
+        assertTrue(denylist.isRevoked(tokenId));
+    }
+
+    @Test
+    void filterIsNotTrustedAgainUntilRebuiltAfterResubscribing() {
+        when(listenerContainer.isListening()).thenReturn(true);
+        noRevokedTokensAtRebuild();
+        denylist.rebuild();
+        when(listenerContainer.isListening()).thenReturn(false);
+        denylist.isRevoked(UUID.randomUUID().toString());
+        // The message for this revocation was published while the subscription was down
+        String tokenId = revokedElsewhere();
+        when(listenerContainer.isListening()).thenReturn(true);
+
+        assertTrue(denylist.isRevoked(tokenId));
+    }
+
+    @Test
+    void tokenIsRejectedWhenUnsubscribedAndRedisFails() {
+        when(listenerContainer.isListening()).thenReturn(false);
+        when(redisTemplate.hasKey(anyString())).thenThrow(new RedisConnectionFailureException("Redis is down"));
+
+        assertTrue(denylist.isRevoked(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    void subscribedFilterAnswersWithoutRedis() {
+        when(listenerContainer.isListening()).thenReturn(true);
+        noRevokedTokensAtRebuild();
+        denylist.rebuild();
+
+        assertFalse(denylist.isRevoked(UUID.randomUUID().toString()));
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void noRevokedTokensAtRebuild() {
+        Cursor<String> keys = mock(Cursor.class);
+        when(keys.hasNext()).thenReturn(false);
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(keys);
+    }
+
+    private String revokedElsewhere() {
+        String tokenId = UUID.randomUUID().toString();
+        when(redisTemplate.hasKey("revoked:access:" + tokenId)).thenReturn(true);
+        return tokenId;
+    }
+}
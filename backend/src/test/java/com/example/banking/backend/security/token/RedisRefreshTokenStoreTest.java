@@ -0,0 +1,102 @@
+package com.example.banking.backend.security.token;
+
+import com.example.banking.backend.model.User;
+import com.example.banking.backend.model.type.UserRoleType;
+import com.example.banking.backend.repository.UserRepository;
+import com.example.banking.backend.security.service.UserDetailsImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Rotates refresh tokens against the Redis named by {@code REDIS_TEST_HOST} (and {@code REDIS_TEST_PORT},
+ * 6379 by default). Each token family gets a fresh random id, so the database does not need to be empty.
+ */
+@EnabledIfEnvironmentVariable(named = "REDIS_TEST_HOST", matches = ".+")
+class RedisRefreshTokenStoreTest {
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        String port = System.getenv("REDIS_TEST_PORT");
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+                System.getenv("REDIS_TEST_HOST"), port != null ? Integer.parseInt(port) : 6379));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void close() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void replacedTokenSentAgainWithinTheGraceGetsTheCurrentOne() {
+        RedisRefreshTokenStore store = store(60);
+        String first = store.issue(user());
+
+        String second = store.refresh(first).orElseThrow().getRefreshToken();
+        String retried = store.refresh(first).orElseThrow().getRefreshToken();
+
+        assertNotEquals(first, second);
+        assertEquals(second, retried);
+        assertTrue(store.refresh(second).isPresent());
+    }
+
+    @Test
+    void replacedTokenSentAfterTheGraceRevokesTheSession() {
+        RedisRefreshTokenStore store = store(0);
+        String first = store.issue(user());
+        String second = store.refresh(first).orElseThrow().getRefreshToken();
+
+        assertTrue(store.refresh(first).isEmpty());
+        // The copy and the legitimate client are both signed out
+        assertTrue(store.refresh(second).isEmpty());
+    }
+
+    @Test
+    void tokenTwoRotationsOldRevokesTheSessionEvenWithinTheGrace() {
+        RedisRefreshTokenStore store = store(60);
+        String first = store.issue(user());
+        String second = store.refresh(first).orElseThrow().getRefreshToken();
+        String third = store.refresh(second).orElseThrow().getRefreshToken();
+
+        assertTrue(store.refresh(first).isEmpty());
+        assertTrue(store.refresh(third).isEmpty());
+    }
+
+    @Test
+    void revokedTokenCannotBeRefreshed() {
+        RedisRefreshTokenStore store = store(60);
+        String token = store.issue(user());
+
+        assertTrue(store.revoke(token));
+        Optional<RefreshGrant> grant = store.refresh(token);
+
+        assertTrue(grant.isEmpty());
+    }
+
+    private static RedisRefreshTokenStore store(long reuseGraceSeconds) {
+        return new RedisRefreshTokenStore(redisTemplate, mock(UserRepository.class), 300, reuseGraceSeconds);
+    }
+
+    private static UserDetailsImpl user() {
+        UUID id = UUID.randomUUID();
+        return UserDetailsImpl.build(User.builder().id(id).username("user" + id).email(id + "@example.com")
+                .password("hash").role(UserRoleType.CUSTOMER).isActive(true).build());
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.banking.backend.service.archive;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.PostgresTestSchema;
+import com.example.banking.backend.repository.archive.ArchivedAccountCountRepository;
+import com.example.banking.backend.repository.archive.ArchivedTransaction;
+import com.example.banking.backend.repository.archive.TransactionArchiveStore;
+import com.example.banking.backend.repository.partition.SettlementWindow;
+import com.example.banking.backend.repository.partition.TransactionPartitionRepository;
+import com.example.banking.backend.service.partition.TransactionPartitionMaintainer;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archives months of transactions against PostgreSQL into a temporary directory, see
+ * {@link PostgresTestSchema}.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_JDBC_URL", matches = ".+")
+class TransactionArchiverTest {
+
+    private static final long MAINTENANCE_LOCK_KEY = 0x706172746974L;
+    private static final YearMonth FIRST = YearMonth.now(ZoneId.of("Asia/Ho_Chi_Minh")).minusMonths(5);
+    private static final YearMonth SECOND = FIRST.plusMonths(1);
+    private static final YearMonth LOCKED = FIRST.plusMonths(2);
+
+    @TempDir
+    static Path directory;
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionPartitionRepository partitionRepository;
+    private static TransactionArchiveStore archiveStore;
+    private static TransactionArchiver archiver;
+    private static Account account;
+    private static UUID bankId;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = PostgresTestSchema.migrate("archive_test");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        partitionRepository = new TransactionPartitionRepository(jdbcTemplate);
+        ArchivedAccountCountRepository accountCountRepository = new ArchivedAccountCountRepository(namedJdbcTemplate);
+        archiveStore = new TransactionArchiveStore(directory.toString(), partitionRepository, accountCountRepository);
+        TransactionPartitionMaintainer maintainer = new TransactionPartitionMaintainer(partitionRepository,
+                new SettlementWindow(31), jdbcTemplate, transactionManager, 3, 0);
+        archiver = new TransactionArchiver(partitionRepository, maintainer, archiveStore, accountCountRepository, 1, 100);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (YearMonth month : List.of(FIRST, SECOND, LOCKED)) {
+            if (!partitionRepository.findAttachedMonths().contains(month)) {
+                transactionTemplate.executeWithoutResult(status -> partitionRepository.createPartition(month));
+            }
+        }
+        account = PostgresTestSchema.createAccount(jdbcTemplate, "8001");
+        bankId = UUID.randomUUID();
+        jdbcTemplate.update("""
+                INSERT INTO banks (bank_id, bank_code, bank_name, public_key, api_endpoint, security_type, secret_key)
+                VALUES (?, 'ARC', 'Partner Bank', 'key', 'http://partner.test', 'RSA', 'secret')
+                """, bankId);
+    }
+
+    @AfterAll
+    static void close() {
+        dataSource.close();
+    }
+
+    @Test
+    void archivedMonthsAreCountedAndMergedInUpdateOrder() throws Exception {
+        LocalDateTime first = FIRST.atDay(10).atTime(12, 0);
+        LocalDateTime second = SECOND.atDay(10).atTime(12, 0);
+        // Settled late, after the first transactions of the next month
+        insert(first, second.plusDays(5), TransactionType.INTERBANK_TRANSFER, bankId);
+        insert(first.plusHours(1), first.plusHours(1), TransactionType.INTERBANK_TRANSFER, bankId);
+        insert(first.plusHours(2), first.plusHours(2), TransactionType.INTERNAL_TRANSFER, null);
+        insert(second, second, TransactionType.INTERBANK_TRANSFER, bankId);
+        insert(second.plusDays(1), second.plusDays(1), TransactionType.DEPOSIT, null);
+        insert(second.plusDays(10), second.plusDays(10), TransactionType.INTERBANK_TRANSFER, bankId);
+
+        archiver.archive(FIRST);
+        archiver.archive(SECOND);
+
+        assertFalse(partitionRepository.findAttachedMonths().contains(FIRST));
+        assertFalse(partitionRepository.findAttachedMonths().contains(SECOND));
+        assertTrue(archiveStore.findArchivedMonths().containsAll(List.of(FIRST, SECOND)));
+        assertEquals(6, archiveStore.countAccountTransactions(account.getAccountId(), null));
+        assertEquals(4, archiveStore.countAccountTransactions(account.getAccountId(), TransactionType.INTERBANK_TRANSFER));
+
+        Iterator<ArchivedTransaction> rows = archiveStore.findInterbankUpdatedBetween(
+                Timestamp.valueOf(first).toInstant(), Timestamp.valueOf(SECOND.plusMonths(1).atDay(1).atStartOfDay()).toInstant(),
+                null);
+        List<LocalDateTime> updated = new ArrayList<>();
+        rows.forEachRemaining(row -> updated.add(LocalDateTime.ofInstant(row.getUpdatedAt(), ZoneId.systemDefault())));
+        assertEquals(List.of(first.plusHours(1), second, second.plusDays(5), second.plusDays(10)), updated);
+    }
+
+    @Test
+    void monthIsKeptWhileAnotherInstanceHoldsTheMaintenanceLock() throws Exception {
+        insert(LOCKED.atDay(3).atStartOfDay(), LOCKED.atDay(3).atStartOfDay(), TransactionType.DEPOSIT, null);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch archived = new CountDownLatch(1);
+        ExecutorService otherInstance = Executors.newSingleThreadExecutor();
+        Future<?> holder = otherInstance.submit(() -> new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+                .executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, MAINTENANCE_LOCK_KEY);
+                    locked.countDown();
+                    try {
+                        archived.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        locked.await();
+        try {
+            archiver.archive(LOCKED);
+        } finally {
+            archived.countDown();
+            holder.get();
+            otherInstance.shutdown();
+        }
+
+        assertTrue(partitionRepository.findAttachedMonths().contains(LOCKED));
+        assertFalse(archiveStore.findArchivedMonths().contains(LOCKED));
+    }
+
+    private static void insert(LocalDateTime createdAt, LocalDateTime updatedAt, TransactionType type, UUID toBankId) {
+        jdbcTemplate.update("""
+                INSERT INTO transactions (transaction_id, transaction_type, from_account_id, from_account_number,
+                                          to_bank_id, to_account_number, amount, status, created_at, updated_at)
+                VALUES (?, ?, ?, ?, ?, '9999', 10, 'COMPLETED', ?, ?)
+                """, UUID.randomUUID(), type.name(), account.getAccountId(), account.getAccountNumber(), toBankId,
+                Timestamp.valueOf(createdAt), Timestamp.valueOf(updatedAt));
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.banking.backend.service.batch;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.PostgresTestSchema;
+import com.example.banking.backend.repository.TransactionRepository;
+import com.example.banking.backend.repository.journal.GroupCommitJournalWriter;
+import com.example.banking.backend.repository.journal.JournalWork;
+import com.example.banking.backend.repository.journal.JournalWriter;
+import com.example.banking.backend.repository.ledger.LedgerRepository;
+import com.example.banking.backend.repository.transfer.AccountBalanceTransferExecutor;
+import com.example.banking.backend.repository.transfer.BalanceShardRepository;
+import com.example.banking.backend.repository.transfer.TransferLine;
+import com.example.banking.backend.repository.transfer.TransferOutcome;
+import com.example.banking.backend.service.lock.AccountLockManager;
+import com.example.banking.backend.service.lock.StripedAccountLockManager;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs batches through a group commit journal writer while single transfers move money the other way,
+ * between the receivers and back to the source, against PostgreSQL, see {@link PostgresTestSchema}. The
+ * writer retries a movement alone when its group fails, which would hide a deadlock, so the test also
+ * checks that no movement ran more than once.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_JDBC_URL", matches = ".+")
+class BatchTransferProcessorTest {
+
+    private static final int RECEIVERS = 8;
+    private static final double OPENING_BALANCE = 100_000;
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static LedgerRepository ledgerRepository;
+    private static AccountBalanceTransferExecutor executor;
+    private static GroupCommitJournalWriter groupCommitJournalWriter;
+
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger applied = new AtomicInteger();
+    private final JournalWriter journalWriter = new JournalWriter() {
+        @Override
+        public <T> CompletableFuture<T> submit(JournalWork<T> work) {
+            submitted.incrementAndGet();
+            return groupCommitJournalWriter.submit(batch -> {
+                applied.incrementAndGet();
+                return work.apply(batch);
+            });
+        }
+    };
+    private final AccountLockManager lockManager = new StripedAccountLockManager(64, 10_000,
+            new SimpleMeterRegistry());
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = PostgresTestSchema.migrate("batch_test");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        ledgerRepository = new LedgerRepository(namedJdbcTemplate);
+        executor = new AccountBalanceTransferExecutor(namedJdbcTemplate, ledgerRepository, shards());
+        groupCommitJournalWriter = new GroupCommitJournalWriter(namedJdbcTemplate, transactionManager, 2, 64, 2,
+                10_000);
+    }
+
+    @AfterAll
+    static void close() throws InterruptedException {
+        groupCommitJournalWriter.shutdown();
+        dataSource.close();
+    }
+
+    @Test
+    void batchesAndOppositeTransfersAllCommitOnce() throws Exception {
+        Account source = fundedAccount("1000");
+        List<Account> receivers = new ArrayList<>();
+        for (int i = 1; i <= RECEIVERS; i++) {
+            receivers.add(fundedAccount(String.valueOf(1000 + i)));
+        }
+        BatchTransferProcessor processor = processor(3);
+
+        ExecutorService threads = Executors.newFixedThreadPool(6);
+        List<Future<Integer>> work = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            work.add(threads.submit(() -> {
+                int credited = 0;
+                for (int i = 0; i < 20; i++) {
+                    List<TransferLine> lines = receivers.stream()
+                            .map(receiver -> new TransferLine(receiver, 10, 1, null))
+                            .toList();
+                    List<UUID> results = processor.transfer(source, lines, FeeType.SENDER,
+                            TransactionType.INTERNAL_TRANSFER);
+                    assertNotNull(results);
+                    credited += (int) results.stream().filter(Objects::nonNull).count();
+                }
+                return credited;
+            }));
+        }
+        for (int t = 0; t < 4; t++) {
+            work.add(threads.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 100; i++) {
+                    Account from = receivers.get(random.nextInt(RECEIVERS));
+                    // Every fourth transfer goes back to the source of the batches
+                    Account to = i % 4 == 0 ? source : receivers.get(random.nextInt(RECEIVERS));
+                    if (from == to) {
+                        continue;
+                    }
+                    TransferOutcome outcome = lockManager.callWithLocks(
+                            List.of(from.getAccountNumber(), to.getAccountNumber()),
+                            () -> journalWriter.write(batch -> executor.transfer(batch, from, to, 5, 0,
+                                    FeeType.SENDER, TransactionType.INTERNAL_TRANSFER, null)));
+                    assertNotNull(outcome);
+                }
+                return 0;
+            }));
+        }
+        int credited = 0;
+        for (Future<Integer> future : work) {
+            credited += future.get(60, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+
+        assertEquals(2 * 20 * RECEIVERS, credited);
+        assertEquals(submitted.get(), applied.get(), "a group failed and its movements ran again");
+        double total = PostgresTestSchema.storedBalance(jdbcTemplate, source.getAccountId());
+        for (Account receiver : receivers) {
+            total += PostgresTestSchema.storedBalance(jdbcTemplate, receiver.getAccountId());
+        }
+        // Each credited line paid a fee of 1
+        assertEquals((RECEIVERS + 1) * OPENING_BALANCE - credited, total, 0.001);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE status = 'PENDING'", Integer.class));
+        assertTrue(ledgerRepository.findDrift(0.001, 10).isEmpty());
+    }
+
+    @Test
+    void lineThatCannotBeCreditedIsRefunded() {
+        Account source = fundedAccount("2000");
+        Account receiver = fundedAccount("2001");
+        Account unreachable = fundedAccount("2002");
+        // Stands for a credit that keeps failing, e.g. on a lock timeout
+        AccountBalanceTransferExecutor failingExecutor = new AccountBalanceTransferExecutor(
+                new NamedParameterJdbcTemplate(dataSource), ledgerRepository, shards()) {
+            @Override
+            public List<UUID> creditBatch(List<UUID> transactionIds, Instant createdAt) {
+                List<UUID> credited = super.creditBatch(transactionIds, createdAt);
+                if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE to_account_id = ?"
+                        + " AND status = 'COMPLETED'", Integer.class, unreachable.getAccountId()) > 0) {
+                    throw new QueryTimeoutException("Credit timed out");
+                }
+                return credited;
+            }
+        };
+
+        List<UUID> results = processor(failingExecutor, 10).transfer(source, List.of(
+                new TransferLine(receiver, 30, 1, null),
+                new TransferLine(unreachable, 20, 1, null)), FeeType.SENDER, TransactionType.INTERNAL_TRANSFER);
+
+        assertNotNull(results.get(0));
+        assertNull(results.get(1));
+        assertEquals(OPENING_BALANCE - 31, PostgresTestSchema.storedBalance(jdbcTemplate, source.getAccountId()));
+        assertEquals(OPENING_BALANCE + 30, PostgresTestSchema.storedBalance(jdbcTemplate, receiver.getAccountId()));
+        assertEquals(OPENING_BALANCE, PostgresTestSchema.storedBalance(jdbcTemplate, unreachable.getAccountId()));
+        assertEquals(List.of("COMPLETED", "FAILED"), jdbcTemplate.queryForList(
+                "SELECT status FROM transactions WHERE from_account_id = ? ORDER BY amount DESC",
+                String.class, source.getAccountId()));
+        assertTrue(ledgerRepository.findDrift(0.001, 10).isEmpty());
+    }
+
+    private BatchTransferProcessor processor(int chunkSize) {
+        return processor(executor, chunkSize);
+    }
+
+    private BatchTransferProcessor processor(AccountBalanceTransferExecutor transferExecutor, int chunkSize) {
+        return new BatchTransferProcessor(transferExecutor, journalWriter, lockManager, shards(),
+                mock(TransactionRepository.class), chunkSize, 300);
+    }
+
+    private static BalanceShardRepository shards() {
+        return new BalanceShardRepository(new NamedParameterJdbcTemplate(dataSource), List.of(), 16, 2);
+    }
+
+    private static Account fundedAccount(String accountNumber) {
+        Account account = PostgresTestSchema.createAccount(jdbcTemplate, accountNumber);
+        transactionTemplate.executeWithoutResult(status ->
+                executor.adjustBalance(account.getAccountId(), OPENING_BALANCE, null, LedgerBookType.CASH));
+        return account;
+    }
+}
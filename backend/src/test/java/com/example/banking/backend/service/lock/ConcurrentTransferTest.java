@@ -0,0 +1,163 @@
+package com.example.banking.backend.service.lock;
+
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.type.FeeType;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.TransactionType;
+import com.example.banking.backend.repository.PostgresTestSchema;
+import com.example.banking.backend.repository.journal.DirectJournalWriter;
+import com.example.banking.backend.repository.journal.JournalWriter;
+import com.example.banking.backend.repository.ledger.LedgerRepository;
+import com.example.banking.backend.repository.transfer.AccountBalanceTransferExecutor;
+import com.example.banking.backend.repository.transfer.BalanceShardRepository;
+import com.example.banking.backend.repository.transfer.TransferOutcome;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Random transfers between a handful of accounts from several threads, each under the account locks. Checks
+ * that no two movements of one account overlap and that no money is created, lost or overdrawn. Runs
+ * against PostgreSQL, see {@link PostgresTestSchema}.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_JDBC_URL", matches = ".+")
+class ConcurrentTransferTest {
+
+    private static final int ACCOUNTS = 5;
+    private static final double OPENING_BALANCE = 1000;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 150;
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static DataSourceTransactionManager transactionManager;
+    private static TransactionTemplate transactionTemplate;
+    private static JournalWriter journalWriter;
+    private static LedgerRepository ledgerRepository;
+    private static AccountBalanceTransferExecutor executor;
+
+    private final List<Account> accounts = new ArrayList<>();
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = PostgresTestSchema.migrate("lock_test");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        journalWriter = new DirectJournalWriter(namedJdbcTemplate, transactionManager);
+        ledgerRepository = new LedgerRepository(namedJdbcTemplate);
+        executor = new AccountBalanceTransferExecutor(namedJdbcTemplate, ledgerRepository,
+                new BalanceShardRepository(namedJdbcTemplate, List.of(), 16, 2));
+    }
+
+    @AfterAll
+    static void close() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void createAccounts() {
+        String prefix = String.valueOf(System.nanoTime());
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = PostgresTestSchema.createAccount(jdbcTemplate, prefix + i);
+            transactionTemplate.executeWithoutResult(status ->
+                    executor.adjustBalance(account.getAccountId(), OPENING_BALANCE, null, LedgerBookType.CASH));
+            accounts.add(account);
+        }
+    }
+
+    @Test
+    void stripedLocksKeepBalancesConsistent() throws Exception {
+        runTransfers(new StripedAccountLockManager(1024, 10_000, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void advisoryLocksKeepBalancesConsistent() throws Exception {
+        runTransfers(new AdvisoryAccountLockManager(jdbcTemplate, transactionManager, 10_000, 1, 20,
+                new SimpleMeterRegistry()));
+    }
+
+    private void runTransfers(AccountLockManager lockManager) throws Exception {
+        Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        accounts.forEach(account -> inFlight.put(account.getAccountNumber(), new AtomicInteger()));
+        AtomicInteger overlaps = new AtomicInteger();
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> completed = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            completed.add(threads.submit(() -> {
+                int transfers = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    Account from = accounts.get(random.nextInt(ACCOUNTS));
+                    Account to = accounts.get(random.nextInt(ACCOUNTS));
+                    if (from == to) {
+                        continue;
+                    }
+                    double amount = random.nextInt(1, 400);
+                    TransferOutcome outcome = lockManager.callWithLocks(
+                            List.of(from.getAccountNumber(), to.getAccountNumber()), () -> {
+                                List<AtomicInteger> held = List.of(inFlight.get(from.getAccountNumber()),
+                                        inFlight.get(to.getAccountNumber()));
+                                held.forEach(count -> {
+                                    if (count.incrementAndGet() > 1) {
+                                        overlaps.incrementAndGet();
+                                    }
+                                });
+                                try {
+                                    return journalWriter.write(batch -> executor.transfer(batch, from, to, amount,
+                                            1, FeeType.SENDER, TransactionType.INTERNAL_TRANSFER, null));
+                                } finally {
+                                    held.forEach(AtomicInteger::decrementAndGet);
+                                }
+                            });
+                    if (outcome != null) {
+                        transfers++;
+                    }
+                }
+                return transfers;
+            }));
+        }
+        int transfers = 0;
+        for (Future<Integer> future : completed) {
+            transfers += future.get();
+        }
+        threads.shutdown();
+
+        assertEquals(0, overlaps.get(), "movements of one account overlapped");
+        double total = 0;
+        for (Account account : accounts) {
+            double balance = PostgresTestSchema.storedBalance(jdbcTemplate, account.getAccountId());
+            assertTrue(balance >= 0, "account " + account.getAccountNumber() + " is overdrawn: " + balance);
+            total += balance;
+        }
+        // Every transfer that went through paid a fee of 1
+        assertEquals(ACCOUNTS * OPENING_BALANCE - transfers, total, 0.001);
+        assertEquals(transfers, jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM transactions WHERE from_account_id IN (?, ?, ?, ?, ?)
+                """, Integer.class, accounts.stream().map(Account::getAccountId).toArray()));
+        assertTrue(ledgerRepository.findDrift(0.001, 10).isEmpty());
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.banking.backend.service.outbox;
+
+import com.example.banking.backend.exception.PartnerBankUnavailableException;
+import com.example.banking.backend.exception.TransferNotSentException;
+import com.example.banking.backend.model.Account;
+import com.example.banking.backend.model.Transaction;
+import com.example.banking.backend.model.type.LedgerBookType;
+import com.example.banking.backend.model.type.OutboxResolutionType;
+import com.example.banking.backend.model.type.OutboxStatusType;
+import com.example.banking.backend.model.type.TransactionStatusType;
+import com.example.banking.backend.repository.PostgresTestSchema;
+import com.example.banking.backend.repository.TransactionRepository;
+import com.example.banking.backend.repository.ledger.LedgerRepository;
+import com.example.banking.backend.repository.outbox.InterbankOutboxRepository;
+import com.example.banking.backend.repository.partition.SettlementWindow;
+import com.example.banking.backend.repository.stats.DailyBankRollupRepository;
+import com.example.banking.backend.repository.transfer.AccountBalanceTransferExecutor;
+import com.example.banking.backend.repository.transfer.BalanceShardRepository;
+import com.example.banking.backend.service.NotificationService;
+import com.example.banking.backend.service.lock.StripedAccountLockManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Delivers outbox entries against PostgreSQL with the partner bank replaced by a mock, see
+ * {@link PostgresTestSchema}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_JDBC_URL", matches = ".+")
+class InterbankOutboxDispatcherTest {
+
+    private static final String SCHEMA = "outbox_test";
+
+    /**
+     * Only the repositories the dispatcher uses, the others need beans this slice does not load.
+     */
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = Transaction.class)
+    @EnableJpaRepositories(basePackageClasses = TransactionRepository.class, includeFilters = @ComponentScan.Filter(
+            type = FilterType.ASSIGNABLE_TYPE, classes = {TransactionRepository.class, InterbankOutboxRepository.class}))
+    static class Repositories {
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        PostgresTestSchema.migrate(SCHEMA).close();
+        registry.add("spring.datasource.url", () -> System.getenv("PLAN_TEST_JDBC_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv("PLAN_TEST_DB_USERNAME"));
+        registry.add("spring.datasource.password", () -> System.getenv("PLAN_TEST_DB_PASSWORD"));
+        registry.add("spring.datasource.hikari.connection-init-sql", () -> "SET search_path TO " + SCHEMA + ", public");
+        registry.add("spring.flyway.enabled", () -> "false");
+    }
+
+    @Autowired
+    private InterbankOutboxRepository outboxRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final InterbankTransferSender transferSender = mock(InterbankTransferSender.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private TransactionTemplate transactionTemplate;
+    private AccountBalanceTransferExecutor transferExecutor;
+    private DailyBankRollupRepository rollupRepository;
+    private InterbankOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transferExecutor = new AccountBalanceTransferExecutor(namedJdbcTemplate, new LedgerRepository(namedJdbcTemplate),
+                new BalanceShardRepository(namedJdbcTemplate, List.of(), 16, 2));
+        rollupRepository = new DailyBankRollupRepository(namedJdbcTemplate, new SettlementWindow(31));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void redeliveryAfterExpiredLeaseSettlesOnce() throws Exception {
+        dispatcher = dispatcher(8);
+        Account sender = fundedAccount("5001", 1000);
+        UUID transactionId = queueTransfer(sender, 100);
+
+        // The first call outlives its lease: another dispatch redelivers and completes the transfer before the
+        // first call comes back with a rejection
+        when(transferSender.send(any(), any(), eq(transactionId)))
+                .thenAnswer(invocation -> {
+                    expireLease(transactionId);
+                    dispatcher.dispatch();
+                    awaitStatus(transactionId, TransactionStatusType.COMPLETED);
+                    throw HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "rejected", null, null, null);
+                })
+                .thenReturn(ResponseEntity.ok(Map.of()));
+
+        dispatcher.dispatch();
+        // Both deliveries must have started before shutdown stops taking new ones
+        verify(transferSender, timeout(10_000).times(2)).send(any(), any(), eq(transactionId));
+        dispatcher.shutdown();
+
+        assertEquals(TransactionStatusType.COMPLETED, status(transactionId));
+        assertEquals(OutboxStatusType.SENT, outboxStatus(transactionId));
+        assertEquals(900, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+    }
+
+    @Test
+    void rejectionRefundsTheSender() throws Exception {
+        dispatcher = dispatcher(8);
+        Account sender = fundedAccount("6001", 1000);
+        UUID transactionId = queueTransfer(sender, 100);
+        when(transferSender.send(any(), any(), eq(transactionId)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "rejected", null, null, null));
+
+        dispatcher.dispatch();
+        dispatcher.shutdown();
+
+        assertEquals(TransactionStatusType.FAILED, status(transactionId));
+        assertEquals(OutboxStatusType.FAILED, outboxStatus(transactionId));
+        assertEquals(1000, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+    }
+
+    @Test
+    void unansweredTransferIsParkedWithTheMoneyHeld() throws Exception {
+        dispatcher = dispatcher(1);
+        Account sender = fundedAccount("7001", 1000);
+        UUID transactionId = queueTransfer(sender, 100);
+        when(transferSender.send(any(), any(), eq(transactionId)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        dispatcher.dispatch();
+        dispatcher.shutdown();
+
+        assertEquals(TransactionStatusType.PENDING, status(transactionId));
+        assertEquals(OutboxStatusType.UNRESOLVED, outboxStatus(transactionId));
+        assertEquals(900, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        verify(notificationService).addNotification(argThat(notification ->
+                notification.getTitle().equals("Transfer awaiting confirmation")));
+    }
+
+    @Test
+    void transferNeverSentIsRefundedWhenTheAttemptsRunOut() throws Exception {
+        dispatcher = dispatcher(3);
+        Account sender = fundedAccount("7101", 1000);
+        UUID transactionId = queueTransfer(sender, 100);
+        when(transferSender.send(any(), any(), eq(transactionId))).thenThrow(new TransferNotSentException(
+                "Bank P7101 is unavailable", new PartnerBankUnavailableException("Bank P7101 is unavailable")));
+
+        dispatchUntilSettled(transactionId);
+
+        verify(transferSender, times(3)).send(any(), any(), eq(transactionId));
+        assertEquals(TransactionStatusType.FAILED, status(transactionId));
+        assertEquals(OutboxStatusType.FAILED, outboxStatus(transactionId));
+        assertEquals(1000, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+    }
+
+    @Test
+    void transferNeverSentAfterATimeoutIsStillParked() throws Exception {
+        dispatcher = dispatcher(3);
+        Account sender = fundedAccount("7201", 1000);
+        UUID transactionId = queueTransfer(sender, 100);
+        when(transferSender.send(any(), any(), eq(transactionId)))
+                .thenThrow(new ResourceAccessException("Read timed out"))
+                .thenThrow(new TransferNotSentException("Bank P7201 is unavailable", null));
+
+        dispatchUntilSettled(transactionId);
+
+        assertEquals(TransactionStatusType.PENDING, status(transactionId));
+        assertEquals(OutboxStatusType.UNRESOLVED, outboxStatus(transactionId));
+        assertEquals(900, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+    }
+
+    @Test
+    void parkedTransferResolvedAsFailedRefundsTheSender() throws Exception {
+        dispatcher = dispatcher(1);
+        Account sender = fundedAccount("7301", 1000);
+        UUID transactionId = queueTransfer(sender, 100);
+        when(transferSender.send(any(), any(), eq(transactionId)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+        dispatchUntilSettled(transactionId);
+
+        dispatcher.resolve(transactionId, OutboxResolutionType.FAILED);
+
+        assertEquals(TransactionStatusType.FAILED, status(transactionId));
+        assertEquals(OutboxStatusType.FAILED, outboxStatus(transactionId));
+        assertEquals(1000, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        assertTrue(dispatcher.findUnresolved().stream().noneMatch(entry -> entry.getTransactionId().equals(transactionId)));
+    }
+
+    @Test
+    void parkedTransferSentAgainCompletes() throws Exception {
+        dispatcher = dispatcher(1);
+        Account sender = fundedAccount("7401", 1000);
+        UUID transactionId = queueTransfer(sender, 100);
+        when(transferSender.send(any(), any(), eq(transactionId)))
+                .thenThrow(new ResourceAccessException("Read timed out"))
+                .thenReturn(ResponseEntity.ok(Map.of()));
+        dispatchUntilSettled(transactionId);
+        assertEquals(OutboxStatusType.UNRESOLVED, outboxStatus(transactionId));
+
+        dispatcher.resolve(transactionId, OutboxResolutionType.RETRY);
+        dispatchUntilSettled(transactionId);
+
+        assertEquals(TransactionStatusType.COMPLETED, status(transactionId));
+        assertEquals(OutboxStatusType.SENT, outboxStatus(transactionId));
+        assertEquals(900, PostgresTestSchema.storedBalance(jdbcTemplate, sender.getAccountId()));
+        verify(notificationService, never()).addNotification(argThat(notification ->
+                notification.getTitle().equals("Transfer failed")));
+    }
+
+    private InterbankOutboxDispatcher dispatcher(int maxAttempts) {
+        return new InterbankOutboxDispatcher(outboxRepository, transactionRepository, rollupRepository,
+                transferExecutor, new StripedAccountLockManager(64, 10_000, new SimpleMeterRegistry()),
+                notificationService, transferSender, transactionManager,
+                4, 4, maxAttempts, 120, 10, 10);
+    }
+
+    private Account fundedAccount(String accountNumber, double balance) {
+        Account account = PostgresTestSchema.createAccount(jdbcTemplate, accountNumber);
+        transactionTemplate.executeWithoutResult(status ->
+                transferExecutor.adjustBalance(account.getAccountId(), balance, null, LedgerBookType.CASH));
+        return account;
+    }
+
+    /**
+     * What {@code externalTransfer} commits: the pending transaction, the hold on the sender and the outbox row.
+     */
+    private UUID queueTransfer(Account sender, double amount) {
+        UUID bankId = UUID.randomUUID();
+        jdbcTemplate.update("""
+                INSERT INTO banks (bank_id, bank_code, bank_name, public_key, api_endpoint, security_type, secret_key)
+                VALUES (?, ?, 'Partner Bank', 'key', 'http://partner.test', 'RSA', 'secret')
+                """, bankId, "P" + sender.getAccountNumber());
+
+        UUID transactionId = UUID.randomUUID();
+        Instant now = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("""
+                    INSERT INTO transactions (transaction_id, transaction_type, from_account_id, from_account_number,
+                                              to_bank_id, to_account_number, amount, fee, status)
+                    VALUES (?, 'INTERBANK_TRANSFER', ?, ?, ?, '9999', ?, 0, 'PENDING')
+                    """, transactionId, sender.getAccountId(), sender.getAccountNumber(), bankId, amount);
+            transferExecutor.debit(sender.getAccountId(), amount, transactionId, LedgerBookType.INTERBANK_CLEARING);
+            rollupRepository.record(transactionRepository.findById(transactionId).orElseThrow());
+            jdbcTemplate.update("""
+                    INSERT INTO interbank_outbox (transaction_id, bank_id, next_attempt_at)
+                    VALUES (?, ?, CURRENT_TIMESTAMP - INTERVAL '1 minute')
+                    """, transactionId, bankId);
+        });
+        return transactionId;
+    }
+
+    /**
+     * Dispatches until the entry is neither waiting for an attempt nor in one.
+     */
+    private void dispatchUntilSettled(UUID transactionId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        do {
+            dispatcher.dispatch();
+            Thread.sleep(20);
+        } while ((outboxStatus(transactionId) == OutboxStatusType.PENDING
+                || outboxStatus(transactionId) == OutboxStatusType.IN_PROGRESS)
+                && System.currentTimeMillis() < deadline);
+    }
+
+    private void expireLease(UUID transactionId) {
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.findAll().stream()
+                .filter(entry -> entry.getTransactionId().equals(transactionId))
+                .forEach(entry -> entry.setLockedUntil(Instant.now().minusSeconds(1))));
+    }
+
+    private void awaitStatus(UUID transactionId, TransactionStatusType expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (status(transactionId) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private TransactionStatusType status(UUID transactionId) {
+        return TransactionStatusType.valueOf(jdbcTemplate.queryForObject(
+                "SELECT status FROM transactions WHERE transaction_id = ?", String.class, transactionId));
+    }
+
+    private OutboxStatusType outboxStatus(UUID transactionId) {
+        return OutboxStatusType.valueOf(jdbcTemplate.queryForObject(
+                "SELECT status FROM interbank_outbox WHERE transaction_id = ?", String.class, transactionId));
+    }
+}
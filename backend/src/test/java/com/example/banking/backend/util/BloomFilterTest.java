@@ -0,0 +1,87 @@
+package com.example.banking.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A bloom filter may answer "maybe" for an item it never saw, but must never answer "no" for one it did:
+ * the access token denylist would let a revoked token through.
+ */
+class BloomFilterTest {
+
+    @Test
+    void everyAddedItemIsFoundEvenPastTheExpectedSize() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        List<String> items = tokenIds(5_000);
+        items.forEach(filter::add);
+
+        assertEquals(0, items.stream().filter(item -> !filter.mightContain(item)).count());
+    }
+
+    @Test
+    void itemsAddedFromSeveralThreadsAreAllFound() throws Exception {
+        // Small enough that the threads keep setting bits in the same words
+        BloomFilter filter = new BloomFilter(2_000, 0.01);
+        List<List<String>> perThread = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            perThread.add(tokenIds(2_000));
+        }
+
+        ExecutorService threads = Executors.newFixedThreadPool(perThread.size());
+        try {
+            List<Future<?>> adds = new ArrayList<>();
+            for (List<String> items : perThread) {
+                adds.add(threads.submit(() -> items.forEach(filter::add)));
+            }
+            for (Future<?> add : adds) {
+                add.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        assertEquals(0, perThread.stream().flatMap(List::stream).filter(item -> !filter.mightContain(item)).count());
+    }
+
+    @Test
+    void falsePositivesStayNearTheRateAtTheExpectedSize() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        tokenIds(10_000).forEach(filter::add);
+
+        long falsePositives = tokenIds(100_000).stream().filter(filter::mightContain).count();
+
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.001);
+
+        assertEquals(0, tokenIds(1_000).stream().filter(filter::mightContain).count());
+    }
+
+    @Test
+    void sizeAndRateAreChecked() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+
+    private static List<String> tokenIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,102 @@
+-- Data for QueryPlanRegressionTest. Ids are derived from md5 so the queries can name rows without
+-- looking them up; transactions are spread over 2026 with one in ten being interbank.
+
+INSERT INTO banks (bank_id, bank_code, bank_name, public_key, api_endpoint, security_type, secret_key)
+SELECT md5('bank' || i)::uuid, 'B' || i, 'Bank ' || i, 'public-key', 'http://bank' || i || '.test', 'RSA', 'secret'
+FROM generate_series(1, 5) i;
+
+INSERT INTO users (user_id, username, password, email, phone, full_name, address, dob, role)
+SELECT md5('user' || i)::uuid, 'user' || i, 'password', 'user' || i || '@mail.test', lpad(i::text, 10, '0'),
+       'User ' || i, 'Address ' || i, DATE '1990-01-01' + i % 10000,
+       CASE WHEN i % 1000 = 0 THEN 'ADMIN' WHEN i % 100 = 0 THEN 'EMPLOYEE' ELSE 'CUSTOMER' END
+FROM generate_series(1, 20000) i;
+
+INSERT INTO accounts (account_id, account_number, balance, user_id)
+SELECT md5('account' || i)::uuid, lpad(i::text, 12, '0'), 1000000, md5('user' || i)::uuid
+FROM generate_series(1, 20000) i;
+
+-- The migrations only create partitions from the current month on
+DO $$
+BEGIN
+    FOR m IN 1..12 LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       'transactions_y2026m' || lpad(m::text, 2, '0'),
+                       make_timestamp(2026, m, 1, 0, 0, 0),
+                       make_timestamp(2026, m, 1, 0, 0, 0) + interval '1 month');
+    END LOOP;
+END
+$$;
+
+INSERT INTO transactions (transaction_type, from_bank_id, from_account_id, from_account_number, to_bank_id,
+                          to_account_id, to_account_number, amount, status, message, created_at, updated_at)
+SELECT CASE WHEN s.kind = 'INTERNAL' THEN 'INTERNAL_TRANSFER' ELSE 'INTERBANK_TRANSFER' END,
+       CASE WHEN s.kind = 'INCOMING' THEN s.bank_id END,
+       CASE WHEN s.kind <> 'INCOMING' THEN md5('account' || s.sender)::uuid END,
+       lpad(s.sender::text, 12, '0'),
+       CASE WHEN s.kind = 'OUTGOING' THEN s.bank_id END,
+       CASE WHEN s.kind <> 'OUTGOING' THEN md5('account' || s.receiver)::uuid END,
+       lpad(s.receiver::text, 12, '0'),
+       s.i % 1000 + 10,
+       CASE WHEN s.i % 50 = 0 THEN 'FAILED' ELSE 'COMPLETED' END,
+       'Transfer ' || s.i,
+       s.created_at,
+       s.created_at + interval '1 minute'
+FROM (SELECT i, i % 20000 + 1 AS sender, (i * 7) % 20000 + 1 AS receiver,
+             CASE i % 20 WHEN 0 THEN 'INCOMING' WHEN 10 THEN 'OUTGOING' ELSE 'INTERNAL' END AS kind,
+             md5('bank' || ((i / 20) % 5 + 1))::uuid AS bank_id,
+             TIMESTAMP '2026-01-01' + i * interval '150 seconds' AS created_at
+      FROM generate_series(1, 200000) i) s;
+
+-- Two legs per transaction, the side outside the bank goes to the clearing book
+INSERT INTO ledger_entries (transaction_id, account_id, book, direction, amount, created_at)
+SELECT t.transaction_id, l.account_id, CASE WHEN l.account_id IS NULL THEN 'INTERBANK_CLEARING' ELSE 'CUSTOMER' END,
+       l.direction, t.amount, t.created_at
+FROM transactions t
+CROSS JOIN LATERAL (VALUES (t.from_account_id, 'DEBIT'), (t.to_account_id, 'CREDIT')) l(account_id, direction);
+
+INSERT INTO account_balance_snapshots (account_id, balance, horizon_xid, taken_at)
+SELECT md5('account' || i)::uuid, 1000000, pg_current_xact_id(), TIMESTAMP '2026-12-31'
+FROM generate_series(1, 20000, 2) i;
+
+-- A few merchants with sixteen shards each
+INSERT INTO account_balance_shards (account_id, shard, balance)
+SELECT md5('account' || i)::uuid, s, (i + s) % 3 * 100
+FROM generate_series(2, 182, 20) i
+CROSS JOIN generate_series(0, 15) s;
+
+INSERT INTO interbank_outbox (transaction_id, bank_id, status, next_attempt_at)
+SELECT t.transaction_id, COALESCE(t.from_bank_id, t.to_bank_id),
+       CASE WHEN row_number() OVER (ORDER BY t.created_at) % 100 = 0 THEN 'PENDING' ELSE 'SENT' END,
+       t.created_at
+FROM transactions t
+WHERE t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL;
+
+INSERT INTO daily_bank_rollup (day, bank_id, direction, transaction_type, status, total_transactions, total_amount)
+SELECT CAST(t.updated_at AS date), COALESCE(t.from_bank_id, t.to_bank_id),
+       CASE WHEN t.from_bank_id IS NOT NULL THEN 'INCOMING' ELSE 'OUTGOING' END,
+       t.transaction_type, t.status, COUNT(*), SUM(t.amount)
+FROM transactions t
+WHERE t.from_bank_id IS NOT NULL OR t.to_bank_id IS NOT NULL
+GROUP BY 1, 2, 3, 4, 5;
+
+INSERT INTO notifications (notification_id, user_id, title, content, created_at, read)
+SELECT md5('notification' || i)::uuid, md5('user' || (i % 20000 + 1))::uuid, 'Title ' || i, 'Content ' || i,
+       TIMESTAMP '2026-01-01' + i * interval '5 minutes', i % 3 = 0
+FROM generate_series(1, 100000) i;
+
+INSERT INTO debt_reminders (creator_id, debtor_id, amount, message, status)
+SELECT md5('user' || (i % 20000 + 1))::uuid, md5('user' || ((i * 3) % 20000 + 1))::uuid, i % 500 + 10,
+       'Debt ' || i, CASE i % 3 WHEN 0 THEN 'PENDING' WHEN 1 THEN 'PAID' ELSE 'CANCELLED' END
+FROM generate_series(1, 40000) i;
+
+INSERT INTO recipients (user_id, recipient_account_number, recipient_name, bank_id, nick_name)
+SELECT md5('user' || (i % 20000 + 1))::uuid, lpad(((i * 11) % 20000 + 1)::text, 12, '0'), 'Recipient ' || i,
+       CASE WHEN i % 10 = 0 THEN md5('bank' || (i % 5 + 1))::uuid END, 'Nick ' || i
+FROM generate_series(1, 40000) i;
+
+INSERT INTO refresh_tokens (refresh_token_id, user_id, expires_at)
+SELECT md5('token' || i)::uuid, md5('user' || i)::uuid, TIMESTAMP '2026-12-31'
+FROM generate_series(1, 20000) i;
+
+ANALYZE banks, users, accounts, transactions, interbank_outbox, daily_bank_rollup, notifications, debt_reminders,
+        recipients, refresh_tokens, ledger_entries, account_balance_snapshots, account_balance_shards;
@@ -45,10 +45,55 @@ CREATE EXTENSION IF NOT EXISTS "uuid-ossp" WITH SCHEMA public;
 COMMENT ON EXTENSION "uuid-ossp" IS 'generate universally unique identifiers (UUIDs)';
 
 
+--
+-- Name: reject_ledger_entry_change(); Type: FUNCTION; Schema: public; Owner: neondb_owner
+--
+
+CREATE FUNCTION public.reject_ledger_entry_change() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    RAISE EXCEPTION 'ledger_entries is append-only';
+END
+$$;
+
+
+ALTER FUNCTION public.reject_ledger_entry_change() OWNER TO neondb_owner;
+
 SET default_tablespace = '';
 
 SET default_table_access_method = heap;
 
+--
+-- Name: account_balance_shards; Type: TABLE; Schema: public; Owner: neondb_owner
+--
+
+CREATE TABLE public.account_balance_shards (
+    account_id uuid NOT NULL,
+    shard smallint NOT NULL,
+    balance double precision DEFAULT 0 NOT NULL,
+    updated_at timestamp without time zone DEFAULT LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT account_balance_shards_shard_check CHECK ((shard >= 0))
+)
+WITH (fillfactor='50');
+
+
+ALTER TABLE public.account_balance_shards OWNER TO neondb_owner;
+
+--
+-- Name: account_balance_snapshots; Type: TABLE; Schema: public; Owner: neondb_owner
+--
+
+CREATE TABLE public.account_balance_snapshots (
+    account_id uuid NOT NULL,
+    balance double precision NOT NULL,
+    horizon_xid xid8 NOT NULL,
+    taken_at timestamp without time zone NOT NULL
+);
+
+
+ALTER TABLE public.account_balance_snapshots OWNER TO neondb_owner;
+
 --
 -- Name: accounts; Type: TABLE; Schema: public; Owner: neondb_owner
 --
@@ -68,6 +113,20 @@ CREATE TABLE public.accounts (
 
 ALTER TABLE public.accounts OWNER TO neondb_owner;
 
+--
+-- Name: archived_account_counts; Type: TABLE; Schema: public; Owner: neondb_owner
+--
+
+CREATE TABLE public.archived_account_counts (
+    account_id uuid NOT NULL,
+    transaction_type character varying(50) NOT NULL,
+    month date NOT NULL,
+    transactions bigint NOT NULL
+);
+
+
+ALTER TABLE public.archived_account_counts OWNER TO neondb_owner;
+
 --
 -- Name: banks; Type: TABLE; Schema: public; Owner: neondb_owner
 --
@@ -89,6 +148,25 @@ CREATE TABLE public.banks (
 
 ALTER TABLE public.banks OWNER TO neondb_owner;
 
+--
+-- Name: daily_bank_rollup; Type: TABLE; Schema: public; Owner: neondb_owner
+--
+
+CREATE TABLE public.daily_bank_rollup (
+    day date NOT NULL,
+    bank_id uuid NOT NULL,
+    direction character varying(10) NOT NULL,
+    transaction_type character varying(50) NOT NULL,
+    status character varying(20) NOT NULL,
+    total_transactions bigint DEFAULT 0 NOT NULL,
+    total_amount double precision DEFAULT 0 NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT daily_bank_rollup_direction_check CHECK (((direction)::text = ANY ((ARRAY['INCOMING'::character varying, 'OUTGOING'::character varying])::text[])))
+);
+
+
+ALTER TABLE public.daily_bank_rollup OWNER TO neondb_owner;
+
 --
 -- Name: debt_reminders; Type: TABLE; Schema: public; Owner: neondb_owner
 --
@@ -110,6 +188,63 @@ CREATE TABLE public.debt_reminders (
 
 ALTER TABLE public.debt_reminders OWNER TO neondb_owner;
 
+--
+-- Name: interbank_outbox; Type: TABLE; Schema: public; Owner: neondb_owner
+--
+
+CREATE TABLE public.interbank_outbox (
+    outbox_id uuid DEFAULT gen_random_uuid() NOT NULL,
+    transaction_id uuid NOT NULL,
+    bank_id uuid NOT NULL,
+    status character varying(20) DEFAULT 'PENDING'::character varying NOT NULL,
+    attempts integer DEFAULT 0 NOT NULL,
+    next_attempt_at timestamp without time zone NOT NULL,
+    locked_until timestamp without time zone,
+    last_error text,
+    created_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at timestamp without time zone DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT interbank_outbox_status_check CHECK (((status)::text = ANY ((ARRAY['PENDING'::character varying, 'IN_PROGRESS'::character varying, 'SENT'::character varying, 'FAILED'::character varying, 'UNRESOLVED'::character varying])::text[])))
+);
+
+
+ALTER TABLE public.interbank_outbox OWNER TO neondb_owner;
+
+--
+-- Name: ledger_entries; Type: TABLE; Schema: public; Owner: neondb_owner
+--
+
+CREATE TABLE public.ledger_entries (
+    entry_id bigint NOT NULL,
+    transaction_id uuid,
+    account_id uuid,
+    book character varying(20) NOT NULL,
+    direction character varying(6) NOT NULL,
+    amount double precision NOT NULL,
+    writer_xid xid8 DEFAULT pg_current_xact_id() NOT NULL,
+    created_at timestamp without time zone DEFAULT LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT ledger_entries_amount_check CHECK ((amount >= (0)::double precision)),
+    CONSTRAINT ledger_entries_book_check CHECK ((((book)::text = 'CUSTOMER'::text) = (account_id IS NOT NULL))),
+    CONSTRAINT ledger_entries_book_type_check CHECK (((book)::text = ANY ((ARRAY['CUSTOMER'::character varying, 'FEE_INCOME'::character varying, 'INTERBANK_CLEARING'::character varying, 'CASH'::character varying, 'OPENING_BALANCE'::character varying])::text[]))),
+    CONSTRAINT ledger_entries_direction_check CHECK (((direction)::text = ANY ((ARRAY['DEBIT'::character varying, 'CREDIT'::character varying])::text[])))
+);
+
+
+ALTER TABLE public.ledger_entries OWNER TO neondb_owner;
+
+--
+-- Name: ledger_entries_entry_id_seq; Type: SEQUENCE; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE public.ledger_entries ALTER COLUMN entry_id ADD GENERATED ALWAYS AS IDENTITY (
+    SEQUENCE NAME public.ledger_entries_entry_id_seq
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1
+);
+
+
 --
 -- Name: notifications; Type: TABLE; Schema: public; Owner: neondb_owner
 --
@@ -182,11 +317,30 @@ CREATE TABLE public.transactions (
     CONSTRAINT transactions_fee_type_check CHECK (((fee_type)::text = ANY ((ARRAY['SENDER'::character varying, 'RECEIVER'::character varying])::text[]))),
     CONSTRAINT transactions_status_check CHECK (((status)::text = ANY ((ARRAY['PENDING'::character varying, 'COMPLETED'::character varying, 'FAILED'::character varying, 'CANCELLED'::character varying])::text[]))),
     CONSTRAINT transactions_transaction_type_check CHECK (((transaction_type)::text = ANY ((ARRAY['INTERNAL_TRANSFER'::character varying, 'INTERBANK_TRANSFER'::character varying, 'DEBT_PAYMENT'::character varying, 'DEPOSIT'::character varying])::text[])))
-);
+)
+PARTITION BY RANGE (created_at);
 
 
 ALTER TABLE public.transactions OWNER TO neondb_owner;
 
+--
+-- Name: transactions_default; Type: TABLE; Schema: public; Owner: neondb_owner
+--
+
+CREATE TABLE public.transactions_default (
+    LIKE public.transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS
+);
+
+
+ALTER TABLE public.transactions_default OWNER TO neondb_owner;
+
+--
+-- Name: transactions_default; Type: TABLE ATTACH; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.transactions ATTACH PARTITION public.transactions_default DEFAULT;
+
+
 --
 -- Name: users; Type: TABLE; Schema: public; Owner: neondb_owner
 --
@@ -210,6 +364,22 @@ CREATE TABLE public.users (
 
 ALTER TABLE public.users OWNER TO neondb_owner;
 
+--
+-- Name: account_balance_shards account_balance_shards_pkey; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.account_balance_shards
+    ADD CONSTRAINT account_balance_shards_pkey PRIMARY KEY (account_id, shard);
+
+
+--
+-- Name: account_balance_snapshots account_balance_snapshots_pkey; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.account_balance_snapshots
+    ADD CONSTRAINT account_balance_snapshots_pkey PRIMARY KEY (account_id);
+
+
 --
 -- Name: accounts accounts_account_number_key; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
 --
@@ -226,6 +396,14 @@ ALTER TABLE ONLY public.accounts
     ADD CONSTRAINT accounts_pkey PRIMARY KEY (account_id);
 
 
+--
+-- Name: archived_account_counts archived_account_counts_pkey; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.archived_account_counts
+    ADD CONSTRAINT archived_account_counts_pkey PRIMARY KEY (account_id, transaction_type, month);
+
+
 --
 -- Name: banks banks_bank_code_key; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
 --
@@ -242,6 +420,14 @@ ALTER TABLE ONLY public.banks
     ADD CONSTRAINT banks_pkey PRIMARY KEY (bank_id);
 
 
+--
+-- Name: daily_bank_rollup daily_bank_rollup_pkey; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.daily_bank_rollup
+    ADD CONSTRAINT daily_bank_rollup_pkey PRIMARY KEY (day, bank_id, direction, transaction_type, status);
+
+
 --
 -- Name: debt_reminders debt_reminders_pkey; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
 --
@@ -250,6 +436,30 @@ ALTER TABLE ONLY public.debt_reminders
     ADD CONSTRAINT debt_reminders_pkey PRIMARY KEY (debt_reminder_id);
 
 
+--
+-- Name: interbank_outbox interbank_outbox_pkey; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.interbank_outbox
+    ADD CONSTRAINT interbank_outbox_pkey PRIMARY KEY (outbox_id);
+
+
+--
+-- Name: interbank_outbox interbank_outbox_transaction_id_key; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.interbank_outbox
+    ADD CONSTRAINT interbank_outbox_transaction_id_key UNIQUE (transaction_id);
+
+
+--
+-- Name: ledger_entries ledger_entries_pkey; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.ledger_entries
+    ADD CONSTRAINT ledger_entries_pkey PRIMARY KEY (entry_id);
+
+
 --
 -- Name: notifications notifications_pkey; Type: CONSTRAINT; Schema: public; Owner: neondb_owner
 --
@@ -279,7 +489,7 @@ ALTER TABLE ONLY public.refresh_tokens
 --
 
 ALTER TABLE ONLY public.transactions
-    ADD CONSTRAINT transactions_pkey PRIMARY KEY (transaction_id);
+    ADD CONSTRAINT transactions_pkey PRIMARY KEY (transaction_id, created_at);
 
 
 --
@@ -298,6 +508,197 @@ ALTER TABLE ONLY public.users
     ADD CONSTRAINT users_pkey PRIMARY KEY (user_id);
 
 
+--
+-- Name: idx_accounts_user_id; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_accounts_user_id ON public.accounts USING btree (user_id);
+
+
+--
+-- Name: idx_banks_bank_name; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_banks_bank_name ON public.banks USING btree (bank_name);
+
+
+--
+-- Name: idx_debt_reminders_creator_status; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_debt_reminders_creator_status ON public.debt_reminders USING btree (creator_id, status);
+
+
+--
+-- Name: idx_debt_reminders_debtor_status; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_debt_reminders_debtor_status ON public.debt_reminders USING btree (debtor_id, status);
+
+
+--
+-- Name: idx_interbank_outbox_due; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_interbank_outbox_due ON public.interbank_outbox USING btree (status, next_attempt_at);
+
+
+--
+-- Name: idx_ledger_entries_account_tail; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_ledger_entries_account_tail ON public.ledger_entries USING btree (account_id, writer_xid) WHERE (account_id IS NOT NULL);
+
+
+--
+-- Name: idx_ledger_entries_transaction; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_ledger_entries_transaction ON public.ledger_entries USING btree (transaction_id);
+
+
+--
+-- Name: idx_ledger_entries_writer_xid; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_ledger_entries_writer_xid ON public.ledger_entries USING btree (writer_xid);
+
+
+--
+-- Name: idx_notifications_user_created; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_notifications_user_created ON public.notifications USING btree (user_id, created_at DESC);
+
+
+--
+-- Name: idx_recipients_account_bank; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_recipients_account_bank ON public.recipients USING btree (recipient_account_number, bank_id);
+
+
+--
+-- Name: idx_recipients_user_id; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_recipients_user_id ON public.recipients USING btree (user_id);
+
+
+--
+-- Name: idx_refresh_tokens_expires_at; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_refresh_tokens_expires_at ON public.refresh_tokens USING btree (expires_at);
+
+
+--
+-- Name: idx_refresh_tokens_user_id; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_refresh_tokens_user_id ON public.refresh_tokens USING btree (user_id);
+
+
+--
+-- Name: idx_transactions_created_at; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_transactions_created_at ON public.transactions USING btree (created_at);
+
+
+--
+-- Name: idx_transactions_from_account_history; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_transactions_from_account_history ON public.transactions USING btree (from_account_id, created_at DESC, transaction_id DESC);
+
+
+--
+-- Name: idx_transactions_from_bank_created; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_transactions_from_bank_created ON public.transactions USING btree (from_bank_id, created_at);
+
+
+--
+-- Name: idx_transactions_from_bank_updated; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_transactions_from_bank_updated ON public.transactions USING btree (from_bank_id, updated_at DESC, transaction_id DESC);
+
+
+--
+-- Name: idx_transactions_interbank_updated; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_transactions_interbank_updated ON public.transactions USING btree (updated_at DESC, transaction_id DESC) INCLUDE (from_bank_id, to_bank_id, transaction_type, status, amount) WHERE ((from_bank_id IS NOT NULL) OR (to_bank_id IS NOT NULL));
+
+
+--
+-- Name: idx_transactions_to_account_history; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_transactions_to_account_history ON public.transactions USING btree (to_account_id, created_at DESC, transaction_id DESC);
+
+
+--
+-- Name: idx_transactions_to_bank_updated; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_transactions_to_bank_updated ON public.transactions USING btree (to_bank_id, updated_at DESC, transaction_id DESC);
+
+
+--
+-- Name: idx_transactions_updated_at; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_transactions_updated_at ON public.transactions USING btree (updated_at);
+
+
+--
+-- Name: idx_users_phone; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_users_phone ON public.users USING btree (phone);
+
+
+--
+-- Name: idx_users_role; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_users_role ON public.users USING btree (role);
+
+
+--
+-- Name: idx_users_username; Type: INDEX; Schema: public; Owner: neondb_owner
+--
+
+CREATE INDEX idx_users_username ON public.users USING btree (username);
+
+
+--
+-- Name: ledger_entries ledger_entries_append_only; Type: TRIGGER; Schema: public; Owner: neondb_owner
+--
+
+CREATE TRIGGER ledger_entries_append_only BEFORE UPDATE OR DELETE OR TRUNCATE ON public.ledger_entries FOR EACH STATEMENT EXECUTE FUNCTION public.reject_ledger_entry_change();
+
+
+--
+-- Name: account_balance_shards fk_account_balance_shards_account; Type: FK CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.account_balance_shards
+    ADD CONSTRAINT fk_account_balance_shards_account FOREIGN KEY (account_id) REFERENCES public.accounts(account_id);
+
+
+--
+-- Name: account_balance_snapshots fk_account_balance_snapshots_account; Type: FK CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.account_balance_snapshots
+    ADD CONSTRAINT fk_account_balance_snapshots_account FOREIGN KEY (account_id) REFERENCES public.accounts(account_id);
+
+
 --
 -- Name: accounts fk_accounts_user; Type: FK CONSTRAINT; Schema: public; Owner: neondb_owner
 --
@@ -322,14 +723,6 @@ ALTER TABLE ONLY public.debt_reminders
     ADD CONSTRAINT fk_debt_reminders_debtor FOREIGN KEY (debtor_id) REFERENCES public.users(user_id);
 
 
---
--- Name: debt_reminders fk_debt_reminders_transaction; Type: FK CONSTRAINT; Schema: public; Owner: neondb_owner
---
-
-ALTER TABLE ONLY public.debt_reminders
-    ADD CONSTRAINT fk_debt_reminders_transaction FOREIGN KEY (transaction_id) REFERENCES public.transactions(transaction_id);
-
-
 --
 -- Name: recipients fk_recipients_bank; Type: FK CONSTRAINT; Schema: public; Owner: neondb_owner
 --
@@ -378,6 +771,22 @@ ALTER TABLE ONLY public.transactions
     ADD CONSTRAINT fk_transactions_to_bank FOREIGN KEY (to_bank_id) REFERENCES public.banks(bank_id);
 
 
+--
+-- Name: interbank_outbox fk_interbank_outbox_bank; Type: FK CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.interbank_outbox
+    ADD CONSTRAINT fk_interbank_outbox_bank FOREIGN KEY (bank_id) REFERENCES public.banks(bank_id);
+
+
+--
+-- Name: daily_bank_rollup fk_daily_bank_rollup_bank; Type: FK CONSTRAINT; Schema: public; Owner: neondb_owner
+--
+
+ALTER TABLE ONLY public.daily_bank_rollup
+    ADD CONSTRAINT fk_daily_bank_rollup_bank FOREIGN KEY (bank_id) REFERENCES public.banks(bank_id);
+
+
 --
 -- Name: notifications notifications_user_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: neondb_owner
 --